@@ -0,0 +1,131 @@
+package nl.pvanassen.steam.store;
+
+import com.google.common.io.ByteStreams;
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Inputs for the handle benchmarks: the test fixtures, and larger synthetic
+ * pages built from them
+ *
+ * @author Paul van Assen
+ */
+public final class BenchmarkFixtures {
+    private static final String HISTORY_ROW = "<div class=\"market_listing_row market_recent_listing_row\"";
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private BenchmarkFixtures() {
+        super();
+    }
+
+    /**
+     * @param file Fixture without the .gz extension, for example
+     *            /markethistory.json
+     * @return Decompressed contents of the fixture
+     * @throws IOException If the fixture can not be read
+     */
+    public static byte[] load(String file) throws IOException {
+        try (InputStream stream = StreamHelper.getStream(file)) {
+            return ByteStreams.toByteArray(stream);
+        }
+    }
+
+    /**
+     * History page with the given number of rows, repeating the rows of the
+     * history fixture. Every repetition gets its own row ids.
+     *
+     * @param rows Number of rows
+     * @return The page as returned by /market/myhistory/render
+     * @throws IOException If the fixture can not be read
+     */
+    public static byte[] history(int rows) throws IOException {
+        ObjectNode page = (ObjectNode) OBJECT_MAPPER.readTree(load("/markethistory.json"));
+        String html = page.get("results_html").asText();
+        String hovers = page.get("hovers").asText();
+        int first = html.indexOf(HISTORY_ROW);
+        List<String> templates = new ArrayList<>();
+        for (int start = first; start != -1;) {
+            int end = html.indexOf(HISTORY_ROW, start + 1);
+            templates.add(end == -1 ? html.substring(start) : html.substring(start, end));
+            start = end;
+        }
+        if (rows > (templates.size() * 26)) {
+            throw new IllegalArgumentException("At most " + (templates.size() * 26) + " rows can be generated");
+        }
+        StringBuilder resultHtml = new StringBuilder(html.substring(0, first));
+        StringBuilder resultHovers = new StringBuilder();
+        for (int row = 0; row < rows; row++) {
+            int copy = row / templates.size();
+            resultHtml.append(renumber(templates.get(row % templates.size()), copy));
+            if ((row % templates.size()) == 0) {
+                resultHovers.append(renumber(hovers, copy));
+            }
+        }
+        page.put("results_html", resultHtml.toString());
+        page.put("hovers", resultHovers.toString());
+        page.put("total_count", rows);
+        page.put("pagesize", rows);
+        return OBJECT_MAPPER.writeValueAsBytes(page);
+    }
+
+    // Replaces the first digit of the row ids, keeping their length
+    private static String renumber(String text, int copy) {
+        if (copy == 0) {
+            return text;
+        }
+        return text.replaceAll("history_row_\\d", "history_row_" + (char) ('a' + copy));
+    }
+
+    /**
+     * Inventory with the given number of items, three items sharing every
+     * description. The descriptions are copied from the 570 inventory
+     * fixture.
+     *
+     * @param items Number of items
+     * @return The inventory as returned by /inventory/json
+     * @throws IOException If the fixture can not be read
+     */
+    public static byte[] inventory(int items) throws IOException {
+        JsonNode fixture = OBJECT_MAPPER.readTree(load("/inventory-570.json"));
+        List<ObjectNode> templates = new ArrayList<>();
+        for (Iterator<JsonNode> it = fixture.get("rgDescriptions").getElements(); it.hasNext();) {
+            templates.add((ObjectNode) it.next());
+        }
+        int descriptionCount = Math.max(1, items / 3);
+        ObjectNode page = OBJECT_MAPPER.createObjectNode();
+        page.put("success", true);
+        ObjectNode inventory = page.putObject("rgInventory");
+        page.putArray("rgCurrency");
+        ObjectNode descriptions = page.putObject("rgDescriptions");
+        for (int description = 0; description < descriptionCount; description++) {
+            ObjectNode template = templates.get(description % templates.size());
+            ObjectNode copy = descriptions.putObject(classId(description) + "_" + template.get("instanceid").asText());
+            copy.putAll(template);
+            copy.put("classid", classId(description));
+        }
+        for (int item = 0; item < items; item++) {
+            int description = item % descriptionCount;
+            String id = Long.toString(4000000000L + item);
+            ObjectNode node = inventory.putObject(id);
+            node.put("id", id);
+            node.put("classid", classId(description));
+            node.put("instanceid", templates.get(description % templates.size()).get("instanceid").asText());
+            node.put("amount", "1");
+            node.put("pos", item + 1);
+        }
+        page.put("more", false);
+        page.put("more_start", false);
+        return OBJECT_MAPPER.writeValueAsBytes(page);
+    }
+
+    private static String classId(int description) {
+        return Integer.toString(900000000 + description);
+    }
+}
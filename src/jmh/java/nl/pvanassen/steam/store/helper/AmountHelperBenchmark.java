@@ -0,0 +1,94 @@
+package nl.pvanassen.steam.store.helper;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing prices with the {@link AmountHelper} compared to the replace chain
+ * behind a cache it replaced
+ *
+ * @author Paul van Assen
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AmountHelperBenchmark {
+    private static final int PRICES = 100000;
+
+    private final LoadingCache<String, Integer> legacyCache = CacheBuilder.newBuilder().concurrencyLevel(32).maximumSize(4096).build(new CacheLoader<String, Integer>() {
+        @Override
+        public Integer load(String html) throws Exception {
+            String amount = html;
+            int idx = html.indexOf('(');
+            if (idx != -1) {
+                amount = html.substring(idx + 1, html.indexOf(')') - 1);
+            }
+            return Integer.parseInt(amount.replace("&#8364;", "").replace("€", "").replace(",", "").replace(".", "").replace("-", "0").trim());
+        }
+    });
+    private String[] prices;
+
+    /**
+     * Generate mostly unique prices in the forms Steam uses
+     */
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        prices = new String[PRICES];
+        for (int i = 0; i < PRICES; i++) {
+            int cents = random.nextInt(100000);
+            String price = (cents / 100) + "," + String.format("%02d", cents % 100);
+            switch (i % 3) {
+                case 0:
+                    prices[i] = price + "€";
+                    break;
+                case 1:
+                    prices[i] = "\n\t\t" + price + "&#8364; \t";
+                    break;
+                default:
+                    prices[i] = price + "€\n\t\t(" + price + "€)\n";
+            }
+        }
+    }
+
+    /**
+     * @return Sum of the amounts
+     */
+    @Benchmark
+    public long scan() {
+        long sum = 0;
+        for (String price : prices) {
+            sum += AmountHelper.getAmount(price);
+        }
+        return sum;
+    }
+
+    /**
+     * @return Sum of the amounts
+     */
+    @Benchmark
+    public long legacyCache() {
+        long sum = 0;
+        for (String price : prices) {
+            sum += legacyCache.getUnchecked(price);
+        }
+        return sum;
+    }
+}
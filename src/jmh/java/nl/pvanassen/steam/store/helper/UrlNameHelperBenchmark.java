@@ -0,0 +1,82 @@
+package nl.pvanassen.steam.store.helper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Making url names uniform with the {@link UrlNameHelper} compared to the
+ * decode and encode round trip it replaced
+ *
+ * @author Paul van Assen
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UrlNameHelperBenchmark {
+    private static final int NAMES = 100000;
+
+    private String[] names;
+
+    /**
+     * Generate names in the forms found in links and inventories, encoded,
+     * plain and with plus signs
+     */
+    @Setup
+    public void setUp() {
+        names = new String[NAMES];
+        for (int i = 0; i < NAMES; i++) {
+            String name = "AK-47 | Redline (Field-Tested) " + (i % 20000);
+            switch (i % 3) {
+                case 0:
+                    names[i] = name.replace(" ", "%20").replace("|", "%7C").replace("(", "%28").replace(")", "%29");
+                    break;
+                case 1:
+                    names[i] = name;
+                    break;
+                default:
+                    names[i] = name.replace(' ', '+');
+            }
+        }
+    }
+
+    /**
+     * @return Total length of the names
+     */
+    @Benchmark
+    public long canonicalize() {
+        long length = 0;
+        for (String name : names) {
+            length += UrlNameHelper.getUrlName(name).length();
+        }
+        return length;
+    }
+
+    /**
+     * @return Total length of the names
+     * @throws UnsupportedEncodingException Never
+     */
+    @Benchmark
+    public long decodeEncode() throws UnsupportedEncodingException {
+        long length = 0;
+        for (String name : names) {
+            length += URLEncoder.encode(URLDecoder.decode(name, "UTF-8"), "UTF-8").replace("+", "%20").length();
+        }
+        return length;
+    }
+}
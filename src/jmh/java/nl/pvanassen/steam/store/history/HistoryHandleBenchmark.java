@@ -0,0 +1,70 @@
+package nl.pvanassen.steam.store.history;
+
+import nl.pvanassen.steam.store.BenchmarkFixtures;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the {@link HistoryHandle}
+ *
+ * @author Paul van Assen
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HistoryHandleBenchmark {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private byte[] fixture;
+    private byte[] synthetic;
+
+    /**
+     * Load the inputs
+     *
+     * @throws IOException If a fixture can not be read
+     */
+    @Setup
+    public void setUp() throws IOException {
+        fixture = BenchmarkFixtures.load("/markethistory.json");
+        synthetic = BenchmarkFixtures.history(5000);
+    }
+
+    private History handle(byte[] input) throws IOException {
+        HistoryHandle handle = new HistoryHandle(null, objectMapper);
+        handle.handle(new ByteArrayInputStream(input));
+        return handle.getHistory();
+    }
+
+    /**
+     * @return History of the 1000 row fixture
+     * @throws IOException Not expected
+     */
+    @Benchmark
+    public History fixture() throws IOException {
+        return handle(fixture);
+    }
+
+    /**
+     * @return History of a 5000 row page
+     * @throws IOException Not expected
+     */
+    @Benchmark
+    public History synthetic5000Rows() throws IOException {
+        return handle(synthetic);
+    }
+}
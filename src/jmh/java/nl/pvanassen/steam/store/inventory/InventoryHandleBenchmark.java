@@ -0,0 +1,73 @@
+package nl.pvanassen.steam.store.inventory;
+
+import nl.pvanassen.steam.store.BenchmarkFixtures;
+import nl.pvanassen.steam.store.common.InventoryItem;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the {@link InventoryHandle}
+ *
+ * @author Paul van Assen
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InventoryHandleBenchmark {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private byte[] fixture;
+    private byte[] synthetic;
+
+    /**
+     * Load the inputs
+     *
+     * @throws IOException If a fixture can not be read
+     */
+    @Setup
+    public void setUp() throws IOException {
+        fixture = BenchmarkFixtures.load("/inventory-570.json");
+        synthetic = BenchmarkFixtures.inventory(3000);
+    }
+
+    private List<InventoryItem> handle(byte[] input) throws IOException {
+        List<InventoryItem> items = new ArrayList<>();
+        new InventoryHandle(objectMapper, 2, items).handle(new ByteArrayInputStream(input));
+        return items;
+    }
+
+    /**
+     * @return Items of the 48 item fixture
+     * @throws IOException Not expected
+     */
+    @Benchmark
+    public List<InventoryItem> fixture() throws IOException {
+        return handle(fixture);
+    }
+
+    /**
+     * @return Items of a 3000 item inventory
+     * @throws IOException Not expected
+     */
+    @Benchmark
+    public List<InventoryItem> synthetic3000Items() throws IOException {
+        return handle(synthetic);
+    }
+}
@@ -0,0 +1,70 @@
+package nl.pvanassen.steam.store.item;
+
+import nl.pvanassen.steam.store.BenchmarkFixtures;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the {@link ListingPageScriptHandle}
+ *
+ * @author Paul van Assen
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListingPageScriptHandleBenchmark {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private byte[] listingPage;
+    private byte[] noListing;
+
+    /**
+     * Load the inputs
+     *
+     * @throws IOException If a fixture can not be read
+     */
+    @Setup
+    public void setUp() throws IOException {
+        listingPage = BenchmarkFixtures.load("/manco.html");
+        noListing = BenchmarkFixtures.load("/listing-page-no-listing.html");
+    }
+
+    private ListingPageScriptHandle handle(byte[] input) throws IOException {
+        ListingPageScriptHandle handle = new ListingPageScriptHandle(objectMapper);
+        handle.handle(new ByteArrayInputStream(input));
+        return handle;
+    }
+
+    /**
+     * @return Handle holding the listings and price history
+     * @throws IOException Not expected
+     */
+    @Benchmark
+    public ListingPageScriptHandle listingPage() throws IOException {
+        return handle(listingPage);
+    }
+
+    /**
+     * @return Handle of a page without listings
+     * @throws IOException Not expected
+     */
+    @Benchmark
+    public ListingPageScriptHandle noListing() throws IOException {
+        return handle(noListing);
+    }
+}
@@ -0,0 +1,140 @@
+package nl.pvanassen.steam.store.item;
+
+import nl.pvanassen.steam.store.BenchmarkFixtures;
+import nl.pvanassen.steam.store.helper.AmountHelper;
+import nl.pvanassen.steam.store.helper.UrlNameHelper;
+import org.apache.html.dom.HTMLDocumentImpl;
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.cyberneko.html.parsers.DOMFragmentParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.w3c.dom.DocumentFragment;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the {@link OverviewHandle}
+ *
+ * @author Paul van Assen
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OverviewHandleBenchmark {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private byte[] fixture;
+    // The extraction before the tokenizer, a NekoHTML fragment and XPath per row
+    private XPathExpression rowXpath;
+    private XPathExpression priceXpath;
+    private XPathExpression offeringsXpath;
+    private XPathExpression nameXpath;
+    private XPathExpression gameNameXpath;
+
+    /**
+     * Load the inputs
+     *
+     * @throws IOException If a fixture can not be read
+     * @throws XPathExpressionException If an expression of the DOM baseline
+     *             does not compile
+     */
+    @Setup
+    public void setUp() throws IOException, XPathExpressionException {
+        fixture = BenchmarkFixtures.load("/overview-ok.json");
+        XPath xpath = XPathFactory.newInstance().newXPath();
+        rowXpath = xpath.compile("//A[@class='market_listing_row_link']");
+        priceXpath = xpath.compile(".//DIV[@class='market_listing_right_cell market_listing_their_price']/SPAN/SPAN");
+        offeringsXpath = xpath.compile(".//DIV[@class='market_listing_right_cell market_listing_num_listings']/SPAN/SPAN");
+        nameXpath = xpath.compile(".//DIV[@class='market_listing_item_name_block']/SPAN[@class='market_listing_item_name']");
+        gameNameXpath = xpath.compile(".//DIV[@class='market_listing_item_name_block']/SPAN[@class='market_listing_game_name']");
+    }
+
+    /**
+     * @param blackhole Consumes the items
+     * @return Total count of the page
+     * @throws IOException Not expected
+     */
+    @Benchmark
+    public int fixture(Blackhole blackhole) throws IOException {
+        OverviewHandle handle = new OverviewHandle(blackhole::consume, objectMapper);
+        handle.handle(new ByteArrayInputStream(fixture));
+        return handle.getTotalCount();
+    }
+
+    /**
+     * Baseline without the html, the difference with {@link #fixture} is the
+     * cost of extracting the rows
+     *
+     * @return Length of the html
+     * @throws IOException Not expected
+     */
+    @Benchmark
+    public int jsonOnly() throws IOException {
+        return objectMapper.readTree(new ByteArrayInputStream(fixture)).get("results_html").asText().length();
+    }
+
+    /**
+     * The extraction {@link OverviewHandle} did before it streamed the rows
+     * out of the tokenizer, for comparison with {@link #fixture}
+     *
+     * @param blackhole Consumes the items
+     * @return Total count of the page
+     * @throws IOException Not expected
+     * @throws SAXException Not expected
+     * @throws XPathExpressionException Not expected
+     */
+    @Benchmark
+    public int legacyDom(Blackhole blackhole) throws IOException, SAXException, XPathExpressionException {
+        JsonNode jsonNode = objectMapper.readTree(new ByteArrayInputStream(fixture));
+        String html = jsonNode.get("results_html").asText();
+        DOMFragmentParser parser = new DOMFragmentParser();
+        DocumentFragment fragment = new HTMLDocumentImpl().createDocumentFragment();
+        parser.parse(new InputSource(new StringReader(html)), fragment);
+        NodeList rows = (NodeList) rowXpath.evaluate(fragment, XPathConstants.NODESET);
+        for (int i = 0; i < rows.getLength(); i++) {
+            Node row = rows.item(i);
+            String href = row.getAttributes().getNamedItem("href").getTextContent();
+            int startName = href.lastIndexOf('/');
+            int startAppId = href.lastIndexOf('/', startName - 1);
+            String urlName = href.substring(startName + 1);
+            String steamId = "unknown";
+            int idx = urlName.indexOf('-');
+            if (idx > -1) {
+                steamId = urlName.substring(0, idx);
+            }
+            int appId = Integer.parseInt(href.substring(startAppId + 1, startName));
+            Node priceSpan = (Node) priceXpath.evaluate(row, XPathConstants.NODE);
+            int currentPrice = AmountHelper.getAmount(priceSpan.getTextContent().trim().substring(1));
+            Node offersSpan = (Node) offeringsXpath.evaluate(row, XPathConstants.NODE);
+            int currentOffers = Integer.parseInt(offersSpan.getTextContent().replace(",", ""));
+            String name = ((Node) nameXpath.evaluate(row, XPathConstants.NODE)).getTextContent();
+            String gameName = ((Node) gameNameXpath.evaluate(row, XPathConstants.NODE)).getTextContent();
+            blackhole.consume(new OverviewItem(appId, name, UrlNameHelper.getUrlName(urlName), currentOffers, currentPrice, gameName, steamId));
+        }
+        return jsonNode.get("total_count").asInt();
+    }
+}
@@ -0,0 +1,65 @@
+package nl.pvanassen.steam.store.listing;
+
+import nl.pvanassen.steam.store.BenchmarkFixtures;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the {@link ListingHandle}
+ *
+ * @author Paul van Assen
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListingHandleBenchmark {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private byte[] recent;
+    private byte[] render;
+
+    /**
+     * Load the inputs
+     *
+     * @throws IOException If a fixture can not be read
+     */
+    @Setup
+    public void setUp() throws IOException {
+        recent = BenchmarkFixtures.load("/listing.json");
+        render = BenchmarkFixtures.load("/listing-page.json");
+    }
+
+    /**
+     * @param blackhole Consumes the listings
+     * @throws IOException Not expected
+     */
+    @Benchmark
+    public void recent(Blackhole blackhole) throws IOException {
+        new ListingHandle(objectMapper, blackhole::consume, "NL").handle(new ByteArrayInputStream(recent));
+    }
+
+    /**
+     * @param blackhole Consumes the listings
+     * @throws IOException Not expected
+     */
+    @Benchmark
+    public void render(Blackhole blackhole) throws IOException {
+        new ListingHandle(objectMapper, blackhole::consume, "NL").handle(new ByteArrayInputStream(render));
+    }
+}
@@ -0,0 +1,68 @@
+package nl.pvanassen.steam.store.marketpage;
+
+import nl.pvanassen.steam.store.BenchmarkFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the {@link MarketPageHandle}
+ *
+ * @author Paul van Assen
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MarketPageHandleBenchmark {
+    private byte[] loaded;
+    private byte[] buyOrders;
+
+    /**
+     * Load the inputs
+     *
+     * @throws IOException If a fixture can not be read
+     */
+    @Setup
+    public void setUp() throws IOException {
+        loaded = BenchmarkFixtures.load("/loaded-marketpage.html");
+        buyOrders = BenchmarkFixtures.load("/market-page-with-buy-orders.html");
+    }
+
+    private MarketPage handle(byte[] input) throws IOException {
+        MarketPageHandle handle = new MarketPageHandle();
+        handle.handle(new ByteArrayInputStream(input));
+        return handle.getOutstandings();
+    }
+
+    /**
+     * @return Market page with outstanding listings
+     * @throws IOException Not expected
+     */
+    @Benchmark
+    public MarketPage loaded() throws IOException {
+        return handle(loaded);
+    }
+
+    /**
+     * @return Market page with buy orders
+     * @throws IOException Not expected
+     */
+    @Benchmark
+    public MarketPage buyOrders() throws IOException {
+        return handle(buyOrders);
+    }
+}
@@ -0,0 +1,54 @@
+package nl.pvanassen.steam.store.tradeoffer;
+
+import nl.pvanassen.steam.store.BenchmarkFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the {@link ListTradeoffersHandle}
+ *
+ * @author Paul van Assen
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListTradeoffersHandleBenchmark {
+    private byte[] fixture;
+
+    /**
+     * Load the inputs
+     *
+     * @throws IOException If a fixture can not be read
+     */
+    @Setup
+    public void setUp() throws IOException {
+        fixture = BenchmarkFixtures.load("/tradeoffers.html");
+    }
+
+    /**
+     * @return Trade offers on the page
+     * @throws IOException Not expected
+     */
+    @Benchmark
+    public List<TradeOffer> fixture() throws IOException {
+        ListTradeoffersHandle handle = new ListTradeoffersHandle();
+        handle.handle(new ByteArrayInputStream(fixture));
+        return handle.getTradeoffers();
+    }
+}
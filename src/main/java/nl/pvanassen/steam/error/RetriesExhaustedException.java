@@ -0,0 +1,27 @@
+package nl.pvanassen.steam.error;
+
+/**
+ * Thrown when an operation keeps failing and its retry budget is used up
+ *
+ * @author Paul van Assen
+ */
+public class RetriesExhaustedException extends SteamException {
+    private final int attempts;
+
+    /**
+     * @param operation Description of the operation that failed
+     * @param attempts Number of attempts done
+     * @param throwable Last failure, may be null
+     */
+    public RetriesExhaustedException(String operation, int attempts, Throwable throwable) {
+        super("Giving up on " + operation + " after " + attempts + " attempts", throwable);
+        this.attempts = attempts;
+    }
+
+    /**
+     * @return Number of attempts done before giving up
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+}
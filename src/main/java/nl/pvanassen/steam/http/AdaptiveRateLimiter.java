@@ -0,0 +1,94 @@
+package nl.pvanassen.steam.http;
+
+import com.google.common.util.concurrent.RateLimiter;
+
+/**
+ * Rate limiter that increases its rate on success and decreases it when
+ * Steam tells us to slow down. The rate always stays between the floor and
+ * the ceiling.
+ *
+ * @author Paul van Assen
+ */
+public class AdaptiveRateLimiter {
+    private static final double UP = 1.05;
+    private static final double DOWN = 0.95;
+    private final RateLimiter rateLimiter;
+    private double floor;
+    private double ceiling;
+
+    AdaptiveRateLimiter(double initialRate, double floor, double ceiling) {
+        checkBounds(floor, ceiling);
+        this.floor = floor;
+        this.ceiling = ceiling;
+        this.rateLimiter = RateLimiter.create(Math.min(Math.max(initialRate, floor), ceiling));
+    }
+
+    private static void checkBounds(double floor, double ceiling) {
+        if ((floor <= 0) || (ceiling < floor)) {
+            throw new IllegalArgumentException("Invalid rate bounds, floor: " + floor + ", ceiling: " + ceiling);
+        }
+    }
+
+    /**
+     * Wait for a permit
+     *
+     * @return Time spent waiting in seconds
+     */
+    double acquire() {
+        return rateLimiter.acquire();
+    }
+
+    /**
+     * Steam accepted the request, speed up
+     */
+    synchronized void up() {
+        rateLimiter.setRate(Math.min(rateLimiter.getRate() * UP, ceiling));
+    }
+
+    /**
+     * Steam told us to slow down
+     */
+    synchronized void down() {
+        rateLimiter.setRate(Math.max(rateLimiter.getRate() * DOWN, floor));
+    }
+
+    /**
+     * Change the bounds of this limiter. The current rate is moved into the new
+     * bounds if needed.
+     *
+     * @param floor Minimum number of requests per second
+     * @param ceiling Maximum number of requests per second
+     */
+    synchronized void setBounds(double floor, double ceiling) {
+        checkBounds(floor, ceiling);
+        this.floor = floor;
+        this.ceiling = ceiling;
+        rateLimiter.setRate(Math.min(Math.max(rateLimiter.getRate(), floor), ceiling));
+    }
+
+    /**
+     * @return Current rate in requests per second
+     */
+    public double getRate() {
+        return rateLimiter.getRate();
+    }
+
+    /**
+     * @return Minimum rate in requests per second
+     */
+    public synchronized double getFloor() {
+        return floor;
+    }
+
+    /**
+     * @return Maximum rate in requests per second
+     */
+    public synchronized double getCeiling() {
+        return ceiling;
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveRateLimiter [rate=" + getRate() + ", floor=" + getFloor() + ", ceiling=" + getCeiling() + "]";
+    }
+}
@@ -0,0 +1,79 @@
+package nl.pvanassen.steam.http;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.CookieSpecs;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.nio.client.methods.HttpAsyncMethods;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.pool.PoolStats;
+
+import java.io.IOException;
+
+/**
+ * Transport sending requests to Steam using Apache http client. Blocking and
+ * non-blocking requests use the connection pool described by the
+ * {@link ConnectionPoolConfig}, the non-blocking client of the pool is created
+ * on first use, after which the limits are split between the two. Transports
+ * with an equal, shared configuration share the connections and the reactor. Non-blocking responses are passed on once the
+ * headers are in, the body is streamed into the entity while it is read.
+ *
+ * @author Paul van Assen
+ */
+public class ApacheTransport implements Transport {
+    private final ConnectionPools.Pool pool;
+    private final RequestConfig globalConfig;
+    private final CloseableHttpClient httpclient;
+    private boolean closed;
+
+    /**
+     * @param poolConfig Configuration of the connection pool
+     */
+    public ApacheTransport(ConnectionPoolConfig poolConfig) {
+        pool = ConnectionPools.acquire(poolConfig);
+        globalConfig = RequestConfig.custom().setCookieSpec(CookieSpecs.DEFAULT).setSocketTimeout(10000).setConnectionRequestTimeout(10000).setConnectTimeout(10000).build();
+        // The pool outlives this client, it is released on close
+        httpclient = HttpClients.custom().setDefaultRequestConfig(globalConfig).setConnectionManager(pool.getConnectionManager()).setConnectionManagerShared(true).build();
+    }
+
+    @Override
+    public HttpResponse execute(HttpUriRequest request, HttpClientContext context) throws IOException {
+        return httpclient.execute(request, context);
+    }
+
+    @Override
+    public void executeAsync(HttpUriRequest request, HttpClientContext context, FutureCallback<HttpResponse> callback) {
+        CloseableHttpAsyncClient asyncHttpclient;
+        try {
+            asyncHttpclient = pool.getAsyncClient(globalConfig);
+        } catch (IOReactorException e) {
+            callback.failed(e);
+            return;
+        }
+        StreamingResponseConsumer consumer = new StreamingResponseConsumer(callback);
+        asyncHttpclient.execute(HttpAsyncMethods.create(request), consumer, context, consumer.getClientCallback());
+    }
+
+    @Override
+    public PoolStats getPoolStats() {
+        return pool.getTotalStats();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            httpclient.close();
+        } finally {
+            ConnectionPools.release(pool);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package nl.pvanassen.steam.http;
+
+/**
+ * Index entry of a response in a {@link ResponseArchive}
+ *
+ * @author Paul van Assen
+ */
+public final class ArchiveEntry {
+    private final long timestamp;
+    private final String method;
+    private final String url;
+    private final int statusCode;
+    private final String contentType;
+    private final long offset;
+    private final int length;
+
+    ArchiveEntry(long timestamp, String method, String url, int statusCode, String contentType, long offset, int length) {
+        this.timestamp = timestamp;
+        this.method = method;
+        this.url = url;
+        this.statusCode = statusCode;
+        this.contentType = contentType;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * @return Time the response was recorded
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return Method of the request
+     */
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * @return Url of the request
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * @return Status code of the response
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * @return Content type of the response, empty if not sent
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    long getOffset() {
+        return offset;
+    }
+
+    int getLength() {
+        return length;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "ArchiveEntry [timestamp=" + timestamp + ", method=" + method + ", url=" + url + ", statusCode=" + statusCode + ", contentType=" + contentType + "]";
+    }
+}
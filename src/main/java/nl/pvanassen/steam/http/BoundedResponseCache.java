@@ -0,0 +1,54 @@
+package nl.pvanassen.steam.http;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+
+/**
+ * In memory response cache evicting the least recently used responses once
+ * the size limit is reached
+ *
+ * @author Paul van Assen
+ */
+public class BoundedResponseCache implements ResponseCache {
+    /**
+     * Size used when nothing is specified, 16MB
+     */
+    public static final long DEFAULT_MAX_BYTES = 16L * 1024 * 1024;
+
+    private final Cache<String, CachedResponse> cache;
+
+    /**
+     * @param maxBytes Maximum size of the cached bodies
+     */
+    public BoundedResponseCache(long maxBytes) {
+        cache = CacheBuilder.newBuilder().maximumWeight(maxBytes).weigher(new Weigher<String, CachedResponse>() {
+            @Override
+            public int weigh(String key, CachedResponse value) {
+                return (key.length() * 2) + value.getWeight();
+            }
+        }).build();
+    }
+
+    @Override
+    public CachedResponse get(String key) {
+        return cache.getIfPresent(key);
+    }
+
+    @Override
+    public void put(String key, CachedResponse response) {
+        cache.put(key, response);
+    }
+
+    @Override
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * @return Number of cached responses
+     */
+    public long size() {
+        return cache.size();
+    }
+}
@@ -0,0 +1,105 @@
+package nl.pvanassen.steam.http;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+/**
+ * Fully read response, which can be handed to any number of handles
+ *
+ * @author Paul van Assen
+ */
+public final class BufferedResponse {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BufferedResponse.class);
+    private final int statusCode;
+    private final boolean error;
+    private final byte[] body;
+    private final Exception exception;
+    private final String etag;
+    private final String lastModified;
+
+    BufferedResponse(int statusCode, boolean error, byte[] body, Exception exception, String etag, String lastModified) {
+        this.statusCode = statusCode;
+        this.error = error;
+        this.body = body;
+        this.exception = exception;
+        this.etag = etag;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * @return The http status code, 0 if no response was received
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * @return Was the response an error response or did the request fail
+     */
+    public boolean isError() {
+        return error;
+    }
+
+    /**
+     * @return Did the server confirm a cached copy is still valid
+     */
+    public boolean isNotModified() {
+        return statusCode == 304;
+    }
+
+    /**
+     * @return Length of the body
+     */
+    public int getLength() {
+        return body.length;
+    }
+
+    /**
+     * @return Exception the request failed with, null if a response was
+     *         received
+     */
+    public Exception getException() {
+        return exception;
+    }
+
+    /**
+     * @return Value of the ETag header, null if not sent
+     */
+    public String getETag() {
+        return etag;
+    }
+
+    /**
+     * @return Value of the Last-Modified header, null if not sent
+     */
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Replays the response to a handle, the way {@link Http} would have called
+     * it
+     *
+     * @param handle Handle to call
+     */
+    public void replay(Handle handle) {
+        if (exception != null) {
+            handle.handleException(exception);
+            return;
+        }
+        try {
+            if (error) {
+                handle.handleError(new ByteArrayInputStream(body));
+            } else {
+                handle.handle(new ByteArrayInputStream(body));
+            }
+        }
+        catch (IOException e) {
+            LOGGER.error("Error in protocol", e);
+            handle.handleException(e);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package nl.pvanassen.steam.http;
+
+import com.google.common.io.ByteStreams;
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Handle keeping the response in memory. {@link Http} also passes it the
+ * status and validators of the response.
+ *
+ * @author Paul van Assen
+ */
+class BufferingHandle implements Handle {
+    private int statusCode;
+    private String etag;
+    private String lastModified;
+    private byte[] body = new byte[0];
+    private boolean error;
+    private Exception exception;
+
+    void onResponse(HttpResponse response) {
+        statusCode = response.getStatusLine().getStatusCode();
+        etag = getHeader(response, "ETag");
+        lastModified = getHeader(response, "Last-Modified");
+    }
+
+    private String getHeader(HttpResponse response, String name) {
+        Header header = response.getFirstHeader(name);
+        return header == null ? null : header.getValue();
+    }
+
+    @Override
+    public void handle(InputStream stream) throws IOException {
+        body = ByteStreams.toByteArray(stream);
+        error = false;
+    }
+
+    @Override
+    public void handleError(InputStream stream) throws IOException {
+        body = ByteStreams.toByteArray(stream);
+        error = true;
+    }
+
+    @Override
+    public void handleException(Exception exception) {
+        this.exception = exception;
+        error = true;
+    }
+
+    /**
+     * @return The response, with an empty body if the server did not send one
+     */
+    BufferedResponse getResponse() {
+        return new BufferedResponse(statusCode, error, body, exception, etag, lastModified);
+    }
+}
@@ -0,0 +1,50 @@
+package nl.pvanassen.steam.http;
+
+/**
+ * Response kept in a {@link ResponseCache}, with the moment it was last
+ * confirmed by the server
+ *
+ * @author Paul van Assen
+ */
+public final class CachedResponse {
+    private final BufferedResponse response;
+    private final long storedMillis;
+
+    CachedResponse(BufferedResponse response, long storedMillis) {
+        this.response = response;
+        this.storedMillis = storedMillis;
+    }
+
+    /**
+     * @return The cached response
+     */
+    public BufferedResponse getResponse() {
+        return response;
+    }
+
+    /**
+     * @return Time the response was received or revalidated
+     */
+    public long getStoredMillis() {
+        return storedMillis;
+    }
+
+    /**
+     * @return Approximate memory used by this entry
+     */
+    public int getWeight() {
+        return response.getLength() + 128;
+    }
+
+    boolean isFresh(long now, long ttlMillis) {
+        return (now - storedMillis) < ttlMillis;
+    }
+
+    boolean hasValidator() {
+        return (response.getETag() != null) || (response.getLastModified() != null);
+    }
+
+    CachedResponse revalidated(long now) {
+        return new CachedResponse(response, now);
+    }
+}
@@ -0,0 +1,228 @@
+package nl.pvanassen.steam.http;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration of the connection pool used by a store. Stores with an equal,
+ * shared configuration use the same pool. An isolated configuration gives the
+ * store a pool of its own, so for example a buying account can not be starved
+ * by an account doing bulk crawls.
+ * <p>
+ * The limits cover blocking and non-blocking requests together. Once both are
+ * used, each gets half of every limit, with at least one connection.
+ *
+ * @author Paul van Assen
+ */
+public final class ConnectionPoolConfig {
+    /**
+     * Configuration used when nothing is specified
+     */
+    public static final ConnectionPoolConfig DEFAULT = custom().build();
+
+    private final int maxTotal;
+    private final int defaultMaxPerRoute;
+    private final Map<String, Integer> maxPerHost;
+    private final long idleEvictionMillis;
+    private final int validateAfterInactivityMillis;
+    private final boolean shared;
+
+    private ConnectionPoolConfig(Builder builder) {
+        this.maxTotal = builder.maxTotal;
+        this.defaultMaxPerRoute = builder.defaultMaxPerRoute;
+        this.maxPerHost = ImmutableMap.copyOf(builder.maxPerHost);
+        this.idleEvictionMillis = builder.idleEvictionMillis;
+        this.validateAfterInactivityMillis = builder.validateAfterInactivityMillis;
+        this.shared = builder.shared;
+    }
+
+    /**
+     * @return A builder with the default settings
+     */
+    public static Builder custom() {
+        return new Builder();
+    }
+
+    /**
+     * @return Maximum number of connections in the pool
+     */
+    public int getMaxTotal() {
+        return maxTotal;
+    }
+
+    /**
+     * @return Maximum number of connections to a single host, unless
+     *         configured otherwise for that host
+     */
+    public int getDefaultMaxPerRoute() {
+        return defaultMaxPerRoute;
+    }
+
+    /**
+     * @return Maximum number of connections for specific hosts
+     */
+    public Map<String, Integer> getMaxPerHost() {
+        return maxPerHost;
+    }
+
+    /**
+     * @return Time after which idle connections are closed, 0 if idle
+     *         connections are kept
+     */
+    public long getIdleEvictionMillis() {
+        return idleEvictionMillis;
+    }
+
+    /**
+     * @return Time of inactivity after which a connection is validated before
+     *         it is reused
+     */
+    public int getValidateAfterInactivityMillis() {
+        return validateAfterInactivityMillis;
+    }
+
+    /**
+     * @return Is the pool shared with other stores using the same configuration
+     */
+    public boolean isShared() {
+        return shared;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + defaultMaxPerRoute;
+        result = prime * result + (int) (idleEvictionMillis ^ (idleEvictionMillis >>> 32));
+        result = prime * result + maxPerHost.hashCode();
+        result = prime * result + maxTotal;
+        result = prime * result + (shared ? 1231 : 1237);
+        result = prime * result + validateAfterInactivityMillis;
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof ConnectionPoolConfig)) {
+            return false;
+        }
+        ConnectionPoolConfig other = (ConnectionPoolConfig) obj;
+        return (defaultMaxPerRoute == other.defaultMaxPerRoute) && (idleEvictionMillis == other.idleEvictionMillis) && maxPerHost.equals(other.maxPerHost)
+                && (maxTotal == other.maxTotal) && (shared == other.shared) && (validateAfterInactivityMillis == other.validateAfterInactivityMillis);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "ConnectionPoolConfig [maxTotal=" + maxTotal + ", defaultMaxPerRoute=" + defaultMaxPerRoute + ", maxPerHost=" + maxPerHost + ", idleEvictionMillis="
+                + idleEvictionMillis + ", validateAfterInactivityMillis=" + validateAfterInactivityMillis + ", shared=" + shared + "]";
+    }
+
+    /**
+     * Builder for the connection pool configuration
+     *
+     * @author Paul van Assen
+     */
+    public static final class Builder {
+        private int maxTotal = 4;
+        private int defaultMaxPerRoute = 4;
+        private final Map<String, Integer> maxPerHost = new HashMap<>();
+        private long idleEvictionMillis = TimeUnit.SECONDS.toMillis(30);
+        private int validateAfterInactivityMillis = 2000;
+        private boolean shared = true;
+
+        private Builder() {
+            super();
+        }
+
+        /**
+         * @param maxTotal Maximum number of connections in the pool
+         * @return This builder
+         */
+        public Builder setMaxTotal(int maxTotal) {
+            this.maxTotal = maxTotal;
+            return this;
+        }
+
+        /**
+         * @param defaultMaxPerRoute Maximum number of connections to a single
+         *            host
+         * @return This builder
+         */
+        public Builder setDefaultMaxPerRoute(int defaultMaxPerRoute) {
+            this.defaultMaxPerRoute = defaultMaxPerRoute;
+            return this;
+        }
+
+        /**
+         * @param host Host name, for example steamcommunity.com
+         * @param max Maximum number of connections to this host
+         * @return This builder
+         */
+        public Builder setMaxPerHost(String host, int max) {
+            maxPerHost.put(host, max);
+            return this;
+        }
+
+        /**
+         * @param idleTime Time after which idle connections are closed, 0 to
+         *            keep idle connections
+         * @param unit Unit of the idle time
+         * @return This builder
+         */
+        public Builder setIdleEviction(long idleTime, TimeUnit unit) {
+            this.idleEvictionMillis = unit.toMillis(idleTime);
+            return this;
+        }
+
+        /**
+         * @param validateAfterInactivityMillis Time of inactivity after which a
+         *            connection is validated before reuse
+         * @return This builder
+         */
+        public Builder setValidateAfterInactivity(int validateAfterInactivityMillis) {
+            this.validateAfterInactivityMillis = validateAfterInactivityMillis;
+            return this;
+        }
+
+        /**
+         * @param shared Share the pool with other stores using the same
+         *            configuration, or use an isolated pool for this store
+         * @return This builder
+         */
+        public Builder setShared(boolean shared) {
+            this.shared = shared;
+            return this;
+        }
+
+        /**
+         * @return The configuration
+         */
+        public ConnectionPoolConfig build() {
+            if ((maxTotal < 1) || (defaultMaxPerRoute < 1)) {
+                throw new IllegalArgumentException("Connection pool needs at least one connection");
+            }
+            return new ConnectionPoolConfig(this);
+        }
+    }
+}
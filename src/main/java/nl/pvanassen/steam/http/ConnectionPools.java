@@ -0,0 +1,216 @@
+package nl.pvanassen.steam.http;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.http.HttpHost;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.pool.ConnPoolControl;
+import org.apache.http.pool.PoolStats;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Creates the connection pools and keeps track of the shared ones. A pool is
+ * released when the last transport using it is closed.
+ *
+ * @author Paul van Assen
+ */
+final class ConnectionPools {
+    private static final Map<ConnectionPoolConfig, Pool> SHARED = new HashMap<>();
+
+    private ConnectionPools() {
+        super();
+    }
+
+    /**
+     * @param config Configuration of the pool
+     * @return A shared pool for this configuration, or a new one if the
+     *         configuration is isolated. Release it with
+     *         {@link #release(Pool)}.
+     */
+    static Pool acquire(ConnectionPoolConfig config) {
+        synchronized (SHARED) {
+            Pool pool = config.isShared() ? SHARED.get(config) : null;
+            if (pool == null) {
+                pool = new Pool(config);
+                if (config.isShared()) {
+                    SHARED.put(config, pool);
+                }
+            }
+            pool.references++;
+            return pool;
+        }
+    }
+
+    /**
+     * Release a pool, closing it if it is no longer used
+     *
+     * @param pool Pool acquired before
+     * @throws IOException If the pool can not be closed
+     */
+    static void release(Pool pool) throws IOException {
+        synchronized (SHARED) {
+            if (--pool.references > 0) {
+                return;
+            }
+            if (pool.config.isShared()) {
+                SHARED.remove(pool.config);
+            }
+        }
+        pool.close();
+    }
+
+    /**
+     * Apply the limits of the configuration, each passed through the share
+     * this manager gets of it
+     */
+    private static void setLimits(ConnectionPoolConfig config, ConnPoolControl<HttpRoute> control, IntUnaryOperator share) {
+        control.setMaxTotal(share.applyAsInt(config.getMaxTotal()));
+        control.setDefaultMaxPerRoute(share.applyAsInt(config.getDefaultMaxPerRoute()));
+        for (Map.Entry<String, Integer> entry : config.getMaxPerHost().entrySet()) {
+            String host = entry.getKey();
+            int max = share.applyAsInt(entry.getValue());
+            control.setMaxPerRoute(new HttpRoute(new HttpHost(host, 80, "http")), max);
+            control.setMaxPerRoute(new HttpRoute(new HttpHost(host, 443, "https"), null, true), max);
+        }
+    }
+
+    private static int blockingShare(int limit) {
+        return Math.max(1, limit / 2);
+    }
+
+    private static int asyncShare(int limit) {
+        return Math.max(1, limit - (limit / 2));
+    }
+
+    /**
+     * Blocking connection manager and non-blocking client sharing the limits
+     * of a configuration. The non-blocking client, with its reactor, is
+     * created on first use. The two can not share connections, so from then
+     * on every limit is split between them, with at least one connection
+     * each.
+     */
+    static final class Pool implements Closeable {
+        private final ConnectionPoolConfig config;
+        private final PoolingHttpClientConnectionManager connectionManager;
+        private final ScheduledExecutorService evictor;
+        private PoolingNHttpClientConnectionManager asyncConnectionManager;
+        private CloseableHttpAsyncClient asyncClient;
+        private boolean closed;
+        // Guarded by SHARED
+        private int references;
+
+        private Pool(ConnectionPoolConfig config) {
+            this.config = config;
+            connectionManager = new PoolingHttpClientConnectionManager();
+            connectionManager.setValidateAfterInactivity(config.getValidateAfterInactivityMillis());
+            setLimits(config, connectionManager, IntUnaryOperator.identity());
+            if (config.getIdleEvictionMillis() > 0) {
+                evictor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setDaemon(true).setNameFormat("steam-http-evictor-%d").build());
+                evictor.scheduleWithFixedDelay(this::evictIdle, config.getIdleEvictionMillis(), config.getIdleEvictionMillis(), TimeUnit.MILLISECONDS);
+            } else {
+                evictor = null;
+            }
+        }
+
+        PoolingHttpClientConnectionManager getConnectionManager() {
+            return connectionManager;
+        }
+
+        /**
+         * @param requestConfig Default configuration of the requests
+         * @return The non-blocking client of this pool, started
+         * @throws IOReactorException If the reactor can not be created
+         */
+        synchronized CloseableHttpAsyncClient getAsyncClient(RequestConfig requestConfig) throws IOReactorException {
+            if (closed) {
+                throw new IllegalStateException("Connection pool closed");
+            }
+            if (asyncClient == null) {
+                IOReactorConfig reactorConfig = IOReactorConfig.custom().setSoKeepAlive(true).setTcpNoDelay(true).setSoReuseAddress(true).build();
+                asyncConnectionManager = new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor(reactorConfig,
+                        new ThreadFactoryBuilder().setDaemon(true).setNameFormat("steam-http-dispatch-%d").build()));
+                // A connection closed by the other side is noticed by the
+                // reactor, so unlike the blocking pool there is nothing to
+                // validate after inactivity
+                setLimits(config, asyncConnectionManager, ConnectionPools::asyncShare);
+                // Idle blocking connections above the new limits are closed
+                // when released
+                setLimits(config, connectionManager, ConnectionPools::blockingShare);
+                asyncClient = HttpAsyncClients.custom().setDefaultRequestConfig(requestConfig).setConnectionManager(asyncConnectionManager)
+                        .setThreadFactory(new ThreadFactoryBuilder().setDaemon(true).setNameFormat("steam-http-reactor-%d").build()).build();
+                asyncClient.start();
+            }
+            return asyncClient;
+        }
+
+        /**
+         * @return Statistics of the blocking and non-blocking connections
+         *         together
+         */
+        PoolStats getTotalStats() {
+            PoolStats blocking = connectionManager.getTotalStats();
+            PoolingNHttpClientConnectionManager async;
+            synchronized (this) {
+                async = asyncConnectionManager;
+            }
+            if (async == null) {
+                return blocking;
+            }
+            PoolStats nonBlocking = async.getTotalStats();
+            return new PoolStats(blocking.getLeased() + nonBlocking.getLeased(), blocking.getPending() + nonBlocking.getPending(),
+                    blocking.getAvailable() + nonBlocking.getAvailable(), blocking.getMax() + nonBlocking.getMax());
+        }
+
+        private void evictIdle() {
+            try {
+                connectionManager.closeExpiredConnections();
+                connectionManager.closeIdleConnections(config.getIdleEvictionMillis(), TimeUnit.MILLISECONDS);
+                PoolingNHttpClientConnectionManager async;
+                synchronized (this) {
+                    async = asyncConnectionManager;
+                }
+                if (async != null) {
+                    async.closeExpiredConnections();
+                    async.closeIdleConnections(config.getIdleEvictionMillis(), TimeUnit.MILLISECONDS);
+                }
+            } catch (RuntimeException e) {
+                LoggerFactory.getLogger(ConnectionPools.class).warn("Error evicting idle connections", e);
+            }
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (evictor != null) {
+                evictor.shutdownNow();
+            }
+            try {
+                if (asyncClient != null) {
+                    // Shuts down the reactor and its connection manager
+                    asyncClient.close();
+                }
+            } finally {
+                connectionManager.shutdown();
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package nl.pvanassen.steam.http;
+
+import org.apache.http.pool.PoolStats;
+
+import java.util.List;
+
+/**
+ * Snapshot of the connection pool and the requests in flight
+ *
+ * @author Paul van Assen
+ */
+public final class ConnectionStatistics {
+    private final int leased;
+    private final int pending;
+    private final int available;
+    private final int max;
+    private final long started;
+    private final long completed;
+    private final List<InFlightRequest> inFlight;
+
+    ConnectionStatistics(PoolStats poolStats, RequestTracker tracker) {
+        this.leased = poolStats.getLeased();
+        this.pending = poolStats.getPending();
+        this.available = poolStats.getAvailable();
+        this.max = poolStats.getMax();
+        this.started = tracker.getStarted();
+        this.completed = tracker.getCompleted();
+        this.inFlight = tracker.getInFlight();
+    }
+
+    /**
+     * @return Connections in use
+     */
+    public int getLeased() {
+        return leased;
+    }
+
+    /**
+     * @return Requests waiting for a connection
+     */
+    public int getPending() {
+        return pending;
+    }
+
+    /**
+     * @return Idle connections
+     */
+    public int getAvailable() {
+        return available;
+    }
+
+    /**
+     * @return Maximum number of connections
+     */
+    public int getMax() {
+        return max;
+    }
+
+    /**
+     * @return Number of requests started
+     */
+    public long getStarted() {
+        return started;
+    }
+
+    /**
+     * @return Number of requests finished
+     */
+    public long getCompleted() {
+        return completed;
+    }
+
+    /**
+     * @return Requests in flight at the time of the snapshot
+     */
+    public List<InFlightRequest> getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "ConnectionStatistics [leased=" + leased + ", pending=" + pending + ", available=" + available + ", max=" + max + ", started=" + started + ", completed="
+                + completed + ", inFlight=" + inFlight.size() + "]";
+    }
+}
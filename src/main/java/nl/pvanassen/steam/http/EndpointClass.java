@@ -0,0 +1,85 @@
+package nl.pvanassen.steam.http;
+
+import java.net.URI;
+
+/**
+ * Classes of Steam endpoints. Every class has its own rate limiting state, so
+ * a slow down on one endpoint does not influence the others.
+ *
+ * @author Paul van Assen
+ */
+public enum EndpointClass {
+    /**
+     * The newly listed items feed, /market/recent
+     */
+    RECENT,
+    /**
+     * Rendered listings of an item, /market/listings/.../render
+     */
+    LISTINGS_RENDER,
+    /**
+     * The item page including the price history, /market/listings/...
+     */
+    ITEM_PAGE,
+    /**
+     * Search results, /market/search/render
+     */
+    SEARCH_RENDER,
+    /**
+     * Trading history, /market/myhistory/render
+     */
+    HISTORY,
+    /**
+     * Inventory json, /id/.../inventory/json/...
+     */
+    INVENTORY,
+    /**
+     * The market home page, /market/
+     */
+    MARKET_PAGE,
+    /**
+     * Anything else
+     */
+    OTHER;
+
+    /**
+     * Determine the endpoint class of an url
+     *
+     * @param url Url to classify
+     * @return The endpoint class, OTHER if unknown
+     */
+    public static EndpointClass forUrl(String url) {
+        String path;
+        try {
+            path = URI.create(url).getRawPath();
+        }
+        catch (IllegalArgumentException e) {
+            return OTHER;
+        }
+        if (path == null) {
+            return OTHER;
+        }
+        if (path.startsWith("/market/recent")) {
+            return RECENT;
+        }
+        if (path.startsWith("/market/listings/")) {
+            if (path.contains("/render")) {
+                return LISTINGS_RENDER;
+            }
+            return ITEM_PAGE;
+        }
+        if (path.startsWith("/market/search/render")) {
+            return SEARCH_RENDER;
+        }
+        if (path.startsWith("/market/myhistory")) {
+            return HISTORY;
+        }
+        if (path.contains("/inventory/json/")) {
+            return INVENTORY;
+        }
+        if ("/market/".equals(path) || "/market".equals(path)) {
+            return MARKET_PAGE;
+        }
+        return OTHER;
+    }
+}
@@ -0,0 +1,73 @@
+package nl.pvanassen.steam.http;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Instrumentation of a single endpoint class
+ *
+ * @author Paul van Assen
+ */
+class EndpointMetrics {
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+    private final LatencyHistogram timeToFirstByte = new LatencyHistogram();
+    private final LatencyHistogram handleTime = new LatencyHistogram();
+    private final LongAdder success = new LongAdder();
+    private final LongAdder clientErrors = new LongAdder();
+    private final LongAdder tooManyRequests = new LongAdder();
+    private final LongAdder serverErrors = new LongAdder();
+    private final LongAdder ioErrors = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+
+    void recordQueueWait(long nanos) {
+        queueWait.record(nanos);
+    }
+
+    void recordTimeToFirstByte(long nanos) {
+        timeToFirstByte.record(nanos);
+    }
+
+    void recordStatus(int statusCode) {
+        if (statusCode == 429) {
+            tooManyRequests.increment();
+        }
+        else if (statusCode >= 500) {
+            serverErrors.increment();
+        }
+        else if (statusCode >= 400) {
+            clientErrors.increment();
+        }
+        else {
+            success.increment();
+        }
+    }
+
+    void recordHandle(long nanos, long bytes) {
+        handleTime.record(nanos);
+        bytesRead.add(bytes);
+    }
+
+    void recordIoError() {
+        ioErrors.increment();
+    }
+
+    void recordCoalesced() {
+        coalesced.increment();
+    }
+
+    void recordCacheHit() {
+        cacheHits.increment();
+    }
+
+    void recordNotModified() {
+        notModified.increment();
+    }
+
+    EndpointStatistics snapshot(double rate) {
+        return new EndpointStatistics(rate, queueWait.snapshot(), timeToFirstByte.snapshot(), handleTime.snapshot(), success.sum(), clientErrors.sum(), tooManyRequests.sum(),
+                serverErrors.sum(), ioErrors.sum(), bytesRead.sum(), coalesced.sum(),
+                cacheHits.sum(), notModified.sum());
+    }
+}
@@ -0,0 +1,146 @@
+package nl.pvanassen.steam.http;
+
+/**
+ * Snapshot of the instrumentation of a single endpoint class
+ *
+ * @author Paul van Assen
+ */
+public final class EndpointStatistics {
+    private final double rate;
+    private final HistogramSnapshot queueWait;
+    private final HistogramSnapshot timeToFirstByte;
+    private final HistogramSnapshot handleTime;
+    private final long success;
+    private final long clientErrors;
+    private final long tooManyRequests;
+    private final long serverErrors;
+    private final long ioErrors;
+    private final long bytesRead;
+    private final long coalesced;
+    private final long cacheHits;
+    private final long notModified;
+
+    EndpointStatistics(double rate, HistogramSnapshot queueWait, HistogramSnapshot timeToFirstByte, HistogramSnapshot handleTime, long success, long clientErrors,
+            long tooManyRequests, long serverErrors, long ioErrors, long bytesRead, long coalesced,
+            long cacheHits, long notModified) {
+        this.rate = rate;
+        this.queueWait = queueWait;
+        this.timeToFirstByte = timeToFirstByte;
+        this.handleTime = handleTime;
+        this.success = success;
+        this.clientErrors = clientErrors;
+        this.tooManyRequests = tooManyRequests;
+        this.serverErrors = serverErrors;
+        this.ioErrors = ioErrors;
+        this.bytesRead = bytesRead;
+        this.coalesced = coalesced;
+        this.cacheHits = cacheHits;
+        this.notModified = notModified;
+    }
+
+    /**
+     * @return Rate in requests per second at the time of the snapshot
+     */
+    public double getRate() {
+        return rate;
+    }
+
+    /**
+     * @return Time spent waiting for the rate limiter
+     */
+    public HistogramSnapshot getQueueWait() {
+        return queueWait;
+    }
+
+    /**
+     * @return Time between sending the request and receiving the response
+     *         headers
+     */
+    public HistogramSnapshot getTimeToFirstByte() {
+        return timeToFirstByte;
+    }
+
+    /**
+     * @return Time spent in the handle reading and parsing the response
+     */
+    public HistogramSnapshot getHandleTime() {
+        return handleTime;
+    }
+
+    /**
+     * @return Number of 2xx and 3xx responses
+     */
+    public long getSuccess() {
+        return success;
+    }
+
+    /**
+     * @return Number of 4xx responses, except 429
+     */
+    public long getClientErrors() {
+        return clientErrors;
+    }
+
+    /**
+     * @return Number of 429 responses
+     */
+    public long getTooManyRequests() {
+        return tooManyRequests;
+    }
+
+    /**
+     * @return Number of 5xx responses
+     */
+    public long getServerErrors() {
+        return serverErrors;
+    }
+
+    /**
+     * @return Number of requests failing with an IO error
+     */
+    public long getIoErrors() {
+        return ioErrors;
+    }
+
+    /**
+     * @return Number of bytes read by the handles
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * @return Number of GET requests served by a concurrent identical request
+     */
+    public long getCoalesced() {
+        return coalesced;
+    }
+
+    /**
+     * @return Number of GET requests served from the cache without contacting
+     *         the server
+     */
+    public long getCacheHits() {
+        return cacheHits;
+    }
+
+    /**
+     * @return Number of cached responses revalidated by the server with a 304
+     */
+    public long getNotModified() {
+        return notModified;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "EndpointStatistics [rate=" + rate + ", queueWait=" + queueWait + ", timeToFirstByte=" + timeToFirstByte + ", handleTime=" + handleTime + ", success="
+                + success + ", clientErrors=" + clientErrors + ", tooManyRequests=" + tooManyRequests + ", serverErrors=" + serverErrors + ", ioErrors=" + ioErrors
+                + ", bytesRead=" + bytesRead + ", coalesced=" + coalesced + ", cacheHits=" + cacheHits
+                + ", notModified=" + notModified + "]";
+    }
+}
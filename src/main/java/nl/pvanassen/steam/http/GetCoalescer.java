@@ -0,0 +1,91 @@
+package nl.pvanassen.steam.http;
+
+import nl.pvanassen.steam.error.SteamException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Lets concurrent requests for the same key share one round trip. The first
+ * caller executes the request into a buffer, callers arriving while it is in
+ * flight wait for that buffer. Nothing is kept after the request is done.
+ *
+ * @author Paul van Assen
+ */
+class GetCoalescer {
+    private final ConcurrentMap<String, CompletableFuture<BufferedResponse>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * @param key Key identifying the request
+     * @param handle Handle to replay the response to
+     * @param fetch Executes the request into the handle it is given
+     * @param coalesced Called if the response of another caller is reused
+     */
+    void get(String key, Handle handle, Consumer<Handle> fetch, Runnable coalesced) {
+        CompletableFuture<BufferedResponse> own = new CompletableFuture<>();
+        CompletableFuture<BufferedResponse> shared = inFlight.putIfAbsent(key, own);
+        if (shared == null) {
+            BufferingHandle buffer = new BufferingHandle();
+            try {
+                fetch.accept(buffer);
+                own.complete(buffer.getResponse());
+            }
+            catch (RuntimeException e) {
+                own.completeExceptionally(e);
+                throw e;
+            }
+            finally {
+                inFlight.remove(key, own);
+            }
+            buffer.getResponse().replay(handle);
+            return;
+        }
+        coalesced.run();
+        BufferedResponse response;
+        try {
+            response = shared.join();
+        }
+        catch (CompletionException e) {
+            throw unwrap(e);
+        }
+        response.replay(handle);
+    }
+
+    /**
+     * @param key Key identifying the request
+     * @param handle Handle to replay the response to
+     * @param fetch Starts the request into the handle it is given
+     * @param coalesced Called if the response of another caller is reused
+     * @return Future completing once the handle is done
+     */
+    CompletableFuture<Void> getAsync(String key, Handle handle, Function<Handle, CompletableFuture<Void>> fetch, Runnable coalesced) {
+        CompletableFuture<BufferedResponse> own = new CompletableFuture<>();
+        CompletableFuture<BufferedResponse> shared = inFlight.putIfAbsent(key, own);
+        if (shared == null) {
+            BufferingHandle buffer = new BufferingHandle();
+            fetch.apply(buffer).whenComplete((result, exception) -> {
+                inFlight.remove(key, own);
+                if (exception != null) {
+                    own.completeExceptionally(exception);
+                } else {
+                    own.complete(buffer.getResponse());
+                }
+            });
+            shared = own;
+        } else {
+            coalesced.run();
+        }
+        return shared.thenAccept(response -> response.replay(handle));
+    }
+
+    private RuntimeException unwrap(CompletionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+            return (RuntimeException) e.getCause();
+        }
+        return new SteamException("Error in coalesced request", e.getCause());
+    }
+}
@@ -0,0 +1,81 @@
+package nl.pvanassen.steam.http;
+
+/**
+ * Point in time copy of a latency histogram
+ *
+ * @author Paul van Assen
+ */
+public final class HistogramSnapshot {
+    private final long[] counts;
+    private final long count;
+    private final long sumMicros;
+
+    HistogramSnapshot(long[] counts, long count, long sumMicros) {
+        this.counts = counts;
+        this.count = count;
+        this.sumMicros = sumMicros;
+    }
+
+    /**
+     * @return Number of recorded values
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return Average in milliseconds
+     */
+    public double getMeanMillis() {
+        if (count == 0) {
+            return 0;
+        }
+        return sumMicros / (double) count / 1000d;
+    }
+
+    /**
+     * @param percentile Percentile to get, between 0 and 100
+     * @return Upper bound of the percentile in milliseconds
+     */
+    public double getPercentileMillis(double percentile) {
+        long total = 0;
+        for (long bucketCount : counts) {
+            total += bucketCount;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil((percentile / 100d) * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if ((seen >= rank) && (counts[i] > 0)) {
+                return LatencyHistogram.upperBoundOf(i) / 1000d;
+            }
+        }
+        return getMaxMillis();
+    }
+
+    /**
+     * @return Upper bound of the highest recorded value in milliseconds
+     */
+    public double getMaxMillis() {
+        for (int i = counts.length - 1; i >= 0; i--) {
+            if (counts[i] > 0) {
+                return LatencyHistogram.upperBoundOf(i) / 1000d;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "[count=" + count + ", mean=" + getMeanMillis() + "ms, p50=" + getPercentileMillis(50) + "ms, p99=" + getPercentileMillis(99) + "ms, max=" + getMaxMillis()
+                + "ms]";
+    }
+}
@@ -0,0 +1,96 @@
+package nl.pvanassen.steam.http;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Health of a single host, kept as exponentially weighted moving averages so
+ * recent results count most
+ *
+ * @author Paul van Assen
+ */
+class HostHealth {
+    private static final double ALPHA = 0.2;
+    private static final int QUARANTINE_AFTER_FAILURES = 3;
+    private static final long QUARANTINE_MILLIS = TimeUnit.SECONDS.toMillis(5);
+    private static final long MAX_QUARANTINE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private final String host;
+    private double latencyMillis;
+    private double errorRate;
+    private double throttleRate;
+    private long requests;
+    private long responses;
+    private int consecutiveFailures;
+    private long quarantineUntil;
+
+    HostHealth(String host) {
+        this.host = host;
+    }
+
+    String getHost() {
+        return host;
+    }
+
+    synchronized void recordResponse(long nanos, int statusCode, long now) {
+        requests++;
+        responses++;
+        double millis = nanos / 1000000d;
+        latencyMillis = responses == 1 ? millis : latencyMillis + (ALPHA * (millis - latencyMillis));
+        boolean throttled = statusCode == 429;
+        boolean failed = statusCode >= 500;
+        throttleRate += ALPHA * ((throttled ? 1 : 0) - throttleRate);
+        errorRate += ALPHA * ((failed ? 1 : 0) - errorRate);
+        if (throttled || failed) {
+            failure(now);
+        } else {
+            consecutiveFailures = 0;
+        }
+    }
+
+    synchronized void recordIoError(long now) {
+        requests++;
+        errorRate += ALPHA * (1 - errorRate);
+        throttleRate -= ALPHA * throttleRate;
+        failure(now);
+    }
+
+    private void failure(long now) {
+        consecutiveFailures++;
+        if (consecutiveFailures >= QUARANTINE_AFTER_FAILURES) {
+            int shift = Math.min(consecutiveFailures - QUARANTINE_AFTER_FAILURES, 10);
+            quarantineUntil = now + Math.min(QUARANTINE_MILLIS << shift, MAX_QUARANTINE_MILLIS);
+        }
+    }
+
+    synchronized boolean isQuarantined(long now) {
+        return now < quarantineUntil;
+    }
+
+    synchronized long getQuarantineUntil() {
+        return quarantineUntil;
+    }
+
+    /**
+     * @return Average latency in milliseconds, NaN before the first response
+     */
+    synchronized double getLatencyMillis() {
+        return responses == 0 ? Double.NaN : latencyMillis;
+    }
+
+    /**
+     * Lower is better. Latency is weighted by the error and 429 rates and
+     * divided by the rate the host currently allows.
+     *
+     * @param rate Current rate of the host for the endpoint class
+     * @param meanLatencyMillis Mean latency of the pool, used until the host
+     *            has a latency of its own
+     * @return The score
+     */
+    synchronized double score(double rate, double meanLatencyMillis) {
+        double latency = (responses == 0 ? meanLatencyMillis : latencyMillis) + 1;
+        return (latency * (1 + (4 * errorRate)) * (1 + (8 * throttleRate))) / rate;
+    }
+
+    synchronized HostStatistics snapshot(long now) {
+        return new HostStatistics(host, latencyMillis, errorRate, throttleRate, requests, now < quarantineUntil);
+    }
+}
@@ -0,0 +1,145 @@
+package nl.pvanassen.steam.http;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Set of hosts serving the same market pages. {@link Http} reports the result
+ * of every request, and {@link #select(EndpointClass)} picks a host at
+ * random, weighted by its health. Load spreads over all usable hosts, a host
+ * twice as healthy gets twice the requests. Every host has its own rate
+ * bucket, so throughput grows with the number of usable hosts. Hosts failing
+ * repeatedly are skipped for a while.
+ *
+ * @author Paul van Assen
+ */
+public final class HostPool {
+    private final RateLimiterRegistry rateLimiters;
+    private final Map<String, HostHealth> hosts;
+
+    HostPool(Collection<String> hosts, RateLimiterRegistry rateLimiters) {
+        if (hosts.isEmpty()) {
+            throw new IllegalArgumentException("A host pool needs at least one host");
+        }
+        this.rateLimiters = rateLimiters;
+        ImmutableMap.Builder<String, HostHealth> builder = ImmutableMap.builder();
+        for (String host : hosts) {
+            builder.put(host, new HostHealth(host));
+        }
+        this.hosts = builder.build();
+    }
+
+    /**
+     * @param hosts Hosts in the pool
+     * @return A pool using the rate limiters shared by the JVM
+     */
+    public static HostPool of(Collection<String> hosts) {
+        return new HostPool(hosts, RateLimiterRegistry.getInstance());
+    }
+
+    /**
+     * @param hosts Hosts in the pool
+     * @return A pool using the rate limiters shared by the JVM
+     */
+    public static HostPool of(String... hosts) {
+        return of(Arrays.asList(hosts));
+    }
+
+    /**
+     * Pick the host to send a request to
+     *
+     * @param endpointClass Endpoint class of the request
+     * @return A usable host, picked with a chance proportional to its health
+     */
+    public String select(EndpointClass endpointClass) {
+        long now = System.currentTimeMillis();
+        HostHealth[] usable = new HostHealth[hosts.size()];
+        double[] weights = new double[hosts.size()];
+        int count = 0;
+        double total = 0;
+        HostHealth firstBack = null;
+        // Hosts without data look average, neither preferred nor avoided
+        double meanLatency = getMeanLatencyMillis();
+        for (HostHealth health : hosts.values()) {
+            if (health.isQuarantined(now)) {
+                if ((firstBack == null) || (health.getQuarantineUntil() < firstBack.getQuarantineUntil())) {
+                    firstBack = health;
+                }
+                continue;
+            }
+            // Lower scores are better
+            double weight = 1 / health.score(rateLimiters.getRateLimiter(health.getHost(), endpointClass).getRate(), meanLatency);
+            usable[count] = health;
+            weights[count] = weight;
+            total += weight;
+            count++;
+        }
+        if (count == 0) {
+            // All hosts are failing, take the one that will be back first
+            return firstBack.getHost();
+        }
+        double pick = ThreadLocalRandom.current().nextDouble(total);
+        for (int i = 0; i < count - 1; i++) {
+            pick -= weights[i];
+            if (pick < 0) {
+                return usable[i].getHost();
+            }
+        }
+        return usable[count - 1].getHost();
+    }
+
+    /**
+     * @return Mean latency of the hosts that responded, 0 if none did
+     */
+    private double getMeanLatencyMillis() {
+        double sum = 0;
+        int count = 0;
+        for (HostHealth health : hosts.values()) {
+            double latency = health.getLatencyMillis();
+            if (!Double.isNaN(latency)) {
+                sum += latency;
+                count++;
+            }
+        }
+        return count == 0 ? 0 : sum / count;
+    }
+
+    void recordResponse(String host, long nanos, int statusCode) {
+        HostHealth health = hosts.get(host);
+        if (health != null) {
+            health.recordResponse(nanos, statusCode, System.currentTimeMillis());
+        }
+    }
+
+    void recordIoError(String host) {
+        HostHealth health = hosts.get(host);
+        if (health != null) {
+            health.recordIoError(System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * @return The hosts in the pool
+     */
+    public List<String> getHosts() {
+        return ImmutableList.copyOf(hosts.keySet());
+    }
+
+    /**
+     * @return Health of every host in the pool
+     */
+    public List<HostStatistics> getStatistics() {
+        long now = System.currentTimeMillis();
+        ImmutableList.Builder<HostStatistics> statistics = ImmutableList.builder();
+        for (HostHealth health : hosts.values()) {
+            statistics.add(health.snapshot(now));
+        }
+        return statistics.build();
+    }
+}
@@ -0,0 +1,77 @@
+package nl.pvanassen.steam.http;
+
+/**
+ * Snapshot of the health of a host in a {@link HostPool}
+ *
+ * @author Paul van Assen
+ */
+public final class HostStatistics {
+    private final String host;
+    private final double latencyMillis;
+    private final double errorRate;
+    private final double throttleRate;
+    private final long requests;
+    private final boolean quarantined;
+
+    HostStatistics(String host, double latencyMillis, double errorRate, double throttleRate, long requests, boolean quarantined) {
+        this.host = host;
+        this.latencyMillis = latencyMillis;
+        this.errorRate = errorRate;
+        this.throttleRate = throttleRate;
+        this.requests = requests;
+        this.quarantined = quarantined;
+    }
+
+    /**
+     * @return The host
+     */
+    public String getHost() {
+        return host;
+    }
+
+    /**
+     * @return Moving average of the time to first byte
+     */
+    public double getLatencyMillis() {
+        return latencyMillis;
+    }
+
+    /**
+     * @return Moving average of the share of 5xx responses and IO errors
+     */
+    public double getErrorRate() {
+        return errorRate;
+    }
+
+    /**
+     * @return Moving average of the share of 429 responses
+     */
+    public double getThrottleRate() {
+        return throttleRate;
+    }
+
+    /**
+     * @return Number of requests sent to the host
+     */
+    public long getRequests() {
+        return requests;
+    }
+
+    /**
+     * @return Is the host skipped after consecutive failures
+     */
+    public boolean isQuarantined() {
+        return quarantined;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "HostStatistics [host=" + host + ", latencyMillis=" + latencyMillis + ", errorRate=" + errorRate + ", throttleRate=" + throttleRate + ", requests="
+                + requests + ", quarantined=" + quarantined + "]";
+    }
+}
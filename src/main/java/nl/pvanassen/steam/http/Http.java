@@ -1,68 +1,111 @@
 package nl.pvanassen.steam.http;
 
-import com.google.common.util.concurrent.RateLimiter;
-import nl.pvanassen.steam.error.SteamException;
+import com.google.common.io.CountingInputStream;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import nl.pvanassen.steam.error.RetriesExhaustedException;
+import org.apache.http.Header;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
 import org.apache.http.client.CookieStore;
-import org.apache.http.client.config.CookieSpecs;
-import org.apache.http.client.config.RequestConfig;
-import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.entity.DeflateDecompressingEntity;
+import org.apache.http.client.entity.GzipDecompressingEntity;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.client.utils.HttpClientUtils;
+import org.apache.http.concurrent.FutureCallback;
 import org.apache.http.conn.HttpHostConnectException;
 import org.apache.http.cookie.Cookie;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.BasicCookieStore;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
-import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.impl.cookie.BasicClientCookie;
-import org.apache.http.message.AbstractHttpMessage;
+import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.InterruptedIOException;
 import java.io.UnsupportedEncodingException;
+import java.net.URI;
 import java.net.URLDecoder;
+import java.net.ConnectException;
 import java.net.URLEncoder;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
- * Http connection helper
+ * Http connection helper. Close it when done to release the connection pool.
  *
  * @author Paul van Assen
  */
-public class Http {
-    private static final PoolingHttpClientConnectionManager CONNECTION_MANAGER = new PoolingHttpClientConnectionManager();
-    private static final RateLimiter RATE_LIMITER = RateLimiter.create(1);
-    private static final Map<Long, Exception> leakDebug = Collections.synchronizedMap(new HashMap<>());
+public class Http implements Closeable {
+    private static final RateLimiterRegistry RATE_LIMITERS = RateLimiterRegistry.getInstance();
+    private static final RequestScheduler SCHEDULER = RequestScheduler.getInstance();
+    // Waiting for a permit is done per host and endpoint class, so a slow endpoint does not hold up the others
+    private static final ConcurrentMap<String, ExecutorService> PERMIT_EXECUTORS = new ConcurrentHashMap<>();
+    // Handles are never called on the reactor threads, parsing would stall all other connections
+    private static final ExecutorService HANDLE_EXECUTOR = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+            daemonThreadFactory("steam-http-handle-%d"));
+    // Delayed retries of async requests, so no thread is blocked while backing off
+    private static final ScheduledExecutorService RETRY_SCHEDULER = Executors.newSingleThreadScheduledExecutor(daemonThreadFactory("steam-http-retry-%d"));
 
-    static {
-        CONNECTION_MANAGER.setDefaultMaxPerRoute(4);
-        CONNECTION_MANAGER.setMaxTotal(4);
-    }
-
-    private final CloseableHttpClient httpclient;
+    private final Transport transport;
     private final Logger logger = LoggerFactory.getLogger(getClass());
     private final HttpClientContext context;
+    private final RequestTracker tracker = new RequestTracker();
+    private final HttpMetrics metrics = new HttpMetrics();
+    private final HttpOptions options;
+    private final GetCoalescer coalescer = new GetCoalescer();
+    private final ResponseCache responseCache;
+    private final HostPool hostPool;
     private final String cookies;
     private final String username;
 
-    private Http(String cookies, String username) {
+    private Http(String cookies, String username, ConnectionPoolConfig poolConfig, HttpOptions options) {
         this.cookies = cookies;
-        RequestConfig globalConfig = RequestConfig.custom().setCookieSpec(CookieSpecs.DEFAULT).setSocketTimeout(10000).setConnectionRequestTimeout(10000).setConnectTimeout(10000).build();
+        this.options = options;
+        Transport baseTransport = options.getTransport() == null ? new ApacheTransport(poolConfig) : options.getTransport();
+        transport = options.getRecording() == null ? baseTransport : new RecordingTransport(baseTransport, options.getRecording());
+        hostPool = HostPool.of(options.getHosts());
+        if (options.getResponseCache() != null) {
+            responseCache = options.getResponseCache();
+        } else if (options.isCaching()) {
+            // Responses can depend on the account, so by default every instance has its own cache
+            responseCache = new BoundedResponseCache(BoundedResponseCache.DEFAULT_MAX_BYTES);
+        } else {
+            responseCache = null;
+        }
         context = HttpClientContext.create();
         this.username = username;
-        this.httpclient = HttpClients.custom().setDefaultRequestConfig(globalConfig).setConnectionManager(CONNECTION_MANAGER).build();
-        // IOReactorConfig config = IOReactorConfig.custom().setSoKeepAlive(true).setTcpNoDelay(true).setSoReuseAddress(true).build();
         init();
     }
 
+    private static ThreadFactory daemonThreadFactory(String nameFormat) {
+        return new ThreadFactoryBuilder().setDaemon(true).setNameFormat(nameFormat).build();
+    }
+
+    private static ExecutorService getPermitExecutor(String host, EndpointClass endpointClass) {
+        String key = endpointClass.name().toLowerCase() + "-" + host;
+        return PERMIT_EXECUTORS.computeIfAbsent(key, name -> Executors.newSingleThreadExecutor(daemonThreadFactory("steam-http-permit-" + name + "-%d")));
+    }
+
+    private static String getHost(HttpRequestBase httpMethod) {
+        String host = httpMethod.getURI().getHost();
+        return host == null ? RateLimiterRegistry.DEFAULT_HOST : host;
+    }
+
     /**
      * @param cookies Cookies to use for the request. This is just a simple
      *            string send out to the server in the most unsafe way possible
@@ -70,28 +113,54 @@ public class Http {
      * @return Returns an instance of the helper
      */
     public static Http getInstance(String cookies, String username) {
-        return new Http(cookies, username);
+        return getInstance(cookies, username, ConnectionPoolConfig.DEFAULT);
     }
 
-    private static void down() {
-        RATE_LIMITER.setRate(Math.max(RATE_LIMITER.getRate() * 0.95, 0.10));
+    /**
+     * @param cookies Cookies to use for the request. This is just a simple
+     *            string send out to the server in the most unsafe way possible
+     * @param username Username for the referer
+     * @param poolConfig Configuration of the connection pool
+     * @return Returns an instance of the helper
+     */
+    public static Http getInstance(String cookies, String username, ConnectionPoolConfig poolConfig) {
+        return getInstance(cookies, username, poolConfig, HttpOptions.DEFAULT);
     }
 
-    private static void up() {
-        RATE_LIMITER.setRate(Math.min(RATE_LIMITER.getRate() * 1.05, 4));
+    /**
+     * @param cookies Cookies to use for the request. This is just a simple
+     *            string send out to the server in the most unsafe way possible
+     * @param username Username for the referer
+     * @param poolConfig Configuration of the connection pool
+     * @param options Retry, coalescing, caching and transport options
+     * @return Returns an instance of the helper
+     */
+    public static Http getInstance(String cookies, String username, ConnectionPoolConfig poolConfig, HttpOptions options) {
+        return new Http(cookies, username, poolConfig, options);
     }
 
-    private void addHeaders(AbstractHttpMessage httpMessage, String referer, boolean ajax) {
+    private void addHeaders(HttpRequestBase httpMessage, String referer, boolean ajax, boolean cacheable) {
         httpMessage.addHeader("Accept", "*/*");
         httpMessage.addHeader("Accept-Encoding", "gzip, deflate");
         httpMessage.addHeader("Accept-Language", "en-US,en;q=0.5");
-        httpMessage.addHeader("Cache-Control", "no-cache");
+        if (!cacheable) {
+            httpMessage.addHeader("Cache-Control", "no-cache");
+        }
         httpMessage.addHeader("Connection", "keep-alive");
-        httpMessage.addHeader("Host", "steamcommunity.com");
-        httpMessage.addHeader("Origin", "http://steamcommunity.com");
-        httpMessage.addHeader("Pragma", "no-cache");
+        // The host of the pool the request is sent to, not always steamcommunity.com
+        URI uri = httpMessage.getURI();
+        if (uri.getHost() != null) {
+            String authority = uri.getPort() == -1 ? uri.getHost() : uri.getHost() + ":" + uri.getPort();
+            httpMessage.addHeader("Host", authority);
+            httpMessage.addHeader("Origin", uri.getScheme() + "://" + authority);
+        }
+        if (!cacheable) {
+            httpMessage.addHeader("Pragma", "no-cache");
+        }
         httpMessage.addHeader("Referer", referer);
-        httpMessage.addHeader("If-Modified-Since", "Wed, 1 Jan 2014 12:00:00 GMT");
+        if (!cacheable) {
+            httpMessage.addHeader("If-Modified-Since", "Wed, 1 Jan 2014 12:00:00 GMT");
+        }
         httpMessage.addHeader("User-Agent", "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_11_0) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/45.0.2454.101 Safari/537.36");
         if (ajax) {
             httpMessage.addHeader("X-Prototype-Version", "1.7");
@@ -110,61 +179,233 @@ public class Http {
         return cookie;
     }
 
-    private void handleConnection(HttpRequestBase httpget, Handle handle) {
-        handleConnection(httpget, handle, 0);
+    private void handleConnection(HttpRequestBase httpMethod, Handle handle) {
+        EndpointClass endpointClass = EndpointClass.forUrl(httpMethod.getURI().toString());
+        RetryBudget retryBudget = options.getRetryPolicy().newBudget();
+        Retry retry;
+        // Loop instead of recursing, a long outage should not grow the stack
+        while ((retry = executeOnce(httpMethod, handle, endpointClass)) != null) {
+            retryBudget.backOff(httpMethod.getMethod() + " " + httpMethod.getURI(), retry.retryAfterMillis, retry.cause);
+        }
     }
 
-    private void handleConnection(HttpRequestBase httpMethod, Handle handle, int attempt) {
-        long key = System.nanoTime();
-        leakDebug.put(key, new Exception("Connection tracking"));
-        logger.info("Http rate set to: " + RATE_LIMITER.getRate());
+    private Retry executeOnce(HttpRequestBase httpMethod, Handle handle, EndpointClass endpointClass) {
+        long requestId = tracker.start(httpMethod.getMethod(), httpMethod.getURI().toString());
+        String host = getHost(httpMethod);
+        AdaptiveRateLimiter rateLimiter = RATE_LIMITERS.getRateLimiter(host, endpointClass);
+        EndpointMetrics endpointMetrics = metrics.get(endpointClass);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Http rate for " + endpointClass + " set to: " + rateLimiter.getRate());
+        }
+        long waitStart = System.nanoTime();
         // Immediately execute a POST
         if (!(httpMethod instanceof HttpPost)) {
-            RATE_LIMITER.acquire();
+            SCHEDULER.await(host, RequestLane.forRequest(httpMethod.getMethod(), endpointClass));
+            rateLimiter.acquire();
         }
+        endpointMetrics.recordQueueWait(System.nanoTime() - waitStart);
         if (logger.isDebugEnabled()) {
             logger.debug("Executing request with cookies: " + getCookies());
         }
-        try (CloseableHttpResponse response = httpclient.execute(httpMethod, context)) {
+        long requestStart = System.nanoTime();
+        HttpResponse response = null;
+        try {
+            response = transport.execute(httpMethod, context);
+            long timeToFirstByte = System.nanoTime() - requestStart;
+            endpointMetrics.recordTimeToFirstByte(timeToFirstByte);
+            int statusCode = response.getStatusLine().getStatusCode();
+            endpointMetrics.recordStatus(statusCode);
+            hostPool.recordResponse(host, timeToFirstByte, statusCode);
+            if (statusCode == 429) {
+                rateLimiter.down();
+                return new Retry(getRetryAfter(response), null);
+            }
+            if (handle instanceof BufferingHandle) {
+                ((BufferingHandle) handle).onResponse(response);
+            }
             HttpEntity entity = response.getEntity();
             if (entity == null) {
-                return;
+                return null;
             }
-            try (InputStream instream = entity.getContent()) {
-                if (response.getStatusLine().getStatusCode() == 429) {
-                    down();
-                    httpMethod.releaseConnection();
-                    leakDebug.remove(key);
-                    handleConnection(httpMethod, handle, attempt + 1);
-                    return;
-                }
+            try (CountingInputStream instream = new CountingInputStream(entity.getContent())) {
+                long handleStart = System.nanoTime();
                 // Forbidden, 404, invalid request. Stop
-                if (response.getStatusLine().getStatusCode() >= 400) {
-                    logger.info("Status code: " + response.getStatusLine().getStatusCode());
+                if (statusCode >= 400) {
+                    logger.info("Status code: " + statusCode);
                     handle.handleError(instream);
                 } else {
                     handle.handle(instream);
                 }
-                up();
+                endpointMetrics.recordHandle(System.nanoTime() - handleStart, instream.getCount());
+                rateLimiter.up();
             }
         } catch (HttpHostConnectException | InterruptedIOException e) {
-            logger.warn("Pooling issues: " + CONNECTION_MANAGER.getTotalStats().toString());
-            for (Exception open : leakDebug.values()) {
-                logger.warn("Open connection: ", open);
-            }
-            if (attempt == 5) {
-                throw new SteamException("Steam hates me :(", e);
+            endpointMetrics.recordIoError();
+            hostPool.recordIoError(host);
+            logger.warn("Pooling issues: " + getConnectionStatistics());
+            for (InFlightRequest open : tracker.getInFlight()) {
+                logger.warn("Open connection: " + open, open.getOrigin());
             }
-            httpMethod.releaseConnection();
-            leakDebug.remove(key);
-            handleConnection(httpMethod, handle, attempt + 1);
+            return new Retry(0, e);
         } catch (IOException e) {
+            endpointMetrics.recordIoError();
+            hostPool.recordIoError(host);
             logger.error("Error in protocol", e);
             handle.handleException(e);
         } finally {
+            HttpClientUtils.closeQuietly(response);
             httpMethod.releaseConnection();
-            leakDebug.remove(key);
+            tracker.finish(requestId);
+        }
+        return null;
+    }
+
+    private long getRetryAfter(HttpResponse response) {
+        Header retryAfter = response.getFirstHeader("Retry-After");
+        return RetryPolicy.parseRetryAfter(retryAfter == null ? null : retryAfter.getValue(), System.currentTimeMillis());
+    }
+
+    private CompletableFuture<Void> handleAsyncConnection(HttpRequestBase httpMethod, Handle handle) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        handleAsyncConnection(httpMethod, handle, result, options.getRetryPolicy().newBudget());
+        return result;
+    }
+
+    private void handleAsyncConnection(HttpRequestBase httpMethod, Handle handle, CompletableFuture<Void> result, RetryBudget retryBudget) {
+        EndpointClass endpointClass = EndpointClass.forUrl(httpMethod.getURI().toString());
+        String host = getHost(httpMethod);
+        AdaptiveRateLimiter rateLimiter = RATE_LIMITERS.getRateLimiter(host, endpointClass);
+        // Immediately execute a POST
+        if (httpMethod instanceof HttpPost) {
+            executeAsync(httpMethod, handle, rateLimiter, result, retryBudget);
+            return;
+        }
+        long queued = System.nanoTime();
+        CompletableFuture<Void> admitted = SCHEDULER.schedule(host, RequestLane.forRequest(httpMethod.getMethod(), endpointClass));
+        admitted.thenRun(() -> getPermitExecutor(host, endpointClass).execute(() -> {
+            rateLimiter.acquire();
+            metrics.get(endpointClass).recordQueueWait(System.nanoTime() - queued);
+            executeAsync(httpMethod, handle, rateLimiter, result, retryBudget);
+        }));
+    }
+
+    private void executeAsync(HttpRequestBase httpMethod, Handle handle, AdaptiveRateLimiter rateLimiter, CompletableFuture<Void> result, RetryBudget retryBudget) {
+        EndpointMetrics endpointMetrics = metrics.get(EndpointClass.forUrl(httpMethod.getURI().toString()));
+        // The context is not thread safe, every request gets its own one sharing the cookies
+        HttpClientContext requestContext = HttpClientContext.create();
+        requestContext.setCookieStore(context.getCookieStore());
+        long requestId = tracker.start(httpMethod.getMethod(), httpMethod.getURI().toString());
+        long requestStart = System.nanoTime();
+        transport.executeAsync(httpMethod, requestContext, new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(HttpResponse response) {
+                // The body is still coming in, it is streamed to the handle
+                long timeToFirstByte = System.nanoTime() - requestStart;
+                endpointMetrics.recordTimeToFirstByte(timeToFirstByte);
+                hostPool.recordResponse(getHost(httpMethod), timeToFirstByte, response.getStatusLine().getStatusCode());
+                HANDLE_EXECUTOR.execute(() -> {
+                    try {
+                        handleAsyncResponse(httpMethod, handle, rateLimiter, endpointMetrics, response, result, retryBudget);
+                    } finally {
+                        tracker.finish(requestId);
+                    }
+                });
+            }
+
+            @Override
+            public void failed(Exception exception) {
+                tracker.finish(requestId);
+                endpointMetrics.recordIoError();
+                hostPool.recordIoError(getHost(httpMethod));
+                if ((exception instanceof ConnectException) || (exception instanceof InterruptedIOException)) {
+                    logger.warn("Connection issue, retrying " + httpMethod.getURI(), exception);
+                    retryAsync(httpMethod, handle, result, retryBudget, 0, exception);
+                    return;
+                }
+                logger.error("Error in protocol", exception);
+                HANDLE_EXECUTOR.execute(() -> {
+                    handle.handleException(exception);
+                    result.complete(null);
+                });
+            }
+
+            @Override
+            public void cancelled() {
+                tracker.finish(requestId);
+                result.cancel(false);
+            }
+        });
+    }
+
+    private void handleAsyncResponse(HttpRequestBase httpMethod, Handle handle, AdaptiveRateLimiter rateLimiter, EndpointMetrics endpointMetrics, HttpResponse response,
+            CompletableFuture<Void> result, RetryBudget retryBudget) {
+        try {
+            int statusCode = response.getStatusLine().getStatusCode();
+            endpointMetrics.recordStatus(statusCode);
+            if (statusCode == 429) {
+                rateLimiter.down();
+                // A streamed body holds on to its connection until it is read
+                EntityUtils.consumeQuietly(response.getEntity());
+                retryAsync(httpMethod, handle, result, retryBudget, getRetryAfter(response), null);
+                return;
+            }
+            if (handle instanceof BufferingHandle) {
+                ((BufferingHandle) handle).onResponse(response);
+            }
+            HttpEntity entity = response.getEntity();
+            if (entity == null) {
+                result.complete(null);
+                return;
+            }
+            // The async transport does not decompress for us
+            try (CountingInputStream instream = new CountingInputStream(decompress(response, entity).getContent())) {
+                long handleStart = System.nanoTime();
+                // Forbidden, 404, invalid request. Stop
+                if (statusCode >= 400) {
+                    logger.info("Status code: " + statusCode);
+                    handle.handleError(instream);
+                } else {
+                    handle.handle(instream);
+                }
+                endpointMetrics.recordHandle(System.nanoTime() - handleStart, instream.getCount());
+                rateLimiter.up();
+            }
+            result.complete(null);
+        } catch (IOException e) {
+            endpointMetrics.recordIoError();
+            logger.error("Error in protocol", e);
+            handle.handleException(e);
+            result.complete(null);
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        } finally {
+            // Also releases the connection if decompressing or handling failed
+            EntityUtils.consumeQuietly(response.getEntity());
+        }
+    }
+
+    private void retryAsync(HttpRequestBase httpMethod, Handle handle, CompletableFuture<Void> result, RetryBudget retryBudget, long retryAfterMillis, Throwable cause) {
+        long delay = retryBudget.nextDelayMillis(retryAfterMillis);
+        if (delay < 0) {
+            result.completeExceptionally(new RetriesExhaustedException(httpMethod.getMethod() + " " + httpMethod.getURI(), retryBudget.getAttempts(), cause));
+            return;
+        }
+        RETRY_SCHEDULER.schedule(() -> handleAsyncConnection(httpMethod, handle, result, retryBudget), delay, TimeUnit.MILLISECONDS);
+    }
+
+    private HttpEntity decompress(HttpResponse response, HttpEntity entity) {
+        Header contentEncoding = response.getFirstHeader("Content-Encoding");
+        if (contentEncoding == null) {
+            return entity;
+        }
+        String encoding = contentEncoding.getValue().toLowerCase(Locale.ENGLISH);
+        if (encoding.contains("gzip")) {
+            return new GzipDecompressingEntity(entity);
         }
+        if (encoding.contains("deflate")) {
+            return new DeflateDecompressingEntity(entity);
+        }
+        return entity;
     }
 
     private void init() {
@@ -225,9 +466,133 @@ public class Http {
      * @param ajax Is this an ajax call
      */
     public void get(String url, String referer, Handle handle, boolean ajax) {
+        EndpointClass endpointClass = EndpointClass.forUrl(url);
+        String key = getRequestKey(url, ajax);
+        long ttl = getCacheTtlMillis(endpointClass);
+        CachedResponse cached = null;
+        if (ttl > 0) {
+            cached = responseCache.get(key);
+            if ((cached != null) && cached.isFresh(System.currentTimeMillis(), ttl)) {
+                metrics.get(endpointClass).recordCacheHit();
+                cached.getResponse().replay(handle);
+                return;
+            }
+        }
+        HttpGet httpGet = createGet(url, referer, ajax, ttl > 0, cached);
+        CachedResponse stale = cached;
+        Consumer<Handle> fetch;
+        if (ttl > 0) {
+            fetch = target -> {
+                BufferingHandle network = new BufferingHandle();
+                handleConnection(httpGet, network);
+                store(endpointClass, key, stale, network.getResponse()).replay(target);
+            };
+        } else {
+            fetch = target -> handleConnection(httpGet, target);
+        }
+        if (!options.isCoalesced(endpointClass)) {
+            fetch.accept(handle);
+            return;
+        }
+        coalescer.get(key, handle, fetch, metrics.get(endpointClass)::recordCoalesced);
+    }
+
+    /**
+     * Make a non-blocking get call to the url using the provided handle. The
+     * handle is called on a worker thread once the response is in.
+     *
+     * @param url The url to call
+     * @param handle The handle to use
+     * @param ajax Is this an ajax call
+     * @return Future completing once the handle is done
+     */
+    public CompletableFuture<Void> getAsync(String url, Handle handle, boolean ajax) {
+        return getAsync(url, "http://steamcommunity.com/id/" + username + "/inventory/", handle, ajax);
+    }
+
+    /**
+     * Make a non-blocking get call to the url using the provided handle. The
+     * handle is called on a worker thread once the response is in.
+     *
+     * @param url The url to call
+     * @param referer Referer to pass to the server
+     * @param handle The handle to use
+     * @param ajax Is this an ajax call
+     * @return Future completing once the handle is done
+     */
+    public CompletableFuture<Void> getAsync(String url, String referer, Handle handle, boolean ajax) {
+        EndpointClass endpointClass = EndpointClass.forUrl(url);
+        String key = getRequestKey(url, ajax);
+        long ttl = getCacheTtlMillis(endpointClass);
+        CachedResponse cached = null;
+        if (ttl > 0) {
+            cached = responseCache.get(key);
+            if ((cached != null) && cached.isFresh(System.currentTimeMillis(), ttl)) {
+                metrics.get(endpointClass).recordCacheHit();
+                BufferedResponse hit = cached.getResponse();
+                return CompletableFuture.runAsync(() -> hit.replay(handle), HANDLE_EXECUTOR);
+            }
+        }
+        HttpGet httpGet = createGet(url, referer, ajax, ttl > 0, cached);
+        CachedResponse stale = cached;
+        Function<Handle, CompletableFuture<Void>> fetch;
+        if (ttl > 0) {
+            fetch = target -> {
+                BufferingHandle network = new BufferingHandle();
+                return handleAsyncConnection(httpGet, network).thenRun(() -> store(endpointClass, key, stale, network.getResponse()).replay(target));
+            };
+        } else {
+            fetch = target -> handleAsyncConnection(httpGet, target);
+        }
+        if (!options.isCoalesced(endpointClass)) {
+            return fetch.apply(handle);
+        }
+        return coalescer.getAsync(key, handle, fetch, metrics.get(endpointClass)::recordCoalesced);
+    }
+
+    private String getRequestKey(String url, boolean ajax) {
+        // Ajax requests can get a different representation of the same url
+        return ajax ? "ajax:" + url : url;
+    }
+
+    private long getCacheTtlMillis(EndpointClass endpointClass) {
+        if (responseCache == null) {
+            return 0;
+        }
+        return options.getCacheTtlMillis(endpointClass);
+    }
+
+    /**
+     * Updates the cache with a network response
+     *
+     * @return The response to hand to the handle
+     */
+    private BufferedResponse store(EndpointClass endpointClass, String key, CachedResponse stale, BufferedResponse response) {
+        long now = System.currentTimeMillis();
+        if (response.isNotModified() && (stale != null)) {
+            metrics.get(endpointClass).recordNotModified();
+            responseCache.put(key, stale.revalidated(now));
+            return stale.getResponse();
+        }
+        if ((response.getStatusCode() == 200) && !response.isError()) {
+            responseCache.put(key, new CachedResponse(response, now));
+        }
+        return response;
+    }
+
+    private HttpGet createGet(String url, String referer, boolean ajax, boolean cacheable, CachedResponse stale) {
         HttpGet httpget = new HttpGet(url);
-        addHeaders(httpget, referer, ajax);
-        handleConnection(httpget, handle);
+        addHeaders(httpget, referer, ajax, cacheable);
+        if ((stale != null) && stale.hasValidator()) {
+            BufferedResponse response = stale.getResponse();
+            if (response.getETag() != null) {
+                httpget.addHeader("If-None-Match", response.getETag());
+            }
+            if (response.getLastModified() != null) {
+                httpget.addHeader("If-Modified-Since", response.getLastModified());
+            }
+        }
+        return httpget;
     }
 
     /**
@@ -241,8 +606,38 @@ public class Http {
      * @throws IOException if a network error occurs
      */
     public void post(String url, Map<String, String> params, Handle handle, String referer, boolean sessionRequired, boolean reencode) throws IOException {
+        HttpPost httpPost = createPost(url, params, referer, sessionRequired, reencode);
+        if (httpPost == null) {
+            return;
+        }
+        handleConnection(httpPost, handle);
+    }
+
+    /**
+     * Non-blocking variant of
+     * {@link #post(String, Map, Handle, String, boolean, boolean)}. The handle
+     * is called on a worker thread once the response is in.
+     *
+     * @param url Url to call
+     * @param params Parameters to send with the request
+     * @param handle Handle to use
+     * @param referer Referer to pass to the server
+     * @param sessionRequired Does this request require a session? If not, like
+     *            in the case of login, don't fail on it not being present
+     * @param reencode Re-encode the parameter
+     * @return Future completing once the handle is done
+     */
+    public CompletableFuture<Void> postAsync(String url, Map<String, String> params, Handle handle, String referer, boolean sessionRequired, boolean reencode) {
+        HttpPost httpPost = createPost(url, params, referer, sessionRequired, reencode);
+        if (httpPost == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return handleAsyncConnection(httpPost, handle);
+    }
+
+    private HttpPost createPost(String url, Map<String, String> params, String referer, boolean sessionRequired, boolean reencode) {
         HttpPost httpPost = new HttpPost(url);
-        addHeaders(httpPost, referer, true);
+        addHeaders(httpPost, referer, true, false);
         String sessionid = getSessionId();
         StringBuilder sb = new StringBuilder();
         for (Map.Entry<String, String> entry : params.entrySet()) {
@@ -256,14 +651,47 @@ public class Http {
             sb.append("sessionid").append("=").append(sessionid);
             if (sessionid.isEmpty()) {
                 logger.error("Error, sessionid empty");
-                return;
+                return null;
             }
         }
         if (logger.isDebugEnabled()) {
             logger.debug("Sending POST to " + url + " with parameters " + sb.toString());
         }
         httpPost.setEntity(new StringEntity(sb.toString(), ContentType.create("application/x-www-form-urlencoded", "UTF-8")));
-        handleConnection(httpPost, handle);
+        return httpPost;
+    }
+
+    /**
+     * @return Snapshot of the connection pool and the requests in flight
+     */
+    public ConnectionStatistics getConnectionStatistics() {
+        return new ConnectionStatistics(transport.getPoolStats(), tracker);
+    }
+
+    /**
+     * @return Snapshot of the latencies and counters per endpoint class, and
+     *         of the scheduler lanes
+     */
+    public HttpStatistics getHttpStatistics() {
+        return metrics.snapshot(RATE_LIMITERS, SCHEDULER);
+    }
+
+    /**
+     * @return The hosts this instance spreads the market requests over
+     */
+    public HostPool getHostPool() {
+        return hostPool;
+    }
+
+    /**
+     * Closes the transport, releasing its connection pool when no other
+     * instance uses it
+     *
+     * @throws IOException If the transport can not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        transport.close();
     }
 
     /**
@@ -288,4 +716,17 @@ public class Http {
         }
         return null;
     }
+
+    /**
+     * Outcome of an attempt that should be retried
+     */
+    private static final class Retry {
+        private final long retryAfterMillis;
+        private final Throwable cause;
+
+        private Retry(long retryAfterMillis, Throwable cause) {
+            this.retryAfterMillis = retryAfterMillis;
+            this.cause = cause;
+        }
+    }
 }
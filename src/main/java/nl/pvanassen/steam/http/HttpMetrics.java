@@ -0,0 +1,33 @@
+package nl.pvanassen.steam.http;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Instrumentation of all endpoint classes of a http instance
+ *
+ * @author Paul van Assen
+ */
+class HttpMetrics {
+    private final Map<EndpointClass, EndpointMetrics> endpoints = new EnumMap<>(EndpointClass.class);
+
+    HttpMetrics() {
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            endpoints.put(endpointClass, new EndpointMetrics());
+        }
+    }
+
+    EndpointMetrics get(EndpointClass endpointClass) {
+        return endpoints.get(endpointClass);
+    }
+
+    HttpStatistics snapshot(RateLimiterRegistry rateLimiters, RequestScheduler scheduler) {
+        ImmutableMap.Builder<EndpointClass, EndpointStatistics> snapshot = ImmutableMap.builder();
+        for (Map.Entry<EndpointClass, EndpointMetrics> entry : endpoints.entrySet()) {
+            snapshot.put(entry.getKey(), entry.getValue().snapshot(rateLimiters.getRateLimiter(entry.getKey()).getRate()));
+        }
+        return new HttpStatistics(snapshot.build(), scheduler.getStatistics());
+    }
+}
@@ -0,0 +1,251 @@
+package nl.pvanassen.steam.http;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Behaviour of the http layer of a store, next to the connection pool
+ * configured in {@link ConnectionPoolConfig}
+ *
+ * @author Paul van Assen
+ */
+public final class HttpOptions {
+    /**
+     * Options used when nothing is specified
+     */
+    public static final HttpOptions DEFAULT = custom().build();
+
+    private final RetryPolicy retryPolicy;
+    private final Set<EndpointClass> coalesced;
+    private final Map<EndpointClass, Long> cacheTtlMillis;
+    private final ResponseCache responseCache;
+    private final List<String> hosts;
+    private final Transport transport;
+    private final ResponseArchive recording;
+
+    private HttpOptions(Builder builder) {
+        this.retryPolicy = builder.retryPolicy;
+        this.coalesced = Collections.unmodifiableSet(Sets.newEnumSet(builder.coalesced, EndpointClass.class));
+        this.cacheTtlMillis = Collections.unmodifiableMap(new EnumMap<>(builder.cacheTtlMillis));
+        this.responseCache = builder.responseCache;
+        this.hosts = ImmutableList.copyOf(builder.hosts);
+        this.transport = builder.transport;
+        this.recording = builder.recording;
+    }
+
+    /**
+     * @return A builder with the default settings
+     */
+    public static Builder custom() {
+        return new Builder();
+    }
+
+    /**
+     * @return Policy for retrying requests that are rate limited or can not
+     *         connect
+     */
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * @return Endpoint classes for which identical concurrent GET requests
+     *         share one round trip
+     */
+    public Set<EndpointClass> getCoalesced() {
+        return coalesced;
+    }
+
+    /**
+     * @param endpointClass Endpoint class to check
+     * @return Are concurrent GET requests to this endpoint class coalesced
+     */
+    public boolean isCoalesced(EndpointClass endpointClass) {
+        return coalesced.contains(endpointClass);
+    }
+
+    /**
+     * @param endpointClass Endpoint class to check
+     * @return Time a GET response of this endpoint class is used without
+     *         asking the server, 0 if responses are not cached
+     */
+    public long getCacheTtlMillis(EndpointClass endpointClass) {
+        Long ttl = cacheTtlMillis.get(endpointClass);
+        return ttl == null ? 0 : ttl;
+    }
+
+    /**
+     * @return Is any endpoint class cached
+     */
+    public boolean isCaching() {
+        return !cacheTtlMillis.isEmpty();
+    }
+
+    /**
+     * @return The cache to use, null if {@link Http} should create its own
+     */
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    /**
+     * @return Hosts to spread market requests over
+     */
+    public List<String> getHosts() {
+        return hosts;
+    }
+
+    /**
+     * @return The transport to send requests with, null if {@link Http}
+     *         should use an {@link ApacheTransport}
+     */
+    public Transport getTransport() {
+        return transport;
+    }
+
+    /**
+     * @return Archive every response is recorded in, null if not recording
+     */
+    public ResponseArchive getRecording() {
+        return recording;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "HttpOptions [retryPolicy=" + retryPolicy + ", coalesced=" + coalesced + ", cacheTtlMillis=" + cacheTtlMillis + ", responseCache=" + responseCache + ", hosts=" + hosts + ", transport=" + transport + ", recording=" + recording + "]";
+    }
+
+    /**
+     * Builder for the http options
+     *
+     * @author Paul van Assen
+     */
+    public static final class Builder {
+        private RetryPolicy retryPolicy = RetryPolicy.DEFAULT;
+        private final Set<EndpointClass> coalesced = EnumSet.noneOf(EndpointClass.class);
+        private final Map<EndpointClass, Long> cacheTtlMillis = new EnumMap<>(EndpointClass.class);
+        private ResponseCache responseCache;
+        private List<String> hosts = Collections.singletonList(RateLimiterRegistry.DEFAULT_HOST);
+        private Transport transport;
+        private ResponseArchive recording;
+
+        private Builder() {
+            super();
+        }
+
+        /**
+         * @param retryPolicy Policy for retrying requests
+         * @return This builder
+         */
+        public Builder setRetryPolicy(RetryPolicy retryPolicy) {
+            this.retryPolicy = retryPolicy;
+            return this;
+        }
+
+        /**
+         * Let concurrent GET requests for the same url to these endpoint
+         * classes share a single round trip. The response is buffered once
+         * and replayed to every waiting handle.
+         *
+         * @param endpointClasses Endpoint classes to coalesce
+         * @return This builder
+         */
+        public Builder setCoalesced(EndpointClass... endpointClasses) {
+            Collections.addAll(coalesced, endpointClasses);
+            return this;
+        }
+
+        /**
+         * Cache GET responses of an endpoint class. Within the time to live a
+         * response is reused without contacting Steam, after that it is
+         * revalidated using its ETag or Last-Modified header.
+         *
+         * @param endpointClass Endpoint class to cache
+         * @param ttl Time to live
+         * @param unit Unit of the time to live
+         * @return This builder
+         */
+        public Builder setCacheTtl(EndpointClass endpointClass, long ttl, TimeUnit unit) {
+            if (ttl <= 0) {
+                cacheTtlMillis.remove(endpointClass);
+            } else {
+                cacheTtlMillis.put(endpointClass, unit.toMillis(ttl));
+            }
+            return this;
+        }
+
+        /**
+         * @param responseCache Cache to store responses in. If not set every
+         *            {@link Http} instance gets a {@link BoundedResponseCache}
+         *            of its own, as responses can depend on the account.
+         * @return This builder
+         */
+        public Builder setResponseCache(ResponseCache responseCache) {
+            this.responseCache = responseCache;
+            return this;
+        }
+
+        /**
+         * @param hosts Hosts serving the market, requests to a service not
+         *            given a host are spread over them by health
+         * @return This builder
+         */
+        public Builder setHosts(String... hosts) {
+            this.hosts = Arrays.asList(hosts);
+            return this;
+        }
+
+        /**
+         * @param transport Transport to send requests with, for example a
+         *            {@link RecordedTransport} for load tests. If not set an
+         *            {@link ApacheTransport} using the connection pool
+         *            configuration is created. The transport is closed with
+         *            the {@link Http} instance.
+         * @return This builder
+         */
+        public Builder setTransport(Transport transport) {
+            this.transport = transport;
+            return this;
+        }
+
+        /**
+         * Record every request and response pair, for example to replay real
+         * traffic with a {@link ReplayTransport} in parser benchmarks. The
+         * archive is not closed by {@link Http}.
+         *
+         * @param recording Archive to record in, null to stop recording
+         * @return This builder
+         */
+        public Builder setRecording(ResponseArchive recording) {
+            this.recording = recording;
+            return this;
+        }
+
+        /**
+         * @return The options
+         */
+        public HttpOptions build() {
+            if (hosts.isEmpty()) {
+                throw new IllegalArgumentException("At least one host is required");
+            }
+            if (retryPolicy == null) {
+                throw new IllegalArgumentException("A retry policy is required");
+            }
+            return new HttpOptions(this);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package nl.pvanassen.steam.http;
+
+import java.util.Map;
+
+/**
+ * Snapshot of the instrumentation of a http instance, per endpoint class, and
+ * of the lanes of the shared scheduler
+ *
+ * @author Paul van Assen
+ */
+public final class HttpStatistics {
+    private final Map<EndpointClass, EndpointStatistics> endpoints;
+    private final Map<RequestLane, LaneStatistics> lanes;
+
+    HttpStatistics(Map<EndpointClass, EndpointStatistics> endpoints, Map<RequestLane, LaneStatistics> lanes) {
+        this.endpoints = endpoints;
+        this.lanes = lanes;
+    }
+
+    /**
+     * @return Statistics of all endpoint classes
+     */
+    public Map<EndpointClass, EndpointStatistics> getEndpoints() {
+        return endpoints;
+    }
+
+    /**
+     * @param endpointClass Endpoint class to get the statistics for
+     * @return Statistics of the endpoint class
+     */
+    public EndpointStatistics get(EndpointClass endpointClass) {
+        return endpoints.get(endpointClass);
+    }
+
+    /**
+     * @return Statistics of the scheduler lanes
+     */
+    public Map<RequestLane, LaneStatistics> getLanes() {
+        return lanes;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "HttpStatistics [endpoints=" + endpoints + ", lanes=" + lanes + "]";
+    }
+}
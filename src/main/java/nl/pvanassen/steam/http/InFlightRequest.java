@@ -0,0 +1,70 @@
+package nl.pvanassen.steam.http;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A request that is currently being executed
+ *
+ * @author Paul van Assen
+ */
+public final class InFlightRequest {
+    private final long id;
+    private final String method;
+    private final String url;
+    private final long startNanos;
+    private final Exception origin;
+
+    InFlightRequest(long id, String method, String url, long startNanos, Exception origin) {
+        this.id = id;
+        this.method = method;
+        this.url = url;
+        this.startNanos = startNanos;
+        this.origin = origin;
+    }
+
+    /**
+     * @return Unique id of the request
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * @return Http method
+     */
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * @return Url requested
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * @return Time since the request started in milliseconds
+     */
+    public long getAgeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * @return Exception holding the stack trace of the caller, only available
+     *         when leak diagnostics are enabled
+     */
+    public Exception getOrigin() {
+        return origin;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "InFlightRequest [id=" + id + ", method=" + method + ", url=" + url + ", ageMillis=" + getAgeMillis() + "]";
+    }
+}
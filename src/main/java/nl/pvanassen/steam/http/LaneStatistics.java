@@ -0,0 +1,58 @@
+package nl.pvanassen.steam.http;
+
+/**
+ * Snapshot of a lane of the {@link RequestScheduler}
+ *
+ * @author Paul van Assen
+ */
+public final class LaneStatistics {
+    private final RequestLane lane;
+    private final int depth;
+    private final long dispatched;
+    private final HistogramSnapshot wait;
+
+    LaneStatistics(RequestLane lane, int depth, long dispatched, HistogramSnapshot wait) {
+        this.lane = lane;
+        this.depth = depth;
+        this.dispatched = dispatched;
+        this.wait = wait;
+    }
+
+    /**
+     * @return The lane
+     */
+    public RequestLane getLane() {
+        return lane;
+    }
+
+    /**
+     * @return Number of requests waiting in the lane
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @return Number of requests let through
+     */
+    public long getDispatched() {
+        return dispatched;
+    }
+
+    /**
+     * @return Time requests waited in the lane
+     */
+    public HistogramSnapshot getWait() {
+        return wait;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "LaneStatistics [lane=" + lane + ", depth=" + depth + ", dispatched=" + dispatched + ", wait=" + wait + "]";
+    }
+}
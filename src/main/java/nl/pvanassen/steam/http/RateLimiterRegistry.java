@@ -0,0 +1,106 @@
+package nl.pvanassen.steam.http;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registry of rate limiters, one for every endpoint class and host. Steam rate
+ * limits per IP, so the registry is shared by all {@link Http} instances in
+ * the JVM.
+ *
+ * @author Paul van Assen
+ */
+public final class RateLimiterRegistry {
+    private static final double INITIAL_RATE = 1;
+    private static final double DEFAULT_FLOOR = 0.10;
+    private static final double DEFAULT_CEILING = 4;
+    private static final RateLimiterRegistry INSTANCE = new RateLimiterRegistry();
+    /**
+     * Host used when no host pool is configured
+     */
+    public static final String DEFAULT_HOST = "steamcommunity.com";
+
+    private final Map<EndpointClass, AdaptiveRateLimiter> limiters = new EnumMap<>(EndpointClass.class);
+    private final ConcurrentMap<String, Map<EndpointClass, AdaptiveRateLimiter>> hostLimiters = new ConcurrentHashMap<>();
+
+    private RateLimiterRegistry() {
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            limiters.put(endpointClass, new AdaptiveRateLimiter(INITIAL_RATE, DEFAULT_FLOOR, DEFAULT_CEILING));
+        }
+        hostLimiters.put(DEFAULT_HOST, limiters);
+    }
+
+    /**
+     * @return The registry shared by all http instances
+     */
+    public static RateLimiterRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Configure the bounds of the rate for an endpoint class
+     *
+     * @param endpointClass Endpoint class to configure
+     * @param floor Minimum number of requests per second
+     * @param ceiling Maximum number of requests per second
+     */
+    public synchronized void setBounds(EndpointClass endpointClass, double floor, double ceiling) {
+        for (Map<EndpointClass, AdaptiveRateLimiter> hostLimiter : hostLimiters.values()) {
+            hostLimiter.get(endpointClass).setBounds(floor, ceiling);
+        }
+    }
+
+    /**
+     * @param endpointClass Endpoint class to get the limiter for
+     * @return The limiter, for reading the current rate and bounds
+     */
+    public AdaptiveRateLimiter getRateLimiter(EndpointClass endpointClass) {
+        return limiters.get(endpointClass);
+    }
+
+    /**
+     * Every host has a rate bucket of its own, starting with the bounds of the
+     * default host
+     *
+     * @param host Host the request is sent to
+     * @param endpointClass Endpoint class to get the limiter for
+     * @return The limiter
+     */
+    public AdaptiveRateLimiter getRateLimiter(String host, EndpointClass endpointClass) {
+        Map<EndpointClass, AdaptiveRateLimiter> hostLimiter = hostLimiters.get(host);
+        if (hostLimiter == null) {
+            hostLimiter = createHostLimiters(host);
+        }
+        return hostLimiter.get(endpointClass);
+    }
+
+    private synchronized Map<EndpointClass, AdaptiveRateLimiter> createHostLimiters(String host) {
+        Map<EndpointClass, AdaptiveRateLimiter> hostLimiter = hostLimiters.get(host);
+        if (hostLimiter != null) {
+            return hostLimiter;
+        }
+        hostLimiter = new EnumMap<>(EndpointClass.class);
+        for (Map.Entry<EndpointClass, AdaptiveRateLimiter> entry : limiters.entrySet()) {
+            AdaptiveRateLimiter template = entry.getValue();
+            hostLimiter.put(entry.getKey(), new AdaptiveRateLimiter(INITIAL_RATE, template.getFloor(), template.getCeiling()));
+        }
+        hostLimiters.put(host, hostLimiter);
+        return hostLimiter;
+    }
+
+    /**
+     * @return Current rates in requests per second per endpoint class of the
+     *         default host
+     */
+    public Map<EndpointClass, Double> getRates() {
+        ImmutableMap.Builder<EndpointClass, Double> rates = ImmutableMap.builder();
+        for (Map.Entry<EndpointClass, AdaptiveRateLimiter> entry : limiters.entrySet()) {
+            rates.put(entry.getKey(), entry.getValue().getRate());
+        }
+        return rates.build();
+    }
+}
@@ -0,0 +1,163 @@
+package nl.pvanassen.steam.http;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.pool.PoolStats;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * In process transport answering with recorded responses, for running the
+ * services without touching Steam. Responses are matched on the path and
+ * query of the url, the first matching recording wins. Unmatched requests get
+ * a 404.
+ *
+ * @author Paul van Assen
+ */
+public class RecordedTransport implements Transport {
+    private static final ExecutorService ASYNC = Executors.newCachedThreadPool(new ThreadFactoryBuilder().setDaemon(true).setNameFormat("steam-http-recorded-%d").build());
+    private final List<Recording> recordings = new CopyOnWriteArrayList<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong served = new AtomicLong();
+    private volatile long latencyMillis;
+
+    /**
+     * Answer requests matching the pattern with a fixed body
+     *
+     * @param pathPattern Regular expression searched for in the path and query
+     * @param statusCode Status code to answer with
+     * @param body Body to answer with
+     * @return This transport
+     */
+    public RecordedTransport addResponse(String pathPattern, int statusCode, byte[] body) {
+        recordings.add(new Recording(Pattern.compile(pathPattern), statusCode, body));
+        return this;
+    }
+
+    /**
+     * Answer requests matching the pattern with a classpath resource. Resources
+     * ending with .gz are decompressed, like the test fixtures.
+     *
+     * @param pathPattern Regular expression searched for in the path and query
+     * @param statusCode Status code to answer with
+     * @param resource Name of the classpath resource
+     * @return This transport
+     * @throws IOException If the resource can not be read
+     */
+    public RecordedTransport addResource(String pathPattern, int statusCode, String resource) throws IOException {
+        InputStream stream = RecordedTransport.class.getResourceAsStream(resource);
+        if (stream == null) {
+            throw new FileNotFoundException(resource);
+        }
+        try (InputStream in = resource.endsWith(".gz") ? new GZIPInputStream(stream) : stream) {
+            return addResponse(pathPattern, statusCode, ByteStreams.toByteArray(in));
+        }
+    }
+
+    /**
+     * @param latency Time every response takes, to simulate the network
+     * @param unit Unit of the latency
+     * @return This transport
+     */
+    public RecordedTransport setLatency(long latency, TimeUnit unit) {
+        this.latencyMillis = unit.toMillis(latency);
+        return this;
+    }
+
+    /**
+     * @return Number of requests answered
+     */
+    public long getServed() {
+        return served.get();
+    }
+
+    @Override
+    public HttpResponse execute(HttpUriRequest request, HttpClientContext context) throws IOException {
+        inFlight.incrementAndGet();
+        try {
+            if (latencyMillis > 0) {
+                Thread.sleep(latencyMillis);
+            }
+            String pathAndQuery = request.getURI().getRawPath();
+            if (request.getURI().getRawQuery() != null) {
+                pathAndQuery += "?" + request.getURI().getRawQuery();
+            }
+            served.incrementAndGet();
+            for (Recording recording : recordings) {
+                if (recording.pattern.matcher(pathAndQuery).find()) {
+                    return recording.toResponse();
+                }
+            }
+            return new Recording(null, 404, new byte[0]).toResponse();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while simulating latency");
+        }
+        finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void executeAsync(HttpUriRequest request, HttpClientContext context, FutureCallback<HttpResponse> callback) {
+        ASYNC.execute(() -> {
+            HttpResponse response;
+            try {
+                response = execute(request, context);
+            }
+            catch (IOException e) {
+                callback.failed(e);
+                return;
+            }
+            callback.completed(response);
+        });
+    }
+
+    @Override
+    public PoolStats getPoolStats() {
+        return new PoolStats(inFlight.get(), 0, 0, 0);
+    }
+
+    @Override
+    public void close() {
+        // Nothing to release
+    }
+
+    private static class Recording {
+        private final Pattern pattern;
+        private final int statusCode;
+        private final byte[] body;
+
+        private Recording(Pattern pattern, int statusCode, byte[] body) {
+            this.pattern = pattern;
+            this.statusCode = statusCode;
+            this.body = body;
+        }
+
+        private HttpResponse toResponse() {
+            BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, statusCode, statusCode < 400 ? "OK" : "Error");
+            response.setEntity(new ByteArrayEntity(body));
+            return response;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package nl.pvanassen.steam.http;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.entity.DeflateDecompressingEntity;
+import org.apache.http.client.entity.GzipDecompressingEntity;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Transport appending every response of another transport to a
+ * {@link ResponseArchive}. Bodies are buffered and stored decompressed, the
+ * response passed on carries the buffered body. Non-blocking responses are
+ * buffered on a thread of their own, as their body may still be coming in.
+ *
+ * @author Paul van Assen
+ */
+public class RecordingTransport implements Transport {
+    private static final ExecutorService RECORDER = Executors.newCachedThreadPool(new ThreadFactoryBuilder().setDaemon(true).setNameFormat("steam-http-recording-%d").build());
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final Transport delegate;
+    private final ResponseArchive archive;
+
+    /**
+     * @param delegate Transport sending the requests
+     * @param archive Archive to record the responses in
+     */
+    public RecordingTransport(Transport delegate, ResponseArchive archive) {
+        this.delegate = delegate;
+        this.archive = archive;
+    }
+
+    private HttpResponse record(HttpUriRequest request, HttpResponse response) throws IOException {
+        HttpEntity entity = response.getEntity();
+        byte[] body = new byte[0];
+        String contentType = null;
+        if (entity != null) {
+            body = EntityUtils.toByteArray(decompress(response, entity));
+            contentType = entity.getContentType() == null ? null : entity.getContentType().getValue();
+            ByteArrayEntity buffered = new ByteArrayEntity(body);
+            buffered.setContentType(contentType);
+            response.removeHeaders("Content-Encoding");
+            response.setEntity(buffered);
+        }
+        try {
+            archive.append(request.getMethod(), request.getURI().toString(), response.getStatusLine().getStatusCode(), contentType, body);
+        }
+        catch (IOException e) {
+            // Losing a recording should not fail the request
+            logger.warn("Error recording response of " + request.getURI(), e);
+        }
+        return response;
+    }
+
+    private static HttpEntity decompress(HttpResponse response, HttpEntity entity) {
+        Header contentEncoding = response.getFirstHeader("Content-Encoding");
+        if (contentEncoding == null) {
+            return entity;
+        }
+        String encoding = contentEncoding.getValue().toLowerCase(Locale.ENGLISH);
+        if (encoding.contains("gzip")) {
+            return new GzipDecompressingEntity(entity);
+        }
+        if (encoding.contains("deflate")) {
+            return new DeflateDecompressingEntity(entity);
+        }
+        return entity;
+    }
+
+    @Override
+    public HttpResponse execute(HttpUriRequest request, HttpClientContext context) throws IOException {
+        return record(request, delegate.execute(request, context));
+    }
+
+    @Override
+    public void executeAsync(HttpUriRequest request, HttpClientContext context, FutureCallback<HttpResponse> callback) {
+        delegate.executeAsync(request, context, new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(HttpResponse response) {
+                RECORDER.execute(() -> {
+                    HttpResponse recorded;
+                    try {
+                        recorded = record(request, response);
+                    }
+                    catch (IOException e) {
+                        callback.failed(e);
+                        return;
+                    }
+                    callback.completed(recorded);
+                });
+            }
+
+            @Override
+            public void failed(Exception exception) {
+                callback.failed(exception);
+            }
+
+            @Override
+            public void cancelled() {
+                callback.cancelled();
+            }
+        });
+    }
+
+    @Override
+    public PoolStats getPoolStats() {
+        return delegate.getPoolStats();
+    }
+
+    /**
+     * Closes the transport sending the requests, the archive is left open
+     */
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+}
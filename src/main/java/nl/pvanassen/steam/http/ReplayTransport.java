@@ -0,0 +1,132 @@
+package nl.pvanassen.steam.http;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.pool.PoolStats;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Transport answering requests from a {@link ResponseArchive} as fast as
+ * possible. All bodies are loaded in memory up front. Requests are matched on
+ * method, path and query, ignoring the host, and a url recorded more than once
+ * is answered with its recordings in turn. Unmatched requests get a 404.
+ * <p>
+ * Async requests are answered on the calling thread.
+ *
+ * @author Paul van Assen
+ */
+public class ReplayTransport implements Transport {
+    private final Map<String, Replay> replays = new HashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong served = new AtomicLong();
+    private final AtomicLong unmatched = new AtomicLong();
+
+    /**
+     * @param archive Archive to replay, may be closed afterwards
+     * @throws IOException If the archive can not be read
+     */
+    public ReplayTransport(ResponseArchive archive) throws IOException {
+        for (ArchiveEntry entry : archive.getEntries()) {
+            String key = getKey(entry.getMethod(), URI.create(entry.getUrl()));
+            replays.computeIfAbsent(key, k -> new Replay()).responses.add(new Response(entry, archive.readBody(entry)));
+        }
+    }
+
+    private static String getKey(String method, URI uri) {
+        String key = method + " " + uri.getRawPath();
+        if (uri.getRawQuery() != null) {
+            key += "?" + uri.getRawQuery();
+        }
+        return key;
+    }
+
+    /**
+     * @return Number of requests answered from the archive
+     */
+    public long getServed() {
+        return served.get();
+    }
+
+    /**
+     * @return Number of requests not in the archive
+     */
+    public long getUnmatched() {
+        return unmatched.get();
+    }
+
+    @Override
+    public HttpResponse execute(HttpUriRequest request, HttpClientContext context) {
+        inFlight.incrementAndGet();
+        try {
+            Replay replay = replays.get(getKey(request.getMethod(), request.getURI()));
+            if (replay == null) {
+                unmatched.incrementAndGet();
+                BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 404, "Not recorded");
+                response.setEntity(new ByteArrayEntity(new byte[0]));
+                return response;
+            }
+            served.incrementAndGet();
+            return replay.next().toResponse();
+        }
+        finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void executeAsync(HttpUriRequest request, HttpClientContext context, FutureCallback<HttpResponse> callback) {
+        callback.completed(execute(request, context));
+    }
+
+    @Override
+    public PoolStats getPoolStats() {
+        return new PoolStats(inFlight.get(), 0, 0, 0);
+    }
+
+    @Override
+    public void close() {
+        // Nothing to release
+    }
+
+    private static class Replay {
+        private final List<Response> responses = new ArrayList<>(1);
+        private final AtomicInteger next = new AtomicInteger();
+
+        private Response next() {
+            return responses.get(Math.floorMod(next.getAndIncrement(), responses.size()));
+        }
+    }
+
+    private static class Response {
+        private final int statusCode;
+        private final String contentType;
+        private final byte[] body;
+
+        private Response(ArchiveEntry entry, byte[] body) {
+            this.statusCode = entry.getStatusCode();
+            this.contentType = entry.getContentType().isEmpty() ? null : entry.getContentType();
+            this.body = body;
+        }
+
+        private HttpResponse toResponse() {
+            BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, statusCode, statusCode < 400 ? "OK" : "Error");
+            ByteArrayEntity entity = new ByteArrayEntity(body);
+            entity.setContentType(contentType);
+            response.setEntity(entity);
+            return response;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package nl.pvanassen.steam.http;
+
+/**
+ * Priority lanes of the {@link RequestScheduler}. The rate budget is shared
+ * between the lanes with waiting requests in proportion to their weight.
+ *
+ * @author Paul van Assen
+ */
+public enum RequestLane {
+    /**
+     * Buying and all other POSTs. These are never queued, {@link Http} does
+     * not pass them through the scheduler at all.
+     */
+    BUY(0),
+    /**
+     * The newly listed feed, feeding the buy decisions
+     */
+    NEW_LISTINGS(8),
+    /**
+     * Item pages and rendered listings
+     */
+    ITEM_PAGES(4),
+    /**
+     * Crawls like history, inventory and search
+     */
+    BACKGROUND(1);
+
+    private final int weight;
+
+    private RequestLane(int weight) {
+        this.weight = weight;
+    }
+
+    /**
+     * @return Share of the rate budget relative to the other lanes, 0 for a
+     *         lane that is never queued
+     */
+    public int getWeight() {
+        return weight;
+    }
+
+    /**
+     * Determine the lane of a request
+     *
+     * @param method Http method
+     * @param endpointClass Endpoint class of the url
+     * @return The lane
+     */
+    public static RequestLane forRequest(String method, EndpointClass endpointClass) {
+        if ("POST".equals(method)) {
+            return BUY;
+        }
+        switch (endpointClass) {
+            case RECENT:
+                return NEW_LISTINGS;
+            case ITEM_PAGE:
+            case LISTINGS_RENDER:
+                return ITEM_PAGES;
+            default:
+                return BACKGROUND;
+        }
+    }
+}
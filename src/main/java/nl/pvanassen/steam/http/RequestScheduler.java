@@ -0,0 +1,288 @@
+package nl.pvanassen.steam.http;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.RateLimiter;
+import nl.pvanassen.steam.error.SteamException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admits GET requests to Steam from a rate budget per host. Requests wait in
+ * the lane of their {@link RequestLane}, and every permit of a host goes to
+ * the waiting lane that is furthest behind its weighted share (weighted fair
+ * queueing). Once more requests wait than the budget allows, a long crawl in
+ * one lane can no longer delay the requests of a more important lane by more
+ * than one permit. The per endpoint limiters still apply after admission.
+ * <p>
+ * Steam rate limits per IP, so the scheduler is shared by all {@link Http}
+ * instances in the JVM. Every host of the {@link HostPool} has a budget of its
+ * own, so the total grows with the number of hosts. POSTs are never
+ * scheduled.
+ *
+ * @author Paul van Assen
+ */
+public final class RequestScheduler {
+    private static final double DEFAULT_BUDGET = 10;
+    private static final RequestScheduler INSTANCE = new RequestScheduler(DEFAULT_BUDGET, true);
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final boolean start;
+    private final ConcurrentMap<String, HostLanes> hosts = new ConcurrentHashMap<>();
+    private final Map<RequestLane, AtomicLong> dispatched = new EnumMap<>(RequestLane.class);
+    private final Map<RequestLane, LatencyHistogram> waits = new EnumMap<>(RequestLane.class);
+    private volatile double budget;
+    private volatile boolean stopped;
+
+    RequestScheduler(double permitsPerSecond, boolean start) {
+        checkBudget(permitsPerSecond);
+        budget = permitsPerSecond;
+        this.start = start;
+        for (RequestLane lane : RequestLane.values()) {
+            dispatched.put(lane, new AtomicLong());
+            waits.put(lane, new LatencyHistogram());
+        }
+    }
+
+    private static void checkBudget(double permitsPerSecond) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("Invalid budget: " + permitsPerSecond);
+        }
+    }
+
+    /**
+     * @return The scheduler shared by all http instances
+     */
+    public static RequestScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param permitsPerSecond Number of requests per second per host, shared
+     *            by all lanes
+     */
+    public void setBudget(double permitsPerSecond) {
+        checkBudget(permitsPerSecond);
+        budget = permitsPerSecond;
+        for (HostLanes host : hosts.values()) {
+            host.budget.setRate(permitsPerSecond);
+        }
+    }
+
+    /**
+     * @return Number of requests per second per host, shared by all lanes
+     */
+    public double getBudget() {
+        return budget;
+    }
+
+    private HostLanes getHostLanes(String host) {
+        HostLanes lanes = hosts.get(host);
+        if (lanes != null) {
+            return lanes;
+        }
+        lanes = new HostLanes(budget);
+        HostLanes existing = hosts.putIfAbsent(host, lanes);
+        if (existing != null) {
+            return existing;
+        }
+        if (start) {
+            HostLanes started = lanes;
+            Thread dispatcher = new Thread(() -> dispatchLoop(started), "steam-http-scheduler-" + host);
+            dispatcher.setDaemon(true);
+            dispatcher.start();
+        }
+        return lanes;
+    }
+
+    /**
+     * Queue a request
+     *
+     * @param host Host the request is sent to
+     * @param lane Lane of the request
+     * @return Future completing once the request may be sent
+     */
+    CompletableFuture<Void> schedule(String host, RequestLane lane) {
+        if (lane.getWeight() == 0) {
+            dispatched.get(lane).incrementAndGet();
+            return CompletableFuture.completedFuture(null);
+        }
+        HostLanes lanes = getHostLanes(host);
+        Ticket ticket = new Ticket();
+        synchronized (lanes) {
+            Lane queue = lanes.lanes.get(lane);
+            if (queue.waiting.isEmpty()) {
+                // An idle lane does not build up credit
+                queue.virtualTime = Math.max(queue.virtualTime, lanes.virtualTime);
+            }
+            queue.waiting.add(ticket);
+            lanes.notifyAll();
+        }
+        return ticket.future;
+    }
+
+    /**
+     * Wait until a request may be sent
+     *
+     * @param host Host the request is sent to
+     * @param lane Lane of the request
+     */
+    void await(String host, RequestLane lane) {
+        try {
+            schedule(host, lane).get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SteamException("Interrupted while waiting in lane " + lane, e);
+        }
+        catch (ExecutionException e) {
+            throw new SteamException("Error waiting in lane " + lane, e.getCause());
+        }
+    }
+
+    /**
+     * Stop the dispatchers, requests still waiting are never admitted
+     */
+    void stop() {
+        stopped = true;
+        for (HostLanes lanes : hosts.values()) {
+            synchronized (lanes) {
+                lanes.notifyAll();
+            }
+        }
+    }
+
+    private void dispatchLoop(HostLanes lanes) {
+        while (!stopped) {
+            try {
+                if (awaitWaiting(lanes)) {
+                    lanes.budget.acquire();
+                    dispatchNext(lanes);
+                }
+            }
+            catch (InterruptedException e) {
+                logger.warn("Scheduler interrupted, stopping");
+                return;
+            }
+            catch (RuntimeException e) {
+                logger.error("Error dispatching request", e);
+            }
+        }
+    }
+
+    /**
+     * @return True if a request is waiting, false if the scheduler stopped
+     */
+    private boolean awaitWaiting(HostLanes lanes) throws InterruptedException {
+        synchronized (lanes) {
+            while (lanes.getDepth() == 0) {
+                if (stopped) {
+                    return false;
+                }
+                lanes.wait();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Let the first request of the lane of the host furthest behind its share
+     * through
+     *
+     * @param host Host to dispatch for
+     * @return The lane that was served, null if nothing was waiting
+     */
+    RequestLane dispatchNext(String host) {
+        HostLanes lanes = hosts.get(host);
+        return lanes == null ? null : dispatchNext(lanes);
+    }
+
+    private RequestLane dispatchNext(HostLanes lanes) {
+        Ticket ticket;
+        RequestLane served = null;
+        synchronized (lanes) {
+            Lane best = null;
+            for (Map.Entry<RequestLane, Lane> entry : lanes.lanes.entrySet()) {
+                Lane lane = entry.getValue();
+                if (!lane.waiting.isEmpty() && ((best == null) || (lane.virtualTime < best.virtualTime))) {
+                    best = lane;
+                    served = entry.getKey();
+                }
+            }
+            if (best == null) {
+                return null;
+            }
+            ticket = best.waiting.poll();
+            lanes.virtualTime = best.virtualTime;
+            best.virtualTime += 1d / served.getWeight();
+        }
+        dispatched.get(served).incrementAndGet();
+        waits.get(served).record(System.nanoTime() - ticket.queued);
+        ticket.future.complete(null);
+        return served;
+    }
+
+    /**
+     * @return Depth, throughput and wait times of every lane, summed over the
+     *         hosts
+     */
+    public Map<RequestLane, LaneStatistics> getStatistics() {
+        Map<RequestLane, Integer> depths = new EnumMap<>(RequestLane.class);
+        for (HostLanes lanes : hosts.values()) {
+            synchronized (lanes) {
+                for (Map.Entry<RequestLane, Lane> entry : lanes.lanes.entrySet()) {
+                    depths.merge(entry.getKey(), entry.getValue().waiting.size(), Integer::sum);
+                }
+            }
+        }
+        ImmutableMap.Builder<RequestLane, LaneStatistics> statistics = ImmutableMap.builder();
+        for (RequestLane lane : RequestLane.values()) {
+            Integer depth = depths.get(lane);
+            statistics.put(lane, new LaneStatistics(lane, depth == null ? 0 : depth, dispatched.get(lane).get(), waits.get(lane).snapshot()));
+        }
+        return statistics.build();
+    }
+
+    /**
+     * Budget and lanes of a single host
+     */
+    private static class HostLanes {
+        private final RateLimiter budget;
+        private final Map<RequestLane, Lane> lanes = new EnumMap<>(RequestLane.class);
+        private double virtualTime;
+
+        HostLanes(double permitsPerSecond) {
+            budget = RateLimiter.create(permitsPerSecond);
+            for (RequestLane lane : RequestLane.values()) {
+                lanes.put(lane, new Lane());
+            }
+        }
+
+        private int getDepth() {
+            int depth = 0;
+            for (Lane lane : lanes.values()) {
+                depth += lane.waiting.size();
+            }
+            return depth;
+        }
+    }
+
+    private static class Lane {
+        private final Queue<Ticket> waiting = new ArrayDeque<>();
+        private double virtualTime;
+    }
+
+    private static class Ticket {
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private final long queued = System.nanoTime();
+    }
+}
@@ -0,0 +1,87 @@
+package nl.pvanassen.steam.http;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps track of the requests in flight. By default only counters and start
+ * times are kept. Capturing the stack trace of every caller is expensive and is
+ * only done when leak diagnostics are enabled, either through
+ * {@link #setLeakDiagnostics(boolean)} or the system property
+ * <code>steam.http.leakDiagnostics</code>.
+ *
+ * @author Paul van Assen
+ */
+public final class RequestTracker {
+    private static volatile boolean leakDiagnostics = Boolean.getBoolean("steam.http.leakDiagnostics");
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final Map<Long, InFlightRequest> inFlight = new ConcurrentHashMap<>();
+
+    RequestTracker() {
+        super();
+    }
+
+    /**
+     * @param enabled Capture the stack trace of every request, for finding
+     *            connection leaks
+     */
+    public static void setLeakDiagnostics(boolean enabled) {
+        leakDiagnostics = enabled;
+    }
+
+    /**
+     * @return Are leak diagnostics enabled
+     */
+    public static boolean isLeakDiagnostics() {
+        return leakDiagnostics;
+    }
+
+    long start(String method, String url) {
+        long id = sequence.incrementAndGet();
+        Exception origin = null;
+        if (leakDiagnostics) {
+            origin = new Exception("Connection tracking");
+        }
+        inFlight.put(id, new InFlightRequest(id, method, url, System.nanoTime(), origin));
+        return id;
+    }
+
+    void finish(long id) {
+        if (inFlight.remove(id) != null) {
+            completed.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return Number of requests started
+     */
+    public long getStarted() {
+        return sequence.get();
+    }
+
+    /**
+     * @return Number of requests finished
+     */
+    public long getCompleted() {
+        return completed.get();
+    }
+
+    /**
+     * @return Number of requests currently in flight
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * @return Snapshot of the requests currently in flight
+     */
+    public List<InFlightRequest> getInFlight() {
+        return ImmutableList.copyOf(inFlight.values());
+    }
+}
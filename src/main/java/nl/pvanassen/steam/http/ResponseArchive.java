@@ -0,0 +1,287 @@
+package nl.pvanassen.steam.http;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingInputStream;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Append only archive of request and response pairs. Every response is
+ * compressed on its own, so a single one can be read without decompressing
+ * the rest. Next to the archive an index file is kept with the offsets of the
+ * responses. When the index is missing it is rebuilt from the archive.
+ * <p>
+ * Record layout in the archive: length of the compressed record, followed by
+ * the gzipped timestamp, method, url, status code, content type and body.
+ *
+ * @author Paul van Assen
+ */
+public class ResponseArchive implements Closeable {
+    private final FileChannel channel;
+    private final DataOutputStream index;
+    private final List<ArchiveEntry> entries;
+
+    private ResponseArchive(FileChannel channel, DataOutputStream index, List<ArchiveEntry> entries) {
+        this.channel = channel;
+        this.index = index;
+        this.entries = entries;
+    }
+
+    /**
+     * Open an archive for appending and reading, creating it if it does not
+     * exist
+     *
+     * @param archive Archive file, the index is stored next to it with the
+     *            extension .idx appended
+     * @return The opened archive
+     * @throws IOException If the archive can not be opened
+     */
+    public static ResponseArchive open(Path archive) throws IOException {
+        Path indexFile = archive.resolveSibling(archive.getFileName() + ".idx");
+        FileChannel channel = FileChannel.open(archive, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long size = channel.size();
+            List<ArchiveEntry> entries = new ArrayList<>();
+            long indexEnd = Files.exists(indexFile) ? readIndex(indexFile, size, entries) : 0;
+            // The index is written buffered, after a crash it can be behind
+            // the archive. Rebuild it instead of dropping recorded responses.
+            if (end(entries) != size) {
+                entries = rebuildIndex(channel);
+                writeIndex(indexFile, entries);
+            } else {
+                // Drop an entry that was half written when the process died
+                try (FileChannel indexChannel = FileChannel.open(indexFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                    indexChannel.truncate(indexEnd);
+                }
+            }
+            // Drop a record that was half written when the process died, or
+            // damaged, and everything after it
+            long end = end(entries);
+            if (end != size) {
+                LoggerFactory.getLogger(ResponseArchive.class).warn("Truncating " + archive + " from " + size + " to " + end + " bytes");
+            }
+            channel.truncate(end);
+            channel.position(end);
+            OutputStream indexStream = Files.newOutputStream(indexFile, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            return new ResponseArchive(channel, new DataOutputStream(new BufferedOutputStream(indexStream)), entries);
+        }
+        catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static long end(List<ArchiveEntry> entries) {
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        ArchiveEntry last = entries.get(entries.size() - 1);
+        return last.getOffset() + last.getLength();
+    }
+
+    /**
+     * Read the entries of the index that are complete and follow each other
+     * within the archive
+     *
+     * @return Number of bytes of the index holding those entries
+     */
+    private static long readIndex(Path indexFile, long archiveSize, List<ArchiveEntry> entries) throws IOException {
+        try (CountingInputStream counting = new CountingInputStream(new BufferedInputStream(Files.newInputStream(indexFile)));
+                DataInputStream in = new DataInputStream(counting)) {
+            long valid = 0;
+            while (true) {
+                ArchiveEntry entry;
+                try {
+                    entry = readIndexEntry(in);
+                }
+                catch (EOFException | UTFDataFormatException e) {
+                    return valid;
+                }
+                if ((entry.getOffset() != end(entries)) || (entry.getLength() <= 0) || ((entry.getOffset() + entry.getLength()) > archiveSize)) {
+                    return valid;
+                }
+                entries.add(entry);
+                valid = counting.getCount();
+            }
+        }
+    }
+
+    private static ArchiveEntry readIndexEntry(DataInputStream in) throws IOException {
+        long offset = in.readLong();
+        int length = in.readInt();
+        long timestamp = in.readLong();
+        String method = in.readUTF();
+        String url = in.readUTF();
+        int statusCode = in.readInt();
+        String contentType = in.readUTF();
+        return new ArchiveEntry(timestamp, method, url, statusCode, contentType, offset, length);
+    }
+
+    private static void writeIndexEntry(DataOutputStream out, ArchiveEntry entry) throws IOException {
+        out.writeLong(entry.getOffset());
+        out.writeInt(entry.getLength());
+        out.writeLong(entry.getTimestamp());
+        out.writeUTF(entry.getMethod());
+        out.writeUTF(entry.getUrl());
+        out.writeInt(entry.getStatusCode());
+        out.writeUTF(entry.getContentType());
+    }
+
+    private static void writeIndex(Path indexFile, List<ArchiveEntry> entries) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexFile)))) {
+            for (ArchiveEntry entry : entries) {
+                writeIndexEntry(out, entry);
+            }
+        }
+    }
+
+    /**
+     * Read the entries from the records of the archive, up to the first record
+     * that is incomplete or damaged
+     */
+    private static List<ArchiveEntry> rebuildIndex(FileChannel channel) throws IOException {
+        List<ArchiveEntry> entries = new ArrayList<>();
+        long size = channel.size();
+        long offset = 0;
+        ByteBuffer lengthBuffer = ByteBuffer.allocate(4);
+        while ((offset + 4) <= size) {
+            lengthBuffer.clear();
+            readFully(channel, lengthBuffer, offset);
+            int compressed = lengthBuffer.getInt(0);
+            if ((compressed <= 0) || ((offset + 4 + compressed) > size)) {
+                break;
+            }
+            int length = compressed + 4;
+            // Failing to read the file is not damage, that is passed on
+            byte[] record = read(channel, offset, length);
+            try (DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(record, 4, compressed)))) {
+                ArchiveEntry entry = new ArchiveEntry(in.readLong(), in.readUTF(), in.readUTF(), in.readInt(), in.readUTF(), offset, length);
+                // Reading up to the end checks the CRC of the body
+                ByteStreams.exhaust(in);
+                entries.add(entry);
+            }
+            catch (IOException | RuntimeException e) {
+                LoggerFactory.getLogger(ResponseArchive.class).warn("Damaged record at " + offset + ", dropping the rest of the archive", e);
+                break;
+            }
+            offset += length;
+        }
+        return entries;
+    }
+
+    private static byte[] read(FileChannel channel, long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        readFully(channel, buffer, offset);
+        return buffer.array();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long offset) throws IOException {
+        long position = offset;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("Archive ends at " + position);
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * Append a response to the archive
+     *
+     * @param method Method of the request
+     * @param url Url of the request
+     * @param statusCode Status code of the response
+     * @param contentType Content type of the response, null if not sent
+     * @param body Decompressed body of the response
+     * @return Entry of the response
+     * @throws IOException If the response can not be written
+     */
+    public ArchiveEntry append(String method, String url, int statusCode, String contentType, byte[] body) throws IOException {
+        long timestamp = System.currentTimeMillis();
+        String type = contentType == null ? "" : contentType;
+        ByteArrayOutputStream record = new ByteArrayOutputStream(body.length / 4 + 64);
+        // Room for the length
+        record.write(new byte[4]);
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(record))) {
+            out.writeLong(timestamp);
+            out.writeUTF(method);
+            out.writeUTF(url);
+            out.writeInt(statusCode);
+            out.writeUTF(type);
+            out.write(body);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(record.toByteArray());
+        buffer.putInt(0, buffer.capacity() - 4);
+        synchronized (this) {
+            long offset = channel.position();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            ArchiveEntry entry = new ArchiveEntry(timestamp, method, url, statusCode, type, offset, buffer.capacity());
+            writeIndexEntry(index, entry);
+            index.flush();
+            entries.add(entry);
+            return entry;
+        }
+    }
+
+    /**
+     * @return The responses in the archive, in the order they were recorded
+     */
+    public synchronized List<ArchiveEntry> getEntries() {
+        return ImmutableList.copyOf(entries);
+    }
+
+    /**
+     * Read the body of a response
+     *
+     * @param entry Entry of the response
+     * @return The decompressed body
+     * @throws IOException If the archive can not be read
+     */
+    public byte[] readBody(ArchiveEntry entry) throws IOException {
+        byte[] record = read(channel, entry.getOffset(), entry.getLength());
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(record, 4, record.length - 4)))) {
+            // Skip the header, the entry already holds it
+            in.readLong();
+            in.readUTF();
+            in.readUTF();
+            in.readInt();
+            in.readUTF();
+            return ByteStreams.toByteArray((InputStream) in);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            index.close();
+        }
+        finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package nl.pvanassen.steam.http;
+
+/**
+ * Storage for responses of GET requests. Entries may be kept after their time
+ * to live, {@link Http} revalidates stale entries with the server. Must be
+ * thread safe.
+ *
+ * @author Paul van Assen
+ */
+public interface ResponseCache {
+    /**
+     * @param key Key of the request
+     * @return The cached response, or null if not cached
+     */
+    CachedResponse get(String key);
+
+    /**
+     * @param key Key of the request
+     * @param response Response to store
+     */
+    void put(String key, CachedResponse response);
+
+    /**
+     * Remove all entries
+     */
+    void invalidateAll();
+}
@@ -0,0 +1,73 @@
+package nl.pvanassen.steam.http;
+
+import nl.pvanassen.steam.error.RetriesExhaustedException;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retry state of a single operation. Not thread safe, an operation is retried
+ * by one thread at a time.
+ *
+ * @author Paul van Assen
+ */
+public final class RetryBudget {
+    private final RetryPolicy policy;
+    private final long start;
+    private int attempts = 1;
+
+    RetryBudget(RetryPolicy policy) {
+        this.policy = policy;
+        this.start = System.nanoTime();
+    }
+
+    /**
+     * Registers a failed attempt and calculates the delay before the next one
+     *
+     * @param retryAfterMillis Delay requested by the server, 0 if none
+     * @return Delay in milliseconds, or -1 if the budget is used up
+     */
+    public long nextDelayMillis(long retryAfterMillis) {
+        if (attempts >= policy.getMaxAttempts()) {
+            return -1;
+        }
+        long delay = Math.max(retryAfterMillis, policy.backoffMillis(attempts, ThreadLocalRandom.current().nextDouble()));
+        if (policy.getMaxElapsedMillis() > 0) {
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            if ((elapsed + delay) > policy.getMaxElapsedMillis()) {
+                return -1;
+            }
+        }
+        attempts++;
+        return delay;
+    }
+
+    /**
+     * Registers a failed attempt and waits before the next one is done
+     *
+     * @param operation Description of the operation, used in the exception
+     * @param retryAfterMillis Delay requested by the server, 0 if none
+     * @param cause Cause of the failure, may be null
+     * @throws RetriesExhaustedException If the budget is used up
+     */
+    public void backOff(String operation, long retryAfterMillis, Throwable cause) {
+        long delay = nextDelayMillis(retryAfterMillis);
+        if (delay < 0) {
+            throw new RetriesExhaustedException(operation, attempts, cause);
+        }
+        try {
+            Thread.sleep(delay);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RetriesExhaustedException(operation, attempts, e);
+        }
+    }
+
+    /**
+     * @return Number of attempts started so far
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+}
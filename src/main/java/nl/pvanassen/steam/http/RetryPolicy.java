@@ -0,0 +1,197 @@
+package nl.pvanassen.steam.http;
+
+import org.apache.http.client.utils.DateUtils;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Policy describing how often and how fast a failed operation is retried.
+ * Every operation gets its own {@link RetryBudget} from {@link #newBudget()}.
+ * Delays grow exponentially with jitter, so clients backing off at the same
+ * moment do not come back at the same moment.
+ *
+ * @author Paul van Assen
+ */
+public final class RetryPolicy {
+    /**
+     * Policy used when nothing is specified
+     */
+    public static final RetryPolicy DEFAULT = custom().build();
+
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final long maxElapsedMillis;
+
+    private RetryPolicy(Builder builder) {
+        this.maxAttempts = builder.maxAttempts;
+        this.initialBackoffMillis = builder.initialBackoffMillis;
+        this.maxBackoffMillis = builder.maxBackoffMillis;
+        this.maxElapsedMillis = builder.maxElapsedMillis;
+    }
+
+    /**
+     * @return A builder with the default settings
+     */
+    public static Builder custom() {
+        return new Builder();
+    }
+
+    /**
+     * @return A new budget for a single operation
+     */
+    public RetryBudget newBudget() {
+        return new RetryBudget(this);
+    }
+
+    /**
+     * @return Maximum number of attempts, including the first one
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * @return Delay before the first retry, before jitter
+     */
+    public long getInitialBackoffMillis() {
+        return initialBackoffMillis;
+    }
+
+    /**
+     * @return Upper bound of the computed delay between two attempts
+     */
+    public long getMaxBackoffMillis() {
+        return maxBackoffMillis;
+    }
+
+    /**
+     * @return Maximum time an operation may spend including retries, 0 for no
+     *         limit
+     */
+    public long getMaxElapsedMillis() {
+        return maxElapsedMillis;
+    }
+
+    /**
+     * Exponential backoff with jitter. The delay is picked between half and
+     * the full exponential value.
+     *
+     * @param retry The retry, starting at 1
+     * @param random Random value between 0 and 1
+     * @return Delay in milliseconds
+     */
+    long backoffMillis(int retry, double random) {
+        int shift = Math.min(retry - 1, 30);
+        long exponential = Math.min(maxBackoffMillis, initialBackoffMillis << shift);
+        long half = exponential / 2;
+        return half + (long) (random * (exponential - half));
+    }
+
+    /**
+     * Parses the value of a Retry-After header, which is either a number of
+     * seconds or a http date
+     *
+     * @param value The header value, may be null
+     * @param now Current time in milliseconds
+     * @return The requested delay in milliseconds, 0 if no or an invalid value
+     *         was given
+     */
+    static long parseRetryAfter(String value, long now) {
+        if ((value == null) || value.trim().isEmpty()) {
+            return 0;
+        }
+        String trimmed = value.trim();
+        try {
+            return Math.max(0, TimeUnit.SECONDS.toMillis(Long.parseLong(trimmed)));
+        }
+        catch (NumberFormatException e) {
+            Date date = DateUtils.parseDate(trimmed);
+            if (date == null) {
+                return 0;
+            }
+            return Math.max(0, date.getTime() - now);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "RetryPolicy [maxAttempts=" + maxAttempts + ", initialBackoffMillis=" + initialBackoffMillis + ", maxBackoffMillis=" + maxBackoffMillis
+                + ", maxElapsedMillis=" + maxElapsedMillis + "]";
+    }
+
+    /**
+     * Builder for the retry policy
+     *
+     * @author Paul van Assen
+     */
+    public static final class Builder {
+        private int maxAttempts = 6;
+        private long initialBackoffMillis = 500;
+        private long maxBackoffMillis = TimeUnit.SECONDS.toMillis(30);
+        private long maxElapsedMillis = TimeUnit.MINUTES.toMillis(2);
+
+        private Builder() {
+            super();
+        }
+
+        /**
+         * @param maxAttempts Maximum number of attempts, including the first
+         * @return This builder
+         */
+        public Builder setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * @param backoff Delay before the first retry
+         * @param unit Unit of the delay
+         * @return This builder
+         */
+        public Builder setInitialBackoff(long backoff, TimeUnit unit) {
+            this.initialBackoffMillis = unit.toMillis(backoff);
+            return this;
+        }
+
+        /**
+         * @param backoff Upper bound of the delay between two attempts
+         * @param unit Unit of the delay
+         * @return This builder
+         */
+        public Builder setMaxBackoff(long backoff, TimeUnit unit) {
+            this.maxBackoffMillis = unit.toMillis(backoff);
+            return this;
+        }
+
+        /**
+         * @param elapsed Maximum time an operation may spend including
+         *            retries, 0 for no limit
+         * @param unit Unit of the time
+         * @return This builder
+         */
+        public Builder setMaxElapsed(long elapsed, TimeUnit unit) {
+            this.maxElapsedMillis = unit.toMillis(elapsed);
+            return this;
+        }
+
+        /**
+         * @return The policy
+         */
+        public RetryPolicy build() {
+            if (maxAttempts < 1) {
+                throw new IllegalArgumentException("At least one attempt is needed");
+            }
+            if ((initialBackoffMillis < 1) || (maxBackoffMillis < initialBackoffMillis)) {
+                throw new IllegalArgumentException("Invalid backoff " + initialBackoffMillis + " - " + maxBackoffMillis);
+            }
+            return new RetryPolicy(this);
+        }
+    }
+}
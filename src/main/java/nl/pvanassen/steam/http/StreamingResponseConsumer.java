@@ -0,0 +1,112 @@
+package nl.pvanassen.steam.http;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.entity.ContentInputStream;
+import org.apache.http.nio.protocol.AbstractAsyncResponseConsumer;
+import org.apache.http.nio.util.SharedInputBuffer;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+
+/**
+ * Passes a response on as soon as its headers are in, with an entity that is
+ * read while the body comes in. At most {@link #BUFFER_SIZE} bytes are held
+ * per response, the connection stops reading until the entity is read
+ * further. The entity must not be read on the thread calling the callback,
+ * that would stall the reactor filling it.
+ * <p>
+ * A response without an entity is passed on once it is complete. A failure
+ * after the response was passed on is reported by the entity, reading it
+ * throws an {@link IOException}.
+ *
+ * @author Paul van Assen
+ */
+class StreamingResponseConsumer extends AbstractAsyncResponseConsumer<HttpResponse> {
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FutureCallback<HttpResponse> callback;
+    private HttpResponse response;
+    private volatile SharedInputBuffer buffer;
+
+    /**
+     * @param callback Called once the headers are in or the request failed
+     */
+    StreamingResponseConsumer(FutureCallback<HttpResponse> callback) {
+        this.callback = callback;
+    }
+
+    /**
+     * @return Callback to pass to the client, completing the request if the
+     *         response was not passed on yet
+     */
+    FutureCallback<HttpResponse> getClientCallback() {
+        return new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(HttpResponse result) {
+                if (buffer == null) {
+                    callback.completed(result);
+                }
+            }
+
+            @Override
+            public void failed(Exception exception) {
+                if (buffer == null) {
+                    callback.failed(exception);
+                } else {
+                    buffer.shutdown();
+                }
+            }
+
+            @Override
+            public void cancelled() {
+                if (buffer == null) {
+                    callback.cancelled();
+                } else {
+                    buffer.shutdown();
+                }
+            }
+        };
+    }
+
+    @Override
+    protected void onResponseReceived(HttpResponse response) {
+        this.response = response;
+    }
+
+    @Override
+    protected void onEntityEnclosed(HttpEntity entity, ContentType contentType) {
+        SharedInputBuffer entityBuffer = new SharedInputBuffer(BUFFER_SIZE);
+        BasicHttpEntity streaming = new BasicHttpEntity();
+        streaming.setContent(new ContentInputStream(entityBuffer));
+        streaming.setContentLength(entity.getContentLength());
+        streaming.setContentType(entity.getContentType());
+        streaming.setContentEncoding(entity.getContentEncoding());
+        streaming.setChunked(entity.isChunked());
+        response.setEntity(streaming);
+        buffer = entityBuffer;
+        callback.completed(response);
+    }
+
+    @Override
+    protected void onContentReceived(ContentDecoder decoder, IOControl ioControl) throws IOException {
+        // Suspends the input when the buffer is full, reading resumes it
+        buffer.consumeContent(decoder, ioControl);
+    }
+
+    @Override
+    protected HttpResponse buildResult(HttpContext context) {
+        return response;
+    }
+
+    @Override
+    protected void releaseResources() {
+        // The buffer is released by reading the entity up to its end
+        response = null;
+    }
+}
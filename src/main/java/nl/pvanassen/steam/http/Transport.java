@@ -0,0 +1,48 @@
+package nl.pvanassen.steam.http;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.pool.PoolStats;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Sends the requests built by {@link Http}. Rate limiting, retries, caching
+ * and metrics stay in {@link Http}, so a transport only moves bytes. The
+ * default is {@link ApacheTransport}, {@link RecordedTransport} serves
+ * fixed responses in process and {@link ReplayTransport} replays an archive
+ * recorded by {@link RecordingTransport}.
+ *
+ * @author Paul van Assen
+ */
+public interface Transport extends Closeable {
+    /**
+     * Execute a request, blocking until the response headers are in
+     *
+     * @param request The request
+     * @param context Context holding the cookies
+     * @return The response, closed by the caller
+     * @throws IOException On connection problems
+     */
+    HttpResponse execute(HttpUriRequest request, HttpClientContext context) throws IOException;
+
+    /**
+     * Execute a request without blocking. The response may be passed to the
+     * callback before its body is in, so its entity must not be read on the
+     * thread calling the callback.
+     *
+     * @param request The request
+     * @param context Context holding the cookies
+     * @param callback Called once the response headers are in or the request
+     *            failed
+     */
+    void executeAsync(HttpUriRequest request, HttpClientContext context, FutureCallback<HttpResponse> callback);
+
+    /**
+     * @return Statistics of the connections of this transport
+     */
+    PoolStats getPoolStats();
+}
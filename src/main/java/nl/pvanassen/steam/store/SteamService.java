@@ -4,7 +4,11 @@ import com.google.common.collect.ImmutableSet;
 import nl.pvanassen.steam.community.friends.FriendService;
 import nl.pvanassen.steam.community.friends.SteamFriendService;
 import nl.pvanassen.steam.error.SteamException;
+import nl.pvanassen.steam.http.ConnectionPoolConfig;
+import nl.pvanassen.steam.http.ConnectionStatistics;
 import nl.pvanassen.steam.http.Http;
+import nl.pvanassen.steam.http.HttpOptions;
+import nl.pvanassen.steam.http.HttpStatistics;
 import nl.pvanassen.steam.store.buy.BuyService;
 import nl.pvanassen.steam.store.buy.SteamBuyService;
 import nl.pvanassen.steam.store.buyorder.BuyOrderService;
@@ -25,6 +29,7 @@ import nl.pvanassen.steam.store.marketpage.SteamMarketPageService;
 import nl.pvanassen.steam.store.tradeoffer.SteamTradeOfferService;
 import nl.pvanassen.steam.store.tradeoffer.TradeOfferService;
 
+import java.io.IOException;
 import java.util.Set;
 
 /**
@@ -66,8 +71,8 @@ class SteamService implements StoreService {
         friendService = new SteamFriendService(http, username);
     }
 
-    SteamService(String cookies, String username) {
-        this(Http.getInstance(cookies, username), username);
+    SteamService(String cookies, String username, ConnectionPoolConfig poolConfig, HttpOptions options) {
+        this(Http.getInstance(cookies, username, poolConfig, options), username);
     }
 
     /**
@@ -189,4 +194,34 @@ class SteamService implements StoreService {
     public String getCookies() {
         return http.getCookies();
     }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see nl.pvanassen.steam.store.StoreService#getConnectionStatistics()
+     */
+    @Override
+    public ConnectionStatistics getConnectionStatistics() {
+        return http.getConnectionStatistics();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see nl.pvanassen.steam.store.StoreService#getHttpStatistics()
+     */
+    @Override
+    public HttpStatistics getHttpStatistics() {
+        return http.getHttpStatistics();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see java.io.Closeable#close()
+     */
+    @Override
+    public void close() throws IOException {
+        http.close();
+    }
 }
@@ -1,5 +1,8 @@
 package nl.pvanassen.steam.store;
 
+import nl.pvanassen.steam.http.ConnectionPoolConfig;
+import nl.pvanassen.steam.http.HttpOptions;
+
 import java.lang.ref.WeakReference;
 import java.util.HashMap;
 import java.util.Map;
@@ -23,13 +26,40 @@ public class StoreFactory {
      * @return Instance of the store service
      */
     public static StoreService getSteamStore(String cookies, String username) {
+        return getSteamStore(cookies, username, ConnectionPoolConfig.DEFAULT);
+    }
+
+    /**
+     * Factory method for getting a store instance with a specific connection
+     * pool
+     *
+     * @param cookies Cookies to use
+     * @param username Username for the referral
+     * @param poolConfig Configuration of the connection pool
+     * @return Instance of the store service
+     */
+    public static StoreService getSteamStore(String cookies, String username, ConnectionPoolConfig poolConfig) {
+        return getSteamStore(cookies, username, poolConfig, HttpOptions.DEFAULT);
+    }
+
+    /**
+     * Factory method for getting a store instance with a specific connection
+     * pool and http behaviour
+     *
+     * @param cookies Cookies to use
+     * @param username Username for the referral
+     * @param poolConfig Configuration of the connection pool
+     * @param options Retry and coalescing options
+     * @return Instance of the store service
+     */
+    public static StoreService getSteamStore(String cookies, String username, ConnectionPoolConfig poolConfig, HttpOptions options) {
         synchronized (CACHE_MAP) {
             WeakReference<String> key = new WeakReference<>(cookies);
             WeakReference<SteamService> service = CACHE_MAP.get(key);
             if ((service != null) && (service.get() != null)) {
                 return service.get();
             }
-            service = new WeakReference<SteamService>(new SteamService(cookies, username));
+            service = new WeakReference<SteamService>(new SteamService(cookies, username, poolConfig, options));
             CACHE_MAP.put(key, service);
             return service.get();
         }
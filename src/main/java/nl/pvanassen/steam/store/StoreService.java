@@ -1,6 +1,8 @@
 package nl.pvanassen.steam.store;
 
 import nl.pvanassen.steam.community.friends.FriendService;
+import nl.pvanassen.steam.http.ConnectionStatistics;
+import nl.pvanassen.steam.http.HttpStatistics;
 import nl.pvanassen.steam.store.buy.BuyService;
 import nl.pvanassen.steam.store.buyorder.BuyOrderService;
 import nl.pvanassen.steam.store.history.HistoryService;
@@ -11,14 +13,16 @@ import nl.pvanassen.steam.store.login.LoginService;
 import nl.pvanassen.steam.store.marketpage.MarketPageService;
 import nl.pvanassen.steam.store.tradeoffer.TradeOfferService;
 
+import java.io.Closeable;
 import java.util.Set;
 
 /**
- * Interface defining a connecion to the steam store
+ * Interface defining a connecion to the steam store. Close it when done to
+ * release the connections.
  *
  * @author Paul van Assen
  */
-public interface StoreService {
+public interface StoreService extends Closeable {
     /**
      * @return The app ids in the market
      */
@@ -81,4 +85,18 @@ public interface StoreService {
      * @return The current cookies from the http session
      */
     String getCookies();
+
+    /**
+     * Retrieve the state of the connection pool and the requests in flight
+     * 
+     * @return Snapshot of the connection statistics
+     */
+    ConnectionStatistics getConnectionStatistics();
+
+    /**
+     * Retrieve latencies, response counters and rates per endpoint class
+     * 
+     * @return Snapshot of the http statistics
+     */
+    HttpStatistics getHttpStatistics();
 }
@@ -1,6 +1,9 @@
 package nl.pvanassen.steam.store.buy;
 
+import nl.pvanassen.steam.error.RetriesExhaustedException;
 import nl.pvanassen.steam.http.Http;
+import nl.pvanassen.steam.http.RetryBudget;
+import nl.pvanassen.steam.http.RetryPolicy;
 import nl.pvanassen.steam.store.CookieException;
 import nl.pvanassen.steam.store.common.BuyOrder;
 import org.codehaus.jackson.map.ObjectMapper;
@@ -21,14 +24,26 @@ public class SteamBuyService implements BuyService {
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final Http http;
     private final String username;
+    private final RetryPolicy retryPolicy;
 
     /**
      * @param http For mocking
      * @param username The username
      */
     public SteamBuyService(Http http, String username) {
+        this(http, username, RetryPolicy.custom().setMaxAttempts(3).build());
+    }
+
+    /**
+     * @param http For mocking
+     * @param username The username
+     * @param retryPolicy Policy for retrying when steam reports a temporary
+     *            failure
+     */
+    public SteamBuyService(Http http, String username, RetryPolicy retryPolicy) {
         this.http = http;
         this.username = username;
+        this.retryPolicy = retryPolicy;
     }
 
     @Override
@@ -42,17 +57,27 @@ public class SteamBuyService implements BuyService {
         params.put("subtotal", Integer.toString(subTotal));
         params.put("total", Integer.toString(fee + subTotal));
         params.put("quantity", "1");
+        RetryBudget retryBudget = retryPolicy.newBudget();
         try {
-            BuyHandle handle = new BuyHandle(objectMapper);
-            http.post("https://steamcommunity.com/market/buylisting/" + listingId, params, handle, "http://steamcommunity.com/market/listing/" + buyOrder.getAppId() + "/" + buyOrder.getUrlName(), true, false);
-            if ((handle.getMessage() != null) && handle.getMessage().contains("temporary")) {
-                return buy(buyOrder);
-            }
-            if ((handle.getMessage() != null) && handle.getMessage().contains("Cookies")) {
-                logger.error("Cookie issue.");
-                throw new CookieException();
+            while (true) {
+                BuyHandle handle = new BuyHandle(objectMapper);
+                http.post("https://steamcommunity.com/market/buylisting/" + listingId, params, handle, "http://steamcommunity.com/market/listing/" + buyOrder.getAppId() + "/" + buyOrder.getUrlName(), true, false);
+                if ((handle.getMessage() != null) && handle.getMessage().contains("temporary")) {
+                    try {
+                        retryBudget.backOff("buying listing " + listingId, 0, null);
+                        continue;
+                    }
+                    catch (RetriesExhaustedException e) {
+                        logger.warn(e.getMessage() + ", last message: " + handle.getMessage());
+                        return new BuyResult(false, handle.getWallet(), handle.getMessage());
+                    }
+                }
+                if ((handle.getMessage() != null) && handle.getMessage().contains("Cookies")) {
+                    logger.error("Cookie issue.");
+                    throw new CookieException();
+                }
+                return new BuyResult(!handle.isError(), handle.getWallet(), handle.getMessage());
             }
-            return new BuyResult(!handle.isError(), handle.getWallet(), handle.getMessage());
         }
         catch (IOException e) {
             logger.error("Error posting data", e);
@@ -1,26 +1,22 @@
 package nl.pvanassen.steam.store.helper;
 
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
+import java.nio.charset.StandardCharsets;
 
 /**
- * Amount helper
+ * Amount helper, parses prices as shown by Steam in any currency without
+ * allocating.
+ * <p>
+ * Currency symbols and entities before the amount are skipped, the amount ends
+ * at the first character that is not a digit, separator or space, like the
+ * <code>€</code> in <code>1,62€</code> or the <code>pуб.</code> in
+ * <code>15,23 pуб.</code>. A comma or dot followed by one or two digits is the
+ * decimal separator, followed by three digits it separates thousands. Dashes
+ * after the decimal separator, as in <code>1,--€</code>, count as zeros. If the
+ * text contains a net price between parentheses, that price is parsed.
  *
  * @author Paul van Assen
  */
 public final class AmountHelper {
-    private static final LoadingCache<String, Integer> fastAmountCache = CacheBuilder.newBuilder().concurrencyLevel(32).maximumSize(4096).build(new CacheLoader<String, Integer>() {
-        @Override
-        public Integer load(String html) throws Exception {
-            String amount = html;
-            int idx = html.indexOf('(');
-            if (idx != -1) {
-                amount = html.substring(idx + 1, html.indexOf(')') - 1);
-            }
-            return Integer.parseInt(amount.replace("&#8364;", "").replace("€", "").replace(",", "").replace(".","").replace("-", "0").trim());
-        }
-    });
 
     private AmountHelper() {
         super();
@@ -31,8 +27,116 @@ public final class AmountHelper {
      *
      * @param html Html text
      * @return Amount in cents
+     * @throws NumberFormatException If the text does not contain an amount
+     */
+    public static int getAmount(CharSequence html) {
+        return parse(html, null, 0, html.length());
+    }
+
+    /**
+     * Convert part of the html amount string to the amount in cents
+     *
+     * @param html Html text
+     * @param start Start of the amount
+     * @param end End of the amount, exclusive
+     * @return Amount in cents
+     * @throws NumberFormatException If the text does not contain an amount
+     */
+    public static int getAmount(CharSequence html, int start, int end) {
+        return parse(html, null, start, end);
+    }
+
+    /**
+     * Convert an UTF-8 or ASCII encoded amount to the amount in cents
+     *
+     * @param bytes Html bytes
+     * @param start Start of the amount
+     * @param end End of the amount, exclusive
+     * @return Amount in cents
+     * @throws NumberFormatException If the bytes do not contain an amount
+     */
+    public static int getAmount(byte[] bytes, int start, int end) {
+        return parse(null, bytes, start, end);
+    }
+
+    /**
+     * Parse either the characters or the bytes, multi byte characters are
+     * never digits or separators so bytes can be read as characters
      */
-    public static int getAmount(String html) {
-        return fastAmountCache.getUnchecked(html);
+    private static int parse(CharSequence chars, byte[] bytes, int start, int end) {
+        int from = start;
+        int to = end;
+        for (int i = start; i < end; i++) {
+            if (charAt(chars, bytes, i) == '(') {
+                from = i + 1;
+                to = end;
+                for (int j = from; j < end; j++) {
+                    if (charAt(chars, bytes, j) == ')') {
+                        to = j;
+                        break;
+                    }
+                }
+                break;
+            }
+        }
+        long value = 0;
+        int digits = 0;
+        // Number of digits after the last separator, -1 without separator
+        int decimals = -1;
+        int i = from;
+        // Skip the currency before the amount
+        while ((i < to) && !isDigit(charAt(chars, bytes, i))) {
+            if (charAt(chars, bytes, i) == '&') {
+                // Entity such as &#8364;, its digits are not part of the amount
+                while ((i < to) && (charAt(chars, bytes, i) != ';')) {
+                    i++;
+                }
+            }
+            i++;
+        }
+        for (; i < to; i++) {
+            char c = charAt(chars, bytes, i);
+            if (isDigit(c) || ((c == '-') && (decimals != -1))) {
+                value = (value * 10) + (c == '-' ? 0 : c - '0');
+                if (value > Integer.MAX_VALUE) {
+                    throw new NumberFormatException("Amount too large in '" + text(chars, bytes, start, end) + "'");
+                }
+                digits++;
+                if (decimals != -1) {
+                    decimals++;
+                }
+            } else if ((c == ',') || (c == '.')) {
+                decimals = 0;
+            } else if ((c == '\u00c2') && (bytes != null) && ((i + 1) < to) && (charAt(chars, bytes, i + 1) == '\u00a0')) {
+                // Non breaking space in UTF-8
+                i++;
+            } else if ((c != ' ') && (c != '\u00a0')) {
+                break;
+            }
+        }
+        if (digits == 0) {
+            throw new NumberFormatException("No amount in '" + text(chars, bytes, start, end) + "'");
+        }
+        if (decimals == 1) {
+            value *= 10;
+        } else if (decimals != 2) {
+            value *= 100;
+        }
+        if (value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Amount too large in '" + text(chars, bytes, start, end) + "'");
+        }
+        return (int) value;
+    }
+
+    private static char charAt(CharSequence chars, byte[] bytes, int index) {
+        return chars != null ? chars.charAt(index) : (char) (bytes[index] & 0xff);
+    }
+
+    private static boolean isDigit(char c) {
+        return (c >= '0') && (c <= '9');
+    }
+
+    private static String text(CharSequence chars, byte[] bytes, int start, int end) {
+        return chars != null ? chars.subSequence(start, end).toString() : new String(bytes, start, end - start, StandardCharsets.UTF_8);
     }
 }
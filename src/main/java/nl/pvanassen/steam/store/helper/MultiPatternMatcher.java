@@ -0,0 +1,118 @@
+package nl.pvanassen.steam.store.helper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Aho-Corasick automaton matching up to 32 patterns in a single pass over
+ * bytes, without decoding them. Patterns are matched on their UTF-8 bytes.
+ * <p>
+ * Start in {@link #START}, feed every byte to {@link #next(int, byte)} and
+ * check {@link #matches(int)} for the patterns ending at that byte:
+ *
+ * <pre>
+ * int state = MultiPatternMatcher.START;
+ * for (byte b : bytes) {
+ *     state = matcher.next(state, b);
+ *     if (matcher.matches(state) != 0) ...
+ * }
+ * </pre>
+ *
+ * Instances are immutable and can be shared between threads.
+ *
+ * @author Paul van Assen
+ */
+public final class MultiPatternMatcher {
+    /**
+     * State before any byte is read
+     */
+    public static final int START = 0;
+
+    // Full transition table, state * 256 + byte
+    private final int[] transitions;
+    private final int[] matches;
+
+    private MultiPatternMatcher(int[] transitions, int[] matches) {
+        this.transitions = transitions;
+        this.matches = matches;
+    }
+
+    /**
+     * @param patterns Patterns to match, pattern i is reported as bit 1 &lt;&lt; i
+     * @return The matcher
+     */
+    public static MultiPatternMatcher of(String... patterns) {
+        if (patterns.length > 32) {
+            throw new IllegalArgumentException("At most 32 patterns are supported");
+        }
+        int maxStates = 1;
+        byte[][] bytes = new byte[patterns.length][];
+        for (int i = 0; i < patterns.length; i++) {
+            bytes[i] = patterns[i].getBytes(StandardCharsets.UTF_8);
+            if (bytes[i].length == 0) {
+                throw new IllegalArgumentException("Empty pattern");
+            }
+            maxStates += bytes[i].length;
+        }
+        int[] transitions = new int[maxStates * 256];
+        Arrays.fill(transitions, -1);
+        int[] matches = new int[maxStates];
+        int states = 1;
+        // Trie of the patterns
+        for (int i = 0; i < bytes.length; i++) {
+            int state = START;
+            for (byte b : bytes[i]) {
+                int index = (state << 8) | (b & 0xff);
+                if (transitions[index] == -1) {
+                    transitions[index] = states++;
+                }
+                state = transitions[index];
+            }
+            matches[state] |= 1 << i;
+        }
+        // Breadth first, turning the trie into a full automaton using the failure links
+        int[] failure = new int[states];
+        int[] queue = new int[states];
+        int head = 0;
+        int tail = 0;
+        for (int c = 0; c < 256; c++) {
+            if (transitions[c] == -1) {
+                transitions[c] = START;
+            } else {
+                queue[tail++] = transitions[c];
+            }
+        }
+        while (head < tail) {
+            int state = queue[head++];
+            matches[state] |= matches[failure[state]];
+            for (int c = 0; c < 256; c++) {
+                int index = (state << 8) | c;
+                int fallback = transitions[(failure[state] << 8) | c];
+                if (transitions[index] == -1) {
+                    transitions[index] = fallback;
+                } else {
+                    failure[transitions[index]] = fallback;
+                    queue[tail++] = transitions[index];
+                }
+            }
+        }
+        return new MultiPatternMatcher(Arrays.copyOf(transitions, states * 256), Arrays.copyOf(matches, states));
+    }
+
+    /**
+     * @param state Current state
+     * @param b Next byte
+     * @return The state after reading the byte
+     */
+    public int next(int state, byte b) {
+        return transitions[(state << 8) | (b & 0xff)];
+    }
+
+    /**
+     * @param state Current state
+     * @return Bit mask of the patterns ending at the last byte read, 0 if none
+     */
+    public int matches(int state) {
+        return matches[state];
+    }
+}
@@ -3,34 +3,177 @@ package nl.pvanassen.steam.store.helper;
 import nl.pvanassen.steam.error.SteamException;
 import org.slf4j.LoggerFactory;
 
-import java.io.UnsupportedEncodingException;
-import java.net.URLDecoder;
-import java.net.URLEncoder;
-
 /**
  * URL name helper to return a uniform url name
+ * <p>
+ * The uniform form is what {@link java.net.URLEncoder} produces for the
+ * decoded name, with spaces as <code>%20</code>: letters, digits and
+ * <code>.-*_</code> as is, everything else as upper case percent escapes of
+ * the UTF-8 bytes. Names are converted in a single pass, a name that already
+ * is uniform is returned as is.
+ * <p>
+ * The same few tens of thousands of names are read over and over, the results
+ * are interned in a bounded table so items share a single instance of their
+ * name. The size of the table is set with the
+ * <code>steam.urlName.internSize</code> system property, 0 disables it.
  *
  * @author Paul van Assen
  */
 public final class UrlNameHelper {
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+    // Direct mapped, a colliding name replaces the previous one. Strings are
+    // immutable, so racy reads and writes of the slots are safe.
+    private static final String[] INTERNED = createInternTable(Integer.getInteger("steam.urlName.internSize", 65536));
+
     /**
      * Make sure urlName is uniform
-     * 
+     *
      * @param urlName Url name, encoded or not.
-     * @return Uniform url
+     * @return Uniform url, interned
      */
     public static String getUrlName(String urlName) {
-        try {
-            String decodedUrlName = URLDecoder.decode(urlName, "UTF-8");
-            return URLEncoder.encode(decodedUrlName, "UTF-8").replace("+", "%20");
+        return intern(canonicalize(urlName));
+    }
+
+    /**
+     * Make sure urlName is uniform, without interning the result
+     *
+     * @param urlName Url name, encoded or not.
+     * @return Uniform url, urlName itself if it already is uniform
+     */
+    public static String canonicalize(String urlName) {
+        int length = urlName.length();
+        for (int i = 0; i < length; i++) {
+            char c = urlName.charAt(i);
+            if (isUnreserved(c)) {
+                continue;
+            }
+            if ((c == '%') && isCanonicalEscape(urlName, i)) {
+                i += 2;
+                continue;
+            }
+            return convert(urlName, i);
         }
-        catch (UnsupportedEncodingException e) {
-            throw new SteamException("Encoding not present", e);
+        return urlName;
+    }
+
+    private static String convert(String urlName, int from) {
+        int length = urlName.length();
+        StringBuilder builder = new StringBuilder(length + 16);
+        builder.append(urlName, 0, from);
+        for (int i = from; i < length; i++) {
+            char c = urlName.charAt(i);
+            if (isUnreserved(c)) {
+                builder.append(c);
+            } else if (c == '+') {
+                builder.append("%20");
+            } else if (c == '%') {
+                if (((i + 2) >= length) || (hex(urlName.charAt(i + 1)) == -1) || (hex(urlName.charAt(i + 2)) == -1)) {
+                    LoggerFactory.getLogger(UrlNameHelper.class).error("Error getting url name for '" + urlName + "'");
+                    throw new SteamException("Error getting url name for '" + urlName + "', illegal escape at " + i);
+                }
+                int b = (hex(urlName.charAt(i + 1)) << 4) | hex(urlName.charAt(i + 2));
+                if (isUnreserved((char) b)) {
+                    builder.append((char) b);
+                } else {
+                    // Already a byte of the UTF-8 encoding
+                    escapeByte(builder, b);
+                }
+                i += 2;
+            } else if (Character.isHighSurrogate(c) && ((i + 1) < length) && Character.isLowSurrogate(urlName.charAt(i + 1))) {
+                escape(builder, Character.toCodePoint(c, urlName.charAt(i + 1)));
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                // Like the encoder, an unpaired surrogate is replaced
+                escape(builder, '?');
+            } else {
+                escape(builder, c);
+            }
         }
-        catch (IllegalArgumentException e) {
-            LoggerFactory.getLogger(UrlNameHelper.class).error("Error getting url name for '" + urlName + "'", e);
-            throw new SteamException("Error getting url name for '" + urlName + "'", e);
+        return builder.toString();
+    }
+
+    /**
+     * Percent escape the UTF-8 bytes of a code point
+     */
+    private static void escape(StringBuilder builder, int codePoint) {
+        if (codePoint < 0x80) {
+            escapeByte(builder, codePoint);
+        } else if (codePoint < 0x800) {
+            escapeByte(builder, 0xC0 | (codePoint >> 6));
+            escapeByte(builder, 0x80 | (codePoint & 0x3F));
+        } else if (codePoint < 0x10000) {
+            escapeByte(builder, 0xE0 | (codePoint >> 12));
+            escapeByte(builder, 0x80 | ((codePoint >> 6) & 0x3F));
+            escapeByte(builder, 0x80 | (codePoint & 0x3F));
+        } else {
+            escapeByte(builder, 0xF0 | (codePoint >> 18));
+            escapeByte(builder, 0x80 | ((codePoint >> 12) & 0x3F));
+            escapeByte(builder, 0x80 | ((codePoint >> 6) & 0x3F));
+            escapeByte(builder, 0x80 | (codePoint & 0x3F));
+        }
+    }
+
+    private static void escapeByte(StringBuilder builder, int b) {
+        builder.append('%').append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+    }
+
+    /**
+     * @return True if the escape at the index is upper case and does not
+     *         encode a character that should not be escaped
+     */
+    private static boolean isCanonicalEscape(String urlName, int index) {
+        if ((index + 2) >= urlName.length()) {
+            return false;
+        }
+        char high = urlName.charAt(index + 1);
+        char low = urlName.charAt(index + 2);
+        if (!isUpperHex(high) || !isUpperHex(low)) {
+            return false;
+        }
+        return !isUnreserved((char) ((hex(high) << 4) | hex(low)));
+    }
+
+    private static boolean isUnreserved(char c) {
+        return ((c >= 'a') && (c <= 'z')) || ((c >= 'A') && (c <= 'Z')) || ((c >= '0') && (c <= '9')) || (c == '.') || (c == '-') || (c == '*') || (c == '_');
+    }
+
+    private static boolean isUpperHex(char c) {
+        return ((c >= '0') && (c <= '9')) || ((c >= 'A') && (c <= 'F'));
+    }
+
+    private static int hex(char c) {
+        if ((c >= '0') && (c <= '9')) {
+            return c - '0';
+        }
+        if ((c >= 'A') && (c <= 'F')) {
+            return (c - 'A') + 10;
+        }
+        if ((c >= 'a') && (c <= 'f')) {
+            return (c - 'a') + 10;
+        }
+        return -1;
+    }
+
+    private static String intern(String urlName) {
+        if (INTERNED == null) {
+            return urlName;
+        }
+        int hash = urlName.hashCode();
+        int slot = (hash ^ (hash >>> 16)) & (INTERNED.length - 1);
+        String interned = INTERNED[slot];
+        if (urlName.equals(interned)) {
+            return interned;
+        }
+        INTERNED[slot] = urlName;
+        return urlName;
+    }
+
+    private static String[] createInternTable(int size) {
+        if (size <= 0) {
+            return null;
         }
+        return new String[Integer.highestOneBit(Math.max(2, Math.min(size, 1 << 24)) - 1) << 1];
     }
 
     private UrlNameHelper() {
@@ -4,23 +4,17 @@ import com.google.common.collect.ImmutableList;
 import nl.pvanassen.steam.http.DefaultHandle;
 import nl.pvanassen.steam.store.helper.AmountHelper;
 import nl.pvanassen.steam.store.helper.UrlNameHelper;
-import nl.pvanassen.steam.store.xpath.XPathHelper;
-import org.apache.html.dom.HTMLDocumentImpl;
+import nl.pvanassen.steam.store.html.Element;
+import nl.pvanassen.steam.store.html.ElementStack;
+import nl.pvanassen.steam.store.html.HtmlHandler;
+import nl.pvanassen.steam.store.html.HtmlTokenizer;
+import nl.pvanassen.steam.store.html.Selector;
+import nl.pvanassen.steam.store.html.TextCapture;
 import org.codehaus.jackson.JsonNode;
 import org.codehaus.jackson.map.ObjectMapper;
-import org.cyberneko.html.parsers.DOMFragmentParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.w3c.dom.DocumentFragment;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.w3c.dom.html.HTMLDocument;
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
-
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpression;
-import javax.xml.xpath.XPathExpressionException;
+
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.StringReader;
@@ -50,12 +44,12 @@ class HistoryHandle extends DefaultHandle {
     private final Set<ListingCreated> listingsCreated = new LinkedHashSet<>();
     private final Set<ListingRemoved> listingsRemoved = new LinkedHashSet<>();
     private final ObjectMapper om;
-    private static final XPathExpression HISTORY_ROW_XPATH = XPathHelper.getXpathExpression("//DIV[@class='market_listing_row market_recent_listing_row']");
-    private static final XPathExpression GAIN_LOSS_XPATH = XPathHelper.getXpathExpression("./DIV[@class='market_listing_left_cell market_listing_gainorloss']");
-    private static final XPathExpression DATE_XPATH = XPathHelper.getXpathExpression("./DIV[@class='market_listing_right_cell market_listing_listed_date can_combine']");
-    private static final XPathExpression PRICE_XPATH = XPathHelper.getXpathExpression("./DIV/SPAN/SPAN[@class='market_listing_price']");
-    private static final XPathExpression BUYER_XPATH = XPathHelper.getXpathExpression("./DIV/DIV[@class='market_listing_whoactedwith_name_block']");
-    private static final XPathExpression ACTED_XPATH = XPathHelper.getXpathExpression("./DIV[@class='market_listing_right_cell market_listing_whoactedwith']");
+    private static final Selector HISTORY_ROW = Selector.compile("div[class='market_listing_row market_recent_listing_row']");
+    private static final Selector GAIN_LOSS = Selector.compile("> div[class='market_listing_left_cell market_listing_gainorloss']");
+    private static final Selector DATE = Selector.compile("> div[class='market_listing_right_cell market_listing_listed_date can_combine']");
+    private static final Selector PRICE = Selector.compile("> div > span > span[class='market_listing_price']");
+    private static final Selector BUYER = Selector.compile("> div > div[class='market_listing_whoactedwith_name_block']");
+    private static final Selector ACTED = Selector.compile("> div[class='market_listing_right_cell market_listing_whoactedwith']");
 
     private final String lastRowId;
     private boolean error = false;
@@ -116,6 +110,7 @@ class HistoryHandle extends DefaultHandle {
     @Override
     public void handle(InputStream stream) throws IOException {
         error = false;
+        exceptionThrown = false;
         logger.info("Handling stream");
         JsonNode node = om.readTree(stream);
         totalCount = node.get("total_count").asInt();
@@ -125,104 +120,167 @@ class HistoryHandle extends DefaultHandle {
             error = true;
             return;
         }
-        DOMFragmentParser parser = new DOMFragmentParser();
-        HTMLDocument document = new HTMLDocumentImpl();
-        Calendar now = Calendar.getInstance();
-        Calendar actedCal = Calendar.getInstance();
-        Calendar listedCal = Calendar.getInstance();
-        try {
-            SimpleDateFormat formatter = new SimpleDateFormat("d MMM", Locale.US);
-            Map<String, Asset> assetMap = getAssetMap(node);
-            Map<String, String> hoverMap = getHovers(node);
-
-            DocumentFragment fragment = document.createDocumentFragment();
-            parser.parse(new InputSource(new StringReader(resultHtml)), fragment);
-
-            NodeList nodeSet = (NodeList) HISTORY_ROW_XPATH.evaluate(fragment, XPathConstants.NODESET);
-            for (int i = 0; i < nodeSet.getLength(); i++) {
-                Node historyRow = nodeSet.item(i);
-                historyRow.getParentNode().removeChild(historyRow);
-                String rowName = historyRow.getAttributes().getNamedItem("id").getTextContent();
-                if (!savedFirstRowId) {
-                    latestRowId = rowName;
-                    savedFirstRowId = true;
-                }
-                if (rowName.toLowerCase().equals(lastRowId.toLowerCase())) {
-                    logger.info("Found last row, stopping!");
-                    foundRowId = true;
-                    return;
+        Map<String, Asset> assetMap = getAssetMap(node);
+        Map<String, String> hoverMap = getHovers(node);
+        HtmlTokenizer.parse(new StringReader(resultHtml), new RowExtractor(assetMap, hoverMap));
+    }
+
+    /**
+     * Collects the text of the cells of a history row while the html is
+     * tokenized, the row is processed when it is closed
+     */
+    private final class RowExtractor implements HtmlHandler {
+        private final Map<String, Asset> assetMap;
+        private final Map<String, String> hoverMap;
+        private final SimpleDateFormat formatter = new SimpleDateFormat("d MMM", Locale.US);
+        private final Calendar now = Calendar.getInstance();
+        private final Calendar actedCal = Calendar.getInstance();
+        private final Calendar listedCal = Calendar.getInstance();
+        private final TextCapture gainLoss = new TextCapture(GAIN_LOSS);
+        private final TextCapture acted = new TextCapture(ACTED);
+        private final TextCapture price = new TextCapture(PRICE);
+        private final TextCapture buyer = new TextCapture(BUYER);
+        private final TextCapture listedDate = new TextCapture(DATE);
+        private final TextCapture actedDate = new TextCapture(DATE);
+        private final TextCapture[] captures = { gainLoss, acted, price, buyer, listedDate, actedDate };
+        private String rowName;
+        // Depth of the row, 0 when not in a row
+        private int rowDepth;
+
+        RowExtractor(Map<String, Asset> assetMap, Map<String, String> hoverMap) {
+            this.assetMap = assetMap;
+            this.hoverMap = hoverMap;
+        }
+
+        @Override
+        public void startElement(ElementStack stack) {
+            if (rowDepth == 0) {
+                if (HISTORY_ROW.matches(stack)) {
+                    startRow(stack.peek(), stack.size());
                 }
-                Node gainLoss = (Node) GAIN_LOSS_XPATH.evaluate(historyRow, XPathConstants.NODE);
-                String gainLossText = gainLoss.getTextContent().trim();
-                HistoryStatus status = null;
-                if ("-".equals(gainLossText)) {
-                    status = HistoryStatus.SOLD;
-                } else if ("+".equals(gainLossText)) {
-                    status = HistoryStatus.BOUGHT;
-                } else {
-                    Node actedNode = (Node) ACTED_XPATH.evaluate(historyRow, XPathConstants.NODE);
-                    String acted = actedNode.getTextContent().trim();
-                    if ("Listing created".equals(acted)) {
-                        status = HistoryStatus.CREATED;
-                    } else if ("Listing canceled".equals(acted)) {
-                        status = HistoryStatus.REMOVED;
-                    }
+                return;
+            }
+            gainLoss.startElement(stack, rowDepth);
+            acted.startElement(stack, rowDepth);
+            price.startElement(stack, rowDepth);
+            buyer.startElement(stack, rowDepth);
+            if (!listedDate.startElement(stack, rowDepth) && listedDate.isFound()) {
+                actedDate.startElement(stack, rowDepth);
+            }
+        }
+
+        private void startRow(Element element, int depth) {
+            rowName = element.getId();
+            if (!savedFirstRowId) {
+                latestRowId = rowName;
+                savedFirstRowId = true;
+            }
+            if (rowName.equalsIgnoreCase(lastRowId)) {
+                logger.info("Found last row, stopping!");
+                foundRowId = true;
+                return;
+            }
+            rowDepth = depth;
+            for (TextCapture capture : captures) {
+                capture.reset();
+            }
+        }
+
+        @Override
+        public void text(char[] chars, int start, int length) {
+            if (rowDepth == 0) {
+                return;
+            }
+            for (TextCapture capture : captures) {
+                capture.text(chars, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(ElementStack stack) {
+            if (rowDepth == 0) {
+                return;
+            }
+            if (stack.size() == rowDepth) {
+                rowDepth = 0;
+                endRow();
+                return;
+            }
+            for (TextCapture capture : captures) {
+                capture.endElement(stack);
+            }
+        }
+
+        @Override
+        public boolean isDone() {
+            return foundRowId;
+        }
+
+        private void endRow() {
+            String gainLossText = gainLoss.getText().trim();
+            HistoryStatus status = null;
+            if ("-".equals(gainLossText)) {
+                status = HistoryStatus.SOLD;
+            } else if ("+".equals(gainLossText)) {
+                status = HistoryStatus.BOUGHT;
+            } else {
+                String actedText = acted.getText().trim();
+                if ("Listing created".equals(actedText)) {
+                    status = HistoryStatus.CREATED;
+                } else if ("Listing canceled".equals(actedText)) {
+                    status = HistoryStatus.REMOVED;
                 }
-                boolean full = (status == HistoryStatus.BOUGHT) || (status == HistoryStatus.SOLD);
+            }
+            boolean full = (status == HistoryStatus.BOUGHT) || (status == HistoryStatus.SOLD);
 
-                String priceStr = ((Node) PRICE_XPATH.evaluate(historyRow, XPathConstants.NODE)).getTextContent().trim();
-                String buyer = "";
+            String priceStr = price.getText().trim();
+            String buyerName = "";
+            if (full) {
+                buyerName = buyer.getText().replace("Buyer:", "").replace("Seller:", "").trim();
+            }
+            String rowId = rowName;
+            int eventIdx = rowId.indexOf("_event");
+            if (eventIdx > -1) {
+                rowId = rowId.substring(0, eventIdx);
+            }
+            Asset asset = assetMap.get(hoverMap.get(rowId));
+            try {
+                Date actedOn = null;
+                Date listedOn = null;
                 if (full) {
-                    buyer = ((Node) BUYER_XPATH.evaluate(historyRow, XPathConstants.NODE)).getTextContent().replace("Buyer:", "").replace("Seller:", "").trim();
+                    actedOn = formatter.parse(actedDate.getText().trim());
+                    listedOn = formatter.parse(listedDate.getText().trim());
+                    actedCal.setTime(actedOn);
+                    listedCal.setTime(listedOn);
+                    setYear(now, actedCal);
+                    setYear(now, listedCal);
+                    actedOn = actedCal.getTime();
+                    listedOn = listedCal.getTime();
                 }
-                int eventIdx = rowName.indexOf("_event");
-                if (eventIdx > -1) {
-                    rowName = rowName.substring(0, eventIdx);
+                int amount = 0;
+                if (!"".equals(priceStr)) {
+                    amount = AmountHelper.getAmount(priceStr);
+                }
+                if (status == null) {
+                    return;
                 }
-                Asset asset = assetMap.get(hoverMap.get(rowName));
-                try {
-                    Date acted = null;
-                    Date listed = null;
-                    if (full) {
-                        NodeList dates = (NodeList) DATE_XPATH.evaluate(historyRow, XPathConstants.NODESET);
-                        String listedStr = dates.item(0).getTextContent().trim();
-                        String actedStr = dates.item(1).getTextContent().trim();
-                        acted = formatter.parse(actedStr);
-                        listed = formatter.parse(listedStr);
-                        actedCal.setTime(acted);
-                        listedCal.setTime(listed);
-                        setYear(now, actedCal);
-                        setYear(now, listedCal);
-                        acted = actedCal.getTime();
-                        listed = listedCal.getTime();
-                    }
-                    int price = 0;
-                    if (!"".equals(priceStr)) {
-                        price = AmountHelper.getAmount(priceStr);
-                    }
-                    if (status == null) {
-                        continue;
-                    }
-                    switch (status) {
-                        case BOUGHT:
-                            purchases.add(new Purchase(rowName, asset.appId, asset.urlName, asset.contextId, listed, acted, price, buyer));
-                            break;
-                        case CREATED:
-                            listingsCreated.add(new ListingCreated(rowName, listed, acted, price));
-                            break;
-                        case REMOVED:
-                            listingsRemoved.add(new ListingRemoved(rowName, listed, acted, price));
-                            break;
-                        case SOLD:
-                            sales.add(new Sale(rowName, asset.appId, asset.urlName, asset.contextId, listed, acted, price, buyer));
-                            break;
-                    }
-                } catch (ParseException e) {
-                    logger.error("Error parsing date", e);
+                switch (status) {
+                    case BOUGHT:
+                        purchases.add(new Purchase(rowId, asset.appId, asset.urlName, asset.contextId, listedOn, actedOn, amount, buyerName));
+                        break;
+                    case CREATED:
+                        listingsCreated.add(new ListingCreated(rowId, listedOn, actedOn, amount));
+                        break;
+                    case REMOVED:
+                        listingsRemoved.add(new ListingRemoved(rowId, listedOn, actedOn, amount));
+                        break;
+                    case SOLD:
+                        sales.add(new Sale(rowId, asset.appId, asset.urlName, asset.contextId, listedOn, actedOn, amount, buyerName));
+                        break;
                 }
+            } catch (ParseException e) {
+                logger.error("Error parsing date", e);
             }
-        } catch (SAXException | XPathExpressionException e) {
-            logger.error("Error parsing html", e);
         }
     }
 
@@ -1,6 +1,9 @@
 package nl.pvanassen.steam.store.history;
 
+import nl.pvanassen.steam.error.RetriesExhaustedException;
 import nl.pvanassen.steam.http.Http;
+import nl.pvanassen.steam.http.RetryBudget;
+import nl.pvanassen.steam.http.RetryPolicy;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,12 +17,22 @@ public class SteamHistoryService implements HistoryService {
     private final Logger logger = LoggerFactory.getLogger(getClass());
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final Http http;
+    private final RetryPolicy retryPolicy;
 
     /**
      * @param http For mocking
      */
     public SteamHistoryService(Http http) {
+        this(http, RetryPolicy.DEFAULT);
+    }
+
+    /**
+     * @param http For mocking
+     * @param retryPolicy Policy for retrying failed pages
+     */
+    public SteamHistoryService(Http http, RetryPolicy retryPolicy) {
         this.http = http;
+        this.retryPolicy = retryPolicy;
     }
 
     /**
@@ -32,19 +45,9 @@ public class SteamHistoryService implements HistoryService {
         long startTime = System.currentTimeMillis();
         OptimumStepSize optimumStepSize = new OptimumStepSize();
         logger.info("Getting history, up to " + lastSteamId);
-        HistoryHandle handle = new HistoryHandle(lastSteamId, objectMapper);
+        HistoryHandle handle = getFirstPage(lastSteamId);
         try {
-            logger.info("Getting some data");
-            http.get("http://steamcommunity.com/market/myhistory/render/?query=&search_descriptions=0&start=0&count=1", handle, false);
-            if (handle.isExceptionThrown()) {
-                logger.error("IO error");
-                return getHistory(lastSteamId);
-            }
             int stepSize = optimumStepSize.getStepSize();
-            if (handle.isError()) {
-                logger.error("Error in handle");
-                return getHistory(lastSteamId);
-            }
             // Added extra margin
             int totalCount = handle.getTotalCount() + (stepSize / 2);
             logger.info("Need to get a total of " + totalCount);
@@ -53,6 +56,7 @@ public class SteamHistoryService implements HistoryService {
                 if (start < 0) {
                     start = 0;
                 }
+                RetryBudget retryBudget = retryPolicy.newBudget();
                 do {
                     stepSize = optimumStepSize.getStepSize();
                     error = false;
@@ -72,11 +76,33 @@ public class SteamHistoryService implements HistoryService {
                     long timePast = System.currentTimeMillis() - startTime;
                     double itemsPerTime = (totalCount - start) / (double) timePast;
                     logger.info("Doing " + itemsPerTime + " per " + timePast + ", expected " + (itemsPerTime * start));
+                    if (handle.isError() || error) {
+                        retryBudget.backOff("getting history from " + start, 0, null);
+                    }
                 } while (handle.isError() || error);
             }
+        } catch (RetriesExhaustedException e) {
+            throw e;
         } catch (RuntimeException e) {
             logger.error("Error getting data", e);
         }
         return handle.getHistory();
     }
+
+    private HistoryHandle getFirstPage(String lastSteamId) {
+        RetryBudget retryBudget = retryPolicy.newBudget();
+        while (true) {
+            HistoryHandle handle = new HistoryHandle(lastSteamId, objectMapper);
+            logger.info("Getting some data");
+            http.get("http://steamcommunity.com/market/myhistory/render/?query=&search_descriptions=0&start=0&count=1", handle, false);
+            if (handle.isExceptionThrown()) {
+                logger.error("IO error");
+            } else if (handle.isError()) {
+                logger.error("Error in handle");
+            } else {
+                return handle;
+            }
+            retryBudget.backOff("getting history", 0, null);
+        }
+    }
 }
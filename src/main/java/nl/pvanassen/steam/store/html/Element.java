@@ -0,0 +1,91 @@
+package nl.pvanassen.steam.store.html;
+
+import java.util.Arrays;
+
+/**
+ * Start tag read by the {@link HtmlTokenizer}. Element and attribute names are
+ * lower case, attribute values have their entities decoded.
+ *
+ * @author Paul van Assen
+ */
+public final class Element {
+    private static final String[] NO_ATTRIBUTES = new String[0];
+
+    private final String name;
+    // Alternating names and values
+    private final String[] attributes;
+
+    Element(String name, String[] attributes) {
+        this.name = name;
+        this.attributes = attributes.length == 0 ? NO_ATTRIBUTES : attributes;
+    }
+
+    /**
+     * @return Lower case element name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @param attribute Lower case attribute name
+     * @return Value of the attribute, or null if absent
+     */
+    public String getAttribute(String attribute) {
+        for (int i = 0; i < attributes.length; i += 2) {
+            if (attributes[i].equals(attribute)) {
+                return attributes[i + 1];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return Value of the id attribute, or null if absent
+     */
+    public String getId() {
+        return getAttribute("id");
+    }
+
+    /**
+     * @return Value of the class attribute, or null if absent
+     */
+    public String getClassName() {
+        return getAttribute("class");
+    }
+
+    /**
+     * @param className Single class name
+     * @return True if the class attribute contains the class name as one of
+     *         its whitespace separated tokens
+     */
+    public boolean hasClass(String className) {
+        String classes = getClassName();
+        if (classes == null) {
+            return false;
+        }
+        int length = className.length();
+        int from = 0;
+        while (true) {
+            int idx = classes.indexOf(className, from);
+            if (idx == -1) {
+                return false;
+            }
+            int end = idx + length;
+            if (((idx == 0) || Character.isWhitespace(classes.charAt(idx - 1))) && ((end == classes.length()) || Character.isWhitespace(classes.charAt(end)))) {
+                return true;
+            }
+            from = idx + 1;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "Element [name=" + name + ", attributes=" + Arrays.toString(attributes) + "]";
+    }
+}
@@ -0,0 +1,72 @@
+package nl.pvanassen.steam.store.html;
+
+import java.util.Arrays;
+
+/**
+ * Open elements of the document being tokenized, from the root (index 0) to
+ * the current element. Only valid during the callback it is passed to.
+ *
+ * @author Paul van Assen
+ */
+public final class ElementStack {
+    private Element[] elements = new Element[32];
+    private int size;
+
+    ElementStack() {
+        super();
+    }
+
+    /**
+     * @return Number of open elements, the depth of the current element
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index Index from the root, 0 up to {@link #size()}
+     * @return Open element at the index
+     */
+    public Element get(int index) {
+        if ((index < 0) || (index >= size)) {
+            throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+        }
+        return elements[index];
+    }
+
+    /**
+     * @return Current element, or null if no element is open
+     */
+    public Element peek() {
+        return size == 0 ? null : elements[size - 1];
+    }
+
+    /**
+     * @param levels Number of levels up, 0 being the current element
+     * @return Ancestor of the current element, or null above the root
+     */
+    public Element ancestor(int levels) {
+        int index = size - 1 - levels;
+        return index < 0 ? null : elements[index];
+    }
+
+    void push(Element element) {
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, size * 2);
+        }
+        elements[size++] = element;
+    }
+
+    void pop() {
+        elements[--size] = null;
+    }
+
+    int lastIndexOf(String name) {
+        for (int i = size - 1; i >= 0; i--) {
+            if (elements[i].getName().equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
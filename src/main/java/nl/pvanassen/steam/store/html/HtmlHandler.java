@@ -0,0 +1,40 @@
+package nl.pvanassen.steam.store.html;
+
+/**
+ * Receives the events of the {@link HtmlTokenizer}
+ *
+ * @author Paul van Assen
+ */
+public interface HtmlHandler {
+    /**
+     * An element was opened, it is on top of the stack
+     *
+     * @param stack Open elements
+     */
+    void startElement(ElementStack stack);
+
+    /**
+     * An element is closed, it is still on top of the stack. Void, self
+     * closing and implicitly closed elements are closed as well.
+     *
+     * @param stack Open elements
+     */
+    void endElement(ElementStack stack);
+
+    /**
+     * Text with its entities decoded. Text of a single node may be passed in
+     * multiple chunks. The array is reused after the call returns.
+     *
+     * @param chars Buffer
+     * @param start Offset of the text
+     * @param length Length of the text
+     */
+    void text(char[] chars, int start, int length);
+
+    /**
+     * @return True to stop tokenizing after the current event
+     */
+    default boolean isDone() {
+        return false;
+    }
+}
@@ -0,0 +1,364 @@
+package nl.pvanassen.steam.store.html;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lenient single pass HTML tokenizer. Instead of building a DOM it passes the
+ * elements and text to a {@link HtmlHandler} while keeping track of the open
+ * elements. It is tolerant in the way browsers are for the markup Steam
+ * produces:
+ * <ul>
+ * <li>Void and self closing elements are closed immediately</li>
+ * <li>An end tag closes all elements opened after its start tag, an end tag
+ * without start tag is ignored</li>
+ * <li>p, li, option, tr, td and th close an open element of the same name</li>
+ * <li>The content of script and style is passed as text</li>
+ * <li>Comments, doctypes and processing instructions are skipped</li>
+ * <li>All elements still open at the end of the input are closed</li>
+ * </ul>
+ * A tokenizer is used for a single document, create one per parse.
+ *
+ * @author Paul van Assen
+ */
+public final class HtmlTokenizer {
+    private static final Set<String> VOID_ELEMENTS = ImmutableSet.of("area", "base", "br", "col", "embed", "hr", "img", "input", "link", "meta", "param", "source",
+            "track", "wbr");
+    private static final Set<String> SELF_CLOSING_SIBLINGS = ImmutableSet.of("p", "li", "option", "tr", "td", "th");
+    private static final Map<String, Character> ENTITIES = ImmutableMap.<String, Character> builder()
+            .put("amp", '&').put("lt", '<').put("gt", '>').put("quot", '"').put("apos", '\'')
+            .put("nbsp", '\u00a0').put("euro", '\u20ac').put("pound", '\u00a3').put("yen", '\u00a5').put("cent", '\u00a2')
+            .put("copy", '\u00a9').put("reg", '\u00ae').put("trade", '\u2122').put("hellip", '\u2026').put("ndash", '\u2013')
+            .put("mdash", '\u2014').put("laquo", '\u00ab').put("raquo", '\u00bb').put("lsquo", '\u2018').put("rsquo", '\u2019')
+            .put("ldquo", '\u201c').put("rdquo", '\u201d').put("bull", '\u2022').put("middot", '\u00b7').put("times", '\u00d7').build();
+    private static final int MAX_ENTITY = 10;
+
+    private final Reader reader;
+    private final HtmlHandler handler;
+    private final ElementStack stack = new ElementStack();
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+    private char[] text = new char[256];
+    private int textLength;
+    private final StringBuilder token = new StringBuilder();
+    private final List<String> attributes = new ArrayList<>();
+
+    private HtmlTokenizer(Reader reader, HtmlHandler handler) {
+        this.reader = reader;
+        this.handler = handler;
+    }
+
+    /**
+     * Tokenize a document
+     *
+     * @param reader Document to read, not closed
+     * @param handler Handler receiving the events
+     * @throws IOException If reading fails
+     */
+    public static void parse(Reader reader, HtmlHandler handler) throws IOException {
+        new HtmlTokenizer(reader, handler).parse();
+    }
+
+    private void parse() throws IOException {
+        int c;
+        while (!handler.isDone() && ((c = read()) != -1)) {
+            if (c == '<') {
+                markup();
+            } else if (c == '&') {
+                int codePoint = entity();
+                if (codePoint == -1) {
+                    appendText('&');
+                } else if (Character.isBmpCodePoint(codePoint)) {
+                    appendText((char) codePoint);
+                } else {
+                    appendText(Character.highSurrogate(codePoint));
+                    appendText(Character.lowSurrogate(codePoint));
+                }
+            } else {
+                appendText((char) c);
+            }
+        }
+        flushText();
+        while (!handler.isDone() && (stack.size() > 0)) {
+            close();
+        }
+    }
+
+    private void markup() throws IOException {
+        int c = peek();
+        if (c == '/') {
+            position++;
+            endTag();
+        } else if (c == '!') {
+            position++;
+            if ((peek() == '-') && (peekAt(1) == '-')) {
+                position += 2;
+                skipPast("-->");
+            } else {
+                skipPast(">");
+            }
+        } else if (c == '?') {
+            skipPast(">");
+        } else if (isLetter(c)) {
+            startTag();
+        } else {
+            appendText('<');
+        }
+    }
+
+    private void startTag() throws IOException {
+        flushText();
+        String name = readName();
+        attributes.clear();
+        boolean selfClosing = false;
+        int c;
+        while ((c = skipWhitespace()) != -1) {
+            if (c == '>') {
+                position++;
+                break;
+            }
+            if (c == '/') {
+                position++;
+                selfClosing = peek() == '>';
+                continue;
+            }
+            String attribute = readName();
+            if (attribute.isEmpty()) {
+                // Stray character such as a quote, drop it
+                position++;
+                continue;
+            }
+            String value = "";
+            if (skipWhitespace() == '=') {
+                position++;
+                skipWhitespace();
+                value = readValue();
+            }
+            attributes.add(attribute);
+            attributes.add(value);
+        }
+        if (SELF_CLOSING_SIBLINGS.contains(name)) {
+            Element current = stack.peek();
+            if ((current != null) && current.getName().equals(name)) {
+                close();
+            }
+        }
+        stack.push(new Element(name, attributes.toArray(new String[attributes.size()])));
+        handler.startElement(stack);
+        if (selfClosing || VOID_ELEMENTS.contains(name)) {
+            close();
+        } else if ("script".equals(name) || "style".equals(name)) {
+            rawText(name);
+        }
+    }
+
+    private void endTag() throws IOException {
+        flushText();
+        String name = readName();
+        skipPast(">");
+        int index = stack.lastIndexOf(name);
+        if (index == -1) {
+            return;
+        }
+        while (stack.size() > index) {
+            close();
+        }
+    }
+
+    private void close() {
+        handler.endElement(stack);
+        stack.pop();
+    }
+
+    private void rawText(String name) throws IOException {
+        int c;
+        while ((c = read()) != -1) {
+            if ((c == '<') && (peek() == '/') && nameFollows(name)) {
+                position++;
+                endTag();
+                return;
+            }
+            appendText((char) c);
+        }
+    }
+
+    private boolean nameFollows(String name) throws IOException {
+        for (int i = 0; i < name.length(); i++) {
+            int c = peekAt(i + 1);
+            if ((c == -1) || (Character.toLowerCase((char) c) != name.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String readName() throws IOException {
+        token.setLength(0);
+        int c;
+        while (((c = peek()) != -1) && !Character.isWhitespace(c) && (c != '>') && (c != '/') && (c != '=') && (c != '"') && (c != '\'')) {
+            token.append(Character.toLowerCase((char) c));
+            position++;
+        }
+        return token.toString();
+    }
+
+    private String readValue() throws IOException {
+        token.setLength(0);
+        int quote = peek();
+        if ((quote == '"') || (quote == '\'')) {
+            position++;
+        } else {
+            quote = -1;
+        }
+        int c;
+        while ((c = peek()) != -1) {
+            if ((quote == -1) ? (Character.isWhitespace(c) || (c == '>')) : (c == quote)) {
+                break;
+            }
+            position++;
+            if (c == '&') {
+                int codePoint = entity();
+                if (codePoint == -1) {
+                    token.append('&');
+                } else {
+                    token.appendCodePoint(codePoint);
+                }
+            } else {
+                token.append((char) c);
+            }
+        }
+        if ((quote != -1) && (c == quote)) {
+            position++;
+        }
+        return token.toString();
+    }
+
+    /**
+     * Decode an entity, the ampersand has been read
+     *
+     * @return Code point, or -1 if the entity is not recognized and the
+     *         ampersand should be passed through as is
+     */
+    private int entity() throws IOException {
+        int length = 0;
+        int c;
+        while ((length < MAX_ENTITY) && ((c = peekAt(length)) != -1) && (Character.isLetterOrDigit(c) || ((length == 0) && (c == '#')))) {
+            length++;
+        }
+        if ((length == 0) || (peekAt(length) != ';')) {
+            return -1;
+        }
+        int codePoint = decode(new String(buffer, position, length));
+        if (codePoint != -1) {
+            position += length + 1;
+        }
+        return codePoint;
+    }
+
+    private static int decode(String name) {
+        if (name.charAt(0) != '#') {
+            Character c = ENTITIES.get(name);
+            if (c == null) {
+                c = ENTITIES.get(name.toLowerCase(Locale.US));
+            }
+            return c == null ? -1 : c;
+        }
+        try {
+            int codePoint;
+            if ((name.length() > 1) && ((name.charAt(1) == 'x') || (name.charAt(1) == 'X'))) {
+                codePoint = Integer.parseInt(name.substring(2), 16);
+            } else {
+                codePoint = Integer.parseInt(name.substring(1));
+            }
+            return Character.isValidCodePoint(codePoint) ? codePoint : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void appendText(char c) {
+        if (textLength == text.length) {
+            flushText();
+        }
+        text[textLength++] = c;
+    }
+
+    private void flushText() {
+        if (textLength > 0) {
+            handler.text(text, 0, textLength);
+            textLength = 0;
+        }
+    }
+
+    private void skipPast(String end) throws IOException {
+        int matched = 0;
+        int c;
+        while ((c = read()) != -1) {
+            if (c == end.charAt(matched)) {
+                if (++matched == end.length()) {
+                    return;
+                }
+            } else {
+                matched = c == end.charAt(0) ? 1 : 0;
+            }
+        }
+    }
+
+    private int skipWhitespace() throws IOException {
+        int c;
+        while (((c = peek()) != -1) && Character.isWhitespace(c)) {
+            position++;
+        }
+        return c;
+    }
+
+    private static boolean isLetter(int c) {
+        return ((c >= 'a') && (c <= 'z')) || ((c >= 'A') && (c <= 'Z'));
+    }
+
+    private int read() throws IOException {
+        if ((position == limit) && !fill(1)) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        return peekAt(0);
+    }
+
+    /**
+     * Look ahead without consuming, at most {@link #MAX_ENTITY} characters
+     */
+    private int peekAt(int offset) throws IOException {
+        if ((position + offset >= limit) && !fill(offset + 1)) {
+            return -1;
+        }
+        return buffer[position + offset];
+    }
+
+    private boolean fill(int needed) throws IOException {
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+        }
+        while (limit < needed) {
+            int read = reader.read(buffer, limit, buffer.length - limit);
+            if (read == -1) {
+                return false;
+            }
+            limit += read;
+        }
+        return true;
+    }
+}
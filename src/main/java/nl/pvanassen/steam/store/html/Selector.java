@@ -0,0 +1,283 @@
+package nl.pvanassen.steam.store.html;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Precompiled element selector, matched against the open elements of the
+ * {@link HtmlTokenizer}. Supports a subset of CSS:
+ * <ul>
+ * <li><code>div</code>, <code>*</code>: element name</li>
+ * <li><code>#id</code>, <code>.class</code>: id, one of the classes</li>
+ * <li><code>[attr]</code>, <code>[attr='value']</code>,
+ * <code>[attr*='value']</code>: attribute present, equal to or containing the
+ * value</li>
+ * <li><code>a b</code>, <code>a &gt; b</code>: descendant and child</li>
+ * </ul>
+ * A selector can be matched against the whole document, or within a scope
+ * element. A selector starting with <code>&gt;</code> only matches children of
+ * the scope element.
+ * <p>
+ * Selectors are immutable and can be shared between threads.
+ *
+ * @author Paul van Assen
+ */
+public final class Selector {
+    private enum Operator {
+        PRESENT, EQUALS, CONTAINS
+    }
+
+    private static final class Compound {
+        private final String name;
+        private final String id;
+        private final String[] classes;
+        private final String[] attributes;
+        private final Operator[] operators;
+        private final String[] values;
+
+        private Compound(String name, String id, List<String> classes, List<String> attributes, List<Operator> operators, List<String> values) {
+            this.name = name;
+            this.id = id;
+            this.classes = classes.toArray(new String[classes.size()]);
+            this.attributes = attributes.toArray(new String[attributes.size()]);
+            this.operators = operators.toArray(new Operator[operators.size()]);
+            this.values = values.toArray(new String[values.size()]);
+        }
+
+        private boolean matches(Element element) {
+            if ((name != null) && !name.equals(element.getName())) {
+                return false;
+            }
+            if ((id != null) && !id.equals(element.getId())) {
+                return false;
+            }
+            for (String className : classes) {
+                if (!element.hasClass(className)) {
+                    return false;
+                }
+            }
+            for (int i = 0; i < attributes.length; i++) {
+                String value = element.getAttribute(attributes[i]);
+                if (value == null) {
+                    return false;
+                }
+                if ((operators[i] == Operator.EQUALS) && !value.equals(values[i])) {
+                    return false;
+                }
+                if ((operators[i] == Operator.CONTAINS) && !value.contains(values[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private final String selector;
+    private final boolean anchored;
+    private final Compound[] compounds;
+    // Combinator before each compound, true for child
+    private final boolean[] child;
+
+    private Selector(String selector, boolean anchored, Compound[] compounds, boolean[] child) {
+        this.selector = selector;
+        this.anchored = anchored;
+        this.compounds = compounds;
+        this.child = child;
+    }
+
+    /**
+     * Compile a selector
+     *
+     * @param selector Selector
+     * @return Compiled selector
+     * @throws IllegalArgumentException If the selector can not be parsed
+     */
+    public static Selector compile(String selector) {
+        return new Parser(selector).parse();
+    }
+
+    /**
+     * @param stack Open elements
+     * @return True if the current element matches anywhere in the document
+     */
+    public boolean matches(ElementStack stack) {
+        return matches(stack, 0);
+    }
+
+    /**
+     * @param stack Open elements
+     * @param scope Depth of the scope element, the size of the stack when it
+     *            was opened. 0 for the whole document.
+     * @return True if the current element is below the scope element and
+     *         matches
+     */
+    public boolean matches(ElementStack stack, int scope) {
+        int last = stack.size() - 1;
+        if (last < scope) {
+            return false;
+        }
+        return matches(stack, scope, compounds.length - 1, last);
+    }
+
+    private boolean matches(ElementStack stack, int scope, int compound, int index) {
+        if (!compounds[compound].matches(stack.get(index))) {
+            return false;
+        }
+        if (compound == 0) {
+            return !anchored || (index == scope);
+        }
+        if (child[compound]) {
+            return (index > scope) && matches(stack, scope, compound - 1, index - 1);
+        }
+        for (int i = index - 1; i >= scope; i--) {
+            if (matches(stack, scope, compound - 1, i)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return selector;
+    }
+
+    private static final class Parser {
+        private final String selector;
+        private int position;
+
+        private Parser(String selector) {
+            this.selector = selector;
+        }
+
+        private Selector parse() {
+            List<Compound> compounds = new ArrayList<>();
+            List<Boolean> child = new ArrayList<>();
+            skipWhitespace();
+            boolean anchored = consume('>');
+            boolean childCombinator = false;
+            while (true) {
+                skipWhitespace();
+                compounds.add(compound());
+                child.add(childCombinator);
+                boolean whitespace = skipWhitespace();
+                if (position == selector.length()) {
+                    break;
+                }
+                childCombinator = consume('>');
+                if (!childCombinator && !whitespace) {
+                    throw error("Expected combinator");
+                }
+            }
+            boolean[] childArray = new boolean[child.size()];
+            for (int i = 0; i < childArray.length; i++) {
+                childArray[i] = child.get(i);
+            }
+            return new Selector(selector, anchored, compounds.toArray(new Compound[compounds.size()]), childArray);
+        }
+
+        private Compound compound() {
+            String name = null;
+            String id = null;
+            List<String> classes = new ArrayList<>();
+            List<String> attributes = new ArrayList<>();
+            List<Operator> operators = new ArrayList<>();
+            List<String> values = new ArrayList<>();
+            int start = position;
+            if (consume('*')) {
+                // Any element
+            } else if ((position < selector.length()) && isIdentifier(selector.charAt(position))) {
+                name = identifier().toLowerCase(Locale.US);
+            }
+            while (position < selector.length()) {
+                if (consume('#')) {
+                    id = identifier();
+                } else if (consume('.')) {
+                    classes.add(identifier());
+                } else if (consume('[')) {
+                    attributes.add(identifier().toLowerCase(Locale.US));
+                    if (consume(']')) {
+                        operators.add(Operator.PRESENT);
+                        values.add(null);
+                        continue;
+                    }
+                    if (consume('*')) {
+                        operators.add(Operator.CONTAINS);
+                    } else {
+                        operators.add(Operator.EQUALS);
+                    }
+                    expect('=');
+                    values.add(value());
+                    expect(']');
+                } else {
+                    break;
+                }
+            }
+            if (position == start) {
+                throw error("Expected element");
+            }
+            return new Compound(name, id, classes, attributes, operators, values);
+        }
+
+        private String value() {
+            if ((position < selector.length()) && ((selector.charAt(position) == '\'') || (selector.charAt(position) == '"'))) {
+                char quote = selector.charAt(position++);
+                int end = selector.indexOf(quote, position);
+                if (end == -1) {
+                    throw error("Unterminated value");
+                }
+                String value = selector.substring(position, end);
+                position = end + 1;
+                return value;
+            }
+            return identifier();
+        }
+
+        private String identifier() {
+            int start = position;
+            while ((position < selector.length()) && isIdentifier(selector.charAt(position))) {
+                position++;
+            }
+            if (start == position) {
+                throw error("Expected identifier");
+            }
+            return selector.substring(start, position);
+        }
+
+        private static boolean isIdentifier(char c) {
+            return Character.isLetterOrDigit(c) || (c == '-') || (c == '_');
+        }
+
+        private boolean skipWhitespace() {
+            int start = position;
+            while ((position < selector.length()) && Character.isWhitespace(selector.charAt(position))) {
+                position++;
+            }
+            return position > start;
+        }
+
+        private boolean consume(char c) {
+            if ((position < selector.length()) && (selector.charAt(position) == c)) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!consume(c)) {
+                throw error("Expected '" + c + "'");
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at " + position + " in selector " + selector);
+        }
+    }
+}
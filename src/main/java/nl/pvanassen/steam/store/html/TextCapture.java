@@ -0,0 +1,87 @@
+package nl.pvanassen.steam.store.html;
+
+/**
+ * Collects the text content of the first element matching a
+ * {@link Selector}, like the text content of a DOM node. Holds the state of a
+ * single parse, create one per parse and {@link #reset()} it for every scope
+ * element.
+ *
+ * @author Paul van Assen
+ */
+public final class TextCapture {
+    private final Selector selector;
+    private final StringBuilder text = new StringBuilder();
+    private int depth;
+    private boolean found;
+
+    /**
+     * @param selector Element to collect the text of
+     */
+    public TextCapture(Selector selector) {
+        this.selector = selector;
+    }
+
+    /**
+     * Start collecting if the current element is the first match
+     *
+     * @param stack Open elements
+     * @param scope Depth of the scope element, see
+     *            {@link Selector#matches(ElementStack, int)}
+     * @return True if collecting started
+     */
+    public boolean startElement(ElementStack stack, int scope) {
+        if (found || (depth != 0) || !selector.matches(stack, scope)) {
+            return false;
+        }
+        depth = stack.size();
+        return true;
+    }
+
+    /**
+     * Stop collecting if the matched element is closed
+     *
+     * @param stack Open elements
+     */
+    public void endElement(ElementStack stack) {
+        if (stack.size() == depth) {
+            depth = 0;
+            found = true;
+        }
+    }
+
+    /**
+     * Collect the text if within the matched element
+     *
+     * @param chars Buffer
+     * @param start Offset of the text
+     * @param length Length of the text
+     */
+    public void text(char[] chars, int start, int length) {
+        if (depth != 0) {
+            text.append(chars, start, length);
+        }
+    }
+
+    /**
+     * @return True if the matched element was closed
+     */
+    public boolean isFound() {
+        return found;
+    }
+
+    /**
+     * @return Collected text
+     */
+    public String getText() {
+        return text.toString();
+    }
+
+    /**
+     * Forget the collected text and look for a new match
+     */
+    public void reset() {
+        text.setLength(0);
+        depth = 0;
+        found = false;
+    }
+}
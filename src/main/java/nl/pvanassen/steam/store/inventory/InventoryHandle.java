@@ -3,7 +3,10 @@ package nl.pvanassen.steam.store.inventory;
 import nl.pvanassen.steam.http.DefaultHandle;
 import nl.pvanassen.steam.store.common.InventoryItem;
 import nl.pvanassen.steam.store.helper.UrlNameHelper;
+import nl.pvanassen.steam.store.common.GenericHandle;
 import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,109 +43,223 @@ class InventoryHandle extends DefaultHandle {
 
     }
 
+    /**
+     * Class and instance id, identifying a description
+     */
+    private static final class DescriptionKey {
+        private final String classId;
+        private final String instanceId;
+
+        DescriptionKey(String classId, String instanceId) {
+            this.classId = classId;
+            this.instanceId = instanceId;
+        }
+
+        @Override
+        public int hashCode() {
+            return (31 * classId.hashCode()) + instanceId.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof DescriptionKey)) {
+                return false;
+            }
+            DescriptionKey other = (DescriptionKey) obj;
+            return classId.equals(other.classId) && instanceId.equals(other.instanceId);
+        }
+    }
+
+    /**
+     * Asset waiting for its description
+     */
+    private static final class Asset {
+        private final String id;
+        private final DescriptionKey key;
+
+        Asset(String id, DescriptionKey key) {
+            this.id = id;
+            this.key = key;
+        }
+    }
+
     private final ObjectMapper objectMapper;
-    private final List<InventoryItem> inventoryItemList;
+    private final GenericHandle<InventoryItem> itemHandle;
     private final int contextId;
     private boolean error;
 
     InventoryHandle(ObjectMapper objectMapper, int contextId, List<InventoryItem> inventoryItemList) {
+        this(objectMapper, contextId, inventoryItemList::add);
+    }
+
+    InventoryHandle(ObjectMapper objectMapper, int contextId, GenericHandle<InventoryItem> itemHandle) {
         this.objectMapper = objectMapper;
         this.contextId = contextId;
-        this.inventoryItemList = inventoryItemList;
+        this.itemHandle = itemHandle;
     }
 
+    /**
+     * Streams the inventory instead of reading it in a tree. Steam sends the
+     * assets before the descriptions, so the assets are kept as id pairs
+     * until the descriptions are in. Only a single description is in a tree
+     * at a time.
+     *
+     * @see nl.pvanassen.steam.http.DefaultHandle#handle(java.io.InputStream)
+     */
     @Override
     public void handle(InputStream stream) throws IOException {
-        JsonNode node = objectMapper.readTree(stream);
+        Map<DescriptionKey, Description> descriptions = null;
+        List<Asset> assets = new ArrayList<>();
+        try (JsonParser parser = objectMapper.getJsonFactory().createJsonParser(stream)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if ("rgInventory".equals(field)) {
+                    readAssets(parser, assets, descriptions);
+                } else if ("rgDescriptions".equals(field)) {
+                    descriptions = readDescriptions(parser);
+                    for (Asset asset : assets) {
+                        emit(asset, descriptions);
+                    }
+                    assets.clear();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        error = false;
+    }
 
-        Map<String, Description> descriptionMap = new HashMap<>();
-        JsonNode descriptions = node.get("rgDescriptions");
-        // Avoid NPE's on empty inventories
-        if (descriptions == null) {
+    private void readAssets(JsonParser parser, List<Asset> assets, Map<DescriptionKey, Description> descriptions) throws IOException {
+        // Empty inventories are sent as an empty array
+        if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
             return;
         }
-        for (JsonNode item : descriptions) {
-            String urlName;
-            // Fix for steam sending crap
-            if (!item.has("market_hash_name")) {
-                // Unprefered fallback
-                urlName = UrlNameHelper.getUrlName(item.get("name").asText());
-            }
-            else {
-                urlName = UrlNameHelper.getUrlName(item.get("market_hash_name").asText());
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            parser.nextToken();
+            String id = null;
+            String classId = null;
+            String instanceId = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if ("id".equals(field)) {
+                    id = parser.getText();
+                } else if ("classid".equals(field)) {
+                    classId = parser.getText();
+                } else if ("instanceid".equals(field)) {
+                    instanceId = parser.getText();
+                } else {
+                    parser.skipChildren();
+                }
             }
-            int appId = item.get("appid").asInt();
-            Date blockedUntil = new Date(0);
-            JsonNode ownerDescriptions;
-            if (appId == 730) {
-                ownerDescriptions = item.get("owner_descriptions");
+            if ((id == null) || (classId == null) || (instanceId == null)) {
+                continue;
             }
-            else {
-                ownerDescriptions = item.get("descriptions");
+            Asset asset = new Asset(id, new DescriptionKey(classId, instanceId));
+            if (descriptions == null) {
+                assets.add(asset);
+            } else {
+                emit(asset, descriptions);
             }
-            if (ownerDescriptions != null && ownerDescriptions.isArray()) {
-                for (JsonNode ownerDescription : ownerDescriptions) {
-                    String text = ownerDescription.get("value").asText().trim();
-                    if (appId == 570 && text.startsWith(TRADING_BLOCKED_570)) {
-                        String date = text.substring(TRADING_BLOCKED_570.length());
-                        SimpleDateFormat format = new SimpleDateFormat("MMM dd, yyyy (HH:mm:ss)", Locale.ENGLISH);
-                        try {
-                            blockedUntil = format.parse(date);
-                        } catch (ParseException e) {
-                            logger.error("Error parsing blocked text: " + date, e);
-                        }
+        }
+    }
+
+    private Map<DescriptionKey, Description> readDescriptions(JsonParser parser) throws IOException {
+        Map<DescriptionKey, Description> descriptions = new HashMap<>();
+        if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return descriptions;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            parser.nextToken();
+            JsonNode item = objectMapper.readTree(parser);
+            descriptions.put(new DescriptionKey(item.get("classid").asText(), item.get("instanceid").asText()), getDescription(item));
+        }
+        return descriptions;
+    }
+
+    private void emit(Asset asset, Map<DescriptionKey, Description> descriptions) {
+        Description description = descriptions.get(asset.key);
+        if (description == null) {
+            return;
+        }
+        itemHandle.handle(new InventoryItem(asset.id, contextId, asset.key.instanceId, description.appId, description.urlName, description.marketable,
+                description.tradable, description.blockedUntil, description.properties));
+    }
+
+    private Description getDescription(JsonNode item) {
+        String urlName;
+        // Fix for steam sending crap
+        if (!item.has("market_hash_name")) {
+            // Unprefered fallback
+            urlName = UrlNameHelper.getUrlName(item.get("name").asText());
+        }
+        else {
+            urlName = UrlNameHelper.getUrlName(item.get("market_hash_name").asText());
+        }
+        int appId = item.get("appid").asInt();
+        Date blockedUntil = new Date(0);
+        JsonNode ownerDescriptions;
+        if (appId == 730) {
+            ownerDescriptions = item.get("owner_descriptions");
+        }
+        else {
+            ownerDescriptions = item.get("descriptions");
+        }
+        if (ownerDescriptions != null && ownerDescriptions.isArray()) {
+            for (JsonNode ownerDescription : ownerDescriptions) {
+                String text = ownerDescription.get("value").asText().trim();
+                if (appId == 570 && text.startsWith(TRADING_BLOCKED_570)) {
+                    String date = text.substring(TRADING_BLOCKED_570.length());
+                    SimpleDateFormat format = new SimpleDateFormat("MMM dd, yyyy (HH:mm:ss)", Locale.ENGLISH);
+                    try {
+                        blockedUntil = format.parse(date);
+                    } catch (ParseException e) {
+                        logger.error("Error parsing blocked text: " + date, e);
                     }
-                    else if (appId == 730 && text.startsWith(TRADING_BLOCKED_730)) {
-                        String date = text.substring(TRADING_BLOCKED_730.length());
-                        SimpleDateFormat format = new SimpleDateFormat("MMM dd, yyyy (HH:mm:ss) z", Locale.ENGLISH);
-                        try {
-                            blockedUntil = format.parse(date);
-                        } catch (ParseException e) {
-                            logger.error("Error parsing blocked text: " + date, e);
-                        }
+                }
+                else if (appId == 730 && text.startsWith(TRADING_BLOCKED_730)) {
+                    String date = text.substring(TRADING_BLOCKED_730.length());
+                    SimpleDateFormat format = new SimpleDateFormat("MMM dd, yyyy (HH:mm:ss) z", Locale.ENGLISH);
+                    try {
+                        blockedUntil = format.parse(date);
+                    } catch (ParseException e) {
+                        logger.error("Error parsing blocked text: " + date, e);
                     }
-                    else if (text.startsWith(TRADING_BLOCKED)) {
-                        String date = text.substring(TRADING_BLOCKED.length());
-                        SimpleDateFormat format = new SimpleDateFormat("EEE, MMM dd, yyyy (HH:mm:ss) z", Locale.ENGLISH);
-                        try {
-                            blockedUntil = format.parse(date);
-                        } catch (ParseException e) {
-                            logger.error("Error parsing blocked text: " + date, e);
-                        }
+                }
+                else if (text.startsWith(TRADING_BLOCKED)) {
+                    String date = text.substring(TRADING_BLOCKED.length());
+                    SimpleDateFormat format = new SimpleDateFormat("EEE, MMM dd, yyyy (HH:mm:ss) z", Locale.ENGLISH);
+                    try {
+                        blockedUntil = format.parse(date);
+                    } catch (ParseException e) {
+                        logger.error("Error parsing blocked text: " + date, e);
                     }
                 }
             }
-            boolean marketable = false;
-            if (item.get("marketable") != null) {
-                marketable = item.get("marketable").asBoolean();
-            }
-            boolean tradable = false;
-            if (item.get("tradable") != null) {
-                tradable = item.get("tradable").asBoolean();
-            }
-            Map<String,String> properties = new HashMap<>();
-            Iterator<Map.Entry<String,JsonNode>> itr = item.getFields();
-            while (itr.hasNext()) {
-                Map.Entry<String,JsonNode> entry = itr.next();
-                properties.put(entry.getKey(), entry.getValue().asText());
-            }
-            Description description = new Description(appId, urlName, marketable, tradable, blockedUntil, properties);
-            descriptionMap.put(item.get("classid").asText() + "-" + item.get("instanceid").asText(), description);
         }
-
-        JsonNode inventory = node.get("rgInventory");
-        for (JsonNode item : inventory) {
-            Description description = descriptionMap.get(item.get("classid").asText() + "-" + item.get("instanceid").asText());
-            if (description == null) {
-                continue;
-            }
-
-            inventoryItemList.add(new InventoryItem(item.get("id").asText(), contextId, item.get("instanceid").asText(), description.appId, description.urlName,
-                    description.marketable, description.tradable, description.blockedUntil, description.properties));
+        boolean marketable = false;
+        if (item.get("marketable") != null) {
+            marketable = item.get("marketable").asBoolean();
         }
-        error = false;
+        boolean tradable = false;
+        if (item.get("tradable") != null) {
+            tradable = item.get("tradable").asBoolean();
+        }
+        Map<String,String> properties = new HashMap<>();
+        Iterator<Map.Entry<String,JsonNode>> itr = item.getFields();
+        while (itr.hasNext()) {
+            Map.Entry<String,JsonNode> entry = itr.next();
+            properties.put(entry.getKey(), entry.getValue().asText());
+        }
+        return new Description(appId, urlName, marketable, tradable, blockedUntil, properties);
     }
-    
+
     @Override
     public void handleError(InputStream stream) throws IOException {
         error = true;
@@ -3,6 +3,7 @@
  */
 package nl.pvanassen.steam.store.inventory;
 
+import nl.pvanassen.steam.store.common.GenericHandle;
 import nl.pvanassen.steam.store.common.InventoryItem;
 
 import java.util.List;
@@ -43,4 +44,14 @@ public interface InventoryService {
      */
     List<InventoryItem> getInventory(String username, int appId);
 
+    /**
+     * Stream the inventory of a user and an app id. Items are passed to the
+     * handle while the inventory is parsed, without building a list.
+     *
+     * @param username The username to get the inventory from
+     * @param appId Retrieve only one app id
+     * @param itemHandle Handle receiving the items
+     */
+    void getInventory(String username, int appId, GenericHandle<InventoryItem> itemHandle);
+
 }
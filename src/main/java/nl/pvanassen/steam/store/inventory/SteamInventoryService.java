@@ -6,6 +6,7 @@ package nl.pvanassen.steam.store.inventory;
 import com.google.common.collect.ImmutableList;
 import nl.pvanassen.steam.error.SteamException;
 import nl.pvanassen.steam.http.Http;
+import nl.pvanassen.steam.store.common.GenericHandle;
 import nl.pvanassen.steam.store.common.InventoryItem;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.slf4j.Logger;
@@ -63,17 +64,22 @@ public class SteamInventoryService implements InventoryService {
     @Override
     public List<InventoryItem> getInventory(String username, int appId) {
         List<InventoryItem> inventoryItems = new LinkedList<>();
+        getInventory(username, appId, inventoryItems::add);
+        return ImmutableList.copyOf(inventoryItems);
+    }
+
+    @Override
+    public void getInventory(String username, int appId, GenericHandle<InventoryItem> itemHandle) {
         int contextId = 2;
         if (appId == 753) {
             contextId = 6;
         }
         logger.info("Getting inventory for app id " + appId);
-        InventoryHandle handle = new InventoryHandle(objectMapper, contextId, inventoryItems);
+        InventoryHandle handle = new InventoryHandle(objectMapper, contextId, itemHandle);
         http.get("http://steamcommunity.com/id/" + username + "/inventory/json/" + appId + "/" + contextId + "/", handle, false);
         if (handle.isError()) {
             logger.error("Error fetching inventory data");
             throw new SteamException("Error fetching inventory data");
         }
-        return ImmutableList.copyOf(inventoryItems);
     }
 }
@@ -33,7 +33,7 @@ public interface ItemService {
 
     /**
      * The datapoints will always be called first. Once they are done the
-     * listings handle is called
+     * listings handle is called. The host is picked from the host pool.
      *
      * @param appId Appid of the item to get
      * @param urlName url name of the item to get
@@ -45,4 +45,24 @@ public interface ItemService {
      */
     void getItem(int appId, String urlName, GenericHandle<StatDataPoint> dataPointHandle, GenericHandle<Listing> listingHandle, GenericHandle<Boolean> buyOrders, GenericHandle<Boolean> immediateSale);
 
+    /**
+     * Price history of an item as a compact series, without the listings
+     *
+     * @param host Host to connect to
+     * @param appId Appid of the item to get
+     * @param urlName url name of the item to get
+     * @return Price history, null if the page had none
+     */
+    PriceHistorySeries getPriceHistory(String host, int appId, String urlName);
+
+    /**
+     * Price history of an item as a compact series, without the listings. The
+     * host is picked from the host pool.
+     *
+     * @param appId Appid of the item to get
+     * @param urlName url name of the item to get
+     * @return Price history, null if the page had none
+     */
+    PriceHistorySeries getPriceHistory(int appId, String urlName);
+
 }
@@ -1,13 +1,16 @@
 package nl.pvanassen.steam.store.item;
 
 import nl.pvanassen.steam.http.DefaultHandle;
+import nl.pvanassen.steam.store.helper.MultiPatternMatcher;
 import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.JsonParser;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.Random;
 
 /**
@@ -16,12 +19,24 @@ import java.util.Random;
  * @author Paul van Assen
  */
 public class ListingPageScriptHandle extends DefaultHandle {
+    private static final int BUY_ORDERS = 1;
+    private static final int NO_LISTINGS = 1 << 1;
+    private static final int NO_PRICE_HISTORY = 1 << 2;
+    private static final int NO_LONGER_SOLD = 1 << 3;
+    private static final int IMMEDIATE_SALE = 1 << 4;
+    private static final int PURCHASE_NOTE = 1 << 5;
+    private static final int LISTING_INFO = 1 << 6;
+    private static final int PRICE_HISTORY = 1 << 7;
+    // In the order of the bits above
+    private static final MultiPatternMatcher MARKERS = MultiPatternMatcher.of("market_commodity_order_block", "There are no listings for this item",
+            "There is no price history available", "This item may no longer be bought or sold on the market", "either in-game or on the Steam Community Market",
+            "Note: Items purchased for", "g_rgListingInfo", "line1");
     private final Logger logger = LoggerFactory.getLogger(getClass());
     private final Charset charset = Charset.forName("UTF-8");
     private final ObjectMapper om;
     private final Random random = new Random();
     private JsonNode listingInfo;
-    private JsonNode priceHistoryInfo;
+    private PriceHistorySeries priceHistory;
     private boolean error;
     private boolean buyOrders;
     private boolean immediateSale;
@@ -40,84 +55,187 @@ public class ListingPageScriptHandle extends DefaultHandle {
         return listingInfo;
     }
 
-    JsonNode getPriceHistoryInfo() {
-        return priceHistoryInfo;
+    PriceHistorySeries getPriceHistory() {
+        return priceHistory;
     }
 
     @Override
     public void handle(InputStream stream) throws IOException {
-        BufferedReader reader = new BufferedReader(new InputStreamReader(stream, charset));
+        ByteArrayOutputStream content = logger.isDebugEnabled() ? new ByteArrayOutputStream() : null;
+        byte[] buffer = new byte[8192];
+        // Rest of the current line after the first script marker on it
+        LineBuffer line = new LineBuffer();
+        int listingOffset = -1;
+        int salesOffset = -1;
         boolean listingFound = false;
         boolean salesFound = false;
-        boolean buyOrdersFound = false;
         boolean immediateSaleFound = false;
-        StringBuilder stringBuilder = new StringBuilder();
-        String line;
-        while ((line = reader.readLine()) != null) {
-            if (logger.isDebugEnabled()) {
-                stringBuilder.append(line).append('\n');
+        boolean immediateSaleLine = false;
+        boolean purchaseNoteLine = false;
+        int state = MultiPatternMatcher.START;
+        int read;
+        while ((read = stream.read(buffer)) != -1) {
+            if (content != null) {
+                content.write(buffer, 0, read);
             }
-            if (!buyOrdersFound) {
-                if (line.indexOf("market_commodity_order_block") > -1) {
+            for (int i = 0; i < read; i++) {
+                byte b = buffer[i];
+                state = MARKERS.next(state, b);
+                if (b == '\n') {
+                    if ((listingOffset != -1) || (salesOffset != -1)) {
+                        listingFound |= parseListingInfo(line, listingOffset);
+                        salesFound |= parsePriceHistory(line, salesOffset);
+                        listingOffset = -1;
+                        salesOffset = -1;
+                        line.clear();
+                        // The buy order block and purchase note come before the scripts
+                        if (listingFound && salesFound) {
+                            return;
+                        }
+                    }
+                    immediateSaleLine = false;
+                    purchaseNoteLine = false;
+                    continue;
+                }
+                if ((listingOffset != -1) || (salesOffset != -1)) {
+                    line.append(b);
+                }
+                int matches = MARKERS.matches(state);
+                if (matches == 0) {
+                    continue;
+                }
+                if ((matches & BUY_ORDERS) != 0) {
                     buyOrders = true;
-                    buyOrdersFound = true;
                 }
-            }
-            if (line.indexOf("There are no listings for this item") > -1) {
-                noListingForThisItem = true;
-                return;
-            }
-            if (line.indexOf("There is no price history available") > -1) {
-                noPricingHistoryForThisItem = true;
-                return;
-            }
-            if (line.indexOf("This item may no longer be bought or sold on the market") > -1) {
-                noLongerSold = true;
-                return;
-            }
-            if (!immediateSaleFound) {
-                if (line.indexOf("either in-game or on the Steam Community Market") > -1) {
-                    immediateSaleFound = true;
-                    immediateSale = line.indexOf("Note: Items purchased for") == -1;
+                if ((matches & NO_LISTINGS) != 0) {
+                    noListingForThisItem = true;
+                    return;
                 }
-            }
-            if (!listingFound) {
-                int listingStart = line.indexOf("g_rgListingInfo");
-                if (listingStart > -1) {
-                    int objectStart = line.indexOf('{', listingStart);
-                    if (objectStart > -1) {
-                        listingInfo = om.readTree(line.substring(objectStart, line.length() - 1));
-                        listingFound = true;
-                    }
+                if ((matches & NO_PRICE_HISTORY) != 0) {
+                    noPricingHistoryForThisItem = true;
+                    return;
                 }
-            }
-            if (!salesFound) {
-                int salesStart = line.indexOf("line1");
-                if (salesStart > -1) {
-                    int objectStart = line.indexOf('[', salesStart);
-                    if (objectStart <= -1) {
-                        continue;
+                if ((matches & NO_LONGER_SOLD) != 0) {
+                    noLongerSold = true;
+                    return;
+                }
+                if ((matches & PURCHASE_NOTE) != 0) {
+                    purchaseNoteLine = true;
+                    if (immediateSaleLine) {
+                        immediateSale = false;
                     }
-                    priceHistoryInfo = om.readTree(line.substring(objectStart, line.length() - 1));
-                    salesFound = true;
+                }
+                if (((matches & IMMEDIATE_SALE) != 0) && !immediateSaleFound) {
+                    immediateSaleFound = true;
+                    immediateSaleLine = true;
+                    immediateSale = !purchaseNoteLine;
+                }
+                if (((matches & LISTING_INFO) != 0) && !listingFound && (listingOffset == -1)) {
+                    listingOffset = line.length();
+                }
+                if (((matches & PRICE_HISTORY) != 0) && !salesFound && (salesOffset == -1)) {
+                    salesOffset = line.length();
                 }
             }
         }
+        // Last line without a line feed
+        listingFound |= parseListingInfo(line, listingOffset);
+        salesFound |= parsePriceHistory(line, salesOffset);
         if (!salesFound) {
             logger.warn("No sales info found!");
         }
         if (!listingFound) {
             logger.warn("No listing info found!");
         }
-        if (!(salesFound && listingFound) && logger.isDebugEnabled()) {
-            logger.debug("Content: " + stringBuilder.toString());
+        if (!(salesFound && listingFound) && (content != null)) {
+            String page = new String(content.toByteArray(), charset);
+            logger.debug("Content: " + page);
             try (PrintWriter printWriter = new PrintWriter(new File("listing-page-" + random.nextLong() + ".html"))) {
-                printWriter.print(stringBuilder.toString());
+                printWriter.print(page);
                 printWriter.flush();
             }
         }
     }
 
+    private boolean parseListingInfo(LineBuffer line, int offset) throws IOException {
+        if (offset == -1) {
+            return false;
+        }
+        int start = line.indexOf(offset, '{');
+        if (start == -1) {
+            return false;
+        }
+        try (JsonParser parser = line.parser(om, start)) {
+            listingInfo = om.readTree(parser);
+        }
+        return true;
+    }
+
+    private boolean parsePriceHistory(LineBuffer line, int offset) throws IOException {
+        if (offset == -1) {
+            return false;
+        }
+        int start = line.indexOf(offset, '[');
+        if (start == -1) {
+            return false;
+        }
+        try (JsonParser parser = line.parser(om, start)) {
+            priceHistory = PriceHistorySeries.parse(parser);
+        }
+        return true;
+    }
+
+    /**
+     * Growable byte buffer holding the part of a line after a script marker
+     */
+    private static final class LineBuffer {
+        private byte[] bytes = new byte[16384];
+        private int length;
+
+        void append(byte b) {
+            if (length == bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            bytes[length++] = b;
+        }
+
+        int length() {
+            return length;
+        }
+
+        void clear() {
+            length = 0;
+        }
+
+        /**
+         * @return Position of the first open character after the offset, -1
+         *         if there is none
+         */
+        int indexOf(int offset, char open) {
+            for (int i = offset; i < end(); i++) {
+                if (bytes[i] == open) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Parser of the value starting at the position, up to the last
+         * character of the line, which is the semicolon ending the statement
+         */
+        JsonParser parser(ObjectMapper om, int start) throws IOException {
+            return om.getJsonFactory().createJsonParser(bytes, start, end() - 1 - start);
+        }
+
+        private int end() {
+            if ((length > 0) && (bytes[length - 1] == '\r')) {
+                return length - 1;
+            }
+            return length;
+        }
+    }
+
     @Override
     public void handleError(InputStream stream) throws IOException {
         error = true;
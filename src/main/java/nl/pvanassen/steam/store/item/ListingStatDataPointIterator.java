@@ -1,49 +1,20 @@
 package nl.pvanassen.steam.store.item;
 
-import org.codehaus.jackson.JsonNode;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Iterator;
-import java.util.Locale;
 import java.util.NoSuchElementException;
 
+/**
+ * Iterates the points of a price history series as data points
+ */
 class ListingStatDataPointIterator implements Iterator<StatDataPoint>, Iterable<StatDataPoint> {
-    private final Logger logger = LoggerFactory.getLogger(getClass());
-    private final SimpleDateFormat dateFormat = new SimpleDateFormat("MMM dd yyyy HH: Z", Locale.US);
-    private StatDataPoint nextItem;
-    private JsonNode priceHistory;
+    private final PriceHistorySeries priceHistory;
     private int nodePos = 0;
 
-    ListingStatDataPointIterator(JsonNode priceHistory) {
+    ListingStatDataPointIterator(PriceHistorySeries priceHistory) {
         this.priceHistory = priceHistory;
     }
 
-    private synchronized StatDataPoint getNextItem() {
-        if (priceHistory == null) {
-            return null;
-        }
-        if (nodePos >= priceHistory.size()) {
-            return null;
-        }
-        JsonNode item = priceHistory.get(nodePos++);
-        String dateStr = item.get(0).asText();
-        double average = item.get(1).asDouble() * 100;
-        int sales = item.get(2).asInt();
-        Date date;
-        try {
-            date = dateFormat.parse(dateStr + "000");
-        }
-        catch (ParseException e) {
-            logger.error("Error parsing steam", e);
-            return getNextItem();
-        }
-        return new StatDataPoint(date, sales, average);
-    }
-
     /**
      * {@inheritDoc}
      *
@@ -51,11 +22,7 @@ class ListingStatDataPointIterator implements Iterator<StatDataPoint>, Iterable<
      */
     @Override
     public boolean hasNext() {
-        if (nextItem != null) {
-            return true;
-        }
-        nextItem = getNextItem();
-        return nextItem != null;
+        return (priceHistory != null) && (nodePos < priceHistory.size());
     }
 
     /**
@@ -75,13 +42,11 @@ class ListingStatDataPointIterator implements Iterator<StatDataPoint>, Iterable<
      */
     @Override
     public StatDataPoint next() {
-        StatDataPoint item;
-        if (hasNext()) {
-            item = nextItem;
-            nextItem = null;
-            return item;
+        if (!hasNext()) {
+            throw new NoSuchElementException();
         }
-        throw new NoSuchElementException();
+        int index = nodePos++;
+        return new StatDataPoint(new Date(priceHistory.getTime(index)), priceHistory.getVolumes()[index], priceHistory.getMedians()[index]);
     }
 
     /**
@@ -4,23 +4,16 @@ import nl.pvanassen.steam.http.DefaultHandle;
 import nl.pvanassen.steam.store.common.GenericHandle;
 import nl.pvanassen.steam.store.helper.AmountHelper;
 import nl.pvanassen.steam.store.helper.UrlNameHelper;
-import nl.pvanassen.steam.store.xpath.XPathHelper;
-import org.apache.html.dom.HTMLDocumentImpl;
+import nl.pvanassen.steam.store.html.ElementStack;
+import nl.pvanassen.steam.store.html.HtmlHandler;
+import nl.pvanassen.steam.store.html.HtmlTokenizer;
+import nl.pvanassen.steam.store.html.Selector;
+import nl.pvanassen.steam.store.html.TextCapture;
 import org.codehaus.jackson.JsonNode;
 import org.codehaus.jackson.map.ObjectMapper;
-import org.cyberneko.html.parsers.DOMFragmentParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.w3c.dom.DocumentFragment;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.w3c.dom.html.HTMLDocument;
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
-
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpression;
-import javax.xml.xpath.XPathExpressionException;
+
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.StringReader;
@@ -28,11 +21,11 @@ import java.io.StringReader;
 class OverviewHandle extends DefaultHandle {
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
-    private static final XPathExpression ROW_XPATH = XPathHelper.getXpathExpression("//A[@class='market_listing_row_link']");
-    private static final XPathExpression PRICE_XPATH = XPathHelper.getXpathExpression(".//DIV[@class='market_listing_right_cell market_listing_their_price']/SPAN/SPAN");
-    private static final XPathExpression OFFERINGS_XPATH = XPathHelper.getXpathExpression(".//DIV[@class='market_listing_right_cell market_listing_num_listings']/SPAN/SPAN");
-    private static final XPathExpression NAME_XPATH = XPathHelper.getXpathExpression(".//DIV[@class='market_listing_item_name_block']/SPAN[@class='market_listing_item_name']");
-    private static final XPathExpression GAMENAME_XPATH = XPathHelper.getXpathExpression(".//DIV[@class='market_listing_item_name_block']/SPAN[@class='market_listing_game_name']");
+    private static final Selector ROW = Selector.compile("a[class='market_listing_row_link']");
+    private static final Selector PRICE = Selector.compile("div[class='market_listing_right_cell market_listing_their_price'] > span > span");
+    private static final Selector OFFERINGS = Selector.compile("div[class='market_listing_right_cell market_listing_num_listings'] > span > span");
+    private static final Selector NAME = Selector.compile("div[class='market_listing_item_name_block'] > span[class='market_listing_item_name']");
+    private static final Selector GAMENAME = Selector.compile("div[class='market_listing_item_name_block'] > span[class='market_listing_game_name']");
 
     private final GenericHandle<OverviewItem> genericHandle;
     private final ObjectMapper om;
@@ -70,42 +63,93 @@ class OverviewHandle extends DefaultHandle {
             lastPage = true;
             return;
         }
-        DOMFragmentParser parser = new DOMFragmentParser();
-        HTMLDocument document = new HTMLDocumentImpl();
-        DocumentFragment fragment = document.createDocumentFragment();
-        try {
-            parser.parse(new InputSource(new StringReader(html)), fragment);
-            NodeList nodeSet = (NodeList) ROW_XPATH.evaluate(fragment, XPathConstants.NODESET);
-            for (int i = 0; i < nodeSet.getLength(); i++) {
-                Node node = nodeSet.item(i);
-                String href = node.getAttributes().getNamedItem("href").getTextContent();
-                int startName = href.lastIndexOf('/');
-                int startAppId = href.lastIndexOf('/', startName - 1);
-                String urlName = href.substring(startName + 1);
-                String steamId = "unknown";
-                int idx = urlName.indexOf('-');
-                if (idx > -1) {
-                    steamId = urlName.substring(0, idx);
+        HtmlTokenizer.parse(new StringReader(html), new RowExtractor());
+    }
+
+    private void emit(String href, String priceText, String offersText, String name, String gameName) {
+        int startName = href.lastIndexOf('/');
+        int startAppId = href.lastIndexOf('/', startName - 1);
+        String urlName = href.substring(startName + 1);
+        String steamId = "unknown";
+        int idx = urlName.indexOf('-');
+        if (idx > -1) {
+            steamId = urlName.substring(0, idx);
+        }
+        int appId = Integer.valueOf(href.substring(startAppId + 1, startName));
+        // Cleanup of the name
+        urlName = UrlNameHelper.getUrlName(urlName);
+        logger.trace("Found: " + urlName + ", appid: " + appId);
+        int currentPrice = AmountHelper.getAmount(priceText);
+        int currentOffers = Integer.valueOf(offersText.replace(",", ""));
+        genericHandle.handle(new OverviewItem(appId, name, urlName, currentOffers, currentPrice, gameName, steamId));
+    }
+
+    /**
+     * Collects the cells of a search result row while the html is tokenized,
+     * the item is emitted when the row link is closed
+     */
+    private final class RowExtractor implements HtmlHandler {
+        private final TextCapture price = new TextCapture(PRICE);
+        private final TextCapture offers = new TextCapture(OFFERINGS);
+        private final TextCapture name = new TextCapture(NAME);
+        private final TextCapture gameName = new TextCapture(GAMENAME);
+        private final TextCapture[] captures = { price, offers, name, gameName };
+        private String href;
+        // Depth of the row, 0 when not in a row
+        private int rowDepth;
+
+        @Override
+        public void startElement(ElementStack stack) {
+            if (rowDepth == 0) {
+                if (ROW.matches(stack)) {
+                    rowDepth = stack.size();
+                    href = stack.peek().getAttribute("href");
+                    for (TextCapture capture : captures) {
+                        capture.reset();
+                    }
                 }
-                int appId = Integer.valueOf(href.substring(startAppId + 1, startName));
-                // Cleanup of the name
-                urlName = UrlNameHelper.getUrlName(urlName);
-                logger.trace("Found: " + urlName + ", appid: " + appId);
-                Node priceSpan = (Node) PRICE_XPATH.evaluate(node, XPathConstants.NODE);
-                int currentPrice = AmountHelper.getAmount(priceSpan.getTextContent().trim().substring(1));
-                Node offersSpan = (Node) OFFERINGS_XPATH.evaluate(node, XPathConstants.NODE);
-                int currentOffers = Integer.valueOf(offersSpan.getTextContent().replace(",", ""));
-
-                Node nameSpan = (Node) NAME_XPATH.evaluate(node, XPathConstants.NODE);
-                String name = nameSpan.getTextContent();
-                Node gameNameSpan = (Node) GAMENAME_XPATH.evaluate(node, XPathConstants.NODE);
-                String gameName = gameNameSpan.getTextContent();
-                genericHandle.handle(new OverviewItem(appId, name, urlName, currentOffers, currentPrice, gameName, steamId));
+                return;
             }
+            for (TextCapture capture : captures) {
+                capture.startElement(stack, rowDepth);
+            }
+        }
 
+        @Override
+        public void text(char[] chars, int start, int length) {
+            if (rowDepth == 0) {
+                return;
+            }
+            for (TextCapture capture : captures) {
+                capture.text(chars, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(ElementStack stack) {
+            if (rowDepth == 0) {
+                return;
+            }
+            if (stack.size() == rowDepth) {
+                rowDepth = 0;
+                endRow();
+                return;
+            }
+            for (TextCapture capture : captures) {
+                capture.endElement(stack);
+            }
         }
-        catch (SAXException | XPathExpressionException e) {
-            logger.error("Error parsing XML", e);
+
+        private void endRow() {
+            if ((href == null) || !price.isFound() || !offers.isFound() || !name.isFound() || !gameName.isFound()) {
+                logger.error("Error parsing search result " + href + ", incomplete row");
+                return;
+            }
+            try {
+                emit(href, price.getText(), offers.getText(), name.getText(), gameName.getText());
+            } catch (RuntimeException e) {
+                logger.error("Error parsing search result " + href, e);
+            }
         }
     }
 
@@ -0,0 +1,250 @@
+package nl.pvanassen.steam.store.item;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Compresses a block of price history points as done in Facebook's Gorilla.
+ * The hour of the first point is kept outside of the block, the block starts
+ * with the raw median and volume of the first point.
+ * <p>
+ * Hours are stored as the difference with the previous delta, which is 0 for
+ * points at a fixed interval: a <code>0</code> bit for no change,
+ * <code>10</code>, <code>110</code> and <code>1110</code> followed by 7, 9 or
+ * 12 bits and <code>1111</code> followed by 32 bits for larger changes.
+ * Medians are stored as the xor with the previous median: a <code>0</code> bit
+ * if equal, <code>10</code> followed by the meaningful bits if they fit in the
+ * window of the previous value, otherwise <code>11</code>, 5 bits of leading
+ * zeros, 6 bits of length and the meaningful bits. Volumes are stored as the
+ * difference with the previous volume: <code>0</code> for no change,
+ * <code>10</code>, <code>110</code> and <code>111</code> followed by 8, 16 or
+ * 32 bits.
+ * <p>
+ * All differences are zigzag encoded.
+ */
+final class PriceHistoryCodec {
+
+    private PriceHistoryCodec() {
+        super();
+    }
+
+    /**
+     * Encode the points from up to to, the hours must be increasing
+     *
+     * @return The compressed block
+     */
+    static byte[] encode(long[] hours, double[] medians, int[] volumes, int from, int to) {
+        BitWriter out = new BitWriter((to - from) * 4 + 16);
+        long previousBits = Double.doubleToRawLongBits(medians[from]);
+        int previousVolume = volumes[from];
+        out.write(previousBits, 64);
+        out.write(previousVolume, 32);
+        long previousHour = hours[from];
+        long previousDelta = 0;
+        int leading = -1;
+        int trailing = 0;
+        for (int i = from + 1; i < to; i++) {
+            long delta = hours[i] - previousHour;
+            if ((delta <= 0) || (delta > Integer.MAX_VALUE)) {
+                throw new IllegalArgumentException("Hours must be increasing, got " + hours[i] + " after " + previousHour);
+            }
+            writeDeltaOfDelta(out, zigzag(delta - previousDelta));
+            previousDelta = delta;
+            previousHour = hours[i];
+
+            long bits = Double.doubleToRawLongBits(medians[i]);
+            long xor = bits ^ previousBits;
+            previousBits = bits;
+            if (xor == 0) {
+                out.write(0, 1);
+            } else {
+                int xorLeading = Math.min(31, Long.numberOfLeadingZeros(xor));
+                int xorTrailing = Long.numberOfTrailingZeros(xor);
+                if ((leading != -1) && (xorLeading >= leading) && (xorTrailing >= trailing)) {
+                    out.write(2, 2);
+                    out.write(xor >>> trailing, 64 - leading - trailing);
+                } else {
+                    int meaningful = 64 - xorLeading - xorTrailing;
+                    out.write(3, 2);
+                    out.write(xorLeading, 5);
+                    out.write(meaningful - 1, 6);
+                    out.write(xor >>> xorTrailing, meaningful);
+                    leading = xorLeading;
+                    trailing = xorTrailing;
+                }
+            }
+
+            long volumeDelta = zigzag((long) volumes[i] - previousVolume);
+            previousVolume = volumes[i];
+            if (volumeDelta == 0) {
+                out.write(0, 1);
+            } else if (volumeDelta < (1 << 8)) {
+                out.write(2, 2);
+                out.write(volumeDelta, 8);
+            } else if (volumeDelta < (1 << 16)) {
+                out.write(6, 3);
+                out.write(volumeDelta, 16);
+            } else {
+                out.write(7, 3);
+                out.write(volumeDelta, 32);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static void writeDeltaOfDelta(BitWriter out, long deltaOfDelta) {
+        if (deltaOfDelta == 0) {
+            out.write(0, 1);
+        } else if (deltaOfDelta < (1 << 7)) {
+            out.write(2, 2);
+            out.write(deltaOfDelta, 7);
+        } else if (deltaOfDelta < (1 << 9)) {
+            out.write(6, 3);
+            out.write(deltaOfDelta, 9);
+        } else if (deltaOfDelta < (1 << 12)) {
+            out.write(14, 4);
+            out.write(deltaOfDelta, 12);
+        } else {
+            out.write(15, 4);
+            out.write(deltaOfDelta, 32);
+        }
+    }
+
+    /**
+     * Decode a block into the arrays, starting at the position
+     *
+     * @param buffer Buffer holding the block
+     * @param offset Start of the block in the buffer
+     * @param length Length of the block
+     * @param count Number of points in the block
+     * @param firstHour Hour of the first point
+     */
+    static void decode(ByteBuffer buffer, int offset, int length, int count, long firstHour, long[] hours, double[] medians, int[] volumes, int position) {
+        BitReader in = new BitReader(buffer, offset, length);
+        long previousBits = in.read(64);
+        int previousVolume = (int) in.read(32);
+        long previousHour = firstHour;
+        long previousDelta = 0;
+        int leading = 0;
+        int trailing = 0;
+        hours[position] = previousHour;
+        medians[position] = Double.longBitsToDouble(previousBits);
+        volumes[position] = previousVolume;
+        for (int i = position + 1; i < position + count; i++) {
+            long deltaOfDelta;
+            if (in.read(1) == 0) {
+                deltaOfDelta = 0;
+            } else if (in.read(1) == 0) {
+                deltaOfDelta = unzigzag(in.read(7));
+            } else if (in.read(1) == 0) {
+                deltaOfDelta = unzigzag(in.read(9));
+            } else if (in.read(1) == 0) {
+                deltaOfDelta = unzigzag(in.read(12));
+            } else {
+                deltaOfDelta = unzigzag(in.read(32));
+            }
+            previousDelta += deltaOfDelta;
+            previousHour += previousDelta;
+            hours[i] = previousHour;
+
+            if (in.read(1) != 0) {
+                if (in.read(1) != 0) {
+                    leading = (int) in.read(5);
+                    int meaningful = (int) in.read(6) + 1;
+                    trailing = 64 - leading - meaningful;
+                }
+                previousBits ^= in.read(64 - leading - trailing) << trailing;
+            }
+            medians[i] = Double.longBitsToDouble(previousBits);
+
+            long volumeDelta;
+            if (in.read(1) == 0) {
+                volumeDelta = 0;
+            } else if (in.read(1) == 0) {
+                volumeDelta = in.read(8);
+            } else if (in.read(1) == 0) {
+                volumeDelta = in.read(16);
+            } else {
+                volumeDelta = in.read(32);
+            }
+            previousVolume += (int) unzigzag(volumeDelta);
+            volumes[i] = previousVolume;
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Writes bits, most significant first, into a growing array
+     */
+    private static final class BitWriter {
+        private byte[] bytes;
+        private long position;
+
+        BitWriter(int capacity) {
+            bytes = new byte[Math.max(16, capacity)];
+        }
+
+        /**
+         * Write the lowest bits of the value
+         */
+        void write(long value, int bits) {
+            int remaining = bits;
+            while (remaining > 0) {
+                int index = (int) (position >>> 3);
+                if (index == bytes.length) {
+                    bytes = Arrays.copyOf(bytes, bytes.length * 2);
+                }
+                int free = 8 - (int) (position & 7);
+                int size = Math.min(free, remaining);
+                int chunk = (int) (value >>> (remaining - size)) & ((1 << size) - 1);
+                bytes[index] |= chunk << (free - size);
+                position += size;
+                remaining -= size;
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, (int) ((position + 7) >>> 3));
+        }
+    }
+
+    /**
+     * Reads bits, most significant first, from part of a buffer
+     */
+    private static final class BitReader {
+        private final ByteBuffer buffer;
+        private final int offset;
+        private final long limit;
+        private long position;
+
+        BitReader(ByteBuffer buffer, int offset, int length) {
+            this.buffer = buffer;
+            this.offset = offset;
+            this.limit = (long) length << 3;
+        }
+
+        long read(int bits) {
+            if ((position + bits) > limit) {
+                throw new IllegalStateException("Corrupt price history block, reading past its end");
+            }
+            long value = 0;
+            int remaining = bits;
+            while (remaining > 0) {
+                int current = buffer.get(offset + (int) (position >>> 3)) & 0xff;
+                int available = 8 - (int) (position & 7);
+                int size = Math.min(available, remaining);
+                value = (value << size) | ((current >>> (available - size)) & ((1 << size) - 1));
+                position += size;
+                remaining -= size;
+            }
+            return value;
+        }
+    }
+}
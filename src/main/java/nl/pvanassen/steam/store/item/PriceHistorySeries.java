@@ -0,0 +1,264 @@
+package nl.pvanassen.steam.store.item;
+
+import org.codehaus.jackson.JsonParseException;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Price history of an item in columns, point <code>i</code> is made up of
+ * element <code>i</code> of the hours, medians and volumes. The points are
+ * ordered as Steam returns them, oldest first.
+ * <p>
+ * The series is read straight from the tokens of the <code>line1</code>
+ * script variable, without an object per point. The arrays are shared, they
+ * should not be modified.
+ *
+ * @author Paul van Assen
+ */
+public final class PriceHistorySeries {
+    private static final long HOUR = 3600000L;
+    private static final String MONTHS = "janfebmaraprmayjunjulaugsepoctnovdec";
+
+    private final long[] hours;
+    private final double[] medians;
+    private final int[] volumes;
+
+    PriceHistorySeries(long[] hours, double[] medians, int[] volumes) {
+        this.hours = hours;
+        this.medians = medians;
+        this.volumes = volumes;
+    }
+
+    /**
+     * @return Number of points in the series
+     */
+    public int size() {
+        return hours.length;
+    }
+
+    /**
+     * @return Hours since the epoch (UTC) of the points
+     */
+    public long[] getHours() {
+        return hours;
+    }
+
+    /**
+     * @return Median prices in cents of the points
+     */
+    public double[] getMedians() {
+        return medians;
+    }
+
+    /**
+     * @return Number of items sold per point
+     */
+    public int[] getVolumes() {
+        return volumes;
+    }
+
+    /**
+     * @param index Point in the series
+     * @return Time of the point in milliseconds since the epoch
+     */
+    public long getTime(int index) {
+        return hours[index] * HOUR;
+    }
+
+    /**
+     * Read a series from the parser, positioned before or on the start of the
+     * outer array. Points of which the date can not be read are logged and
+     * skipped.
+     *
+     * @param parser Parser to read from
+     * @return Series read
+     * @throws IOException If the json is not an array of points
+     */
+    static PriceHistorySeries parse(JsonParser parser) throws IOException {
+        JsonToken token = parser.getCurrentToken() == null ? parser.nextToken() : parser.getCurrentToken();
+        if (token != JsonToken.START_ARRAY) {
+            throw new JsonParseException("Expected price history array", parser.getCurrentLocation());
+        }
+        long[] hours = new long[1024];
+        double[] medians = new double[1024];
+        int[] volumes = new int[1024];
+        int size = 0;
+        while ((token = parser.nextToken()) == JsonToken.START_ARRAY) {
+            long hour = Long.MIN_VALUE;
+            double median = 0;
+            int volume = 0;
+            int field = 0;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    throw new JsonParseException("Unexpected end of price history", parser.getCurrentLocation());
+                }
+                switch (field++) {
+                    case 0:
+                        hour = epochHour(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                        if (hour == Long.MIN_VALUE) {
+                            LoggerFactory.getLogger(PriceHistorySeries.class).error("Error parsing steam date " + parser.getText());
+                        }
+                        break;
+                    case 1:
+                        median = parser.getValueAsDouble() * 100;
+                        break;
+                    case 2:
+                        if (token == JsonToken.VALUE_STRING) {
+                            volume = leadingInt(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                        } else {
+                            volume = parser.getValueAsInt();
+                        }
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+            if (hour == Long.MIN_VALUE) {
+                continue;
+            }
+            if (size == hours.length) {
+                hours = Arrays.copyOf(hours, size * 2);
+                medians = Arrays.copyOf(medians, size * 2);
+                volumes = Arrays.copyOf(volumes, size * 2);
+            }
+            hours[size] = hour;
+            medians[size] = median;
+            volumes[size] = volume;
+            size++;
+        }
+        if (token != JsonToken.END_ARRAY) {
+            throw new JsonParseException("Expected price history point", parser.getCurrentLocation());
+        }
+        return new PriceHistorySeries(Arrays.copyOf(hours, size), Arrays.copyOf(medians, size), Arrays.copyOf(volumes, size));
+    }
+
+    /**
+     * Decode a Steam date, either the current <code>May 02 2014 01: +0</code>
+     * or the older <code>Wed, 12 Dec 2012 01:00:00 +0000</code>, to hours
+     * since the epoch
+     *
+     * @return Hours since the epoch, or {@link Long#MIN_VALUE} if the date can
+     *         not be read
+     */
+    static long epochHour(char[] chars, int start, int length) {
+        int end = start + length;
+        int pos = skipSpaces(chars, start, end);
+        // Day of the week
+        if ((pos + 3 < end) && Character.isLetter(chars[pos]) && (chars[pos + 3] == ',')) {
+            pos = skipSpaces(chars, pos + 4, end);
+        }
+        int month;
+        int day;
+        if ((pos < end) && Character.isLetter(chars[pos])) {
+            month = month(chars, pos, end);
+            pos = skipSpaces(chars, pos + 3, end);
+            day = number(chars, pos, end);
+            pos = skipDigits(chars, pos, end);
+        } else {
+            day = number(chars, pos, end);
+            pos = skipSpaces(chars, skipDigits(chars, pos, end), end);
+            month = month(chars, pos, end);
+            pos += 3;
+        }
+        pos = skipSpaces(chars, pos, end);
+        int year = number(chars, pos, end);
+        pos = skipSpaces(chars, skipDigits(chars, pos, end), end);
+        int hour = number(chars, pos, end);
+        pos = skipDigits(chars, pos, end);
+        int minute = 0;
+        if ((pos < end) && (chars[pos] == ':')) {
+            minute = Math.max(0, number(chars, pos + 1, end));
+            pos = skipDigits(chars, pos + 1, end);
+            if ((pos < end) && (chars[pos] == ':')) {
+                pos = skipDigits(chars, pos + 1, end);
+            }
+        }
+        if ((month == -1) || (day < 1) || (day > 31) || (year == -1) || (hour < 0) || (hour > 23) || (minute > 59)) {
+            return Long.MIN_VALUE;
+        }
+        pos = skipSpaces(chars, pos, end);
+        int offset = 0;
+        if ((pos < end) && ((chars[pos] == '+') || (chars[pos] == '-'))) {
+            int digits = skipDigits(chars, pos + 1, end) - pos - 1;
+            int value = Math.max(0, number(chars, pos + 1, end));
+            // +H, +HH or +HHMM
+            offset = digits > 2 ? ((value / 100) * 60) + (value % 100) : value * 60;
+            if (chars[pos] == '-') {
+                offset = -offset;
+            }
+        }
+        long minutes = (((daysFromCivil(year, month, day) * 24) + hour) * 60) + minute - offset;
+        return Math.floorDiv(minutes, 60);
+    }
+
+    /**
+     * Days since the epoch of a date in the proleptic Gregorian calendar
+     */
+    private static long daysFromCivil(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yearOfEra = y - (era * 400);
+        int dayOfYear = ((((153 * (month > 2 ? month - 3 : month + 9)) + 2) / 5) + day) - 1;
+        int dayOfEra = ((yearOfEra * 365) + (yearOfEra / 4)) - (yearOfEra / 100) + dayOfYear;
+        return ((era * 146097L) + dayOfEra) - 719468;
+    }
+
+    /**
+     * @return Month 1 to 12 of the abbreviated name at the position, or -1
+     */
+    private static int month(char[] chars, int pos, int end) {
+        if (pos + 3 > end) {
+            return -1;
+        }
+        for (int i = 0; i < MONTHS.length(); i += 3) {
+            if ((Character.toLowerCase(chars[pos]) == MONTHS.charAt(i)) && (Character.toLowerCase(chars[pos + 1]) == MONTHS.charAt(i + 1))
+                    && (Character.toLowerCase(chars[pos + 2]) == MONTHS.charAt(i + 2))) {
+                return (i / 3) + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return Number at the position, or -1 if there are no digits
+     */
+    private static int number(char[] chars, int pos, int end) {
+        int digitsEnd = skipDigits(chars, pos, end);
+        if ((digitsEnd == pos) || (digitsEnd - pos > 9)) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = pos; i < digitsEnd; i++) {
+            value = (value * 10) + (chars[i] - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Leading number of a volume such as <code>"3"</code> or
+     * <code>"4719 sold"</code>, 0 if there is none
+     */
+    private static int leadingInt(char[] chars, int start, int length) {
+        return Math.max(0, number(chars, skipSpaces(chars, start, start + length), start + length));
+    }
+
+    private static int skipSpaces(char[] chars, int pos, int end) {
+        int i = pos;
+        while ((i < end) && (chars[i] == ' ')) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipDigits(char[] chars, int pos, int end) {
+        int i = pos;
+        while ((i < end) && (chars[i] >= '0') && (chars[i] <= '9')) {
+            i++;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,456 @@
+package nl.pvanassen.steam.store.item;
+
+import nl.pvanassen.steam.store.helper.UrlNameHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Append only store of the price history of items, keyed by app id and url
+ * name. New points are appended as a compressed block per item, see
+ * {@link PriceHistoryCodec}, points that are not newer than the last stored
+ * point of the item are dropped. Blocks are written to segment files in a
+ * directory, a new segment is started when the current one is full.
+ * <p>
+ * Segments are memory mapped for reading. On opening the records of all
+ * segments are scanned and checked to build the index. A segment is truncated
+ * at the first record that was half written when the process died or does
+ * not match its checksum. A store holding records of another version is not
+ * opened at all.
+ * <p>
+ * Record layout in a segment: length of the rest of the record, CRC32 of the
+ * rest of the record, version, app id, length and UTF-8 bytes of the url name,
+ * number of points, hour of the first and last point, followed by the
+ * compressed block.
+ *
+ * @author Paul van Assen
+ */
+public class PriceHistoryStore implements Closeable {
+    /**
+     * Size at which a new segment is started when none is given
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+    private static final byte VERSION = 2;
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".phs";
+    // Length, checksum, version, app id, name length, count, first and last hour
+    private static final int HEADER = 4 + 4 + 1 + 4 + 2 + 4 + 8 + 8;
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final Path directory;
+    private final int segmentSize;
+    private final List<Segment> segments;
+    private final Map<ItemKey, List<Block>> index;
+    private FileChannel channel;
+
+    private PriceHistoryStore(Path directory, int segmentSize, List<Segment> segments, Map<ItemKey, List<Block>> index, FileChannel channel) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.segments = segments;
+        this.index = index;
+        this.channel = channel;
+    }
+
+    /**
+     * Open a store for appending and reading, creating it if it does not
+     * exist
+     *
+     * @param directory Directory holding the segments
+     * @return The opened store
+     * @throws IOException If the store can not be opened
+     */
+    public static PriceHistoryStore open(Path directory) throws IOException {
+        return open(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Open a store for appending and reading, creating it if it does not
+     * exist
+     *
+     * @param directory Directory holding the segments
+     * @param segmentSize Size at which a new segment is started
+     * @return The opened store
+     * @throws IOException If the store can not be opened
+     */
+    public static PriceHistoryStore open(Path directory, int segmentSize) throws IOException {
+        if (segmentSize < 1024) {
+            throw new IllegalArgumentException("Segment size should be at least 1024 bytes, got " + segmentSize);
+        }
+        Files.createDirectories(directory);
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        Collections.sort(files);
+        List<Segment> segments = new ArrayList<>();
+        Map<ItemKey, List<Block>> index = new HashMap<>();
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            int number;
+            try {
+                number = Integer.parseInt(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+            }
+            catch (NumberFormatException e) {
+                LoggerFactory.getLogger(PriceHistoryStore.class).warn("Skipping " + file + ", not a segment");
+                continue;
+            }
+            Segment segment = new Segment(file, number, Files.size(file));
+            long end = scan(segment, segments.size(), index);
+            if (end != segment.size) {
+                // Drop a record that was half written when the process died, or
+                // damaged, and everything after it
+                LoggerFactory.getLogger(PriceHistoryStore.class).warn("Truncating " + segment.path + " from " + segment.size + " to " + end + " bytes");
+                try (FileChannel truncate = FileChannel.open(segment.path, StandardOpenOption.WRITE)) {
+                    truncate.truncate(end);
+                }
+                segment.size = end;
+                segment.mapped = null;
+            }
+            segments.add(segment);
+        }
+        if (segments.isEmpty()) {
+            segments.add(new Segment(directory.resolve(segmentName(0)), 0, 0));
+        }
+        Segment last = segments.get(segments.size() - 1);
+        FileChannel channel = FileChannel.open(last.path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(last.size);
+        return new PriceHistoryStore(directory, segmentSize, segments, index, channel);
+    }
+
+    /**
+     * Read the block headers of a segment into the index
+     *
+     * @return End of the last complete record with a matching checksum
+     * @throws IOException If a record was written by an unsupported version
+     */
+    private static long scan(Segment segment, int segmentIndex, Map<ItemKey, List<Block>> index) throws IOException {
+        ByteBuffer buffer = segment.buffer(segment.size);
+        int position = 0;
+        while ((position + HEADER) <= segment.size) {
+            int length = buffer.getInt(position);
+            if ((length < (HEADER - 4)) || ((position + 4L + length) > segment.size)) {
+                break;
+            }
+            byte version = buffer.get(position + 8);
+            if (version != VERSION) {
+                // Written by another version, truncating would lose its data
+                throw new IOException("Unsupported price history record version " + version + " in " + segment.path + " at " + position);
+            }
+            if (checksum(buffer, position + 8, length - 4) != buffer.getInt(position + 4)) {
+                LoggerFactory.getLogger(PriceHistoryStore.class).warn("Checksum mismatch in " + segment.path + " at " + position);
+                break;
+            }
+            int appId = buffer.getInt(position + 9);
+            int nameLength = buffer.getShort(position + 13) & 0xffff;
+            if ((HEADER + nameLength) > (length + 4)) {
+                break;
+            }
+            byte[] name = new byte[nameLength];
+            for (int i = 0; i < nameLength; i++) {
+                name[i] = buffer.get(position + 15 + i);
+            }
+            int nameEnd = position + 15 + nameLength;
+            int count = buffer.getInt(nameEnd);
+            long firstHour = buffer.getLong(nameEnd + 4);
+            long lastHour = buffer.getLong(nameEnd + 12);
+            int payload = nameEnd + 20;
+            ItemKey key = new ItemKey(appId, UrlNameHelper.getUrlName(new String(name, StandardCharsets.UTF_8)));
+            List<Block> blocks = index.get(key);
+            if (blocks == null) {
+                blocks = new ArrayList<>();
+                index.put(key, blocks);
+            }
+            blocks.add(new Block(segmentIndex, payload, (position + 4 + length) - payload, count, firstHour, lastHour));
+            position += 4 + length;
+        }
+        return position;
+    }
+
+    private static int checksum(ByteBuffer buffer, int offset, int length) {
+        ByteBuffer range = buffer.duplicate();
+        range.limit(offset + length);
+        range.position(offset);
+        CRC32 crc = new CRC32();
+        crc.update(range);
+        return (int) crc.getValue();
+    }
+
+    private static String segmentName(int number) {
+        return String.format("%s%06d%s", PREFIX, number, SUFFIX);
+    }
+
+    /**
+     * Append the points of the series that are newer than the last stored
+     * point of the item
+     *
+     * @param appId App id of the item
+     * @param urlName Url name of the item, encoded or not
+     * @param series Points to append
+     * @return Number of points appended
+     * @throws IOException If the points can not be written
+     */
+    public synchronized int append(int appId, String urlName, PriceHistorySeries series) throws IOException {
+        ItemKey key = new ItemKey(appId, UrlNameHelper.getUrlName(urlName));
+        List<Block> blocks = index.get(key);
+        long lastHour = blocks == null ? Long.MIN_VALUE : blocks.get(blocks.size() - 1).lastHour;
+        long[] hours = new long[series.size()];
+        double[] medians = new double[series.size()];
+        int[] volumes = new int[series.size()];
+        int count = 0;
+        for (int i = 0; i < series.size(); i++) {
+            long hour = series.getHours()[i];
+            if (hour > lastHour) {
+                hours[count] = hour;
+                medians[count] = series.getMedians()[i];
+                volumes[count] = series.getVolumes()[i];
+                lastHour = hour;
+                count++;
+            }
+        }
+        if (count == 0) {
+            return 0;
+        }
+        byte[] name = key.urlName.getBytes(StandardCharsets.UTF_8);
+        if (name.length > 0xffff) {
+            throw new IllegalArgumentException("Url name too long: " + urlName);
+        }
+        byte[] block = PriceHistoryCodec.encode(hours, medians, volumes, 0, count);
+        int recordLength = HEADER + name.length + block.length;
+        if (recordLength > segmentSize) {
+            throw new IllegalArgumentException("Block of " + recordLength + " bytes does not fit in a segment of " + segmentSize + " bytes");
+        }
+        Segment segment = segments.get(segments.size() - 1);
+        if ((segment.size + recordLength) > segmentSize) {
+            segment = roll();
+        }
+        ByteBuffer record = ByteBuffer.allocate(recordLength);
+        record.putInt(recordLength - 4);
+        // Checksum, filled in once the rest is written
+        record.putInt(0);
+        record.put(VERSION);
+        record.putInt(appId);
+        record.putShort((short) name.length);
+        record.put(name);
+        record.putInt(count);
+        record.putLong(hours[0]);
+        record.putLong(hours[count - 1]);
+        record.put(block);
+        record.putInt(4, checksum(record, 8, recordLength - 8));
+        record.flip();
+        long offset = segment.size;
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+        segment.size += recordLength;
+        if (blocks == null) {
+            blocks = new ArrayList<>();
+            index.put(key, blocks);
+        }
+        blocks.add(new Block(segments.size() - 1, (int) (offset + recordLength - block.length), block.length, count, hours[0], hours[count - 1]));
+        return count;
+    }
+
+    private Segment roll() throws IOException {
+        channel.close();
+        int number = segments.get(segments.size() - 1).number + 1;
+        Segment segment = new Segment(directory.resolve(segmentName(number)), number, 0);
+        channel = FileChannel.open(segment.path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segments.add(segment);
+        logger.info("Started price history segment " + segment.path);
+        return segment;
+    }
+
+    /**
+     * Points of an item in a range of hours
+     *
+     * @param appId App id of the item
+     * @param urlName Url name of the item, encoded or not
+     * @param fromHour First hour since the epoch, inclusive
+     * @param toHour Last hour since the epoch, exclusive
+     * @return The points, empty if the item is not stored
+     * @throws IOException If a segment can not be read
+     */
+    public synchronized PriceHistorySeries query(int appId, String urlName, long fromHour, long toHour) throws IOException {
+        List<Block> blocks = index.get(new ItemKey(appId, UrlNameHelper.getUrlName(urlName)));
+        if ((blocks == null) || (fromHour >= toHour)) {
+            return new PriceHistorySeries(new long[0], new double[0], new int[0]);
+        }
+        // First block ending at or after the start of the range
+        int low = 0;
+        int high = blocks.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (blocks.get(middle).lastHour < fromHour) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        int end = low;
+        int points = 0;
+        while ((end < blocks.size()) && (blocks.get(end).firstHour < toHour)) {
+            points += blocks.get(end).count;
+            end++;
+        }
+        long[] hours = new long[points];
+        double[] medians = new double[points];
+        int[] volumes = new int[points];
+        int size = 0;
+        for (int i = low; i < end; i++) {
+            Block block = blocks.get(i);
+            Segment segment = segments.get(block.segment);
+            ByteBuffer buffer = segment.buffer(block.offset + (long) block.length);
+            PriceHistoryCodec.decode(buffer, block.offset, block.length, block.count, block.firstHour, hours, medians, volumes, size);
+            if ((block.firstHour >= fromHour) && (block.lastHour < toHour)) {
+                size += block.count;
+                continue;
+            }
+            // Partially in range, keep the points in range
+            int last = size + block.count;
+            for (int j = size; j < last; j++) {
+                if ((hours[j] >= fromHour) && (hours[j] < toHour)) {
+                    hours[size] = hours[j];
+                    medians[size] = medians[j];
+                    volumes[size] = volumes[j];
+                    size++;
+                }
+            }
+        }
+        if (size == points) {
+            return new PriceHistorySeries(hours, medians, volumes);
+        }
+        return new PriceHistorySeries(Arrays.copyOf(hours, size), Arrays.copyOf(medians, size), Arrays.copyOf(volumes, size));
+    }
+
+    /**
+     * @param appId App id of the item
+     * @param urlName Url name of the item, encoded or not
+     * @return All stored points of the item, empty if the item is not stored
+     * @throws IOException If a segment can not be read
+     */
+    public PriceHistorySeries getHistory(int appId, String urlName) throws IOException {
+        return query(appId, urlName, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param appId App id of the item
+     * @param urlName Url name of the item, encoded or not
+     * @return Hour since the epoch of the last stored point of the item,
+     *         {@link Long#MIN_VALUE} if the item is not stored
+     */
+    public synchronized long getLastHour(int appId, String urlName) {
+        List<Block> blocks = index.get(new ItemKey(appId, UrlNameHelper.getUrlName(urlName)));
+        return blocks == null ? Long.MIN_VALUE : blocks.get(blocks.size() - 1).lastHour;
+    }
+
+    /**
+     * @return Number of items in the store
+     */
+    public synchronized int getItemCount() {
+        return index.size();
+    }
+
+    /**
+     * Closes the segment that is written to. Mapped segments are released when
+     * the store is garbage collected.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Segment file with the part of it that is mapped
+     */
+    private static final class Segment {
+        private final Path path;
+        private final int number;
+        private long size;
+        private MappedByteBuffer mapped;
+
+        Segment(Path path, int number, long size) {
+            this.path = path;
+            this.number = number;
+            this.size = size;
+        }
+
+        /**
+         * @return Mapping covering at least up to the end
+         */
+        ByteBuffer buffer(long end) throws IOException {
+            if ((mapped == null) || (mapped.capacity() < end)) {
+                try (FileChannel read = FileChannel.open(path, StandardOpenOption.READ)) {
+                    mapped = read.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                }
+            }
+            return mapped;
+        }
+    }
+
+    /**
+     * Location of a compressed block within the segments
+     */
+    private static final class Block {
+        private final int segment;
+        private final int offset;
+        private final int length;
+        private final int count;
+        private final long firstHour;
+        private final long lastHour;
+
+        Block(int segment, int offset, int length, int count, long firstHour, long lastHour) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.count = count;
+            this.firstHour = firstHour;
+            this.lastHour = lastHour;
+        }
+    }
+
+    private static final class ItemKey {
+        private final int appId;
+        private final String urlName;
+
+        ItemKey(int appId, String urlName) {
+            this.appId = appId;
+            this.urlName = urlName;
+        }
+
+        @Override
+        public int hashCode() {
+            return (31 * appId) + urlName.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof ItemKey)) {
+                return false;
+            }
+            ItemKey other = (ItemKey) obj;
+            return (appId == other.appId) && urlName.equals(other.urlName);
+        }
+    }
+}
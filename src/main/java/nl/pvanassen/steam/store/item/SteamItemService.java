@@ -4,6 +4,8 @@
 package nl.pvanassen.steam.store.item;
 
 import nl.pvanassen.steam.error.SteamException;
+import nl.pvanassen.steam.http.EndpointClass;
+import nl.pvanassen.steam.http.HostPool;
 import nl.pvanassen.steam.http.Http;
 import nl.pvanassen.steam.store.common.GenericHandle;
 import nl.pvanassen.steam.store.common.Listing;
@@ -19,12 +21,22 @@ public class SteamItemService implements ItemService {
     private final Logger logger = LoggerFactory.getLogger(getClass());
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final Http http;
+    private final HostPool hostPool;
 
     /**
      * @param http For mocking
      */
     public SteamItemService(Http http) {
+        this(http, http.getHostPool());
+    }
+
+    /**
+     * @param http For mocking
+     * @param hostPool Hosts to pick from if no host is given
+     */
+    public SteamItemService(Http http, HostPool hostPool) {
         this.http = http;
+        this.hostPool = hostPool;
     }
 
     /**
@@ -52,25 +64,10 @@ public class SteamItemService implements ItemService {
     @Override
     public void getItem(String host, int appId, String urlName, GenericHandle<StatDataPoint> dataPointHandle, GenericHandle<Listing> listingHandle,
             GenericHandle<Boolean> buyOrders, GenericHandle<Boolean> immediateSale) {
-        String url = "http://" + host + "/market/listings/" + appId + "/" + urlName;
-        ListingPageScriptHandle handle = new ListingPageScriptHandle(objectMapper);
-        http.get(url, handle, false);
-        if (handle.isError()) {
-            throw new SteamException("Error getting data for url: " + url + " error code was not 200");
-        }
-        if (handle.isNoListingForThisItem()) {
-            throw new NoListingFoundException();
-        }
-        if (handle.isNoPricingHistoryForThisItem()) {
-            throw new NoPricingHistoryFoundException();
-        }
-        if (handle.isNoLongerSold()) {
-            throw new NoLongerSoldException();
-        }
+        ListingPageScriptHandle handle = getListingPage(host, appId, urlName);
         buyOrders.handle(handle.isBuyOrders());
         immediateSale.handle(handle.isImmediateSale());
-        JsonNode priceHistoryInfo = handle.getPriceHistoryInfo();
-        for (StatDataPoint point : new ListingStatDataPointIterator(priceHistoryInfo)) {
+        for (StatDataPoint point : new ListingStatDataPointIterator(handle.getPriceHistory())) {
             dataPointHandle.handle(point);
         }
         if (listingHandle == null) {
@@ -91,6 +88,40 @@ public class SteamItemService implements ItemService {
     @Override
     public void getItem(int appId, String urlName, GenericHandle<StatDataPoint> dataPointHandle, GenericHandle<Listing> listingHandle, GenericHandle<Boolean> buyOrders,
             GenericHandle<Boolean> immediateSale) {
-        getItem("steamcommunity.com", appId, urlName, dataPointHandle, listingHandle, buyOrders, immediateSale);
+        getItem(hostPool.select(EndpointClass.ITEM_PAGE), appId, urlName, dataPointHandle, listingHandle, buyOrders, immediateSale);
+    }
+
+    @Override
+    public PriceHistorySeries getPriceHistory(String host, int appId, String urlName) {
+        return getListingPage(host, appId, urlName).getPriceHistory();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see nl.pvanassen.steam.store.item.ItemService#getPriceHistory(int, java.lang.String)
+     */
+    @Override
+    public PriceHistorySeries getPriceHistory(int appId, String urlName) {
+        return getPriceHistory(hostPool.select(EndpointClass.ITEM_PAGE), appId, urlName);
+    }
+
+    private ListingPageScriptHandle getListingPage(String host, int appId, String urlName) {
+        String url = "http://" + host + "/market/listings/" + appId + "/" + urlName;
+        ListingPageScriptHandle handle = new ListingPageScriptHandle(objectMapper);
+        http.get(url, handle, false);
+        if (handle.isError()) {
+            throw new SteamException("Error getting data for url: " + url + " error code was not 200");
+        }
+        if (handle.isNoListingForThisItem()) {
+            throw new NoListingFoundException();
+        }
+        if (handle.isNoPricingHistoryForThisItem()) {
+            throw new NoPricingHistoryFoundException();
+        }
+        if (handle.isNoLongerSold()) {
+            throw new NoLongerSoldException();
+        }
+        return handle;
     }
 }
@@ -1,67 +1,267 @@
 package nl.pvanassen.steam.store.listing;
 
-import com.google.common.io.ByteStreams;
 import nl.pvanassen.steam.http.DefaultHandle;
 import nl.pvanassen.steam.store.common.GenericHandle;
 import nl.pvanassen.steam.store.common.Listing;
 import nl.pvanassen.steam.store.helper.UrlNameHelper;
-import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
 
+/**
+ * Streams the listinginfo and assets out of a render response. The
+ * results_html is skipped without being decoded. A listing is emitted as soon
+ * as both its listinginfo entry and its asset have been read.
+ */
 class ListingHandle extends DefaultHandle {
+    /**
+     * App, context and asset id of a listed item
+     */
+    private static final class AssetKey {
+        private final String appId;
+        private final String contextId;
+        private final String id;
+
+        AssetKey(String appId, String contextId, String id) {
+            this.appId = appId;
+            this.contextId = contextId;
+            this.id = id;
+        }
+
+        @Override
+        public int hashCode() {
+            return (31 * ((31 * appId.hashCode()) + contextId.hashCode())) + id.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof AssetKey)) {
+                return false;
+            }
+            AssetKey other = (AssetKey) obj;
+            return id.equals(other.id) && contextId.equals(other.contextId) && appId.equals(other.appId);
+        }
+    }
+
+    /**
+     * Listinginfo entry waiting for its asset
+     */
+    private static final class ListingInfo {
+        private String listingId;
+        private int price = -1;
+        private boolean converted;
+        private int convertedPrice;
+        private int convertedFee;
+        private int convertedSteamFee;
+        private int convertedPublisherFee;
+        private int publisherFeeApp;
+        private double publisherFeePercent;
+        private int appId;
+        private String appIdText;
+        private String contextId;
+        private String assetId;
+    }
+
     private final Logger logger = LoggerFactory.getLogger(getClass());
     private final ObjectMapper objectMapper;
     private final GenericHandle<Listing> listingHandle;
     private final String country;
-    private final Charset charset;
 
     ListingHandle(ObjectMapper objectMapper, GenericHandle<Listing> listingHandle, String country) {
         this.objectMapper = objectMapper;
         this.listingHandle = listingHandle;
         this.country = country;
-        this.charset = Charset.forName("UTF-8");
     }
 
     @Override
     public void handle(InputStream stream) throws IOException {
-        stream.skip(2500L);
-        ByteArrayOutputStream baos = new ByteArrayOutputStream(40000);
-        ByteStreams.copy(stream, baos);
-        String content = new String(baos.toByteArray(), charset);
-        int start = content.indexOf("\"listinginfo\"");
-        if (start == -1) {
-            logger.error("No listings found: " + content, new Exception());
+        Map<AssetKey, ListingInfo> waiting = new HashMap<>();
+        // Only filled when the assets come before the listinginfo
+        Map<AssetKey, String> urlNames = new HashMap<>();
+        boolean listingsRead = false;
+        try (JsonParser parser = objectMapper.getJsonFactory().createJsonParser(stream)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                logger.error("No listings found, response is not an object");
+                return;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if ("listinginfo".equals(field)) {
+                    readListingInfo(parser, waiting, urlNames);
+                    listingsRead = true;
+                    urlNames.clear();
+                } else if ("assets".equals(field)) {
+                    readAssets(parser, waiting, listingsRead ? null : urlNames);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        if (!listingsRead) {
+            logger.error("No listings found", new Exception());
+        }
+        for (ListingInfo info : waiting.values()) {
+            logger.error("Error fetching listing " + info.listingId + ", asset " + info.assetId + " not found");
+        }
+    }
+
+    private void readListingInfo(JsonParser parser, Map<AssetKey, ListingInfo> waiting, Map<AssetKey, String> urlNames) throws IOException {
+        // No listings are sent as an empty array
+        if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
             return;
         }
-        String contentToRead = "{".concat(content.substring(start));
-        JsonNode node = objectMapper.readTree(contentToRead);
-        JsonNode assets = node.get("assets");
-        for (JsonNode listing : node.get("listinginfo")) {
-            int appId = listing.get("asset").get("appid").asInt();
-            String contextId = listing.get("asset").get("contextid").asText();
-            String id = listing.get("asset").get("id").asText();
-            String urlName = UrlNameHelper.getUrlName(assets.get(Integer.toString(appId)).get(contextId).get(id).get("market_hash_name").asText());
-            try {
-                if (listing.get("price").asInt() == 0) {
-                    logger.info("Item already sold");
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            parser.nextToken();
+            ListingInfo info = readListing(parser);
+            if ((info.listingId == null) || (info.assetId == null) || (info.contextId == null) || (info.appIdText == null)) {
+                logger.error("Error fetching listing " + info.listingId + ", incomplete listinginfo");
+                continue;
+            }
+            if (info.price == 0) {
+                logger.info("Item already sold");
+                continue;
+            }
+            AssetKey key = new AssetKey(info.appIdText, info.contextId, info.assetId);
+            String urlName = urlNames.remove(key);
+            if (urlName == null) {
+                waiting.put(key, info);
+            } else {
+                emit(info, urlName);
+            }
+        }
+    }
+
+    private ListingInfo readListing(JsonParser parser) throws IOException {
+        ListingInfo info = new ListingInfo();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "listingid":
+                    info.listingId = parser.getText();
+                    break;
+                case "price":
+                    info.price = parser.getValueAsInt();
+                    break;
+                case "converted_price":
+                    info.converted = true;
+                    info.convertedPrice = parser.getValueAsInt();
+                    break;
+                case "converted_fee":
+                    info.convertedFee = parser.getValueAsInt();
+                    break;
+                case "converted_steam_fee":
+                    info.convertedSteamFee = parser.getValueAsInt();
+                    break;
+                case "converted_publisher_fee":
+                    info.convertedPublisherFee = parser.getValueAsInt();
+                    break;
+                case "publisher_fee_app":
+                    info.publisherFeeApp = parser.getValueAsInt();
+                    break;
+                case "publisher_fee_percent":
+                    info.publisherFeePercent = parser.getValueAsDouble();
+                    break;
+                case "asset":
+                    readListingAsset(parser, info);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return info;
+    }
+
+    private void readListingAsset(JsonParser parser, ListingInfo info) throws IOException {
+        if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if ("appid".equals(field)) {
+                info.appIdText = parser.getText();
+                info.appId = parser.getValueAsInt();
+            } else if ("contextid".equals(field)) {
+                info.contextId = parser.getText();
+            } else if ("id".equals(field)) {
+                info.assetId = parser.getText();
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private void readAssets(JsonParser parser, Map<AssetKey, ListingInfo> waiting, Map<AssetKey, String> urlNames) throws IOException {
+        if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String appId = parser.getCurrentName();
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String contextId = parser.getCurrentName();
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
                     continue;
                 }
-                Listing listingObj = new Listing(appId, urlName, listing.get("listingid").asText(), listing.get("converted_price").asInt(),
-                        listing.get("converted_fee").asInt(), listing.get("converted_steam_fee").asInt(), listing.get("converted_publisher_fee").asInt(), listing.get(
-                                "publisher_fee_app").asInt(), listing.get("publisher_fee_percent").asDouble(), country);
-                listingHandle.handle(listingObj);
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    AssetKey key = new AssetKey(appId, contextId, parser.getCurrentName());
+                    parser.nextToken();
+                    String marketHashName = readMarketHashName(parser);
+                    if (marketHashName == null) {
+                        continue;
+                    }
+                    ListingInfo info = waiting.remove(key);
+                    if (info != null) {
+                        emit(info, UrlNameHelper.getUrlName(marketHashName));
+                    } else if (urlNames != null) {
+                        urlNames.put(key, UrlNameHelper.getUrlName(marketHashName));
+                    }
+                }
             }
-            catch (NullPointerException e) {
-                logger.error("Error fetching " + listing + ", " + e.getMessage());
+        }
+    }
+
+    private static String readMarketHashName(JsonParser parser) throws IOException {
+        if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        String marketHashName = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if ("market_hash_name".equals(field)) {
+                marketHashName = parser.getText();
+            } else {
+                parser.skipChildren();
             }
         }
+        return marketHashName;
+    }
+
+    private void emit(ListingInfo info, String urlName) {
+        if (!info.converted) {
+            logger.error("Error fetching listing " + info.listingId + ", no converted price");
+            return;
+        }
+        listingHandle.handle(new Listing(info.appId, urlName, info.listingId, info.convertedPrice, info.convertedFee, info.convertedSteamFee, info.convertedPublisherFee,
+                info.publisherFeeApp, info.publisherFeePercent, country));
     }
 
     @Override
@@ -23,7 +23,16 @@ public interface ListingService {
     void getAsyncNewlyListed(String host, int currency, String country, GenericHandle<Listing> listingHandle);
 
     /**
-     * Retrieve all newly listed
+     * Retrieve all newly listed, from the healthiest host of the host pool
+     * 
+     * @param currency Currency to retrieve
+     * @param country Country to get listings for
+     * @param listingHandle Triggered when item is received
+     */
+    void getAsyncNewlyListed(int currency, String country, GenericHandle<Listing> listingHandle);
+
+    /**
+     * Retrieve all newly listed, from the healthiest host of the host pool
      * 
      * @param item Item to get the listings for
      * @param currency Currency to retrieve
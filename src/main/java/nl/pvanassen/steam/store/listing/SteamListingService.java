@@ -3,6 +3,8 @@
  */
 package nl.pvanassen.steam.store.listing;
 
+import nl.pvanassen.steam.http.EndpointClass;
+import nl.pvanassen.steam.http.HostPool;
 import nl.pvanassen.steam.http.Http;
 import nl.pvanassen.steam.store.CommandResult;
 import nl.pvanassen.steam.store.common.GenericHandle;
@@ -24,14 +26,35 @@ public class SteamListingService implements ListingService {
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final Http http;
     private final String username;
+    private final HostPool hostPool;
 
     /**
      * @param http For mocking
      * @param username For creating new listings
      */
     public SteamListingService(Http http, String username) {
+        this(http, username, http.getHostPool());
+    }
+
+    /**
+     * @param http For mocking
+     * @param username For creating new listings
+     * @param hostPool Hosts to pick from if no host is given
+     */
+    public SteamListingService(Http http, String username, HostPool hostPool) {
         this.http = http;
         this.username = username;
+        this.hostPool = hostPool;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see nl.pvanassen.steam.store.listing.ListingService#getAsyncNewlyListed(int, java.lang.String, nl.pvanassen.steam.store.common.GenericHandle)
+     */
+    @Override
+    public void getAsyncNewlyListed(int currency, String country, GenericHandle<Listing> listingHandle) {
+        getAsyncNewlyListed(hostPool.select(EndpointClass.RECENT), currency, country, listingHandle);
     }
 
     @Override
@@ -48,7 +71,7 @@ public class SteamListingService implements ListingService {
      */
     @Override
     public void getAsyncListed(Item item, int currency, String country, int start, GenericHandle<Listing> listingHandle) {
-        getAsyncListed("steamcommunity.com", item, currency, country, start, listingHandle);
+        getAsyncListed(hostPool.select(EndpointClass.LISTINGS_RENDER), item, currency, country, start, listingHandle);
     }
 
     /**
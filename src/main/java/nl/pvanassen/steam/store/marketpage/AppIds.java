@@ -2,7 +2,9 @@ package nl.pvanassen.steam.store.marketpage;
 
 import com.google.common.collect.ImmutableSet;
 import nl.pvanassen.steam.http.Http;
+import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.util.Set;
 
 /**
@@ -25,6 +27,15 @@ public final class AppIds {
     private static final AppIds APP_IDS = new AppIds();
 
     private AppIds() {
-        ids = ImmutableSet.copyOf(new SteamMarketPageService(Http.getInstance("", ""), "").getAppIds());
+        Http http = Http.getInstance("", "");
+        try {
+            ids = ImmutableSet.copyOf(new SteamMarketPageService(http, "").getAppIds());
+        } finally {
+            try {
+                http.close();
+            } catch (IOException e) {
+                LoggerFactory.getLogger(AppIds.class).warn("Error closing connection", e);
+            }
+        }
     }
 }
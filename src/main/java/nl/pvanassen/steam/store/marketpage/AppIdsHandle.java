@@ -2,58 +2,55 @@ package nl.pvanassen.steam.store.marketpage;
 
 import com.google.common.collect.ImmutableSet;
 import nl.pvanassen.steam.http.DefaultHandle;
-import org.cyberneko.html.parsers.DOMParser;
+import nl.pvanassen.steam.store.html.ElementStack;
+import nl.pvanassen.steam.store.html.HtmlHandler;
+import nl.pvanassen.steam.store.html.HtmlTokenizer;
+import nl.pvanassen.steam.store.html.Selector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
 
-import javax.xml.xpath.*;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.HashSet;
 import java.util.Set;
 
 class AppIdsHandle extends DefaultHandle {
     private final Logger logger = LoggerFactory.getLogger(getClass());
-    private static final XPathFactory XPATH_FACTORY = XPathFactory.newInstance();
-    private static final XPath XPATH = XPATH_FACTORY.newXPath();
-    private static final XPathExpression APPIDS_XPATH;
+    private static final Selector APPIDS = Selector.compile("a[class='game_button']");
     private final Set<Integer> appIds = new HashSet<>();
 
-    static {
-        XPathExpression appIdsXpath = null;
-        try {
-            appIdsXpath = XPATH.compile("//A[@class='game_button']");
-        }
-        catch (XPathExpressionException e) {
-            LoggerFactory.getLogger(AppIdsHandle.class).error("Error instantiating XPATH", e);
-        }
-        APPIDS_XPATH = appIdsXpath;
-    }
-
     Set<Integer> getAppIds() {
         return ImmutableSet.copyOf(appIds);
     }
 
     @Override
     public void handle(InputStream stream) throws IOException {
-        DOMParser parser = new DOMParser();
-        try {
-            parser.parse(new InputSource(stream));
-            Document document = parser.getDocument();
-            NodeList appIdsNodes = (NodeList) APPIDS_XPATH.evaluate(document, XPathConstants.NODESET);
-            for (int i = 0; i != appIdsNodes.getLength(); i++) {
-                Node appIdNode = appIdsNodes.item(i);
-                String appIdStr = appIdNode.getAttributes().getNamedItem("href").getTextContent().split("=")[1];
-                appIds.add(Integer.parseInt(appIdStr));
+        HtmlTokenizer.parse(new InputStreamReader(stream, StandardCharsets.UTF_8), new HtmlHandler() {
+            @Override
+            public void startElement(ElementStack stack) {
+                if (!APPIDS.matches(stack)) {
+                    return;
+                }
+                try {
+                    String appIdStr = stack.peek().getAttribute("href").split("=")[1];
+                    appIds.add(Integer.parseInt(appIdStr));
+                }
+                catch (RuntimeException e) {
+                    logger.error("Error getting app ids items", e);
+                }
+            }
+
+            @Override
+            public void endElement(ElementStack stack) {
+                // Only attributes are read
+            }
+
+            @Override
+            public void text(char[] chars, int start, int length) {
+                // Only attributes are read
             }
-        }
-        catch (SAXException | XPathExpressionException | RuntimeException e) {
-            logger.error("Error getting app ids items", e);
-        }
+        });
     }
 }
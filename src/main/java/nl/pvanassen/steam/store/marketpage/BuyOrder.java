@@ -1,63 +1,106 @@
 package nl.pvanassen.steam.store.marketpage;
 
-import com.google.common.collect.ImmutableList;
 import nl.pvanassen.steam.store.helper.AmountHelper;
 import nl.pvanassen.steam.store.helper.UrlNameHelper;
-import nl.pvanassen.steam.store.xpath.XPathHelper;
+import nl.pvanassen.steam.store.html.ElementStack;
+import nl.pvanassen.steam.store.html.HtmlHandler;
+import nl.pvanassen.steam.store.html.Selector;
+import nl.pvanassen.steam.store.html.TextCapture;
 import org.slf4j.LoggerFactory;
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpression;
-import javax.xml.xpath.XPathExpressionException;
 import java.util.ArrayList;
 import java.util.List;
 
-class BuyOrder {
-    private static final XPathExpression SECTION = XPathHelper.getXpathExpression("//DIV[@class='my_listing_section market_content_block market_home_listing_table']");
-    private static final XPathExpression BUYORDER = XPathHelper.getXpathExpression("./DIV[@class='market_listing_row market_recent_listing_row']");
-    private static final XPathExpression LINK = XPathHelper.getXpathExpression(".//A[@class='market_listing_item_name_link']");
-    private static final XPathExpression PRICE = XPathHelper.getXpathExpression(".//SPAN[@class='market_listing_price']");
+/**
+ * Reads the buy orders of the market page while it is tokenized. A buy order
+ * is converted as soon as its row is closed.
+ */
+class BuyOrder implements HtmlHandler {
+    private static final Selector SECTION = Selector.compile("div[class='my_listing_section market_content_block market_home_listing_table']");
+    private static final Selector BUYORDER = Selector.compile("> div[class='market_listing_row market_recent_listing_row']");
+    private static final Selector LINK = Selector.compile("a[class='market_listing_item_name_link']");
+    private static final Selector PRICE = Selector.compile("span[class='market_listing_price']");
 
-    private BuyOrder() {
-        
-    }
-    
-    static List<MarketPageBuyOrder> getBuyOrders(Document document) {
-        try {
-            Node node = (Node)SECTION.evaluate(document, XPathConstants.NODE);
-            if (node == null) {
-                return ImmutableList.of();
+    private final List<MarketPageBuyOrder> buyOrders = new ArrayList<>();
+    private final TextCapture price = new TextCapture(PRICE);
+    private final TextCapture quantity = new TextCapture(PRICE);
+    private String rowId;
+    private String link;
+    // Depths of the section and row, 0 when not open
+    private int sectionDepth;
+    private int rowDepth;
+    private boolean sectionFound;
+
+    @Override
+    public void startElement(ElementStack stack) {
+        if (sectionDepth == 0) {
+            if (!sectionFound && SECTION.matches(stack)) {
+                sectionDepth = stack.size();
+                sectionFound = true;
+            }
+        } else if (rowDepth == 0) {
+            if (BUYORDER.matches(stack, sectionDepth)) {
+                rowDepth = stack.size();
+                rowId = stack.peek().getId();
+                link = null;
+                price.reset();
+                quantity.reset();
+            }
+        } else {
+            if (!price.startElement(stack, rowDepth) && price.isFound()) {
+                quantity.startElement(stack, rowDepth);
             }
-            NodeList nodeList = (NodeList)BUYORDER.evaluate(node, XPathConstants.NODESET);
-            List<MarketPageBuyOrder> buyOrders = new ArrayList<>(nodeList.getLength());
-            for (int i = 0; i < nodeList.getLength(); i++) {
-                Node item = nodeList.item(i);
-                String steamId = item.getAttributes().getNamedItem("id").getTextContent().substring(11);
-                Node link = (Node)LINK.evaluate(item, XPathConstants.NODE);
-                String href = link.getAttributes().getNamedItem("href").getTextContent();
-                int appIdStart = href.indexOf('/', href.indexOf("listings")) + 1;
-                int appIdEnd = href.indexOf('/', appIdStart);
-                int appId = Integer.valueOf(href.substring(appIdStart, appIdEnd));
-                String urlName = UrlNameHelper.getUrlName(href.substring(appIdEnd + 1));
-                NodeList priceQuantity = (NodeList)PRICE.evaluate(node, XPathConstants.NODESET);
-                Node priceNode = priceQuantity.item(0);
-                Node quantityNode  = priceQuantity.item(1);
-                String priceStr = priceNode.getTextContent().trim();
-                if (priceStr.indexOf('@') != -1) {
-                    priceStr = priceStr.substring(priceStr.indexOf('@') + 1);
-                }
-                int price = AmountHelper.getAmount(priceStr.trim());
-                int quantity = Integer.valueOf(quantityNode.getTextContent().trim());
-                buyOrders.add(new MarketPageBuyOrder(appId, urlName, steamId, quantity, price));
+            if ((link == null) && LINK.matches(stack, rowDepth)) {
+                link = stack.peek().getAttribute("href");
+            }
+        }
+    }
+
+    @Override
+    public void endElement(ElementStack stack) {
+        int depth = stack.size();
+        if (depth == rowDepth) {
+            rowDepth = 0;
+            try {
+                endRow();
+            } catch (RuntimeException e) {
+                LoggerFactory.getLogger(BuyOrder.class).error("Error getting buy order " + rowId, e);
             }
-            return buyOrders;
+        } else if (depth == sectionDepth) {
+            sectionDepth = 0;
+        } else if (rowDepth != 0) {
+            price.endElement(stack);
+            quantity.endElement(stack);
         }
-        catch (XPathExpressionException e) {
-            LoggerFactory.getLogger(BuyOrder.class).error("Error getting buy orders", e);
+    }
+
+    @Override
+    public void text(char[] chars, int start, int length) {
+        if (rowDepth != 0) {
+            price.text(chars, start, length);
+            quantity.text(chars, start, length);
+        }
+    }
+
+    private void endRow() {
+        if ((link == null) || !quantity.isFound()) {
+            throw new IllegalStateException("Incomplete buy order row");
+        }
+        String steamId = rowId.substring(11);
+        int appIdStart = link.indexOf('/', link.indexOf("listings")) + 1;
+        int appIdEnd = link.indexOf('/', appIdStart);
+        int appId = Integer.valueOf(link.substring(appIdStart, appIdEnd));
+        String urlName = UrlNameHelper.getUrlName(link.substring(appIdEnd + 1));
+        String priceStr = price.getText().trim();
+        if (priceStr.indexOf('@') != -1) {
+            priceStr = priceStr.substring(priceStr.indexOf('@') + 1);
         }
-        return ImmutableList.of();
+        int amount = AmountHelper.getAmount(priceStr.trim());
+        int count = Integer.valueOf(quantity.getText().trim());
+        buyOrders.add(new MarketPageBuyOrder(appId, urlName, steamId, count, amount));
+    }
+
+    List<MarketPageBuyOrder> getBuyOrders() {
+        return buyOrders;
     }
 }
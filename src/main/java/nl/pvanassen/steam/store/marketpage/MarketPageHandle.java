@@ -1,16 +1,16 @@
 package nl.pvanassen.steam.store.marketpage;
 
 import nl.pvanassen.steam.http.DefaultHandle;
-import org.cyberneko.html.parsers.DOMParser;
+import nl.pvanassen.steam.store.html.ElementStack;
+import nl.pvanassen.steam.store.html.HtmlHandler;
+import nl.pvanassen.steam.store.html.HtmlTokenizer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.w3c.dom.Document;
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
 
-import javax.xml.xpath.XPathExpressionException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 import java.util.List;
 
@@ -26,27 +26,65 @@ class MarketPageHandle extends DefaultHandle {
      */
     @Override
     public void handle(InputStream stream) throws IOException {
-        DOMParser parser = new DOMParser();
+        Wallet wallet = new Wallet();
+        Outstandings outstandingItems = new Outstandings();
+        BuyOrder buyOrder = new BuyOrder();
+        HtmlTokenizer.parse(new InputStreamReader(stream, StandardCharsets.UTF_8), new PageHandler(wallet, outstandingItems, buyOrder));
         try {
-            parser.parse(new InputSource(stream));
-            Document document = parser.getDocument();
-            int wallet = Wallet.getWallet(document);
-            List<OutstandingItem> items = Outstandings.getOutstandingItems(document);
+            List<OutstandingItem> items = outstandingItems.getOutstandingItems();
             int numberOfItems = items.size();
             int amount = items.stream().mapToInt(item -> item.getPrice()).sum();
-            List<MarketPageBuyOrder> buyOrders = BuyOrder.getBuyOrders(document);
-            outstandings = new MarketPage(wallet, numberOfItems, amount, items, buyOrders);
+            outstandings = new MarketPage(wallet.getWallet(), numberOfItems, amount, items, buyOrder.getBuyOrders());
         }
         catch (ParseException | RuntimeException e) {
             logger.error("Error getting outstanding items", e);
             error = true;
         }
-        catch (SAXException | XPathExpressionException e) {
-            logger.error("Error getting outstanding items", e);
-            error = true;
+    }
+
+    /**
+     * Passes the events of a single pass over the page to the wallet,
+     * outstanding items and buy orders
+     */
+    private static final class PageHandler implements HtmlHandler {
+        private final HtmlHandler[] handlers;
+
+        private PageHandler(HtmlHandler... handlers) {
+            this.handlers = handlers;
+        }
+
+        @Override
+        public void startElement(ElementStack stack) {
+            for (HtmlHandler handler : handlers) {
+                handler.startElement(stack);
+            }
+        }
+
+        @Override
+        public void endElement(ElementStack stack) {
+            for (HtmlHandler handler : handlers) {
+                handler.endElement(stack);
+            }
+        }
+
+        @Override
+        public void text(char[] chars, int start, int length) {
+            for (HtmlHandler handler : handlers) {
+                handler.text(chars, start, length);
+            }
+        }
+
+        @Override
+        public boolean isDone() {
+            for (HtmlHandler handler : handlers) {
+                if (handler.isDone()) {
+                    return true;
+                }
+            }
+            return false;
         }
     }
-    
+
     /**
      * {@inheritDoc}
      *
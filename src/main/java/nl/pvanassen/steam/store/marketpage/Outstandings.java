@@ -1,14 +1,11 @@
 package nl.pvanassen.steam.store.marketpage;
 
 import nl.pvanassen.steam.store.helper.AmountHelper;
-import nl.pvanassen.steam.store.xpath.XPathHelper;
-import org.w3c.dom.DOMException;
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
+import nl.pvanassen.steam.store.html.ElementStack;
+import nl.pvanassen.steam.store.html.HtmlHandler;
+import nl.pvanassen.steam.store.html.Selector;
+import nl.pvanassen.steam.store.html.TextCapture;
 
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpression;
-import javax.xml.xpath.XPathExpressionException;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -16,48 +13,123 @@ import java.util.Calendar;
 import java.util.List;
 import java.util.Locale;
 
-final class Outstandings {
-    private static final XPathExpression ITEMS_DIV_XPATH = XPathHelper.getXpathExpression("//DIV[@class='market_content_block my_listing_section market_home_listing_table']");
-    private static final XPathExpression PRICE_XPATH = XPathHelper.getXpathExpression(".//SPAN[@class='market_listing_price']");
-    private static final XPathExpression DATE_XPATH = XPathHelper.getXpathExpression(".//DIV[@class='market_listing_right_cell market_listing_listed_date can_combine']");
-    private static final XPathExpression REMOVE_XPATH = XPathHelper.getXpathExpression(".//A[@class='item_market_action_button item_market_action_button_edit nodisable']");
-    private static final XPathExpression LINK_XPATH = XPathHelper.getXpathExpression(".//A[@class='market_listing_item_name_link']");
-    private Outstandings() {
-        
-    }
-    static List<OutstandingItem> getOutstandingItems(Document document) throws DOMException, XPathExpressionException, ParseException {
-        Node node = (Node) ITEMS_DIV_XPATH.evaluate(document, XPathConstants.NODE);
-        SimpleDateFormat formatter = new SimpleDateFormat("d MMM", Locale.US);
-        List<OutstandingItem> items = new ArrayList<>(node.getChildNodes().getLength());
-        int year = Calendar.getInstance().get(Calendar.YEAR);
-        for (int i = 0; i < node.getChildNodes().getLength(); i++) {
-            Node outstandingRow = node.getChildNodes().item(i);
-            if (outstandingRow.getAttributes() == null) {
-                continue;
+/**
+ * Reads the outstanding sell listings of the market page while it is
+ * tokenized. A listing is converted as soon as its row is closed, the first
+ * failure stops the extraction.
+ */
+final class Outstandings implements HtmlHandler {
+    private static final Selector ITEMS_DIV = Selector.compile("div[class='market_content_block my_listing_section market_home_listing_table']");
+    private static final Selector ROW = Selector.compile("> *[class*='market_recent_listing_row']");
+    private static final Selector PRICE = Selector.compile("span[class='market_listing_price']");
+    private static final Selector DATE = Selector.compile("div[class='market_listing_right_cell market_listing_listed_date can_combine']");
+    private static final Selector REMOVE = Selector.compile("a[class='item_market_action_button item_market_action_button_edit nodisable']");
+    private static final Selector LINK = Selector.compile("a[class='market_listing_item_name_link']");
+
+    private final SimpleDateFormat formatter = new SimpleDateFormat("d MMM", Locale.US);
+    private final int year = Calendar.getInstance().get(Calendar.YEAR);
+    private final List<OutstandingItem> items = new ArrayList<>();
+    private final TextCapture price = new TextCapture(PRICE);
+    private final TextCapture date = new TextCapture(DATE);
+    private String removeScript;
+    private String link;
+    // Depths of the section and row, 0 when not open
+    private int sectionDepth;
+    private int rowDepth;
+    private boolean sectionFound;
+    private Exception failure;
+
+    @Override
+    public void startElement(ElementStack stack) {
+        if (sectionDepth == 0) {
+            if (!sectionFound && ITEMS_DIV.matches(stack)) {
+                sectionDepth = stack.size();
+                sectionFound = true;
             }
-            String clz = outstandingRow.getAttributes().getNamedItem("class").getTextContent();
-            if (!clz.contains("market_recent_listing_row")) {
-                continue;
+        } else if (rowDepth == 0) {
+            if (ROW.matches(stack, sectionDepth)) {
+                rowDepth = stack.size();
+                price.reset();
+                date.reset();
+                removeScript = null;
+                link = null;
             }
-            String priceStr = ((Node) PRICE_XPATH.evaluate(outstandingRow, XPathConstants.NODE)).getTextContent().trim();
-            // Skip sold items
-            if (priceStr.contains("Sold")) {
-                continue;
+        } else {
+            price.startElement(stack, rowDepth);
+            date.startElement(stack, rowDepth);
+            if ((removeScript == null) && REMOVE.matches(stack, rowDepth)) {
+                removeScript = stack.peek().getAttribute("href");
+            } else if ((link == null) && LINK.matches(stack, rowDepth)) {
+                link = stack.peek().getAttribute("href");
             }
-            int price = AmountHelper.getAmount(priceStr);
-            String removeScript = ((Node) REMOVE_XPATH.evaluate(outstandingRow, XPathConstants.NODE)).getAttributes().getNamedItem("href").getTextContent();
-            String[] scriptParts = removeScript.replace("'", "").split(",");
-            String listingId = scriptParts[1].trim();
-            int appId = Integer.parseInt(scriptParts[2].trim());
-            int contextId = Integer.parseInt(scriptParts[3].trim());
-            String assetId = scriptParts[4].substring(0, scriptParts[4].length() - 1).trim();
-            String link = ((Node) LINK_XPATH.evaluate(outstandingRow, XPathConstants.NODE)).getAttributes().getNamedItem("href").getTextContent();
-            String urlName = link.substring(link.lastIndexOf('/') + 1).trim();
-            String date = ((Node) DATE_XPATH.evaluate(outstandingRow, XPathConstants.NODE)).getTextContent().trim();
-            Calendar itemDate = Calendar.getInstance();
-            itemDate.setTime(formatter.parse(date));
-            itemDate.set(Calendar.YEAR, year);
-            items.add(new OutstandingItem(appId, urlName, listingId, assetId, contextId, price, itemDate.getTime()));
+        }
+    }
+
+    @Override
+    public void endElement(ElementStack stack) {
+        int depth = stack.size();
+        if (depth == rowDepth) {
+            rowDepth = 0;
+            try {
+                endRow();
+            } catch (ParseException | RuntimeException e) {
+                failure = e;
+            }
+        } else if (depth == sectionDepth) {
+            sectionDepth = 0;
+        } else if (rowDepth != 0) {
+            price.endElement(stack);
+            date.endElement(stack);
+        }
+    }
+
+    @Override
+    public void text(char[] chars, int start, int length) {
+        if (rowDepth != 0) {
+            price.text(chars, start, length);
+            date.text(chars, start, length);
+        }
+    }
+
+    @Override
+    public boolean isDone() {
+        return failure != null;
+    }
+
+    private void endRow() throws ParseException {
+        if (!price.isFound()) {
+            throw new IllegalStateException("Listing without price");
+        }
+        String priceStr = price.getText().trim();
+        // Skip sold items
+        if (priceStr.contains("Sold")) {
+            return;
+        }
+        if ((removeScript == null) || (link == null) || !date.isFound()) {
+            throw new IllegalStateException("Incomplete listing row, price " + priceStr);
+        }
+        int amount = AmountHelper.getAmount(priceStr);
+        String[] scriptParts = removeScript.replace("'", "").split(",");
+        String listingId = scriptParts[1].trim();
+        int appId = Integer.parseInt(scriptParts[2].trim());
+        int contextId = Integer.parseInt(scriptParts[3].trim());
+        String assetId = scriptParts[4].substring(0, scriptParts[4].length() - 1).trim();
+        String urlName = link.substring(link.lastIndexOf('/') + 1).trim();
+        Calendar itemDate = Calendar.getInstance();
+        itemDate.setTime(formatter.parse(date.getText().trim()));
+        itemDate.set(Calendar.YEAR, year);
+        items.add(new OutstandingItem(appId, urlName, listingId, assetId, contextId, amount, itemDate.getTime()));
+    }
+
+    List<OutstandingItem> getOutstandingItems() throws ParseException {
+        if (failure instanceof ParseException) {
+            throw (ParseException) failure;
+        }
+        if (failure != null) {
+            throw (RuntimeException) failure;
+        }
+        if (!sectionFound) {
+            throw new IllegalStateException("Listing section not found");
         }
         return items;
     }
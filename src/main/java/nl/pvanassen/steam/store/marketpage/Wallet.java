@@ -1,35 +1,47 @@
 package nl.pvanassen.steam.store.marketpage;
 
 import nl.pvanassen.steam.store.helper.AmountHelper;
-import nl.pvanassen.steam.store.xpath.XPathHelper;
+import nl.pvanassen.steam.store.html.ElementStack;
+import nl.pvanassen.steam.store.html.HtmlHandler;
+import nl.pvanassen.steam.store.html.Selector;
+import nl.pvanassen.steam.store.html.TextCapture;
 import org.slf4j.LoggerFactory;
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
 
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpression;
-import javax.xml.xpath.XPathExpressionException;
+/**
+ * Reads the wallet balance of the market page while it is tokenized
+ */
+class Wallet implements HtmlHandler {
+    private static final Selector WALLET = Selector.compile("span#marketWalletBalanceAmount");
 
-class Wallet {
-    private static final XPathExpression WALLET_XPATH = XPathHelper.getXpathExpression("//SPAN[@id='marketWalletBalanceAmount']");
+    private final TextCapture wallet = new TextCapture(WALLET);
 
-    private Wallet() {
+    @Override
+    public void startElement(ElementStack stack) {
+        wallet.startElement(stack, 0);
+    }
+
+    @Override
+    public void endElement(ElementStack stack) {
+        wallet.endElement(stack);
+    }
 
+    @Override
+    public void text(char[] chars, int start, int length) {
+        wallet.text(chars, start, length);
     }
 
-    static int getWallet(Document document) throws XPathExpressionException {
-        int wallet = 0;
-        Node walletNode = (Node) WALLET_XPATH.evaluate(document, XPathConstants.NODE);
-        if (walletNode != null) {
-            wallet = AmountHelper.getAmount(walletNode.getTextContent().trim());
+    int getWallet() {
+        int amount = 0;
+        if (wallet.isFound()) {
+            amount = AmountHelper.getAmount(wallet.getText().trim());
         }
         else {
             LoggerFactory.getLogger(Wallet.class).error("Wallet node is null!");
         }
-        if (wallet == 0) {
+        if (amount == 0) {
             LoggerFactory.getLogger(Wallet.class).error("No cash in this account, that's weird?");
         }
-        return wallet;
+        return amount;
     }
 
 }
@@ -3,30 +3,26 @@ package nl.pvanassen.steam.store.tradeoffer;
 import com.google.common.collect.ImmutableList;
 import nl.pvanassen.steam.http.DefaultHandle;
 import nl.pvanassen.steam.store.common.Item;
-import nl.pvanassen.steam.store.xpath.XPathHelper;
-import org.cyberneko.html.parsers.DOMParser;
+import nl.pvanassen.steam.store.html.ElementStack;
+import nl.pvanassen.steam.store.html.HtmlHandler;
+import nl.pvanassen.steam.store.html.HtmlTokenizer;
+import nl.pvanassen.steam.store.html.Selector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
 
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpression;
-import javax.xml.xpath.XPathExpressionException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 class ListTradeoffersHandle extends DefaultHandle {
     private final Logger logger = LoggerFactory.getLogger(getClass());
     private final Set<TradeOffer> tradeoffers = new LinkedHashSet<>();
     private final Map<String, Item> imageToItemMapping = new HashMap<>();
-    private static final XPathExpression TRADE_OFFERS_XPATH = XPathHelper.getXpathExpression("//DIV[@class='tradeoffer']");
-    private static final XPathExpression PARTNERID_XPATH = XPathHelper.getXpathExpression("//DIV[@class='tradeoffer_partner']/DIV");
-    private static final XPathExpression QUOTE_XPATH = XPathHelper.getXpathExpression("//DIV[@class='quote']");
+    private static final Selector TRADE_OFFERS = Selector.compile("div[class='tradeoffer']");
+    private static final Selector PARTNERID = Selector.compile("div[class='tradeoffer_partner'] > div");
+    private static final Selector QUOTE = Selector.compile("div[class='quote']");
 
     ListTradeoffersHandle() {
         super();
@@ -47,22 +43,65 @@ class ListTradeoffersHandle extends DefaultHandle {
      */
     @Override
     public void handle(InputStream stream) throws IOException {
-        DOMParser parser = new DOMParser();
-        try {
-            parser.parse(new InputSource(stream));
-            Document document = parser.getDocument();
-            NodeList tradeoffersNode = (NodeList) TRADE_OFFERS_XPATH.evaluate(document, XPathConstants.NODESET);
-            for (int i = 0; i != tradeoffersNode.getLength(); i++) {
-                Node tradeofferNode = tradeoffersNode.item(i);
-                Node partnerNode = (Node) PARTNERID_XPATH.evaluate(tradeofferNode, XPathConstants.NODE);
-                String partnerId = partnerNode.getAttributes().getNamedItem("data-miniprofile").getNodeValue();
-                String offerId = tradeofferNode.getAttributes().getNamedItem("id").getTextContent().replace("tradeofferid_", "");
-                String quote = ((Node) QUOTE_XPATH.evaluate(tradeofferNode, XPathConstants.NODE)).getFirstChild().getTextContent().replace('\u00A0', ' ').trim();
-                tradeoffers.add(new TradeOffer(partnerId, offerId, quote));
+        HtmlTokenizer.parse(new InputStreamReader(stream, StandardCharsets.UTF_8), new OfferExtractor());
+    }
+
+    /**
+     * Reads the partner and the first line of the message of each trade offer
+     * while the page is tokenized
+     */
+    private final class OfferExtractor implements HtmlHandler {
+        private final StringBuilder quote = new StringBuilder();
+        private String offerId;
+        private String partnerId;
+        // Depths of the offer and quote, 0 when not open
+        private int offerDepth;
+        private int quoteDepth;
+        private boolean quoteFound;
+        // Only the text before the first child of the quote is read
+        private boolean quoteChild;
+
+        @Override
+        public void startElement(ElementStack stack) {
+            if (offerDepth == 0) {
+                if (TRADE_OFFERS.matches(stack)) {
+                    offerDepth = stack.size();
+                    offerId = stack.peek().getId();
+                    partnerId = null;
+                    quote.setLength(0);
+                    quoteFound = false;
+                }
+            } else if (quoteDepth != 0) {
+                quoteChild = true;
+            } else if ((partnerId == null) && PARTNERID.matches(stack, offerDepth)) {
+                partnerId = stack.peek().getAttribute("data-miniprofile");
+            } else if (!quoteFound && QUOTE.matches(stack, offerDepth)) {
+                quoteDepth = stack.size();
+                quoteFound = true;
+                quoteChild = false;
             }
         }
-        catch (SAXException | XPathExpressionException e) {
-            logger.error("Error getting items", e);
+
+        @Override
+        public void endElement(ElementStack stack) {
+            int depth = stack.size();
+            if (depth == quoteDepth) {
+                quoteDepth = 0;
+            } else if (depth == offerDepth) {
+                offerDepth = 0;
+                if ((offerId == null) || (partnerId == null)) {
+                    logger.error("Error getting trade offer " + offerId + ", no partner found");
+                    return;
+                }
+                tradeoffers.add(new TradeOffer(partnerId, offerId.replace("tradeofferid_", ""), quote.toString().replace('\u00A0', ' ').trim()));
+            }
+        }
+
+        @Override
+        public void text(char[] chars, int start, int length) {
+            if ((quoteDepth != 0) && !quoteChild) {
+                quote.append(chars, start, length);
+            }
         }
     }
 }
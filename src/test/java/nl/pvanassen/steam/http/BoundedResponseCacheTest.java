@@ -0,0 +1,34 @@
+package nl.pvanassen.steam.http;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BoundedResponseCacheTest {
+
+    private CachedResponse response(int length, long stored) {
+        return new CachedResponse(new BufferedResponse(200, false, new byte[length], null, "\"etag\"", null), stored);
+    }
+
+    @Test
+    public void testSizeBound() {
+        BoundedResponseCache cache = new BoundedResponseCache(10000);
+        for (int i = 0; i < 100; i++) {
+            cache.put("http://steamcommunity.com/market/listings/730/" + i, response(1000, 0));
+        }
+        assertTrue(cache.size() < 10);
+        assertNotNull(cache.get("http://steamcommunity.com/market/listings/730/99"));
+        assertNull(cache.get("http://steamcommunity.com/market/listings/730/0"));
+    }
+
+    @Test
+    public void testFreshness() {
+        CachedResponse cached = response(10, 1000);
+        assertTrue(cached.isFresh(1500, 1000));
+        assertFalse(cached.isFresh(2000, 1000));
+        assertTrue(cached.hasValidator());
+        CachedResponse revalidated = cached.revalidated(2000);
+        assertTrue(revalidated.isFresh(2500, 1000));
+        assertSame(cached.getResponse(), revalidated.getResponse());
+    }
+}
@@ -0,0 +1,80 @@
+package nl.pvanassen.steam.http;
+
+import org.apache.http.client.config.RequestConfig;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class ConnectionPoolsTest {
+
+    @Test
+    public void testSharedPoolReleasedByLastUser() throws IOException {
+        ConnectionPoolConfig config = ConnectionPoolConfig.custom().setMaxTotal(3).build();
+        ConnectionPools.Pool first = ConnectionPools.acquire(config);
+        ConnectionPools.Pool second = ConnectionPools.acquire(config);
+        assertSame(first, second);
+        assertEquals(3, first.getConnectionManager().getMaxTotal());
+        ConnectionPools.release(first);
+        assertSame(first, ConnectionPools.acquire(config));
+        ConnectionPools.release(first);
+        ConnectionPools.release(second);
+        // Closed with the last user, a new one is created
+        ConnectionPools.Pool third = ConnectionPools.acquire(config);
+        assertNotSame(first, third);
+        ConnectionPools.release(third);
+    }
+
+    @Test
+    public void testIsolatedPools() throws IOException {
+        ConnectionPoolConfig config = ConnectionPoolConfig.custom().setShared(false).setMaxPerHost("steamcommunity.com", 2).build();
+        ConnectionPools.Pool first = ConnectionPools.acquire(config);
+        ConnectionPools.Pool second = ConnectionPools.acquire(config);
+        assertNotSame(first, second);
+        ConnectionPools.release(first);
+        ConnectionPools.release(second);
+    }
+
+    @Test
+    public void testTransportCloseReleasesPool() throws IOException {
+        ConnectionPoolConfig config = ConnectionPoolConfig.custom().setMaxTotal(5).build();
+        ConnectionPools.Pool pool = ConnectionPools.acquire(config);
+        try (ApacheTransport transport = new ApacheTransport(config)) {
+            assertEquals(5, transport.getPoolStats().getMax());
+        }
+        // Still used here
+        assertSame(pool, ConnectionPools.acquire(config));
+        ConnectionPools.release(pool);
+        ConnectionPools.release(pool);
+    }
+
+    @Test
+    public void testHttpCloseReleasesPool() throws IOException {
+        ConnectionPoolConfig config = ConnectionPoolConfig.custom().setMaxTotal(7).build();
+        Http http = Http.getInstance("", "", config);
+        ConnectionPools.Pool pool = ConnectionPools.acquire(config);
+        ConnectionPools.release(pool);
+        http.close();
+        // Closed with the last user, a new one is created
+        ConnectionPools.Pool next = ConnectionPools.acquire(config);
+        assertNotSame(pool, next);
+        ConnectionPools.release(next);
+    }
+
+    @Test
+    public void testLimitsSplitWithAsyncClient() throws IOException {
+        ConnectionPoolConfig config = ConnectionPoolConfig.custom().setMaxTotal(6).setShared(false).build();
+        ConnectionPools.Pool pool = ConnectionPools.acquire(config);
+        try {
+            assertEquals(6, pool.getTotalStats().getMax());
+            pool.getAsyncClient(RequestConfig.DEFAULT);
+            assertEquals(3, pool.getConnectionManager().getMaxTotal());
+            // Both together stay within the configured total
+            assertEquals(6, pool.getTotalStats().getMax());
+        }
+        finally {
+            ConnectionPools.release(pool);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package nl.pvanassen.steam.http;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class EndpointClassTest {
+
+    @Test
+    public void testForUrl() {
+        assertEquals(EndpointClass.RECENT, EndpointClass.forUrl("http://steamcommunity.com/market/recent?country=NL&language=english&currency=3"));
+        assertEquals(EndpointClass.LISTINGS_RENDER,
+                EndpointClass.forUrl("http://steamcommunity.com/market/listings/730/Chroma%20Case/render/?query=&start=0&count=10&currency=3"));
+        assertEquals(EndpointClass.ITEM_PAGE, EndpointClass.forUrl("http://steamcommunity.com/market/listings/730/Chroma%20Case"));
+        assertEquals(EndpointClass.SEARCH_RENDER, EndpointClass.forUrl("http://steamcommunity.com/market/search/render/?query=&search_descriptions=0&start=0&count=100"));
+        assertEquals(EndpointClass.HISTORY, EndpointClass.forUrl("http://steamcommunity.com/market/myhistory/render/?query=&search_descriptions=0&start=0&count=1"));
+        assertEquals(EndpointClass.INVENTORY, EndpointClass.forUrl("http://steamcommunity.com/id/someone/inventory/json/730/2/"));
+        assertEquals(EndpointClass.MARKET_PAGE, EndpointClass.forUrl("http://steamcommunity.com/market/"));
+        assertEquals(EndpointClass.OTHER, EndpointClass.forUrl("https://steamcommunity.com/market/buylisting/12345"));
+        assertEquals(EndpointClass.OTHER, EndpointClass.forUrl("not a url"));
+    }
+}
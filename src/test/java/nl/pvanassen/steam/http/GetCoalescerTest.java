@@ -0,0 +1,97 @@
+package nl.pvanassen.steam.http;
+
+import com.google.common.io.ByteStreams;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class GetCoalescerTest {
+
+    @Test
+    public void testConcurrentRequestsShareOneFetch() throws Exception {
+        GetCoalescer coalescer = new GetCoalescer();
+        AtomicInteger fetches = new AtomicInteger();
+        CountDownLatch followerWaiting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingHandle first = new RecordingHandle();
+        RecordingHandle second = new RecordingHandle();
+        CompletableFuture<Void> leader = CompletableFuture.runAsync(() -> coalescer.get("url", first, handle -> {
+            fetches.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+                handle.handle(new ByteArrayInputStream("body".getBytes(StandardCharsets.UTF_8)));
+            }
+            catch (InterruptedException | IOException e) {
+                handle.handleException(e);
+            }
+        }, () -> fail("Leader should not be coalesced")));
+        // Wait until the leader is in flight
+        while (fetches.get() == 0) {
+            Thread.sleep(1);
+        }
+        CompletableFuture<Void> follower = CompletableFuture.runAsync(() -> coalescer.get("url", second, handle -> fetches.incrementAndGet(), followerWaiting::countDown));
+        assertTrue(followerWaiting.await(5, TimeUnit.SECONDS));
+        release.countDown();
+        leader.get(5, TimeUnit.SECONDS);
+        follower.get(5, TimeUnit.SECONDS);
+        assertEquals(1, fetches.get());
+        assertEquals("body", first.body);
+        assertEquals("body", second.body);
+    }
+
+    @Test
+    public void testNothingKeptAfterRequest() {
+        GetCoalescer coalescer = new GetCoalescer();
+        AtomicInteger fetches = new AtomicInteger();
+        for (int i = 0; i < 2; i++) {
+            coalescer.get("url", new RecordingHandle(), handle -> fetches.incrementAndGet(), () -> fail("Not concurrent"));
+        }
+        assertEquals(2, fetches.get());
+    }
+
+    @Test
+    public void testAsyncErrorIsReplayed() throws Exception {
+        GetCoalescer coalescer = new GetCoalescer();
+        RecordingHandle handle = new RecordingHandle();
+        coalescer.getAsync("url", handle, buffer -> {
+            try {
+                buffer.handleError(new ByteArrayInputStream("denied".getBytes(StandardCharsets.UTF_8)));
+            }
+            catch (IOException e) {
+                buffer.handleException(e);
+            }
+            return CompletableFuture.completedFuture(null);
+        }, () -> fail("Not concurrent")).get(5, TimeUnit.SECONDS);
+        assertEquals("denied", handle.error);
+        assertNull(handle.body);
+    }
+
+    private static class RecordingHandle implements Handle {
+        private String body;
+        private String error;
+
+        @Override
+        public void handle(InputStream stream) throws IOException {
+            body = new String(ByteStreams.toByteArray(stream), StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void handleError(InputStream stream) throws IOException {
+            error = new String(ByteStreams.toByteArray(stream), StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void handleException(Exception exception) {
+            error = exception.getMessage();
+        }
+    }
+}
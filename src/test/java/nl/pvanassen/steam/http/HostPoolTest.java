@@ -0,0 +1,92 @@
+package nl.pvanassen.steam.http;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class HostPoolTest {
+
+    private static Multiset<String> picks(HostPool pool, EndpointClass endpointClass, int count) {
+        Multiset<String> picks = HashMultiset.create();
+        for (int i = 0; i < count; i++) {
+            picks.add(pool.select(endpointClass));
+        }
+        return picks;
+    }
+
+    @Test
+    public void testSelectsFastestHost() {
+        HostPool pool = HostPool.of("fast.example.com", "slow.example.com");
+        for (int i = 0; i < 10; i++) {
+            pool.recordResponse("fast.example.com", TimeUnit.MILLISECONDS.toNanos(50), 200);
+            pool.recordResponse("slow.example.com", TimeUnit.MILLISECONDS.toNanos(500), 200);
+        }
+        assertTrue(picks(pool, EndpointClass.ITEM_PAGE, 1000).count("fast.example.com") > 800);
+    }
+
+    @Test
+    public void testLoadSpreadsOverEqualHosts() {
+        HostPool pool = HostPool.of("a.example.com", "b.example.com", "c.example.com");
+        for (int i = 0; i < 10; i++) {
+            for (String host : pool.getHosts()) {
+                pool.recordResponse(host, TimeUnit.MILLISECONDS.toNanos(100), 200);
+            }
+        }
+        Multiset<String> picks = picks(pool, EndpointClass.LISTINGS_RENDER, 3000);
+        for (String host : pool.getHosts()) {
+            assertTrue(host + " picked " + picks.count(host) + " times", (picks.count(host) > 800) && (picks.count(host) < 1200));
+        }
+    }
+
+    @Test
+    public void testThrottledHostIsAvoided() {
+        HostPool pool = HostPool.of("a.example.com", "b.example.com");
+        for (int i = 0; i < 10; i++) {
+            pool.recordResponse("a.example.com", TimeUnit.MILLISECONDS.toNanos(50), i % 2 == 0 ? 429 : 200);
+            pool.recordResponse("b.example.com", TimeUnit.MILLISECONDS.toNanos(100), 200);
+        }
+        assertTrue(picks(pool, EndpointClass.RECENT, 1000).count("b.example.com") > 600);
+    }
+
+    @Test
+    public void testQuarantine() {
+        HostPool pool = HostPool.of("a.example.com", "b.example.com");
+        pool.recordResponse("b.example.com", TimeUnit.MILLISECONDS.toNanos(1000), 200);
+        for (int i = 0; i < 3; i++) {
+            pool.recordIoError("a.example.com");
+        }
+        assertEquals("b.example.com", pool.select(EndpointClass.LISTINGS_RENDER));
+        for (int i = 0; i < 3; i++) {
+            pool.recordIoError("b.example.com");
+        }
+        // Everything is down, pick the host that is back first
+        assertEquals("a.example.com", pool.select(EndpointClass.LISTINGS_RENDER));
+        for (HostStatistics statistics : pool.getStatistics()) {
+            assertTrue(statistics.isQuarantined());
+        }
+    }
+
+    @Test
+    public void testNewHostLooksAverage() {
+        HostPool pool = HostPool.of("fast.example.com", "slow.example.com", "new.example.com");
+        for (int i = 0; i < 10; i++) {
+            pool.recordResponse("fast.example.com", TimeUnit.MILLISECONDS.toNanos(50), 200);
+            pool.recordResponse("slow.example.com", TimeUnit.MILLISECONDS.toNanos(500), 200);
+        }
+        Multiset<String> picks = picks(pool, EndpointClass.ITEM_PAGE, 3000);
+        // Less than a host known to be fast, more than one known to be slow
+        assertTrue(picks.count("fast.example.com") > picks.count("new.example.com"));
+        assertTrue(picks.count("new.example.com") > picks.count("slow.example.com"));
+    }
+
+    @Test
+    public void testUnknownHostIgnored() {
+        HostPool pool = HostPool.of("a.example.com");
+        pool.recordIoError("other.example.com");
+        assertEquals(0, pool.getStatistics().get(0).getRequests());
+    }
+}
@@ -0,0 +1,32 @@
+package nl.pvanassen.steam.http;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBucketsCoverValue() {
+        for (long micros : new long[] { 0, 1, 3, 4, 5, 7, 8, 100, 1000, 123456, 10000000 }) {
+            assertTrue(micros <= LatencyHistogram.upperBoundOf(LatencyHistogram.bucketOf(micros)));
+        }
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+        HistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(100, snapshot.getCount());
+        assertEquals(50.5d, snapshot.getMeanMillis(), 0.01d);
+        // Buckets are a quarter of a power of two wide, so allow 25% error
+        assertEquals(50d, snapshot.getPercentileMillis(50), 12.5d);
+        assertEquals(99d, snapshot.getPercentileMillis(99), 25d);
+        assertTrue(snapshot.getMaxMillis() >= 100d);
+    }
+}
@@ -0,0 +1,34 @@
+package nl.pvanassen.steam.http;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.util.EntityUtils;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class RecordedTransportTest {
+
+    @Test
+    public void testServesRecordings() throws IOException {
+        RecordedTransport transport = new RecordedTransport().addResource("^/market/recent", 200, "/new-listing.json.gz").addResponse("/market/listings/", 429,
+                new byte[0]);
+        HttpResponse recent = transport.execute(new HttpGet("http://steamcommunity.com/market/recent?country=NL"), HttpClientContext.create());
+        assertEquals(200, recent.getStatusLine().getStatusCode());
+        assertTrue(EntityUtils.toString(recent.getEntity()).startsWith("{"));
+        HttpResponse listing = transport.execute(new HttpGet("http://steamcommunity.com/market/listings/730/AK-47"), HttpClientContext.create());
+        assertEquals(429, listing.getStatusLine().getStatusCode());
+        HttpResponse unknown = transport.execute(new HttpGet("http://steamcommunity.com/market/"), HttpClientContext.create());
+        assertEquals(404, unknown.getStatusLine().getStatusCode());
+        assertEquals(3, transport.getServed());
+        assertEquals(0, transport.getPoolStats().getLeased());
+    }
+
+    @Test(expected = IOException.class)
+    public void testMissingResource() throws IOException {
+        new RecordedTransport().addResource("/", 200, "/does-not-exist.json.gz");
+    }
+}
@@ -0,0 +1,100 @@
+package nl.pvanassen.steam.http;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class RequestSchedulerTest {
+    private static final String HOST = "steamcommunity.com";
+
+    @Test
+    public void testBuyIsNeverQueued() {
+        RequestScheduler scheduler = new RequestScheduler(1, false);
+        assertTrue(scheduler.schedule(HOST, RequestLane.BUY).isDone());
+        assertEquals(1, scheduler.getStatistics().get(RequestLane.BUY).getDispatched());
+    }
+
+    @Test
+    public void testWeightedShare() {
+        RequestScheduler scheduler = new RequestScheduler(1, false);
+        for (int i = 0; i < 100; i++) {
+            scheduler.schedule(HOST, RequestLane.BACKGROUND);
+            scheduler.schedule(HOST, RequestLane.NEW_LISTINGS);
+        }
+        Map<RequestLane, Integer> served = new EnumMap<>(RequestLane.class);
+        for (int i = 0; i < 90; i++) {
+            served.merge(scheduler.dispatchNext(HOST), 1, Integer::sum);
+        }
+        assertEquals(80, served.get(RequestLane.NEW_LISTINGS).intValue());
+        assertEquals(10, served.get(RequestLane.BACKGROUND).intValue());
+        assertEquals(90, scheduler.getStatistics().get(RequestLane.BACKGROUND).getDepth());
+    }
+
+    @Test
+    public void testNewRequestOvertakesCrawl() {
+        RequestScheduler scheduler = new RequestScheduler(1, false);
+        for (int i = 0; i < 50; i++) {
+            scheduler.schedule(HOST, RequestLane.BACKGROUND);
+        }
+        for (int i = 0; i < 20; i++) {
+            assertEquals(RequestLane.BACKGROUND, scheduler.dispatchNext(HOST));
+        }
+        // The idle lane did not build up credit, but it is next
+        CompletableFuture<Void> recent = scheduler.schedule(HOST, RequestLane.NEW_LISTINGS);
+        assertEquals(RequestLane.NEW_LISTINGS, scheduler.dispatchNext(HOST));
+        assertTrue(recent.isDone());
+        assertEquals(RequestLane.BACKGROUND, scheduler.dispatchNext(HOST));
+        assertNull(new RequestScheduler(1, false).dispatchNext(HOST));
+    }
+
+    @Test
+    public void testHostsHaveTheirOwnBudget() {
+        RequestScheduler scheduler = new RequestScheduler(1, false);
+        scheduler.schedule("a.example.com", RequestLane.BACKGROUND);
+        CompletableFuture<Void> other = scheduler.schedule("b.example.com", RequestLane.BACKGROUND);
+        assertEquals(RequestLane.BACKGROUND, scheduler.dispatchNext("b.example.com"));
+        assertTrue(other.isDone());
+        assertEquals(1, scheduler.getStatistics().get(RequestLane.BACKGROUND).getDepth());
+    }
+
+    @Test
+    public void testSaturatedBackgroundDoesNotDelayNewListings() throws Exception {
+        RequestScheduler scheduler = new RequestScheduler(20, true);
+        try {
+            List<CompletableFuture<Void>> crawl = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                crawl.add(scheduler.schedule(HOST, RequestLane.BACKGROUND));
+            }
+            // Let the crawl use the budget for a while
+            crawl.get(5).get(5, TimeUnit.SECONDS);
+            long start = System.nanoTime();
+            scheduler.schedule(HOST, RequestLane.NEW_LISTINGS).get(5, TimeUnit.SECONDS);
+            long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            // At most a permit or two at 20 per second, not the 200 queued
+            assertTrue("Waited " + waited + " ms", waited < 500);
+            assertTrue(scheduler.getStatistics().get(RequestLane.BACKGROUND).getDepth() > 150);
+        }
+        finally {
+            scheduler.stop();
+        }
+    }
+
+    @Test
+    public void testSetBudget() {
+        RequestScheduler scheduler = new RequestScheduler(10, false);
+        scheduler.setBudget(2);
+        assertEquals(2, scheduler.getBudget(), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidBudget() {
+        new RequestScheduler(1, false).setBudget(0);
+    }
+}
@@ -0,0 +1,38 @@
+package nl.pvanassen.steam.http;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RequestTrackerTest {
+
+    @After
+    public void tearDown() {
+        RequestTracker.setLeakDiagnostics(false);
+    }
+
+    @Test
+    public void testTracking() {
+        RequestTracker tracker = new RequestTracker();
+        long first = tracker.start("GET", "http://steamcommunity.com/market/");
+        long second = tracker.start("GET", "http://steamcommunity.com/market/");
+        assertNotEquals(first, second);
+        assertEquals(2, tracker.getInFlightCount());
+        assertNull("No stack trace without leak diagnostics", tracker.getInFlight().get(0).getOrigin());
+        tracker.finish(first);
+        // Finishing twice should not count twice
+        tracker.finish(first);
+        assertEquals(1, tracker.getInFlightCount());
+        assertEquals(2, tracker.getStarted());
+        assertEquals(1, tracker.getCompleted());
+    }
+
+    @Test
+    public void testLeakDiagnostics() {
+        RequestTracker.setLeakDiagnostics(true);
+        RequestTracker tracker = new RequestTracker();
+        tracker.start("GET", "http://steamcommunity.com/market/");
+        assertNotNull(tracker.getInFlight().get(0).getOrigin());
+    }
+}
@@ -0,0 +1,165 @@
+package nl.pvanassen.steam.http;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.util.EntityUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class ResponseArchiveTest {
+    private Path directory;
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("archive");
+        file = directory.resolve("responses.arc");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file.resolveSibling("responses.arc.idx"));
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(directory);
+    }
+
+    @Test
+    public void testAppendAndReopen() throws IOException {
+        try (ResponseArchive archive = ResponseArchive.open(file)) {
+            archive.append("GET", "http://steamcommunity.com/market/recent", 200, "application/json", "{\"a\":1}".getBytes(StandardCharsets.UTF_8));
+            archive.append("POST", "http://steamcommunity.com/market/buylisting/1", 502, null, new byte[0]);
+        }
+        try (ResponseArchive archive = ResponseArchive.open(file)) {
+            assertEquals(2, archive.getEntries().size());
+            ArchiveEntry first = archive.getEntries().get(0);
+            assertEquals("GET", first.getMethod());
+            assertEquals("application/json", first.getContentType());
+            assertEquals("{\"a\":1}", new String(archive.readBody(first), StandardCharsets.UTF_8));
+            assertEquals(502, archive.getEntries().get(1).getStatusCode());
+            assertEquals("", archive.getEntries().get(1).getContentType());
+            archive.append("GET", "http://steamcommunity.com/market/", 200, null, new byte[] { 1, 2, 3 });
+        }
+        // Without the index the archive is scanned
+        Files.delete(file.resolveSibling("responses.arc.idx"));
+        try (ResponseArchive archive = ResponseArchive.open(file)) {
+            assertEquals(3, archive.getEntries().size());
+            assertArrayEquals(new byte[] { 1, 2, 3 }, archive.readBody(archive.getEntries().get(2)));
+        }
+    }
+
+    @Test
+    public void testRecordAndReplay() throws IOException {
+        RecordedTransport recorded = new RecordedTransport().addResource("^/market/recent", 200, "/new-listing.json.gz");
+        String body;
+        try (ResponseArchive archive = ResponseArchive.open(file)) {
+            RecordingTransport recording = new RecordingTransport(recorded, archive);
+            body = EntityUtils.toString(recording.execute(new HttpGet("http://steamcommunity.com/market/recent?country=NL"), HttpClientContext.create()).getEntity());
+            recording.execute(new HttpGet("http://steamcommunity.com/market/"), HttpClientContext.create());
+            assertEquals(2, archive.getEntries().size());
+        }
+        try (ResponseArchive archive = ResponseArchive.open(file)) {
+            ReplayTransport replay = new ReplayTransport(archive);
+            // The host is ignored
+            HttpResponse recent = replay.execute(new HttpGet("http://other.host/market/recent?country=NL"), HttpClientContext.create());
+            assertEquals(200, recent.getStatusLine().getStatusCode());
+            assertEquals(body, EntityUtils.toString(recent.getEntity()));
+            assertEquals(404, replay.execute(new HttpGet("http://steamcommunity.com/market/"), HttpClientContext.create()).getStatusLine().getStatusCode());
+            assertEquals(404, replay.execute(new HttpGet("http://steamcommunity.com/unknown"), HttpClientContext.create()).getStatusLine().getStatusCode());
+            assertEquals(2, replay.getServed());
+            assertEquals(1, replay.getUnmatched());
+        }
+    }
+
+    @Test
+    public void testTornIndexEntry() throws IOException {
+        Path indexFile = file.resolveSibling("responses.arc.idx");
+        try (ResponseArchive archive = ResponseArchive.open(file)) {
+            archive.append("GET", "http://steamcommunity.com/market/recent", 200, null, new byte[] { 1 });
+        }
+        long indexSize = Files.size(indexFile);
+        // Half an entry at the end of the index
+        Files.write(indexFile, new byte[] { 0, 0, 0 }, java.nio.file.StandardOpenOption.APPEND);
+        try (ResponseArchive archive = ResponseArchive.open(file)) {
+            assertEquals(1, archive.getEntries().size());
+            assertEquals(indexSize, Files.size(indexFile));
+            archive.append("GET", "http://steamcommunity.com/market/", 200, null, new byte[] { 2 });
+        }
+        try (ResponseArchive archive = ResponseArchive.open(file)) {
+            assertEquals(2, archive.getEntries().size());
+            assertArrayEquals(new byte[] { 2 }, archive.readBody(archive.getEntries().get(1)));
+        }
+    }
+
+    @Test
+    public void testIndexBehindArchive() throws IOException {
+        Path indexFile = file.resolveSibling("responses.arc.idx");
+        long indexSize;
+        try (ResponseArchive archive = ResponseArchive.open(file)) {
+            archive.append("GET", "http://steamcommunity.com/market/recent", 200, null, new byte[] { 1 });
+            indexSize = Files.size(indexFile);
+            archive.append("GET", "http://steamcommunity.com/market/", 200, null, new byte[] { 2 });
+        }
+        // The last index entry was never written
+        try (java.nio.channels.FileChannel channel = java.nio.channels.FileChannel.open(indexFile, java.nio.file.StandardOpenOption.WRITE)) {
+            channel.truncate(indexSize);
+        }
+        try (ResponseArchive archive = ResponseArchive.open(file)) {
+            assertEquals(2, archive.getEntries().size());
+            assertArrayEquals(new byte[] { 2 }, archive.readBody(archive.getEntries().get(1)));
+        }
+    }
+
+
+    @Test
+    public void testGarbageAfterLastRecord() throws IOException {
+        long size;
+        try (ResponseArchive archive = ResponseArchive.open(file)) {
+            archive.append("GET", "http://steamcommunity.com/market/recent", 200, null, new byte[] { 1 });
+            size = Files.size(file);
+        }
+        Files.delete(file.resolveSibling("responses.arc.idx"));
+        // A negative length, as left behind by a damaged disk
+        Files.write(file, new byte[] { -1, -1, -1, -3, 0, 0, 0, 0 }, java.nio.file.StandardOpenOption.APPEND);
+        try (ResponseArchive archive = ResponseArchive.open(file)) {
+            assertEquals(1, archive.getEntries().size());
+            assertEquals(size, Files.size(file));
+        }
+    }
+
+    @Test
+    public void testDamagedRecordBody() throws IOException {
+        byte[] body = new byte[4096];
+        new java.util.Random(42).nextBytes(body);
+        long first;
+        long second;
+        try (ResponseArchive archive = ResponseArchive.open(file)) {
+            archive.append("GET", "http://steamcommunity.com/market/recent", 200, null, new byte[] { 1 });
+            first = Files.size(file);
+            archive.append("GET", "http://steamcommunity.com/market/", 200, "text/html", body);
+            second = Files.size(file);
+        }
+        Files.delete(file.resolveSibling("responses.arc.idx"));
+        try (java.nio.channels.FileChannel channel = java.nio.channels.FileChannel.open(file, java.nio.file.StandardOpenOption.READ,
+                java.nio.file.StandardOpenOption.WRITE)) {
+            java.nio.ByteBuffer value = java.nio.ByteBuffer.allocate(1);
+            long position = (first + second) / 2;
+            channel.read(value, position);
+            value.put(0, (byte) (value.get(0) ^ 0x55));
+            value.rewind();
+            channel.write(value, position);
+        }
+        try (ResponseArchive archive = ResponseArchive.open(file)) {
+            assertEquals(1, archive.getEntries().size());
+            assertEquals(first, Files.size(file));
+        }
+    }
+}
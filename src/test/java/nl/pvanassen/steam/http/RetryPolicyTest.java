@@ -0,0 +1,52 @@
+package nl.pvanassen.steam.http;
+
+import nl.pvanassen.steam.error.RetriesExhaustedException;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class RetryPolicyTest {
+
+    @Test
+    public void testBackoffGrowsAndIsCapped() {
+        RetryPolicy policy = RetryPolicy.custom().setInitialBackoff(100, TimeUnit.MILLISECONDS).setMaxBackoff(1, TimeUnit.SECONDS).build();
+        assertEquals(50, policy.backoffMillis(1, 0d));
+        assertEquals(100, policy.backoffMillis(1, 1d));
+        assertEquals(200, policy.backoffMillis(2, 1d));
+        assertEquals(1000, policy.backoffMillis(10, 1d));
+        assertEquals(1000, policy.backoffMillis(100, 1d));
+    }
+
+    @Test
+    public void testBudget() {
+        RetryPolicy policy = RetryPolicy.custom().setMaxAttempts(3).setInitialBackoff(1, TimeUnit.MILLISECONDS).setMaxBackoff(1, TimeUnit.MILLISECONDS).build();
+        RetryBudget budget = policy.newBudget();
+        assertTrue(budget.nextDelayMillis(0) >= 0);
+        // Retry-After wins over the computed delay
+        assertEquals(20, budget.nextDelayMillis(20));
+        assertEquals(-1, budget.nextDelayMillis(0));
+        assertEquals(3, budget.getAttempts());
+    }
+
+    @Test(expected = RetriesExhaustedException.class)
+    public void testBackOffExhausted() {
+        RetryPolicy.custom().setMaxAttempts(1).build().newBudget().backOff("test", 0, null);
+    }
+
+    @Test
+    public void testElapsedLimit() {
+        RetryPolicy policy = RetryPolicy.custom().setMaxElapsed(1, TimeUnit.SECONDS).build();
+        assertEquals(-1, policy.newBudget().nextDelayMillis(TimeUnit.MINUTES.toMillis(1)));
+    }
+
+    @Test
+    public void testParseRetryAfter() {
+        assertEquals(0, RetryPolicy.parseRetryAfter(null, 0));
+        assertEquals(0, RetryPolicy.parseRetryAfter("soon", 0));
+        assertEquals(120000, RetryPolicy.parseRetryAfter(" 120 ", 0));
+        assertEquals(0, RetryPolicy.parseRetryAfter("-5", 0));
+        assertEquals(10000, RetryPolicy.parseRetryAfter("Sun, 06 Nov 1994 08:49:37 GMT", 784111767000L));
+    }
+}
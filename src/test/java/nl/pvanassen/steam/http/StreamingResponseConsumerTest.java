@@ -0,0 +1,129 @@
+package nl.pvanassen.steam.http;
+
+import com.google.common.io.CharStreams;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.protocol.BasicHttpContext;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class StreamingResponseConsumerTest {
+    private static final IOControl IO_CONTROL = new IOControl() {
+        @Override
+        public void requestInput() {
+        }
+
+        @Override
+        public void suspendInput() {
+        }
+
+        @Override
+        public void requestOutput() {
+        }
+
+        @Override
+        public void suspendOutput() {
+        }
+
+        @Override
+        public void shutdown() {
+        }
+    };
+
+    private final AtomicReference<HttpResponse> passed = new AtomicReference<>();
+    private final AtomicReference<Exception> failure = new AtomicReference<>();
+    private final StreamingResponseConsumer consumer = new StreamingResponseConsumer(new FutureCallback<HttpResponse>() {
+        @Override
+        public void completed(HttpResponse result) {
+            assertNull(passed.getAndSet(result));
+        }
+
+        @Override
+        public void failed(Exception exception) {
+            failure.set(exception);
+        }
+
+        @Override
+        public void cancelled() {
+            fail("Not cancelled");
+        }
+    });
+
+    private static ContentDecoder decoder(String content) {
+        ByteBuffer data = ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+        return new ContentDecoder() {
+            @Override
+            public int read(ByteBuffer dst) {
+                if (!data.hasRemaining()) {
+                    return -1;
+                }
+                int count = Math.min(dst.remaining(), data.remaining());
+                for (int i = 0; i < count; i++) {
+                    dst.put(data.get());
+                }
+                return count;
+            }
+
+            @Override
+            public boolean isCompleted() {
+                return !data.hasRemaining();
+            }
+        };
+    }
+
+    private static HttpResponse response(long length) {
+        BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        if (length >= 0) {
+            BasicHttpEntity entity = new BasicHttpEntity();
+            entity.setContentLength(length);
+            response.setEntity(entity);
+        }
+        return response;
+    }
+
+    @Test
+    public void testPassedOnBeforeTheBody() throws Exception {
+        consumer.responseReceived(response(5));
+        HttpResponse response = passed.get();
+        assertNotNull(response);
+        assertEquals(5, response.getEntity().getContentLength());
+        consumer.consumeContent(decoder("hello"), IO_CONTROL);
+        consumer.responseCompleted(new BasicHttpContext());
+        consumer.getClientCallback().completed(consumer.getResult());
+        try (InputStream stream = response.getEntity().getContent()) {
+            assertEquals("hello", CharStreams.toString(new InputStreamReader(stream, StandardCharsets.UTF_8)));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testFailureWhileStreaming() throws Exception {
+        consumer.responseReceived(response(5));
+        consumer.getClientCallback().failed(new IOException("Connection reset"));
+        assertNull(failure.get());
+        try (InputStream stream = passed.get().getEntity().getContent()) {
+            stream.read();
+        }
+    }
+
+    @Test
+    public void testWithoutEntity() throws Exception {
+        consumer.responseReceived(response(-1));
+        assertNull(passed.get());
+        consumer.responseCompleted(new BasicHttpContext());
+        consumer.getClientCallback().completed(consumer.getResult());
+        assertEquals(200, passed.get().getStatusLine().getStatusCode());
+    }
+}
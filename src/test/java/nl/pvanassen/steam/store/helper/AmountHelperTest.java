@@ -0,0 +1,57 @@
+package nl.pvanassen.steam.store.helper;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+
+public class AmountHelperTest {
+
+    @Test
+    public void testEuro() {
+        assertEquals(39, AmountHelper.getAmount("0,39€"));
+        assertEquals(39, AmountHelper.getAmount("\n\t\t0,39&#8364; \t"));
+        assertEquals(30245, AmountHelper.getAmount("302,45&#8364; "));
+        assertEquals(100, AmountHelper.getAmount("1,--€"));
+        assertEquals(0, AmountHelper.getAmount("0,--€"));
+        assertEquals(123456, AmountHelper.getAmount("1.234,56€"));
+    }
+
+    @Test
+    public void testOtherCurrencies() {
+        assertEquals(3, AmountHelper.getAmount("$0.03"));
+        assertEquals(123456, AmountHelper.getAmount("$1,234.56 USD"));
+        assertEquals(1523, AmountHelper.getAmount("15,23 pуб."));
+        assertEquals(1500, AmountHelper.getAmount("15 pуб."));
+        assertEquals(123450, AmountHelper.getAmount("1 234,5 pуб."));
+        assertEquals(500, AmountHelper.getAmount("£5"));
+    }
+
+    @Test
+    public void testNetPrice() {
+        assertEquals(141, AmountHelper.getAmount("1,62€\n\t\t\t\t\t\n\t\t\t\t\t\t(1,41€)\n"));
+        assertEquals(8, AmountHelper.getAmount("$0.10 ($0.08)"));
+    }
+
+    @Test
+    public void testRanges() {
+        String text = "Price: 12,34€; fee 0,01€";
+        assertEquals(1234, AmountHelper.getAmount(text, 0, text.indexOf(';')));
+        assertEquals(1, AmountHelper.getAmount(text, text.indexOf("fee"), text.length()));
+        byte[] bytes = "x 1 234,56 pуб. x".getBytes(StandardCharsets.UTF_8);
+        assertEquals(123456, AmountHelper.getAmount(bytes, 1, bytes.length));
+        bytes = "1\u00a0234,56 pуб.".getBytes(StandardCharsets.UTF_8);
+        assertEquals(123456, AmountHelper.getAmount(bytes, 0, bytes.length));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testNoAmount() {
+        AmountHelper.getAmount("Sold!");
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testTooLarge() {
+        AmountHelper.getAmount("99999999999€");
+    }
+}
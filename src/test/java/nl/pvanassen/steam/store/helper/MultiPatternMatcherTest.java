@@ -0,0 +1,55 @@
+package nl.pvanassen.steam.store.helper;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MultiPatternMatcherTest {
+
+    private static List<String> scan(MultiPatternMatcher matcher, String text) {
+        List<String> found = new ArrayList<>();
+        int state = MultiPatternMatcher.START;
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < bytes.length; i++) {
+            state = matcher.next(state, bytes[i]);
+            int matches = matcher.matches(state);
+            for (int pattern = 0; pattern < 32; pattern++) {
+                if ((matches & (1 << pattern)) != 0) {
+                    found.add(pattern + "@" + i);
+                }
+            }
+        }
+        return found;
+    }
+
+    @Test
+    public void testOverlappingPatterns() {
+        MultiPatternMatcher matcher = MultiPatternMatcher.of("he", "she", "his", "hers");
+        assertEquals(Arrays.asList("0@3", "1@3", "3@5"), scan(matcher, "ushers"));
+        assertEquals(Arrays.asList("2@2"), scan(matcher, "his"));
+    }
+
+    @Test
+    public void testRestartsAfterPartialMatch() {
+        MultiPatternMatcher matcher = MultiPatternMatcher.of("line1", "g_rgListingInfo");
+        assertEquals(Arrays.asList("0@7"), scan(matcher, "linline1"));
+        assertEquals(Arrays.asList("1@18"), scan(matcher, "var g_rgListingInfo = {"));
+        assertTrue(scan(matcher, "line g_rgListing").isEmpty());
+    }
+
+    @Test
+    public void testNonAscii() {
+        MultiPatternMatcher matcher = MultiPatternMatcher.of("€");
+        assertEquals(Arrays.asList("0@6"), scan(matcher, "0,39€"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyPattern() {
+        MultiPatternMatcher.of("");
+    }
+}
@@ -0,0 +1,54 @@
+package nl.pvanassen.steam.store.helper;
+
+import nl.pvanassen.steam.error.SteamException;
+import org.junit.Test;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+
+import static org.junit.Assert.*;
+
+public class UrlNameHelperTest {
+
+    private static String legacy(String urlName) throws UnsupportedEncodingException {
+        return URLEncoder.encode(URLDecoder.decode(urlName, "UTF-8"), "UTF-8").replace("+", "%20");
+    }
+
+    @Test
+    public void testSameAsDecodeEncode() throws UnsupportedEncodingException {
+        String[] names = { "Sticker%20Capsule", "Sticker Capsule", "Sticker+Capsule", "AK-47%20%7C%20Redline%20%28Field-Tested%29",
+                "AK-47 | Redline (Field-Tested)", "ak-47%20%7c%20redline", "%E2%98%85%20Karambit", "★ Karambit", "StatTrak™ M4A1-S",
+                "a%2Bb", "%41%42c", "440-Mann%20Co.%20Supply%20Crate%20Key", "*_.-", "ÿ€𝄞", "",
+                "caf%c3%a9", "caf%C3%A9", "café", "%e2%84%a2", "a+%E2%84%A2", "%E2%84%a2 ™", "%F0%9D%84%9E" };
+        for (String name : names) {
+            assertEquals(name, legacy(name), UrlNameHelper.getUrlName(name));
+        }
+    }
+
+    @Test
+    public void testUniformUnchanged() {
+        String name = new String("AK-47%20%7C%20Redline");
+        assertSame(name, UrlNameHelper.canonicalize(name));
+    }
+
+    @Test
+    public void testInterned() {
+        String first = UrlNameHelper.getUrlName("Operation Breakout Weapon Case");
+        String second = UrlNameHelper.getUrlName(new String("Operation%20Breakout%20Weapon%20Case"));
+        assertEquals("Operation%20Breakout%20Weapon%20Case", first);
+        assertSame(first, second);
+    }
+
+    @Test
+    public void testIllegalEscape() {
+        for (String name : new String[] { "100%", "a%2", "a%zz" }) {
+            try {
+                UrlNameHelper.getUrlName(name);
+                fail("Expected an error for " + name);
+            } catch (SteamException e) {
+                // Expected
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package nl.pvanassen.steam.store.html;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class HtmlTokenizerTest {
+    private static class Recorder implements HtmlHandler {
+        private final List<String> events = new ArrayList<>();
+        private final StringBuilder text = new StringBuilder();
+
+        @Override
+        public void startElement(ElementStack stack) {
+            flush();
+            Element element = stack.peek();
+            String id = element.getId();
+            events.add("<" + element.getName() + (id == null ? "" : "#" + id) + "@" + stack.size());
+        }
+
+        @Override
+        public void endElement(ElementStack stack) {
+            flush();
+            events.add("/" + stack.peek().getName() + "@" + stack.size());
+        }
+
+        @Override
+        public void text(char[] chars, int start, int length) {
+            text.append(chars, start, length);
+        }
+
+        private void flush() {
+            if (text.length() > 0) {
+                events.add("'" + text + "'");
+                text.setLength(0);
+            }
+        }
+    }
+
+    private static List<String> parse(String html) throws IOException {
+        Recorder recorder = new Recorder();
+        HtmlTokenizer.parse(new StringReader(html), recorder);
+        recorder.flush();
+        return recorder.events;
+    }
+
+    @Test
+    public void testElementsAndText() throws IOException {
+        assertEquals("[<div#a@1, 'x', <span@2, 'y', /span@2, /div@1]", parse("<DIV id=\"a\">x<span>y</span></div>").toString());
+    }
+
+    @Test
+    public void testVoidAndSelfClosing() throws IOException {
+        assertEquals("[<div@1, <br@2, /br@2, <img@2, /img@2, <span@2, /span@2, 'a', /div@1]", parse("<div><br><img src=x /><span/>a</div>").toString());
+    }
+
+    @Test
+    public void testLenientClosing() throws IOException {
+        // Stray end tags are ignored, a parent end tag closes its open children
+        assertEquals("[<div@1, <span@2, 'a', /span@2, /div@1]", parse("<div></p><span>a</div>").toString());
+        assertEquals("[<ul@1, <li@2, 'a', /li@2, <li@2, 'b', /li@2, /ul@1]", parse("<ul><li>a<li>b</ul>").toString());
+        assertEquals("[<div@1, <b@2, 'x', /b@2, /div@1]", parse("<div><b>x").toString());
+    }
+
+    @Test
+    public void testSkippedMarkup() throws IOException {
+        assertEquals("[<p@1, 'ab', /p@1]", parse("<!DOCTYPE html><?xml version=\"1.0\"?><p>a<!-- <div> -->b</p>").toString());
+        assertEquals("[<script@1, 'if (a<b) x = \"</div>\";', /script@1]", parse("<script>if (a<b) x = \"</div>\";</SCRIPT>").toString());
+    }
+
+    @Test
+    public void testEntities() throws IOException {
+        assertEquals("['0,39€ & < € 😀 &unknown; & x']", parse("0,39&#8364; &amp; &lt;&nbsp;&euro; &#x1F600; &unknown; & x").toString());
+    }
+
+    @Test
+    public void testAttributes() throws IOException {
+        final List<Element> elements = new ArrayList<>();
+        HtmlTokenizer.parse(new StringReader("<a HREF='/market?a=1&amp;b=2' class=\"x  market_listing_row y\" disabled data-id=7>"), new Recorder() {
+            @Override
+            public void startElement(ElementStack stack) {
+                elements.add(stack.peek());
+            }
+        });
+        Element element = elements.get(0);
+        assertEquals("/market?a=1&b=2", element.getAttribute("href"));
+        assertEquals("", element.getAttribute("disabled"));
+        assertEquals("7", element.getAttribute("data-id"));
+        assertNull(element.getAttribute("title"));
+        assertTrue(element.hasClass("market_listing_row"));
+        assertTrue(element.hasClass("y"));
+        assertFalse(element.hasClass("market_listing"));
+    }
+}
@@ -0,0 +1,106 @@
+package nl.pvanassen.steam.store.html;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SelectorTest {
+    private static final String HTML = "<div class='section' id='s'><div class='row a'><span class='price'>1</span><p><span class='price'>2</span></p></div>"
+            + "<div class='row'><a href='x' data-id='7'>3</a></div></div><span class='price'>4</span>";
+
+    /**
+     * @return Text of the elements matching the selector within the scope
+     */
+    private static List<String> select(final Selector scope, final Selector selector) throws IOException {
+        final List<String> matches = new ArrayList<>();
+        HtmlTokenizer.parse(new StringReader(HTML), new HtmlHandler() {
+            private int scopeDepth;
+            private TextCapture capture;
+
+            @Override
+            public void startElement(ElementStack stack) {
+                if ((scope != null) && (scopeDepth == 0) && scope.matches(stack)) {
+                    scopeDepth = stack.size();
+                } else if ((capture == null) && ((scope == null) || (scopeDepth != 0)) && selector.matches(stack, scopeDepth)) {
+                    capture = new TextCapture(selector);
+                    capture.startElement(stack, scopeDepth);
+                }
+            }
+
+            @Override
+            public void endElement(ElementStack stack) {
+                if (capture != null) {
+                    capture.endElement(stack);
+                    if (capture.isFound()) {
+                        matches.add(capture.getText());
+                        capture = null;
+                    }
+                }
+                if (stack.size() == scopeDepth) {
+                    scopeDepth = 0;
+                }
+            }
+
+            @Override
+            public void text(char[] chars, int start, int length) {
+                if (capture != null) {
+                    capture.text(chars, start, length);
+                }
+            }
+        });
+        return matches;
+    }
+
+    private static List<String> select(String selector) throws IOException {
+        return select(null, Selector.compile(selector));
+    }
+
+    @Test
+    public void testSimple() throws IOException {
+        assertEquals("[1, 2, 4]", select("span.price").toString());
+        assertEquals("[1, 2, 4]", select("*[class='price']").toString());
+        assertEquals("[12, 3]", select("div.row").toString());
+        assertEquals("[12]", select("div[class='row a']").toString());
+        assertEquals("[3]", select("div[class='row']").toString());
+        assertEquals("[12]", select("div[class*='w a']").toString());
+        assertEquals("[3]", select("[data-id]").toString());
+        assertEquals("[3]", select("a[href=x]").toString());
+        assertEquals("[123]", select("#s").toString());
+    }
+
+    @Test
+    public void testCombinators() throws IOException {
+        assertEquals("[1, 2]", select("div.section span").toString());
+        assertEquals("[1]", select("div.row > span").toString());
+        assertEquals("[2]", select("div.row p>span.price").toString());
+        assertEquals("[3]", select("#s > div > a").toString());
+        assertEquals("[]", select("#s > span").toString());
+    }
+
+    @Test
+    public void testScope() throws IOException {
+        Selector row = Selector.compile("div.row");
+        assertEquals("[1]", select(row, Selector.compile("> span")).toString());
+        assertEquals("[1, 2]", select(row, Selector.compile("span")).toString());
+        // The scope element itself does not match
+        assertEquals("[]", select(row, Selector.compile("div")).toString());
+        assertEquals("[]", select(row, Selector.compile("div.section span")).toString());
+    }
+
+    @Test
+    public void testInvalid() {
+        for (String selector : new String[] { "", "div >", "div[class", "div[class='x]", "div..a", "div[class^='x']" }) {
+            try {
+                Selector.compile(selector);
+                fail("Expected an error for " + selector);
+            } catch (IllegalArgumentException e) {
+                // Expected
+            }
+        }
+    }
+}
@@ -5,7 +5,9 @@ import nl.pvanassen.steam.store.common.InventoryItem;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Calendar;
 import java.util.LinkedList;
 import java.util.List;
@@ -94,4 +96,25 @@ public class InventoryHandleTest {
         calendar.setTimeZone(TimeZone.getTimeZone("GMT"));
         assertEquals(calendar.getTime(), item.getBlockedUntil());
     }
+
+    @Test
+    public void testDescriptionsBeforeInventory() throws IOException {
+        String json = "{\"success\":true,\"rgDescriptions\":{\"1_0\":{\"appid\":\"730\",\"classid\":\"1\",\"instanceid\":\"0\",\"market_hash_name\":\"AK-47\",\"tradable\":1}},"
+                + "\"rgInventory\":{\"10\":{\"id\":\"10\",\"classid\":\"1\",\"instanceid\":\"0\"},\"11\":{\"id\":\"11\",\"classid\":\"2\",\"instanceid\":\"0\"}}}";
+        List<InventoryItem> items = new LinkedList<>();
+        new InventoryHandle(new ObjectMapper(), 2, items::add).handle(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(1, items.size());
+        assertEquals("10", items.get(0).getAssetId());
+        assertTrue(items.get(0).isTradable());
+    }
+
+    @Test
+    public void testEmptyInventory() throws IOException {
+        String json = "{\"success\":true,\"rgInventory\":[],\"rgCurrency\":[],\"rgDescriptions\":[],\"more\":false}";
+        List<InventoryItem> items = new LinkedList<>();
+        new InventoryHandle(new ObjectMapper(), 2, items).handle(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+        assertTrue(items.isEmpty());
+    }
 }
@@ -1,13 +1,15 @@
 package nl.pvanassen.steam.store.item;
 
 import nl.pvanassen.steam.store.StreamHelper;
-import org.codehaus.jackson.JsonNode;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.junit.Test;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.time.Instant;
+import java.util.Date;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
 /**
@@ -27,10 +29,21 @@ public class ListingStatDataPointIteratorTest {
         try (InputStream stream = StreamHelper.getStream("/broken-listing.html")) {
             handle.handle(stream);
         }
-        JsonNode priceHistoryInfo = handle.getPriceHistoryInfo();
-        for (StatDataPoint point : new ListingStatDataPointIterator(priceHistoryInfo)) {
+        PriceHistorySeries priceHistory = handle.getPriceHistory();
+        StatDataPoint first = null;
+        int points = 0;
+        for (StatDataPoint point : new ListingStatDataPointIterator(priceHistory)) {
             assertNotNull(point);
+            if (first == null) {
+                first = point;
+            }
+            points++;
         }
+        assertEquals(priceHistory.size(), points);
+        assertNotNull(first);
+        assertEquals(Date.from(Instant.parse("2014-05-02T01:00:00Z")), first.getDate());
+        assertEquals(251.6, first.getAverage(), 0.0001);
+        assertEquals(3, first.getSales());
 
     }
 
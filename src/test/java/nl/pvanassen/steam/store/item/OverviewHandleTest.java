@@ -49,5 +49,11 @@ public class OverviewHandleTest implements GenericHandle<OverviewItem> {
         assertFalse("Expecting last page", handle.isLastPage());
         assertFalse("Expected empty list", itemList.isEmpty());
         assertEquals("Expected 100 items", 100, itemList.size());
+        OverviewItem first = itemList.get(0);
+        assertEquals("Sticker Capsule", first.getItemName());
+        assertEquals("Counter-Strike: Global Offensive", first.getGameName());
+        assertEquals(501568, first.getCurrentOffers());
+        assertEquals(3, first.getCurrentPrice());
+        assertEquals(730, first.getAppId());
     }
 }
@@ -0,0 +1,76 @@
+package nl.pvanassen.steam.store.item;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PriceHistoryCodecTest {
+
+    private static void assertRoundTrip(long[] hours, double[] medians, int[] volumes) {
+        byte[] block = PriceHistoryCodec.encode(hours, medians, volumes, 0, hours.length);
+        // Decode from the middle of a larger buffer
+        ByteBuffer buffer = ByteBuffer.allocate(block.length + 10);
+        buffer.position(7);
+        buffer.put(block);
+        long[] decodedHours = new long[hours.length + 1];
+        double[] decodedMedians = new double[hours.length + 1];
+        int[] decodedVolumes = new int[hours.length + 1];
+        PriceHistoryCodec.decode(buffer, 7, block.length, hours.length, hours[0], decodedHours, decodedMedians, decodedVolumes, 1);
+        for (int i = 0; i < hours.length; i++) {
+            assertEquals(hours[i], decodedHours[i + 1]);
+            assertEquals(Double.doubleToRawLongBits(medians[i]), Double.doubleToRawLongBits(decodedMedians[i + 1]));
+            assertEquals(volumes[i], decodedVolumes[i + 1]);
+        }
+    }
+
+    @Test
+    public void testRegular() {
+        int size = 2000;
+        long[] hours = new long[size];
+        double[] medians = new double[size];
+        int[] volumes = new int[size];
+        for (int i = 0; i < size; i++) {
+            hours[i] = 390000 + (i < 1000 ? i * 24 : 24000 + i);
+            medians[i] = 250 + (i % 7);
+            volumes[i] = 10 + (i % 3);
+        }
+        assertRoundTrip(hours, medians, volumes);
+        // Mostly repeating values compress to a few bits per point
+        assertTrue(PriceHistoryCodec.encode(hours, medians, volumes, 0, size).length < size * 3);
+    }
+
+    @Test
+    public void testIrregular() {
+        Random random = new Random(42);
+        int size = 5000;
+        long[] hours = new long[size];
+        double[] medians = new double[size];
+        int[] volumes = new int[size];
+        long hour = -10;
+        for (int i = 0; i < size; i++) {
+            hour += 1 + (random.nextInt(10) == 0 ? random.nextInt(100000) : random.nextInt(30));
+            hours[i] = hour;
+            medians[i] = random.nextInt(5) == 0 ? random.nextGaussian() * 1e6 : Math.round(random.nextDouble() * 10000) / 100.0;
+            volumes[i] = random.nextInt(5) == 0 ? random.nextInt(Integer.MAX_VALUE) : random.nextInt(40);
+        }
+        medians[3] = Double.NaN;
+        medians[4] = Double.POSITIVE_INFINITY;
+        medians[5] = -0.0;
+        volumes[6] = 0;
+        volumes[7] = Integer.MAX_VALUE;
+        assertRoundTrip(hours, medians, volumes);
+    }
+
+    @Test
+    public void testSinglePoint() {
+        assertRoundTrip(new long[] { 12 }, new double[] { 1.5 }, new int[] { 3 });
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNotIncreasing() {
+        PriceHistoryCodec.encode(new long[] { 2, 2 }, new double[2], new int[2], 0, 2);
+    }
+}
@@ -0,0 +1,73 @@
+package nl.pvanassen.steam.store.item;
+
+import nl.pvanassen.steam.store.StreamHelper;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+
+import static org.junit.Assert.*;
+
+public class PriceHistorySeriesTest {
+    private static final long HOUR = 3600000L;
+
+    private static long epochHour(String date) {
+        return PriceHistorySeries.epochHour(date.toCharArray(), 0, date.length());
+    }
+
+    private static long hour(String instant) {
+        return Instant.parse(instant).toEpochMilli() / HOUR;
+    }
+
+    @Test
+    public void testDates() {
+        assertEquals(hour("2014-05-02T01:00:00Z"), epochHour("May 02 2014 01: +0"));
+        assertEquals(hour("2014-09-25T23:00:00Z"), epochHour("Sep 25 2014 23: +0"));
+        assertEquals(hour("2012-12-12T01:00:00Z"), epochHour("Wed, 12 Dec 2012 01:00:00 +0000"));
+        assertEquals(hour("2000-02-29T00:00:00Z"), epochHour("feb 29 2000 00: +0"));
+        assertEquals(hour("2016-01-01T00:00:00Z"), epochHour("Jan 01 2016 02: +2"));
+        assertEquals(hour("2015-12-31T22:00:00Z"), epochHour("Thu, 31 Dec 2015 23:30:00 +0130"));
+        assertEquals(hour("1969-12-31T23:00:00Z"), epochHour("Jan 01 1970 00: +1"));
+    }
+
+    @Test
+    public void testInvalidDates() {
+        for (String date : new String[] { "", "Foo 02 2014 01: +0", "May 2014 01: +0", "May 02 2014 24: +0", "May 32 2014 01: +0", "May 02" }) {
+            assertEquals(date, Long.MIN_VALUE, epochHour(date));
+        }
+    }
+
+    @Test
+    public void testParse() throws IOException {
+        String json = "[[\"May 02 2014 01: +0\",2.516,\"3\"],[\"broken\",1,\"1\"],[\"Wed, 12 Dec 2012 01:00:00 +0000\",1.16,\"4719 sold\",[1]],"
+                + "[\"May 04 2014 01: +0\",\"0.5\",7]]";
+        ObjectMapper om = new ObjectMapper();
+        PriceHistorySeries series;
+        try (JsonParser parser = om.getJsonFactory().createJsonParser(json)) {
+            series = PriceHistorySeries.parse(parser);
+        }
+        assertEquals(3, series.size());
+        assertArrayEquals(new long[] { hour("2014-05-02T01:00:00Z"), hour("2012-12-12T01:00:00Z"), hour("2014-05-04T01:00:00Z") }, series.getHours());
+        assertArrayEquals(new double[] { 251.6, 116, 50 }, series.getMedians(), 0.0001);
+        assertArrayEquals(new int[] { 3, 4719, 7 }, series.getVolumes());
+        assertEquals(Instant.parse("2014-05-02T01:00:00Z").toEpochMilli(), series.getTime(0));
+    }
+
+    @Test
+    public void testListingPage() throws IOException {
+        ListingPageScriptHandle handle = new ListingPageScriptHandle(new ObjectMapper());
+        try (InputStream stream = StreamHelper.getStream("/manco.html")) {
+            handle.handle(stream);
+        }
+        PriceHistorySeries series = handle.getPriceHistory();
+        assertNotNull(series);
+        assertTrue(series.size() > 500);
+        assertEquals(hour("2012-12-12T01:00:00Z"), series.getHours()[0]);
+        assertEquals(4719, series.getVolumes()[0]);
+        assertEquals(hour("2014-09-08T05:00:00Z"), series.getHours()[series.size() - 1]);
+        assertEquals(376, series.getVolumes()[series.size() - 1]);
+    }
+}
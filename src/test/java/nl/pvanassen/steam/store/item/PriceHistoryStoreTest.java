@@ -0,0 +1,164 @@
+package nl.pvanassen.steam.store.item;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.Assert.*;
+
+public class PriceHistoryStoreTest {
+    private Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("pricehistory");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path file : stream) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    private static PriceHistorySeries series(long from, int count) {
+        long[] hours = new long[count];
+        double[] medians = new double[count];
+        int[] volumes = new int[count];
+        for (int i = 0; i < count; i++) {
+            hours[i] = from + i;
+            medians[i] = 100 + ((from + i) % 13);
+            volumes[i] = (int) ((from + i) % 5);
+        }
+        return new PriceHistorySeries(hours, medians, volumes);
+    }
+
+    private static void assertPoints(PriceHistorySeries series, long from, int count) {
+        assertEquals(count, series.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(from + i, series.getHours()[i]);
+            assertEquals(100 + ((from + i) % 13), series.getMedians()[i], 0);
+            assertEquals((from + i) % 5, series.getVolumes()[i]);
+        }
+    }
+
+    @Test
+    public void testAppendAndQuery() throws IOException {
+        try (PriceHistoryStore store = PriceHistoryStore.open(directory)) {
+            assertEquals(100, store.append(730, "AK-47 | Redline (Field-Tested)", series(1000, 100)));
+            // Overlapping points are dropped
+            assertEquals(50, store.append(730, "AK-47%20%7C%20Redline%20%28Field-Tested%29", series(1050, 100)));
+            assertEquals(0, store.append(730, "AK-47 | Redline (Field-Tested)", series(1000, 150)));
+            assertEquals(10, store.append(570, "AK-47 | Redline (Field-Tested)", series(5, 10)));
+            assertEquals(2, store.getItemCount());
+            assertEquals(1149, store.getLastHour(730, "AK-47 | Redline (Field-Tested)"));
+            assertEquals(Long.MIN_VALUE, store.getLastHour(440, "Mann Co. Supply Crate Key"));
+
+            assertPoints(store.getHistory(730, "AK-47 | Redline (Field-Tested)"), 1000, 150);
+            assertPoints(store.query(730, "AK-47 | Redline (Field-Tested)", 1090, 1110), 1090, 20);
+            assertPoints(store.query(730, "AK-47 | Redline (Field-Tested)", 1100, 1101), 1100, 1);
+            assertPoints(store.query(730, "AK-47 | Redline (Field-Tested)", 0, 1000), 0, 0);
+            assertPoints(store.query(730, "AK-47 | Redline (Field-Tested)", 1149, 2000), 1149, 1);
+            assertPoints(store.getHistory(570, "AK-47 | Redline (Field-Tested)"), 5, 10);
+            assertEquals(0, store.getHistory(440, "Mann Co. Supply Crate Key").size());
+        }
+    }
+
+    @Test
+    public void testReopen() throws IOException {
+        try (PriceHistoryStore store = PriceHistoryStore.open(directory, 1024)) {
+            for (int i = 0; i < 50; i++) {
+                store.append(730, "Item " + i, series(i * 10, 40));
+                store.append(730, "Item " + i, series((i * 10) + 40, 40));
+            }
+        }
+        assertTrue("Expected more than one segment", Files.exists(directory.resolve("segment-000001.phs")));
+        try (PriceHistoryStore store = PriceHistoryStore.open(directory, 1024)) {
+            assertEquals(50, store.getItemCount());
+            for (int i = 0; i < 50; i++) {
+                assertPoints(store.getHistory(730, "Item " + i), i * 10, 80);
+            }
+            store.append(730, "Item 7", series(150, 5));
+        }
+        try (PriceHistoryStore store = PriceHistoryStore.open(directory, 1024)) {
+            assertPoints(store.getHistory(730, "Item 7"), 70, 85);
+        }
+    }
+
+    @Test
+    public void testHalfWrittenRecord() throws IOException {
+        try (PriceHistoryStore store = PriceHistoryStore.open(directory)) {
+            store.append(753, "Steam Gems", series(0, 30));
+            store.append(753, "Steam Gems", series(30, 30));
+        }
+        Path segment = directory.resolve("segment-000000.phs");
+        long size = Files.size(segment);
+        try (java.nio.channels.FileChannel channel = java.nio.channels.FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 3);
+        }
+        try (PriceHistoryStore store = PriceHistoryStore.open(directory)) {
+            assertPoints(store.getHistory(753, "Steam Gems"), 0, 30);
+            assertEquals(30, store.append(753, "Steam Gems", series(30, 30)));
+        }
+        try (PriceHistoryStore store = PriceHistoryStore.open(directory)) {
+            assertPoints(store.getHistory(753, "Steam Gems"), 0, 60);
+        }
+    }
+
+    @Test
+    public void testDamagedRecord() throws IOException {
+        Path segment = directory.resolve("segment-000000.phs");
+        long first;
+        long second;
+        try (PriceHistoryStore store = PriceHistoryStore.open(directory)) {
+            store.append(753, "Steam Gems", series(0, 30));
+            first = Files.size(segment);
+            store.append(753, "Steam Gems", series(30, 30));
+            second = Files.size(segment);
+            store.append(753, "Steam Gems", series(60, 30));
+        }
+        try (java.nio.channels.FileChannel channel = java.nio.channels.FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            java.nio.ByteBuffer value = java.nio.ByteBuffer.allocate(1);
+            channel.read(value, second - 2);
+            value.put(0, (byte) (value.get(0) ^ 0x10));
+            value.rewind();
+            channel.write(value, second - 2);
+        }
+        try (PriceHistoryStore store = PriceHistoryStore.open(directory)) {
+            // Truncated at the damaged record, the records after it are lost
+            assertPoints(store.getHistory(753, "Steam Gems"), 0, 30);
+            assertEquals(first, Files.size(segment));
+        }
+    }
+
+    @Test
+    public void testUnknownVersion() throws IOException {
+        Path segment = directory.resolve("segment-000000.phs");
+        try (PriceHistoryStore store = PriceHistoryStore.open(directory)) {
+            store.append(753, "Steam Gems", series(0, 30));
+        }
+        long size = Files.size(segment);
+        try (java.nio.channels.FileChannel channel = java.nio.channels.FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            // Version byte of the first record
+            channel.write(java.nio.ByteBuffer.wrap(new byte[] { 9 }), 8);
+        }
+        try {
+            PriceHistoryStore.open(directory).close();
+            fail("Opened a store of an unknown version");
+        }
+        catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("version 9"));
+        }
+        // Nothing was truncated
+        assertEquals(size, Files.size(segment));
+    }
+}
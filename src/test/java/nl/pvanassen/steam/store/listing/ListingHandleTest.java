@@ -0,0 +1,52 @@
+package nl.pvanassen.steam.store.listing;
+
+import nl.pvanassen.steam.store.StreamHelper;
+import nl.pvanassen.steam.store.common.Listing;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ListingHandleTest {
+
+    @Test
+    public void testRecent() throws IOException {
+        List<Listing> listings = new LinkedList<>();
+        new ListingHandle(new ObjectMapper(), listings::add, "NL").handle(StreamHelper.getStream("/listing.json"));
+
+        assertEquals(10, listings.size());
+        Listing listing = listings.stream().filter(l -> "443930322874172198".equals(l.getListingId())).findFirst().get();
+        assertEquals(730, listing.getAppId());
+        assertEquals("eSports%202014%20Summer%20Case", listing.getUrlName());
+        assertEquals(4, listing.getSubTotal());
+        assertEquals("NL", listing.getCountry());
+    }
+
+    @Test
+    public void testRender() throws IOException {
+        List<Listing> listings = new LinkedList<>();
+        new ListingHandle(new ObjectMapper(), listings::add, "NL").handle(StreamHelper.getStream("/listing-page.json"));
+
+        assertEquals(10, listings.size());
+    }
+
+    @Test
+    public void testSoldAndAssetsFirst() throws IOException {
+        String json = "{\"assets\":{\"730\":{\"2\":{\"1\":{\"market_hash_name\":\"AK-47\"},\"2\":{\"market_hash_name\":\"M4\"}}}},"
+                + "\"listinginfo\":{\"10\":{\"listingid\":\"10\",\"price\":0,\"converted_price\":0,\"asset\":{\"appid\":730,\"contextid\":\"2\",\"id\":\"1\"}},"
+                + "\"11\":{\"listingid\":\"11\",\"price\":5,\"converted_price\":5,\"publisher_fee_percent\":\"0.10000000149011612\",\"asset\":{\"appid\":730,\"contextid\":\"2\",\"id\":\"2\"}}}}";
+        List<Listing> listings = new LinkedList<>();
+        new ListingHandle(new ObjectMapper(), listings::add, "NL").handle(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(1, listings.size());
+        assertEquals("11", listings.get(0).getListingId());
+        assertEquals("M4", listings.get(0).getUrlName());
+        assertEquals(0.1, listings.get(0).getPublisherFeePercent(), 0.0001);
+    }
+}
@@ -37,5 +37,13 @@ public class MarketPageHandleTest {
         handle.handle(StreamHelper.getStream("/market-page-with-buy-orders.html"));
         assertNotNull("Expected object", handle.getOutstandings().getMarketPageBuyOrders());
         assertEquals("Expected 198", 198, handle.getOutstandings().getMarketPageBuyOrders().size());
+        assertEquals(17185, handle.getOutstandings().getWallet());
+        MarketPageBuyOrder first = handle.getOutstandings().getMarketPageBuyOrders().get(0);
+        assertEquals("81747285", first.getSteamId());
+        assertEquals(753, first.getAppId());
+        assertEquals(5, first.getPrice());
+        assertEquals(5, first.getQuantity());
+        // Price and quantity are read per buy order
+        assertEquals(7, handle.getOutstandings().getMarketPageBuyOrders().get(1).getPrice());
     }
 }
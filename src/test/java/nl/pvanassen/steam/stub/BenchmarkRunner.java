@@ -0,0 +1,130 @@
+package nl.pvanassen.steam.stub;
+
+import com.google.common.collect.ImmutableSet;
+import nl.pvanassen.steam.http.ConnectionPoolConfig;
+import nl.pvanassen.steam.http.Http;
+import nl.pvanassen.steam.http.HttpOptions;
+import nl.pvanassen.steam.store.buy.SteamBuyService;
+import nl.pvanassen.steam.store.common.BuyOrder;
+import nl.pvanassen.steam.store.common.Item;
+import nl.pvanassen.steam.store.history.SteamHistoryService;
+import nl.pvanassen.steam.store.inventory.SteamInventoryService;
+import nl.pvanassen.steam.store.item.SteamItemService;
+import nl.pvanassen.steam.store.listing.SteamListingService;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test running the services against a {@link StubSteamServer}. Reports
+ * requests per second and latency percentiles per service.
+ * <p>
+ * Arguments: seconds per scenario (default 10), client threads (default 4),
+ * median latency of the stub in milliseconds (default 20), chance of a 429
+ * burst (default 0.01)
+ *
+ * @author Paul van Assen
+ */
+public class BenchmarkRunner {
+    private final int seconds;
+    private final int threads;
+
+    private BenchmarkRunner(int seconds, int threads) {
+        this.seconds = seconds;
+        this.threads = threads;
+    }
+
+    /**
+     * @param args Seconds, threads, median latency and 429 burst chance
+     * @throws Exception If the benchmark fails
+     */
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        double median = args.length > 2 ? Double.parseDouble(args[2]) : 20;
+        double tooManyRequests = args.length > 3 ? Double.parseDouble(args[3]) : 0.01;
+        FaultProfile profile = FaultProfile.custom().setLatency(LatencyDistribution.logNormal(median, 0.5)).setTooManyRequests(tooManyRequests, 3).setRetryAfter(1)
+                .setSlowDrip(0.01, 4096, 5).build();
+        ConnectionPoolConfig poolConfig = ConnectionPoolConfig.custom().setMaxTotal(threads).setDefaultMaxPerRoute(threads).setShared(false).build();
+        try (StubSteamServer server = StubSteamServer.start(profile);
+                Http http = Http.getInstance("sessionid=benchmark", "benchmark", poolConfig,
+                        HttpOptions.custom().setTransport(new StubTransport(server, poolConfig)).build())) {
+            Map<String, Runnable> scenarios = new LinkedHashMap<>();
+            SteamListingService listingService = new SteamListingService(http, "benchmark");
+            SteamItemService itemService = new SteamItemService(http);
+            SteamInventoryService inventoryService = new SteamInventoryService(http, "benchmark", ImmutableSet.of(730));
+            SteamHistoryService historyService = new SteamHistoryService(http);
+            SteamBuyService buyService = new SteamBuyService(http, "benchmark");
+            scenarios.put("recent", () -> listingService.getAsyncNewlyListed(3, "NL", listing -> {}));
+            scenarios.put("listings", () -> listingService.getAsyncListed(new Item(730, "AK-47"), 3, "NL", 0, listing -> {}));
+            scenarios.put("item", () -> itemService.getItem(730, "manco", point -> {}, listing -> {}, buyOrders -> {}, immediateSale -> {}));
+            scenarios.put("inventory", () -> inventoryService.getInventory(730));
+            scenarios.put("history", () -> historyService.getHistory(null));
+            scenarios.put("buy", () -> buyService.buy(new BuyOrder(730, "AK-47", "12345", 10, 4)));
+            BenchmarkRunner runner = new BenchmarkRunner(seconds, threads);
+            for (Map.Entry<String, Runnable> scenario : scenarios.entrySet()) {
+                runner.run(scenario.getKey(), scenario.getValue());
+            }
+            System.out.println("Stub served " + server.getRequests() + " requests, " + server.getTooManyRequests() + " with 429");
+            System.out.println(http.getHttpStatistics());
+        }
+    }
+
+    private void run(String name, Runnable scenario) throws InterruptedException {
+        List<long[]> latencies = new ArrayList<>();
+        long[] errors = new long[threads];
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i != threads; i++) {
+            long[] samples = new long[1 << 16];
+            latencies.add(samples);
+            int thread = i;
+            executor.execute(() -> {
+                int count = 0;
+                while (System.nanoTime() < end && count < samples.length - 1) {
+                    long start = System.nanoTime();
+                    try {
+                        scenario.run();
+                        samples[++count] = System.nanoTime() - start;
+                    }
+                    catch (RuntimeException e) {
+                        errors[thread]++;
+                    }
+                }
+                samples[0] = count;
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(seconds + 60L, TimeUnit.SECONDS);
+        report(name, latencies, Arrays.stream(errors).sum());
+    }
+
+    private void report(String name, List<long[]> latencies, long errors) {
+        int total = 0;
+        for (long[] samples : latencies) {
+            total += (int) samples[0];
+        }
+        long[] all = new long[total];
+        int offset = 0;
+        for (long[] samples : latencies) {
+            System.arraycopy(samples, 1, all, offset, (int) samples[0]);
+            offset += (int) samples[0];
+        }
+        Arrays.sort(all);
+        System.out.printf("%-10s %8.1f req/s  p50 %7.2f ms  p99 %7.2f ms  errors %d%n", name, (double) total / seconds, percentile(all, 0.5), percentile(all, 0.99),
+                errors);
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * quantile))] / 1_000_000d;
+    }
+}
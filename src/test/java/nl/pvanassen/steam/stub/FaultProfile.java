@@ -0,0 +1,150 @@
+package nl.pvanassen.steam.stub;
+
+/**
+ * Faults injected by the {@link StubSteamServer}
+ *
+ * @author Paul van Assen
+ */
+public final class FaultProfile {
+    /**
+     * Profile without any faults
+     */
+    public static final FaultProfile NONE = custom().build();
+
+    private final LatencyDistribution latency;
+    private final double tooManyRequestsProbability;
+    private final int tooManyRequestsBurst;
+    private final int retryAfterSeconds;
+    private final double truncatedProbability;
+    private final double slowDripProbability;
+    private final int slowDripChunkSize;
+    private final long slowDripDelayMillis;
+
+    private FaultProfile(Builder builder) {
+        this.latency = builder.latency;
+        this.tooManyRequestsProbability = builder.tooManyRequestsProbability;
+        this.tooManyRequestsBurst = builder.tooManyRequestsBurst;
+        this.retryAfterSeconds = builder.retryAfterSeconds;
+        this.truncatedProbability = builder.truncatedProbability;
+        this.slowDripProbability = builder.slowDripProbability;
+        this.slowDripChunkSize = builder.slowDripChunkSize;
+        this.slowDripDelayMillis = builder.slowDripDelayMillis;
+    }
+
+    /**
+     * @return A builder for a profile without faults
+     */
+    public static Builder custom() {
+        return new Builder();
+    }
+
+    LatencyDistribution getLatency() {
+        return latency;
+    }
+
+    double getTooManyRequestsProbability() {
+        return tooManyRequestsProbability;
+    }
+
+    int getTooManyRequestsBurst() {
+        return tooManyRequestsBurst;
+    }
+
+    int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    double getTruncatedProbability() {
+        return truncatedProbability;
+    }
+
+    double getSlowDripProbability() {
+        return slowDripProbability;
+    }
+
+    int getSlowDripChunkSize() {
+        return slowDripChunkSize;
+    }
+
+    long getSlowDripDelayMillis() {
+        return slowDripDelayMillis;
+    }
+
+    /**
+     * Builder for a fault profile
+     *
+     * @author Paul van Assen
+     */
+    public static final class Builder {
+        private LatencyDistribution latency = LatencyDistribution.NONE;
+        private double tooManyRequestsProbability;
+        private int tooManyRequestsBurst = 1;
+        private int retryAfterSeconds;
+        private double truncatedProbability;
+        private double slowDripProbability;
+        private int slowDripChunkSize = 1024;
+        private long slowDripDelayMillis = 10;
+
+        private Builder() {
+            super();
+        }
+
+        /**
+         * @param latency Time taken before answering
+         * @return This builder
+         */
+        public Builder setLatency(LatencyDistribution latency) {
+            this.latency = latency;
+            return this;
+        }
+
+        /**
+         * @param probability Chance a request starts a burst of 429 responses
+         * @param burst Number of 429 responses in a burst
+         * @return This builder
+         */
+        public Builder setTooManyRequests(double probability, int burst) {
+            this.tooManyRequestsProbability = probability;
+            this.tooManyRequestsBurst = burst;
+            return this;
+        }
+
+        /**
+         * @param retryAfterSeconds Retry-After sent with a 429, 0 to send none
+         * @return This builder
+         */
+        public Builder setRetryAfter(int retryAfterSeconds) {
+            this.retryAfterSeconds = retryAfterSeconds;
+            return this;
+        }
+
+        /**
+         * @param probability Chance the connection is closed halfway the body
+         * @return This builder
+         */
+        public Builder setTruncated(double probability) {
+            this.truncatedProbability = probability;
+            return this;
+        }
+
+        /**
+         * @param probability Chance the body is sent in small delayed chunks
+         * @param chunkSize Size of a chunk
+         * @param delayMillis Delay between two chunks
+         * @return This builder
+         */
+        public Builder setSlowDrip(double probability, int chunkSize, long delayMillis) {
+            this.slowDripProbability = probability;
+            this.slowDripChunkSize = chunkSize;
+            this.slowDripDelayMillis = delayMillis;
+            return this;
+        }
+
+        /**
+         * @return The profile
+         */
+        public FaultProfile build() {
+            return new FaultProfile(this);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package nl.pvanassen.steam.stub;
+
+import java.util.Random;
+
+/**
+ * Distribution of the time the stub server takes before it answers
+ *
+ * @author Paul van Assen
+ */
+public interface LatencyDistribution {
+    /**
+     * No latency at all
+     */
+    LatencyDistribution NONE = random -> 0;
+
+    /**
+     * @param random Source of randomness
+     * @return Latency in milliseconds
+     */
+    long sample(Random random);
+
+    /**
+     * @param millis Latency of every response
+     * @return A fixed latency
+     */
+    static LatencyDistribution fixed(long millis) {
+        return random -> millis;
+    }
+
+    /**
+     * @param minMillis Minimum latency
+     * @param maxMillis Maximum latency
+     * @return Latency uniformly spread between min and max
+     */
+    static LatencyDistribution uniform(long minMillis, long maxMillis) {
+        return random -> minMillis + (long) (random.nextDouble() * (maxMillis - minMillis));
+    }
+
+    /**
+     * Log-normal latency, a long tail like real network latency
+     *
+     * @param medianMillis Median latency
+     * @param sigma Spread, 0.5 gives a p99 of about three times the median
+     * @return The distribution
+     */
+    static LatencyDistribution logNormal(double medianMillis, double sigma) {
+        return random -> (long) (medianMillis * Math.exp(sigma * random.nextGaussian()));
+    }
+}
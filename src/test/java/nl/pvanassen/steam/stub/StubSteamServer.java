@@ -0,0 +1,209 @@
+package nl.pvanassen.steam.stub;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Embedded http server mimicking the Steam endpoints used by this library,
+ * serving the test fixtures with injected latency and faults
+ *
+ * @author Paul van Assen
+ */
+public class StubSteamServer implements Closeable {
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final FaultProfile profile;
+    private final List<Route> routes = new CopyOnWriteArrayList<>();
+    private final Random random = new Random();
+    private final AtomicInteger burstRemaining = new AtomicInteger();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong tooManyRequests = new AtomicLong();
+    private final AtomicLong truncated = new AtomicLong();
+
+    private StubSteamServer(FaultProfile profile) throws IOException {
+        this.profile = profile;
+        executor = Executors.newCachedThreadPool(new ThreadFactoryBuilder().setDaemon(true).setNameFormat("stub-steam-%d").build());
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        addRoute("^/market/recent", "/listing.json.gz");
+        addRoute("^/market/listings/[^/]+/[^/]+/render", "/listing-page.json.gz");
+        addRoute("^/market/listings/", "/manco.html.gz");
+        addRoute("^/market/search/render", "/overview-ok.json.gz");
+        addRoute("^/market/myhistory/render", "/markethistory.json.gz");
+        addRoute("/inventory/json/", "/inventory.json.gz");
+        addRoute("^/market/buylisting/", "/buyhandle-success.json.gz");
+        addRoute("^/market/?$", "/loaded-marketpage.html.gz");
+    }
+
+    /**
+     * Start a server on a free port of the loopback interface
+     *
+     * @param profile Faults to inject
+     * @return The started server
+     * @throws IOException If the server can not be started
+     */
+    public static StubSteamServer start(FaultProfile profile) throws IOException {
+        StubSteamServer stub = new StubSteamServer(profile);
+        stub.server.start();
+        return stub;
+    }
+
+    /**
+     * Serve a fixture for requests matching the pattern. Routes added later
+     * win over earlier ones.
+     *
+     * @param pathPattern Regular expression searched for in the path
+     * @param resource Gzipped fixture on the classpath
+     * @throws IOException If the fixture can not be read
+     */
+    public final void addRoute(String pathPattern, String resource) throws IOException {
+        try (InputStream stream = new GZIPInputStream(StubSteamServer.class.getResourceAsStream(resource))) {
+            routes.add(0, new Route(Pattern.compile(pathPattern), ByteStreams.toByteArray(stream)));
+        }
+    }
+
+    /**
+     * @return Port the server listens on
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * @return Number of requests received
+     */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * @return Number of 429 responses sent
+     */
+    public long getTooManyRequests() {
+        return tooManyRequests.get();
+    }
+
+    /**
+     * @return Number of responses cut off halfway
+     */
+    public long getTruncated() {
+        return truncated.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try (InputStream requestBody = exchange.getRequestBody()) {
+            ByteStreams.exhaust(requestBody);
+        }
+        try {
+            Thread.sleep(profile.getLatency().sample(random));
+            if (isTooManyRequests()) {
+                tooManyRequests.incrementAndGet();
+                if (profile.getRetryAfterSeconds() > 0) {
+                    exchange.getResponseHeaders().add("Retry-After", Integer.toString(profile.getRetryAfterSeconds()));
+                }
+                exchange.sendResponseHeaders(429, -1);
+                return;
+            }
+            byte[] body = findBody(exchange.getRequestURI().getRawPath());
+            if (body == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            OutputStream out = exchange.getResponseBody();
+            if (random.nextDouble() < profile.getTruncatedProbability()) {
+                truncated.incrementAndGet();
+                out.write(body, 0, body.length / 2);
+                out.flush();
+                // Closing short of the announced length drops the connection
+            } else if (random.nextDouble() < profile.getSlowDripProbability()) {
+                for (int offset = 0; offset < body.length; offset += profile.getSlowDripChunkSize()) {
+                    out.write(body, offset, Math.min(profile.getSlowDripChunkSize(), body.length - offset));
+                    out.flush();
+                    Thread.sleep(profile.getSlowDripDelayMillis());
+                }
+            } else {
+                out.write(body);
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        catch (IOException e) {
+            logger.debug("Client went away", e);
+        }
+        finally {
+            try {
+                exchange.close();
+            }
+            catch (RuntimeException e) {
+                logger.debug("Closing truncated response", e);
+            }
+        }
+    }
+
+    private boolean isTooManyRequests() {
+        while (true) {
+            int remaining = burstRemaining.get();
+            if (remaining == 0) {
+                break;
+            }
+            if (burstRemaining.compareAndSet(remaining, remaining - 1)) {
+                return true;
+            }
+        }
+        if (random.nextDouble() < profile.getTooManyRequestsProbability()) {
+            burstRemaining.set(profile.getTooManyRequestsBurst() - 1);
+            return true;
+        }
+        return false;
+    }
+
+    private byte[] findBody(String path) {
+        for (Route route : routes) {
+            if (route.pattern.matcher(path).find()) {
+                return route.body;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private static class Route {
+        private final Pattern pattern;
+        private final byte[] body;
+
+        private Route(Pattern pattern, byte[] body) {
+            this.pattern = pattern;
+            this.body = body;
+        }
+    }
+}
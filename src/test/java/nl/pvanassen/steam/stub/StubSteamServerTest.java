@@ -0,0 +1,61 @@
+package nl.pvanassen.steam.stub;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+import static org.junit.Assert.*;
+
+public class StubSteamServerTest {
+
+    private static int get(StubSteamServer server, String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + server.getPort() + path).openConnection();
+        try {
+            int status = connection.getResponseCode();
+            if (status == 200) {
+                try (InputStream stream = connection.getInputStream()) {
+                    while (stream.read() != -1) {
+                        // Drain
+                    }
+                }
+            }
+            return status;
+        }
+        finally {
+            connection.disconnect();
+        }
+    }
+
+    @Test
+    public void testRoutes() throws IOException {
+        try (StubSteamServer server = StubSteamServer.start(FaultProfile.NONE)) {
+            assertEquals(200, get(server, "/market/recent?country=NL"));
+            assertEquals(200, get(server, "/market/listings/730/AK-47/render/?start=0"));
+            assertEquals(200, get(server, "/id/benchmark/inventory/json/730/2/"));
+            assertEquals(404, get(server, "/unknown"));
+            assertEquals(4, server.getRequests());
+        }
+    }
+
+    @Test
+    public void testTooManyRequestsBurst() throws IOException {
+        try (StubSteamServer server = StubSteamServer.start(FaultProfile.custom().setTooManyRequests(1, 3).build())) {
+            for (int i = 0; i != 3; i++) {
+                assertEquals(429, get(server, "/market/recent"));
+            }
+            assertEquals(3, server.getTooManyRequests());
+        }
+    }
+
+    @Test
+    public void testLatency() throws IOException {
+        try (StubSteamServer server = StubSteamServer.start(FaultProfile.custom().setLatency(LatencyDistribution.fixed(50)).build())) {
+            long start = System.currentTimeMillis();
+            get(server, "/market/recent");
+            assertTrue(System.currentTimeMillis() - start >= 50);
+        }
+    }
+}
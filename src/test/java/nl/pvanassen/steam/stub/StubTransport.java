@@ -0,0 +1,60 @@
+package nl.pvanassen.steam.stub;
+
+import nl.pvanassen.steam.http.ApacheTransport;
+import nl.pvanassen.steam.http.ConnectionPoolConfig;
+import nl.pvanassen.steam.http.Transport;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.pool.PoolStats;
+
+import java.io.IOException;
+import java.net.URI;
+
+/**
+ * Transport sending all requests to a {@link StubSteamServer} instead of the
+ * host in the url, over real sockets
+ *
+ * @author Paul van Assen
+ */
+public class StubTransport implements Transport {
+    private final Transport delegate;
+    private final String authority;
+
+    /**
+     * @param server Server to send the requests to
+     * @param poolConfig Connection pool to use
+     */
+    public StubTransport(StubSteamServer server, ConnectionPoolConfig poolConfig) {
+        this.delegate = new ApacheTransport(poolConfig);
+        this.authority = "http://127.0.0.1:" + server.getPort();
+    }
+
+    private HttpUriRequest rewrite(HttpUriRequest request) {
+        URI uri = request.getURI();
+        String target = authority + uri.getRawPath() + (uri.getRawQuery() == null ? "" : "?" + uri.getRawQuery());
+        return RequestBuilder.copy(request).setUri(target).build();
+    }
+
+    @Override
+    public HttpResponse execute(HttpUriRequest request, HttpClientContext context) throws IOException {
+        return delegate.execute(rewrite(request), context);
+    }
+
+    @Override
+    public void executeAsync(HttpUriRequest request, HttpClientContext context, FutureCallback<HttpResponse> callback) {
+        delegate.executeAsync(rewrite(request), context, callback);
+    }
+
+    @Override
+    public PoolStats getPoolStats() {
+        return delegate.getPoolStats();
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+}